@@ -3,25 +3,45 @@ package ru.practicum.shareit.booking.client;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.booking.dto.BookingDecisionRequest;
 import ru.practicum.shareit.booking.dto.BookingRequest;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseBodyRelay;
+import ru.practicum.shareit.exception.PaginationParamsException;
 import ru.practicum.shareit.exception.TimeValidationException;
 import ru.practicum.shareit.exception.UnknownStateException;
 import ru.practicum.shareit.validation.PaginationValidator;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class BookingClient extends BaseClient {
 
     private static final String API_PREFIX = "/bookings";
+    private static final long NO_TIMEOUT = -1L;
 
     private final PaginationValidator paginationValidator = new PaginationValidator();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final URI streamUri;
 
     @Autowired
     public BookingClient(@Value("${shareIt-server.url}") String serverUrl, RestTemplateBuilder builder) {
@@ -30,6 +50,7 @@ public class BookingClient extends BaseClient {
                 .requestFactory(HttpComponentsClientHttpRequestFactory::new)
                 .build()
         );
+        streamUri = URI.create(serverUrl + API_PREFIX + "/stream");
     }
 
     public ResponseEntity<Object> add(BookingRequest request, Integer userId) {
@@ -37,18 +58,70 @@ public class BookingClient extends BaseClient {
         return post("", userId, request);
     }
 
+    public ResponseEntity<Object> addAll(List<BookingRequest> requests, Integer userId) {
+        requests.forEach(this::checkBookingRequestTime);
+        return post("/batch", userId, requests);
+    }
+
     public ResponseEntity<Object> approveOrReject(Integer bookingId, Long userId, boolean approved) {
         return patch("/" + bookingId + "?approved=" + approved, userId, null);
     }
 
+    public ResponseEntity<Object> approveOrRejectAll(BookingDecisionRequest request, Long userId) {
+        return patch("/approve", userId, request);
+    }
+
+    public ResponseEntity<Object> getSummary(Long userId) {
+        return get("/summary", userId);
+    }
+
+    public ResponseEntity<Object> getSummaryForItems(Long userId) {
+        return get("/owner/summary", userId);
+    }
+
+    public void export(Long userId, HttpServletResponse response) throws IOException {
+        stream("/export", userId, MediaType.APPLICATION_NDJSON, response);
+    }
+
+    public void exportForItems(Long userId, HttpServletResponse response) throws IOException {
+        stream("/owner/export", userId, MediaType.APPLICATION_NDJSON, response);
+    }
+
+    /**
+     * Opens the status stream on the server and relays its events as they are read. Neither waiting for the server
+     * nor an idle stream holds a thread of the gateway.
+     */
+    public CompletableFuture<ResponseEntity<ResponseBodyEmitter>> stream(Long userId) {
+        HttpRequest request = HttpRequest.newBuilder(streamUri)
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE)
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofPublisher())
+                .thenApply(shareitServerResponse -> {
+                    MediaType mediaType = shareitServerResponse.headers().firstValue(HttpHeaders.CONTENT_TYPE)
+                            .map(MediaType::parseMediaType)
+                            .orElse(MediaType.TEXT_EVENT_STREAM);
+                    ResponseBodyEmitter emitter = new ResponseBodyEmitter(NO_TIMEOUT);
+                    shareitServerResponse.body().subscribe(new ResponseBodyRelay(emitter, mediaType));
+                    return ResponseEntity.status(shareitServerResponse.statusCode())
+                            .contentType(mediaType)
+                            .body(emitter);
+                });
+    }
+
     public ResponseEntity<Object> getById(Integer bookingId, Integer userId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getAllByState(Long userId, String state, Integer from, Integer size) {
+    public ResponseEntity<Object> getAllByState(Long userId, String state, Integer from, Integer size,
+                                             String cursor) {
         state = filterBookingState(state);
-        paginationValidator.validatePaginationParams(from, size);
-        if (from != null && size != null) {
+        paginationValidator.validatePaginationParams(from, size, cursor);
+        if (size == null) {
+            throw new PaginationParamsException("Unpaged bookings are streamed, pagination size cannot be null");
+        }
+        if (from != null) {
             Map<String, Object> params = Map.of(
                     "state", state,
                     "from", from,
@@ -56,13 +129,34 @@ public class BookingClient extends BaseClient {
             );
             return get("?state={state}&from={from}&size={size}", userId, params);
         }
-        return get("?state=" + state, userId);
+        Map<String, Object> params = new HashMap<>();
+        params.put("state", state);
+        params.put("size", size);
+        params.put("cursor", cursor);
+        return get(cursor == null
+                ? "?state={state}&size={size}"
+                : "?state={state}&size={size}&cursor={cursor}", userId, params);
     }
 
-    public ResponseEntity<Object> getAllBookingsForItemsByState(Long userId, String state, Integer from, Integer size) {
+    public void streamAllByState(Long userId, String state, HttpServletResponse response) throws IOException {
+        stream("?state={state}", userId, Map.of("state", filterBookingState(state)), MediaType.APPLICATION_JSON,
+                response);
+    }
+
+    public void streamAllBookingsForItemsByState(Long userId, String state, HttpServletResponse response)
+            throws IOException {
+        stream("/owner?state={state}", userId, Map.of("state", filterBookingState(state)), MediaType.APPLICATION_JSON,
+                response);
+    }
+
+    public ResponseEntity<Object> getAllBookingsForItemsByState(Long userId, String state, Integer from, Integer size,
+                                             String cursor) {
         state = filterBookingState(state);
-        paginationValidator.validatePaginationParams(from, size);
-        if (from != null && size != null) {
+        paginationValidator.validatePaginationParams(from, size, cursor);
+        if (size == null) {
+            throw new PaginationParamsException("Unpaged bookings are streamed, pagination size cannot be null");
+        }
+        if (from != null) {
             Map<String, Object> params = Map.of(
                     "state", state,
                     "from", from,
@@ -70,7 +164,13 @@ public class BookingClient extends BaseClient {
             );
             return get("/owner?state={state}&from={from}&size={size}", userId, params);
         }
-        return get("/owner?state=" + state, userId);
+        Map<String, Object> params = new HashMap<>();
+        params.put("state", state);
+        params.put("size", size);
+        params.put("cursor", cursor);
+        return get(cursor == null
+                ? "/owner?state={state}&size={size}"
+                : "/owner?state={state}&size={size}&cursor={cursor}", userId, params);
     }
 
     private void checkBookingRequestTime(BookingRequest bookingRequest) {
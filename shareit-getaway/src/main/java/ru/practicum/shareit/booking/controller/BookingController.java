@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,11 +14,19 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import ru.practicum.shareit.booking.client.BookingClient;
+import ru.practicum.shareit.booking.dto.BookingDecisionRequest;
 import ru.practicum.shareit.booking.dto.BookingRequest;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/bookings")
@@ -37,6 +46,13 @@ public class BookingController {
         return client.add(request, userId);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<Object> addAll(@RequestBody @NotEmpty @Size(max = 1000) List<@Valid BookingRequest> requests,
+                                         @RequestHeader(X_SHARER_USER_ID) Integer userId) {
+        log.info("POST /bookings/batch, X-Sharer-User-Id={}, size={}", userId, requests.size());
+        return client.addAll(requests, userId);
+    }
+
     @PatchMapping("/{bookingId}")
     public ResponseEntity<Object> approveOrReject(@PathVariable Integer bookingId,
                                                   @RequestHeader(X_SHARER_USER_ID) Long userId,
@@ -45,6 +61,46 @@ public class BookingController {
         return client.approveOrReject(bookingId, userId, approved);
     }
 
+    @PatchMapping("/approve")
+    public ResponseEntity<Object> approveOrRejectAll(@Valid @RequestBody BookingDecisionRequest request,
+                                                     @RequestHeader(X_SHARER_USER_ID) Long userId) {
+        log.info("PATCH /bookings/approve, X-Sharer-User-Id={}", userId);
+        return client.approveOrRejectAll(request, userId);
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<Object> getSummary(@RequestHeader(X_SHARER_USER_ID) Long userId) {
+        log.info("GET /bookings/summary, X-Sharer-User-Id={}", userId);
+        return client.getSummary(userId);
+    }
+
+    @GetMapping("/owner/summary")
+    public ResponseEntity<Object> getSummaryForItems(@RequestHeader(X_SHARER_USER_ID) Long userId) {
+        log.info("GET /bookings/owner/summary, X-Sharer-User-Id={}", userId);
+        return client.getSummaryForItems(userId);
+    }
+
+    @GetMapping("/export")
+    public void export(@RequestHeader(X_SHARER_USER_ID) Long userId, HttpServletResponse response)
+            throws IOException {
+        log.info("GET /bookings/export, X-Sharer-User-Id={}", userId);
+        client.export(userId, response);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportForItems(@RequestHeader(X_SHARER_USER_ID) Long userId, HttpServletResponse response)
+            throws IOException {
+        log.info("GET /bookings/owner/export, X-Sharer-User-Id={}", userId);
+        client.exportForItems(userId, response);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public CompletableFuture<ResponseEntity<ResponseBodyEmitter>> stream(
+            @RequestHeader(X_SHARER_USER_ID) Long userId) {
+        log.info("GET /bookings/stream, X-Sharer-User-Id={}", userId);
+        return client.stream(userId);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<Object> getById(@PathVariable Integer bookingId,
                                           @RequestHeader(X_SHARER_USER_ID) Integer userId) {
@@ -57,15 +113,33 @@ public class BookingController {
     public ResponseEntity<Object> getAllByState(@RequestHeader(X_SHARER_USER_ID) Long userId,
                                                 @RequestParam(value = "state", required = false) String state,
                                                 @RequestParam(value = "from", required = false) @Min(0) Integer from,
-                                                @RequestParam(value = "size", required = false) @Min(1) Integer size) {
-        return client.getAllByState(userId, state, from, size);
+                                                @RequestParam(value = "size", required = false) @Min(1) Integer size,
+                                                @RequestParam(value = "cursor", required = false) String cursor) {
+        return client.getAllByState(userId, state, from, size, cursor);
+    }
+
+    @GetMapping(params = {"!from", "!size", "!cursor"})
+    public void streamAllByState(@RequestHeader(X_SHARER_USER_ID) Long userId,
+                                 @RequestParam(value = "state", required = false) String state,
+                                 HttpServletResponse response) throws IOException {
+        log.info("GET /bookings?state={}, X-Sharer-User-Id={}, streaming", state, userId);
+        client.streamAllByState(userId, state, response);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<Object> getAllBookingsForItemsByState(@RequestHeader(X_SHARER_USER_ID) Long userId,
                                                                 @RequestParam(value = "state", required = false) String state,
                                                                 @RequestParam(value = "from", required = false) @Min(0) Integer from,
-                                                                @RequestParam(value = "size", required = false) @Min(1) Integer size) {
-        return client.getAllBookingsForItemsByState(userId, state, from, size);
+                                                                @RequestParam(value = "size", required = false) @Min(1) Integer size,
+                                                                @RequestParam(value = "cursor", required = false) String cursor) {
+        return client.getAllBookingsForItemsByState(userId, state, from, size, cursor);
+    }
+
+    @GetMapping(value = "/owner", params = {"!from", "!size", "!cursor"})
+    public void streamAllBookingsForItemsByState(@RequestHeader(X_SHARER_USER_ID) Long userId,
+                                                 @RequestParam(value = "state", required = false) String state,
+                                                 HttpServletResponse response) throws IOException {
+        log.info("GET /bookings/owner?state={}, X-Sharer-User-Id={}, streaming", state, userId);
+        client.streamAllBookingsForItemsByState(userId, state, response);
     }
 }
\ No newline at end of file
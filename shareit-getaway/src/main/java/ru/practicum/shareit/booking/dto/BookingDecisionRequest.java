@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Getter
+@Setter
+@EqualsAndHashCode
+public class BookingDecisionRequest {
+
+    @NotEmpty
+    @Size(max = 100)
+    private List<@NotNull Integer> bookingIds;
+
+    @NotNull
+    private Boolean approved;
+}
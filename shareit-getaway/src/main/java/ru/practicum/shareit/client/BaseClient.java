@@ -6,9 +6,12 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -45,6 +48,36 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
+    /**
+     * Copies the body of a GET response to {@code response} while it is read, without buffering it.
+     */
+    protected void stream(String path, long userId, MediaType mediaType, HttpServletResponse response)
+            throws IOException {
+        stream(path, userId, Map.of(), mediaType, response);
+    }
+
+    protected void stream(String path, @Nullable Long userId, Map<String, ?> parameters, MediaType mediaType,
+                          HttpServletResponse response) throws IOException {
+        try {
+            rest.execute(path, HttpMethod.GET, request -> {
+                if (userId != null) {
+                    request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+                }
+                request.getHeaders().setAccept(List.of(mediaType));
+            }, shareitServerResponse -> {
+                response.setStatus(shareitServerResponse.getRawStatusCode());
+                MediaType contentType = shareitServerResponse.getHeaders().getContentType();
+                response.setContentType(String.valueOf(contentType != null ? contentType : mediaType));
+                StreamUtils.copy(shareitServerResponse.getBody(), response.getOutputStream());
+                return null;
+            }, parameters);
+        } catch (HttpStatusCodeException e) {
+            response.setStatus(e.getRawStatusCode());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(e.getResponseBodyAsByteArray());
+        }
+    }
+
     protected <T> ResponseEntity<Object> post(String path, T body) {
         return post(path, null, null, body);
     }
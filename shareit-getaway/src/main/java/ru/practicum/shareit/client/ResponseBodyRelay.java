@@ -0,0 +1,60 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+/**
+ * Writes chunks of a response body read by {@link java.net.http.HttpClient} to an emitter as they arrive, one
+ * chunk at a time, and stops reading once the emitter is closed by either side.
+ */
+public class ResponseBodyRelay implements Flow.Subscriber<List<ByteBuffer>> {
+
+    private final ResponseBodyEmitter emitter;
+    private final MediaType mediaType;
+    private volatile Flow.Subscription subscription;
+
+    public ResponseBodyRelay(ResponseBodyEmitter emitter, MediaType mediaType) {
+        this.emitter = emitter;
+        this.mediaType = mediaType;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> chunks) {
+        try {
+            for (ByteBuffer chunk : chunks) {
+                byte[] bytes = new byte[chunk.remaining()];
+                chunk.get(bytes);
+                emitter.send(bytes, mediaType);
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscription.cancel();
+            emitter.completeWithError(e);
+            return;
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        emitter.completeWithError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        emitter.complete();
+    }
+}
@@ -3,16 +3,22 @@ package ru.practicum.shareit.item.client;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.exception.PaginationParamsException;
 import ru.practicum.shareit.item.dto.CommentRequest;
 import ru.practicum.shareit.item.dto.ItemCreateRequest;
 import ru.practicum.shareit.item.dto.ItemUpdateRequest;
 import ru.practicum.shareit.validation.PaginationValidator;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 @Component
@@ -39,21 +45,42 @@ public class ItemClient extends BaseClient {
         return get("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> getAllForOwner(Long userId, Integer from, Integer size) {
-        paginationValidator.validatePaginationParams(from, size);
-        if (from != null && size != null) {
+    public ResponseEntity<Object> getAvailability(Integer itemId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> params = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", null, params);
+    }
+
+    public ResponseEntity<Object> getAllForOwner(Long userId, Integer from, Integer size, String cursor) {
+        paginationValidator.validatePaginationParams(from, size, cursor);
+        if (size == null) {
+            throw new PaginationParamsException("Unpaged items are streamed, pagination size cannot be null");
+        }
+        if (from != null) {
             Map<String, Object> params = Map.of(
                     "from", from,
                     "size", size
             );
             return get("?from={from}&size={size}", userId, params);
         }
-        return get("", userId);
+        Map<String, Object> params = new HashMap<>();
+        params.put("size", size);
+        params.put("cursor", cursor);
+        return get(cursor == null ? "?size={size}" : "?size={size}&cursor={cursor}", userId, params);
     }
 
-    public ResponseEntity<Object> search(String text, Integer from, Integer size) {
-        paginationValidator.validatePaginationParams(from, size);
-        if (from != null && size != null) {
+    public void streamAllForOwner(Long userId, HttpServletResponse response) throws IOException {
+        stream("", userId, Map.of(), MediaType.APPLICATION_JSON, response);
+    }
+
+    public ResponseEntity<Object> search(String text, Integer from, Integer size, String cursor) {
+        paginationValidator.validatePaginationParams(from, size, cursor);
+        if (size == null) {
+            throw new PaginationParamsException("Unpaged items are streamed, pagination size cannot be null");
+        }
+        if (from != null) {
             Map<String, Object> params = Map.of(
                     "text", text,
                     "from", from,
@@ -61,7 +88,44 @@ public class ItemClient extends BaseClient {
             );
             return get("/search?text={text}&from={from}&size={size}", null, params);
         }
-        return get("/search?text=" + text);
+        Map<String, Object> params = new HashMap<>();
+        params.put("text", text);
+        params.put("size", size);
+        params.put("cursor", cursor);
+        return get(cursor == null
+                ? "/search?text={text}&size={size}"
+                : "/search?text={text}&size={size}&cursor={cursor}", null, params);
+    }
+
+    public void streamSearch(String text, HttpServletResponse response) throws IOException {
+        stream("/search?text={text}", null, Map.of("text", text), MediaType.APPLICATION_JSON, response);
+    }
+
+    public ResponseEntity<Object> fuzzySearch(String text, Integer from, Integer size, String cursor) {
+        paginationValidator.validatePaginationParams(from, size, cursor);
+        if (cursor != null) {
+            throw new PaginationParamsException("Pagination cursor cannot be used with fuzzy search");
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("text", text);
+        params.put("from", from);
+        params.put("size", size);
+        String path = "/search?text={text}&fuzzy=true";
+        if (from != null) {
+            path += "&from={from}";
+        }
+        if (size != null) {
+            path += "&size={size}";
+        }
+        return get(path, null, params);
+    }
+
+    public ResponseEntity<Object> suggest(String prefix, Integer limit) {
+        Map<String, Object> params = Map.of(
+                "prefix", prefix,
+                "limit", limit
+        );
+        return get("/suggest?prefix={prefix}&limit={limit}", null, params);
     }
 
     public ResponseEntity<Object> update(Integer userId, Integer itemId, ItemUpdateRequest request) {
@@ -2,6 +2,7 @@ package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -17,8 +18,12 @@ import ru.practicum.shareit.item.dto.CommentRequest;
 import ru.practicum.shareit.item.dto.ItemCreateRequest;
 import ru.practicum.shareit.item.dto.ItemUpdateRequest;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import java.io.IOException;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/items")
@@ -43,21 +48,57 @@ public class ItemController {
         return client.get(itemId, userId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Object> getAvailability(@PathVariable Integer itemId,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime to) {
+        log.info("GET /items/{}/availability?from={}&to={}", itemId, from, to);
+        return client.getAvailability(itemId, from, to);
+    }
+
     @GetMapping()
     public ResponseEntity<Object> getAllForOwner(@RequestHeader(X_SHARER_USER_ID) Long userId,
                                                  @RequestParam(value = "from", required = false) @Min(0) Integer from,
-                                                 @RequestParam(value = "size", required = false) @Min(1) Integer size) {
+                                                 @RequestParam(value = "size", required = false) @Min(1) Integer size,
+                                                 @RequestParam(value = "cursor", required = false) String cursor) {
         log.info("GET /items X-Sharer-User-Id: {}", userId);
-        return client.getAllForOwner(userId, from, size);
+        return client.getAllForOwner(userId, from, size, cursor);
+
+    }
 
+    @GetMapping(params = {"!from", "!size", "!cursor"})
+    public void streamAllForOwner(@RequestHeader(X_SHARER_USER_ID) Long userId, HttpServletResponse response)
+            throws IOException {
+        log.info("GET /items X-Sharer-User-Id: {}, streaming", userId);
+        client.streamAllForOwner(userId, response);
     }
 
     @GetMapping("/search")
     public ResponseEntity<Object> search(@RequestParam String text,
                                          @RequestParam(value = "from", required = false) @Min(0) Integer from,
-                                         @RequestParam(value = "size", required = false) @Min(1) Integer size) {
+                                         @RequestParam(value = "size", required = false) @Min(1) Integer size,
+                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "fuzzy", defaultValue = "false") boolean fuzzy) {
         log.info("GET /items/search?text={}", text);
-        return client.search(text, from, size);
+        if (fuzzy) {
+            return client.fuzzySearch(text, from, size, cursor);
+        }
+        return client.search(text, from, size, cursor);
+    }
+
+    @GetMapping(value = "/search", params = {"!from", "!size", "!cursor", "fuzzy!=true"})
+    public void streamSearch(@RequestParam String text, HttpServletResponse response) throws IOException {
+        log.info("GET /items/search?text={}, streaming", text);
+        client.streamSearch(text, response);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<Object> suggest(@RequestParam String prefix,
+                                          @RequestParam(value = "limit", defaultValue = "10") @Min(1) @Max(100) Integer limit) {
+        log.info("GET /items/suggest?prefix={}", prefix);
+        return client.suggest(prefix, limit);
     }
 
     @PatchMapping("/{id}")
@@ -3,14 +3,19 @@ package ru.practicum.shareit.request.client;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.exception.PaginationParamsException;
 import ru.practicum.shareit.request.dto.ItemRequestRequest;
 import ru.practicum.shareit.validation.PaginationValidator;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 
 @Component
@@ -37,16 +42,34 @@ public class ItemRequestClient extends BaseClient {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> getAll(Integer from, Integer size, Long userId) {
-        paginationValidator.validatePaginationParams(from, size);
-        if (from != null && size != null) {
+    public ResponseEntity<Object> getAll(Integer from, Integer size, String cursor, Long userId) {
+        paginationValidator.validatePaginationParams(from, size, cursor);
+        if (size == null) {
+            throw new PaginationParamsException("Unpaged requests are streamed, pagination size cannot be null");
+        }
+        if (from != null) {
             Map<String, Object> params = Map.of(
                     "from", from,
                     "size", size
             );
             return get("/all?from={from}&size={size}", userId, params);
         }
-        return get("/all", userId);
+        Map<String, Object> params = new HashMap<>();
+        params.put("size", size);
+        params.put("cursor", cursor);
+        return get(cursor == null ? "/all?size={size}" : "/all?size={size}&cursor={cursor}", userId, params);
+    }
+
+    public void streamAll(Long userId, HttpServletResponse response) throws IOException {
+        stream("/all", userId, MediaType.APPLICATION_JSON, response);
+    }
+
+    public ResponseEntity<Object> getMatches(Integer from, Integer size, Long userId) {
+        Map<String, Object> params = Map.of(
+                "from", from,
+                "size", size
+        );
+        return get("/matches?from={from}&size={size}", userId, params);
     }
 
     public ResponseEntity<Object> getById(Integer requestId, Integer userId) {
@@ -15,8 +15,10 @@ import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.shareit.request.client.ItemRequestClient;
 import ru.practicum.shareit.request.dto.ItemRequestRequest;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/requests")
@@ -45,9 +47,25 @@ public class ItemRequestController {
     @GetMapping("/all")
     public ResponseEntity<Object> getAll(@RequestParam(value = "from", required = false) @Min(0) Integer from,
                                          @RequestParam(value = "size", required = false) @Min(1) Integer size,
+                                         @RequestParam(value = "cursor", required = false) String cursor,
                                          @RequestHeader(X_SHARER_USER_ID) Long userId) {
         log.info("GET /requests/all");
-        return client.getAll(from, size, userId);
+        return client.getAll(from, size, cursor, userId);
+    }
+
+    @GetMapping(value = "/all", params = {"!from", "!size", "!cursor"})
+    public void streamAll(@RequestHeader(X_SHARER_USER_ID) Long userId, HttpServletResponse response)
+            throws IOException {
+        log.info("GET /requests/all, streaming");
+        client.streamAll(userId, response);
+    }
+
+    @GetMapping("/matches")
+    public ResponseEntity<Object> getMatches(@RequestParam(value = "from", defaultValue = "0") @Min(0) Integer from,
+                                             @RequestParam(value = "size", defaultValue = "10") @Min(1) Integer size,
+                                             @RequestHeader(X_SHARER_USER_ID) Long userId) {
+        log.info("GET /requests/matches, X-Sharer-User-Id: {}", userId);
+        return client.getMatches(from, size, userId);
     }
 
     @GetMapping("/{requestId}")
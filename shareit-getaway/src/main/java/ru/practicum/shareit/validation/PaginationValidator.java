@@ -4,9 +4,15 @@ import ru.practicum.shareit.exception.PaginationParamsException;
 
 public class PaginationValidator {
 
-    public void validatePaginationParams(Integer from, Integer size) {
-        if ((from == null && size != null) || (size == null && from != null)) {
+    public void validatePaginationParams(Integer from, Integer size, String cursor) {
+        if (from != null && size == null) {
             throw new PaginationParamsException("One of pagination params cannot be null");
         }
+        if (cursor != null && size == null) {
+            throw new PaginationParamsException("Pagination cursor cannot be used without size");
+        }
+        if (cursor != null && from != null) {
+            throw new PaginationParamsException("Pagination cursor cannot be used with from");
+        }
     }
 }
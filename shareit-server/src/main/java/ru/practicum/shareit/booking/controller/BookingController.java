@@ -2,6 +2,8 @@ package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -12,15 +14,26 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingDecisionRequest;
+import ru.practicum.shareit.booking.dto.BookingDecisionResponse;
 import ru.practicum.shareit.booking.dto.BookingRequest;
 import ru.practicum.shareit.booking.dto.BookingResponse;
+import ru.practicum.shareit.booking.dto.BookingSummaryResponse;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingStatusHub;
+import ru.practicum.shareit.stream.JsonArrayStreamer;
+import ru.practicum.shareit.stream.NdjsonStreamer;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @RestController
@@ -33,7 +46,10 @@ public class BookingController {
     private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
 
     private final BookingService bookingService;
+    private final BookingStatusHub bookingStatusHub;
     private final BookingMapper mapper;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final NdjsonStreamer ndjsonStreamer;
 
     @PostMapping
     public BookingResponse add(@Valid @RequestBody BookingRequest request,
@@ -43,6 +59,18 @@ public class BookingController {
         return mapper.toResponse(bookingService.add(booking));
     }
 
+    @PostMapping("/batch")
+    public List<BookingResponse> addAll(@RequestBody @NotEmpty @Size(max = 1000) List<@Valid BookingRequest> requests,
+                                        @RequestHeader(X_SHARER_USER_ID) Integer userId) {
+        log.info("POST /bookings/batch, X-Sharer-User-Id={}, size={}", userId, requests.size());
+        List<Booking> bookings = requests.stream()
+                .map(request -> mapper.toBooking(request, userId))
+                .collect(Collectors.toList());
+        return bookingService.addAll(bookings).stream()
+                .map(mapper::toResponse)
+                .collect(Collectors.toList());
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingResponse approveOrReject(@PathVariable Integer bookingId,
                                            @RequestHeader(X_SHARER_USER_ID) Integer userId,
@@ -51,6 +79,46 @@ public class BookingController {
         return mapper.toResponse(bookingService.approveBooking(bookingId, userId, approved));
     }
 
+    @PatchMapping("/approve")
+    public List<BookingDecisionResponse> approveOrRejectAll(@Valid @RequestBody BookingDecisionRequest request,
+                                                            @RequestHeader(X_SHARER_USER_ID) Integer userId) {
+        log.info("PATCH /bookings/approve, X-Sharer-User-Id={}", userId);
+        return bookingService.approveBookings(request.getBookingIds(), userId, request.getApproved()).stream()
+                .map(mapper::toDecisionResponse)
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("/summary")
+    public BookingSummaryResponse getSummary(@RequestHeader(X_SHARER_USER_ID) Integer userId) {
+        log.info("GET /bookings/summary, X-Sharer-User-Id={}", userId);
+        return mapper.toSummaryResponse(bookingService.getSummary(userId));
+    }
+
+    @GetMapping("/owner/summary")
+    public BookingSummaryResponse getSummaryForItems(@RequestHeader(X_SHARER_USER_ID) Integer userId) {
+        log.info("GET /bookings/owner/summary, X-Sharer-User-Id={}", userId);
+        return mapper.toSummaryResponse(bookingService.getSummaryForItems(userId));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestHeader(X_SHARER_USER_ID) Integer userId) {
+        log.info("GET /bookings/export, X-Sharer-User-Id={}", userId);
+        return ndjsonStreamer.stream(action -> bookingService.exportAllBookings(userId, action), mapper::toResponse);
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportForItems(@RequestHeader(X_SHARER_USER_ID) Integer userId) {
+        log.info("GET /bookings/owner/export, X-Sharer-User-Id={}", userId);
+        return ndjsonStreamer.stream(action -> bookingService.exportAllBookingsForItems(userId, action),
+                mapper::toResponse);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(X_SHARER_USER_ID) Integer userId) {
+        log.info("GET /bookings/stream, X-Sharer-User-Id={}", userId);
+        return bookingStatusHub.subscribe(userId);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingResponse getById(@PathVariable Integer bookingId,
                                    @RequestHeader(X_SHARER_USER_ID) Integer userId) {
@@ -59,23 +127,54 @@ public class BookingController {
         return mapper.toResponse(bookingService.getById(bookingId, userId));
     }
 
-    @GetMapping()
+    @GetMapping(params = {"from", "size"})
     public Collection<BookingResponse> getAllByState(@RequestHeader(X_SHARER_USER_ID) Integer userId,
                                                      @RequestParam(value = "state", required = false) String state,
-                                                     @RequestParam(value = "from", required = false) @Min(0) Integer from,
-                                                     @RequestParam(value = "size", required = false) @Min(1) Integer size) {
+                                                     @RequestParam(value = "from") @Min(0) Integer from,
+                                                     @RequestParam(value = "size") @Min(1) Integer size) {
         return bookingService.getAllBookingsByState(userId, state, from, size).stream()
                 .map(mapper::toResponse)
                 .collect(Collectors.toList());
     }
 
-    @GetMapping("/owner")
+    @GetMapping(params = {"size", "!from"})
+    public ResponseEntity<List<BookingResponse>> getAllByStateAfter(@RequestHeader(X_SHARER_USER_ID) Integer userId,
+                                                                    @RequestParam(value = "state", required = false) String state,
+                                                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                                                    @RequestParam(value = "size") @Min(1) Integer size) {
+        return bookingService.getAllBookingsByStateAfter(userId, state, cursor, size).toResponse(mapper::toResponse);
+    }
+
+    @GetMapping()
+    public ResponseEntity<StreamingResponseBody> streamAllByState(@RequestHeader(X_SHARER_USER_ID) Integer userId,
+                                                                  @RequestParam(value = "state", required = false) String state) {
+        return jsonArrayStreamer.stream(action -> bookingService.streamAllBookingsByState(userId, state, action),
+                mapper::toResponse);
+    }
+
+    @GetMapping(value = "/owner", params = {"from", "size"})
     public Collection<BookingResponse> getAllBookingsForItemsByState(@RequestHeader(X_SHARER_USER_ID) Integer userId,
                                                                      @RequestParam(value = "state", required = false) String state,
-                                                                     @RequestParam(value = "from", required = false) @Min(0) Integer from,
-                                                                     @RequestParam(value = "size", required = false) @Min(1) Integer size) {
+                                                                     @RequestParam(value = "from") @Min(0) Integer from,
+                                                                     @RequestParam(value = "size") @Min(1) Integer size) {
         return bookingService.getAllBookingsForItemsByState(userId, state, from, size).stream()
                 .map(mapper::toResponse)
                 .collect(Collectors.toList());
     }
+
+    @GetMapping(value = "/owner", params = {"size", "!from"})
+    public ResponseEntity<List<BookingResponse>> getAllBookingsForItemsByStateAfter(@RequestHeader(X_SHARER_USER_ID) Integer userId,
+                                                                                    @RequestParam(value = "state", required = false) String state,
+                                                                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                                                                    @RequestParam(value = "size") @Min(1) Integer size) {
+        return bookingService.getAllBookingsForItemsByStateAfter(userId, state, cursor, size)
+                .toResponse(mapper::toResponse);
+    }
+
+    @GetMapping("/owner")
+    public ResponseEntity<StreamingResponseBody> streamAllBookingsForItemsByState(@RequestHeader(X_SHARER_USER_ID) Integer userId,
+                                                                                  @RequestParam(value = "state", required = false) String state) {
+        return jsonArrayStreamer.stream(action -> bookingService.streamAllBookingsForItemsByState(userId, state, action),
+                mapper::toResponse);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BookingDecisionResponse {
+
+    private Integer bookingId;
+    private String status;
+    private String error;
+}
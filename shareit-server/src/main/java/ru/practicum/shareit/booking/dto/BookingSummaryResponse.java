@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+@Getter
+@Setter
+public class BookingSummaryResponse {
+
+    private Map<String, Long> states;
+    private Map<String, Long> statuses;
+}
@@ -0,0 +1,63 @@
+package ru.practicum.shareit.booking.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.user.entity.UserEntity;
+
+import javax.persistence.Column;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.MappedSuperclass;
+import java.time.LocalDateTime;
+
+/**
+ * Columns shared by bookings in the hot table and bookings read through {@link BookingHistoryEntity}.
+ */
+@Setter
+@Getter
+@ToString
+@MappedSuperclass
+public abstract class AbstractBookingEntity {
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDateTime start;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDateTime end;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "item_id", nullable = false)
+    @Fetch(FetchMode.JOIN)
+    private ItemEntity item;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "booker_id", nullable = false)
+    @Fetch(FetchMode.JOIN)
+    private UserEntity booker;
+
+    @Column(name = "owner_id", nullable = false)
+    private Integer itemOwnerId;
+
+    @Enumerated(value = EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private BookingStatus status;
+
+    /**
+     * Only set on insert; afterwards it is changed by bulk updates of the phase scheduler, so saving a booking
+     * loaded before a transition can not move it back.
+     */
+    @Enumerated(value = EnumType.STRING)
+    @Column(name = "phase", nullable = false, updatable = false)
+    private BookingPhase phase;
+
+    public abstract Integer getId();
+}
@@ -0,0 +1,130 @@
+package ru.practicum.shareit.booking.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * Numbers of bookings of a user as booker or as item owner by status and by phase.
+ */
+@Getter
+@Setter
+@ToString
+@Entity
+@NoArgsConstructor
+@IdClass(BookingCounterEntity.Key.class)
+@Table(name = "booking_counters", schema = "public")
+public class BookingCounterEntity {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Id
+    @Enumerated(value = EnumType.STRING)
+    @Column(name = "role", nullable = false)
+    private BookingRole role;
+
+    @Column(name = "waiting_count", nullable = false)
+    private long waiting;
+
+    @Column(name = "approved_count", nullable = false)
+    private long approved;
+
+    @Column(name = "rejected_count", nullable = false)
+    private long rejected;
+
+    @Column(name = "canceled_count", nullable = false)
+    private long canceled;
+
+    @Column(name = "future_count", nullable = false)
+    private long future;
+
+    @Column(name = "current_count", nullable = false)
+    private long current;
+
+    @Column(name = "past_count", nullable = false)
+    private long past;
+
+    public BookingCounterEntity(Integer userId, BookingRole role) {
+        this.userId = userId;
+        this.role = role;
+    }
+
+    public long get(BookingStatus status) {
+        switch (status) {
+            case WAITING:
+                return waiting;
+            case APPROVED:
+                return approved;
+            case REJECTED:
+                return rejected;
+            default:
+                return canceled;
+        }
+    }
+
+    public long get(BookingPhase phase) {
+        switch (phase) {
+            case FUTURE:
+                return future;
+            case CURRENT:
+                return current;
+            default:
+                return past;
+        }
+    }
+
+    public void add(BookingStatus status, long delta) {
+        switch (status) {
+            case WAITING:
+                waiting += delta;
+                break;
+            case APPROVED:
+                approved += delta;
+                break;
+            case REJECTED:
+                rejected += delta;
+                break;
+            default:
+                canceled += delta;
+        }
+    }
+
+    public void add(BookingPhase phase, long delta) {
+        switch (phase) {
+            case FUTURE:
+                future += delta;
+                break;
+            case CURRENT:
+                current += delta;
+                break;
+            default:
+                past += delta;
+        }
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer userId;
+        private BookingRole role;
+    }
+}
@@ -4,57 +4,26 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
-import org.hibernate.annotations.Fetch;
-import org.hibernate.annotations.FetchMode;
-import ru.practicum.shareit.booking.model.BookingStatus;
-import ru.practicum.shareit.item.entity.ItemEntity;
-import ru.practicum.shareit.user.entity.UserEntity;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.persistence.EnumType;
-import javax.persistence.Enumerated;
-import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.JoinColumn;
-import javax.persistence.ManyToOne;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
-import java.time.LocalDateTime;
 
 @Setter
 @Getter
-@ToString
+@ToString(callSuper = true)
 @Entity
-@EqualsAndHashCode(of = "id")
+@EqualsAndHashCode(of = "id", callSuper = false)
 @Table(name = "bookings", schema = "public")
-public class BookingEntity {
+public class BookingEntity extends AbstractBookingEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pk_booking")
-    @SequenceGenerator(name = "pk_booking", schema = "public", sequenceName = "bookings_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "pk_booking", schema = "public", sequenceName = "bookings_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false, updatable = false, unique = true)
     private Integer id;
-
-    @Column(name = "start_date", nullable = false)
-    private LocalDateTime start;
-
-    @Column(name = "end_date", nullable = false)
-    private LocalDateTime end;
-
-    @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "item_id", nullable = false)
-    @Fetch(FetchMode.JOIN)
-    private ItemEntity item;
-
-    @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "booker_id", nullable = false)
-    @Fetch(FetchMode.JOIN)
-    private UserEntity booker;
-
-    @Enumerated(value = EnumType.STRING)
-    @Column(name = "status", nullable = false)
-    private BookingStatus status;
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.booking.entity;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Bookings of the hot table together with archived ones, read through the {@code booking_history} view.
+ * Only states that may include archived bookings are read this way. Pending changes of bookings are not flushed
+ * before the view is queried.
+ */
+@Setter
+@Getter
+@ToString(callSuper = true)
+@Entity
+@Immutable
+@EqualsAndHashCode(of = "id", callSuper = false)
+@Table(name = "booking_history", schema = "public")
+public class BookingHistoryEntity extends AbstractBookingEntity {
+
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    private Integer id;
+}
@@ -2,11 +2,16 @@ package ru.practicum.shareit.booking.mapper;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import ru.practicum.shareit.booking.dto.BookingDecisionResponse;
 import ru.practicum.shareit.booking.dto.BookingRequest;
 import ru.practicum.shareit.booking.dto.BookingResponse;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryResponse;
+import ru.practicum.shareit.booking.entity.AbstractBookingEntity;
 import ru.practicum.shareit.booking.entity.BookingEntity;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingDecision;
+import ru.practicum.shareit.booking.model.BookingSummary;
 
 @Mapper(componentModel = "spring")
 public abstract class BookingMapper {
@@ -15,13 +20,19 @@ public abstract class BookingMapper {
     @Mapping(target = "item.id", source = "request.itemId")
     public abstract Booking toBooking(BookingRequest request, Integer userId);
 
-    public abstract Booking toBooking(BookingEntity bookingEntity);
+    public abstract Booking toBooking(AbstractBookingEntity bookingEntity);
 
     public abstract BookingResponse toResponse(Booking booking);
 
     @Mapping(target = "item.id", source = "booking.item.id")
     @Mapping(target = "booker.id", source = "booking.booker.id")
+    @Mapping(target = "itemOwnerId", source = "booking.item.owner.id")
+    @Mapping(target = "phase", ignore = true)
     public abstract BookingEntity toBookingEntity(Booking booking);
 
-    public abstract BookingShortDto toBookingResponseShort(BookingEntity booking);
+    public abstract BookingShortDto toBookingResponseShort(AbstractBookingEntity booking);
+
+    public abstract BookingDecisionResponse toDecisionResponse(BookingDecision decision);
+
+    public abstract BookingSummaryResponse toSummaryResponse(BookingSummary summary);
 }
\ No newline at end of file
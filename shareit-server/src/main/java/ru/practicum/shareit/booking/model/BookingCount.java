@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Number of bookings with the same booker, item owner, status and phase.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookingCount {
+    private Integer bookerId;
+    private Integer ownerId;
+    private BookingStatus status;
+    private BookingPhase phase;
+    private long count;
+}
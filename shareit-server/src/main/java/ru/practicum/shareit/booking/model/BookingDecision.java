@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingDecision {
+    private Integer bookingId;
+    private BookingStatus status;
+    private String error;
+
+    public BookingDecision(Integer bookingId, BookingStatus status) {
+        this(bookingId, status, null);
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Where the booking period lies relative to the current time. It is stored with the booking, so the CURRENT, PAST
+ * and FUTURE states are equality lookups; {@link ru.practicum.shareit.booking.service.BookingPhaseScheduler}
+ * advances it when bookings start and end.
+ */
+public enum BookingPhase {
+    FUTURE,
+    CURRENT,
+    PAST;
+
+    public static BookingPhase of(LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+        if (now.isBefore(start)) {
+            return FUTURE;
+        }
+        return now.isBefore(end) ? CURRENT : PAST;
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@ToString
+public class BookingSummary {
+    private Map<BookingState, Long> states;
+    private Map<BookingStatus, Long> statuses;
+}
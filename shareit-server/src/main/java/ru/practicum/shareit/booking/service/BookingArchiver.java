@@ -0,0 +1,69 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves past bookings that ended longer than {@code shareit.booking.archive.after} ago from the hot table to the
+ * archive, so indexes of the hot table only cover bookings that can still change. Waiting bookings are never moved.
+ * Bookings are moved in locked batches, each batch is copied and deleted in one transaction. Counters are not
+ * changed, archived bookings are still counted.
+ */
+@Slf4j
+@Component
+public class BookingArchiver {
+
+    static final int BATCH_SIZE = 1000;
+
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration after;
+
+    public BookingArchiver(BookingRepository bookingRepository, TransactionTemplate transactionTemplate,
+                           @Value("${shareit.booking.archive.after:P365D}") Duration after) {
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.after = after;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.archive.interval:PT1H}",
+            initialDelayString = "${shareit.booking.archive.interval:PT1H}")
+    public void archive() {
+        archive(LocalDateTime.now().minus(after));
+    }
+
+    /**
+     * Bookings that end at or after the returned time are still in the hot table.
+     */
+    public LocalDateTime archivedBefore() {
+        return LocalDateTime.now().minus(after);
+    }
+
+    int archive(LocalDateTime endedBefore) {
+        int res = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> {
+                List<Integer> ids = bookingRepository.findIdsToArchiveForUpdate(endedBefore, BATCH_SIZE);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                bookingRepository.copyToArchive(ids);
+                return bookingRepository.deleteAllByIdIn(ids);
+            });
+            res += moved;
+        } while (moved == BATCH_SIZE);
+        if (res > 0) {
+            log.info("Bookings archived: {}", res);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,167 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.entity.BookingCounterEntity;
+import ru.practicum.shareit.booking.entity.BookingEntity;
+import ru.practicum.shareit.booking.model.BookingCount;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingSummary;
+import ru.practicum.shareit.booking.storage.BookingCounterRepository;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the numbers of bookings per user and role up to date, so a summary is read with one primary key lookup.
+ * Every change of bookings has to be reported here inside the transaction that makes it. Changes of a transaction
+ * are summed up per counter and written with one relative update per counter, in a fixed order of counters.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingCounters {
+
+    private static final Comparator<BookingCounterEntity.Key> KEY_ORDER =
+            Comparator.comparing(BookingCounterEntity.Key::getUserId)
+                    .thenComparing(BookingCounterEntity.Key::getRole);
+
+    private final BookingCounterRepository counterRepository;
+
+    public BookingSummary getSummary(Integer userId, BookingRole role) {
+        BookingCounterEntity counter = counterRepository.findById(new BookingCounterEntity.Key(userId, role))
+                .orElseGet(() -> new BookingCounterEntity(userId, role));
+        Map<BookingStatus, Long> statuses = new EnumMap<>(BookingStatus.class);
+        long all = 0;
+        for (BookingStatus status : BookingStatus.values()) {
+            statuses.put(status, counter.get(status));
+            all += counter.get(status);
+        }
+        Map<BookingState, Long> states = new EnumMap<>(BookingState.class);
+        states.put(BookingState.ALL, all);
+        states.put(BookingState.CURRENT, counter.get(BookingPhase.CURRENT));
+        states.put(BookingState.PAST, counter.get(BookingPhase.PAST));
+        states.put(BookingState.FUTURE, counter.get(BookingPhase.FUTURE));
+        states.put(BookingState.WAITING, counter.get(BookingStatus.WAITING));
+        states.put(BookingState.REJECTED, counter.get(BookingStatus.REJECTED));
+
+        BookingSummary summary = new BookingSummary();
+        summary.setStates(states);
+        summary.setStatuses(statuses);
+        return summary;
+    }
+
+    /**
+     * Creates the counters of a new user, so changes of them never have to insert a counter concurrently.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void userAdded(Integer userId) {
+        for (BookingRole role : BookingRole.values()) {
+            counterRepository.createIfAbsent(userId, role.name());
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void added(Collection<BookingEntity> bookings) {
+        Changes changes = new Changes();
+        for (BookingEntity booking : bookings) {
+            changes.of(booking.getBooker().getId(), booking.getItemOwnerId()).forEach(counter -> {
+                counter.add(booking.getStatus(), 1);
+                counter.add(booking.getPhase(), 1);
+            });
+        }
+        apply(changes);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statusChanged(Collection<BookingEntity> bookings, BookingStatus from, BookingStatus to) {
+        Changes changes = new Changes();
+        for (BookingEntity booking : bookings) {
+            changes.of(booking.getBooker().getId(), booking.getItemOwnerId()).forEach(counter -> {
+                counter.add(from, -1);
+                counter.add(to, 1);
+            });
+        }
+        apply(changes);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void phaseChanged(Collection<BookingEntity> bookings, BookingPhase from, BookingPhase to) {
+        Changes changes = new Changes();
+        for (BookingEntity booking : bookings) {
+            changes.of(booking.getBooker().getId(), booking.getItemOwnerId()).forEach(counter -> {
+                counter.add(from, -1);
+                counter.add(to, 1);
+            });
+        }
+        apply(changes);
+    }
+
+    /**
+     * Takes bookings deleted together with a user off the counters of the other side and drops the counters of the
+     * user.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void userRemoved(Integer userId, Collection<BookingCount> counts) {
+        Changes changes = removed(counts);
+        changes.deltas.keySet().removeIf(key -> key.getUserId().equals(userId));
+        apply(changes);
+        counterRepository.deleteAllByUserId(userId);
+    }
+
+    /**
+     * Takes bookings deleted together with an item off the counters of their bookers and the owner.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void itemRemoved(Collection<BookingCount> counts) {
+        apply(removed(counts));
+    }
+
+    private static Changes removed(Collection<BookingCount> counts) {
+        Changes changes = new Changes();
+        for (BookingCount count : counts) {
+            changes.of(count.getBookerId(), count.getOwnerId()).forEach(counter -> {
+                counter.add(count.getStatus(), -count.getCount());
+                counter.add(count.getPhase(), -count.getCount());
+            });
+        }
+        return changes;
+    }
+
+    /**
+     * Counters missing for users created before the counters existed are created on their first change.
+     */
+    private void apply(Changes changes) {
+        for (BookingCounterEntity delta : changes.deltas.values()) {
+            if (counterRepository.add(delta) == 0) {
+                counterRepository.createIfAbsent(delta.getUserId(), delta.getRole().name());
+                counterRepository.add(delta);
+                log.info("Booking counter created for user with id {} as {}", delta.getUserId(), delta.getRole());
+            }
+        }
+    }
+
+    private static final class Changes {
+
+        private final Map<BookingCounterEntity.Key, BookingCounterEntity> deltas = new TreeMap<>(KEY_ORDER);
+
+        private Collection<BookingCounterEntity> of(Integer bookerId, Integer ownerId) {
+            return List.of(delta(bookerId, BookingRole.BOOKER), delta(ownerId, BookingRole.OWNER));
+        }
+
+        private BookingCounterEntity delta(Integer userId, BookingRole role) {
+            return deltas.computeIfAbsent(new BookingCounterEntity.Key(userId, role),
+                    key -> new BookingCounterEntity(userId, role));
+        }
+    }
+}
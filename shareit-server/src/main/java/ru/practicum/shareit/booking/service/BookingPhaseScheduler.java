@@ -0,0 +1,149 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.entity.BookingEntity;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Advances the stored {@link BookingPhase} of bookings. A worker thread sleeps on a delay queue until the nearest
+ * start or end of a booking, moves every booking whose boundary has passed and then looks up the next boundary.
+ * Bookings are moved in locked batches together with the {@link BookingCounters} of their bookers and owners.
+ * Only the nearest boundary is queued: new bookings wake the worker earlier when they start before it, everything
+ * else is found again after each run.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingPhaseScheduler {
+
+    static final Duration RETRY_DELAY = Duration.ofSeconds(10);
+    static final int BATCH_SIZE = 1000;
+
+    private final BookingRepository bookingRepository;
+    private final BookingCounters bookingCounters;
+    private final TransactionTemplate transactionTemplate;
+
+    private final DelayQueue<Wakeup> wakeups = new DelayQueue<>();
+    private volatile Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        worker = new Thread(this::run, "booking-phase-scheduler");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    public void schedule(BookingEntity bookingEntity) {
+        if (bookingEntity.getPhase() == BookingPhase.FUTURE) {
+            schedule(bookingEntity.getStart());
+        } else if (bookingEntity.getPhase() == BookingPhase.CURRENT) {
+            schedule(bookingEntity.getEnd());
+        }
+    }
+
+    void schedule(LocalDateTime at) {
+        Wakeup next = wakeups.peek();
+        if (next == null || at.isBefore(next.at)) {
+            wakeups.add(new Wakeup(at));
+        }
+    }
+
+    /**
+     * Moves bookings that have started or ended by {@code now} and returns the next instant a booking starts or
+     * ends, or null when no booking is waiting for a transition.
+     */
+    LocalDateTime advance(LocalDateTime now) {
+        int started = advance(BookingPhase.FUTURE, BookingPhase.CURRENT, now);
+        int ended = advance(BookingPhase.CURRENT, BookingPhase.PAST, now);
+        if (started > 0 || ended > 0) {
+            log.info("Booking phases advanced: {} started, {} ended", started, ended);
+        }
+        LocalDateTime nextStart = bookingRepository.findFirstStartByPhase(BookingPhase.FUTURE);
+        LocalDateTime nextEnd = bookingRepository.findFirstEndByPhase(BookingPhase.CURRENT);
+        if (nextStart == null || nextEnd != null && nextEnd.isBefore(nextStart)) {
+            return nextEnd;
+        }
+        return nextStart;
+    }
+
+    private int advance(BookingPhase from, BookingPhase to, LocalDateTime now) {
+        int total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> {
+                List<BookingEntity> bookings = from == BookingPhase.FUTURE
+                        ? bookingRepository.findAllStartedForUpdate(from.name(), now, BATCH_SIZE)
+                        : bookingRepository.findAllEndedForUpdate(from.name(), now, BATCH_SIZE);
+                if (!bookings.isEmpty()) {
+                    bookingRepository.updatePhase(bookings.stream()
+                            .map(BookingEntity::getId)
+                            .collect(Collectors.toList()), from, to);
+                    bookingCounters.phaseChanged(bookings, from, to);
+                }
+                return bookings.size();
+            });
+            total += moved;
+        } while (moved == BATCH_SIZE);
+        return total;
+    }
+
+    void run() {
+        wakeups.add(new Wakeup(LocalDateTime.now()));
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                wakeups.take();
+                wakeups.removeIf(wakeup -> wakeup.getDelay(TimeUnit.MILLISECONDS) <= 0);
+                LocalDateTime next = advance(LocalDateTime.now());
+                if (next != null) {
+                    schedule(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.warn("Advancing booking phases failed, retrying in {}", RETRY_DELAY, e);
+                schedule(LocalDateTime.now().plus(RETRY_DELAY));
+            }
+        }
+    }
+
+    private static final class Wakeup implements Delayed {
+
+        private final LocalDateTime at;
+
+        private Wakeup(LocalDateTime at) {
+            this.at = at;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(LocalDateTime.now(), at).toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return at.compareTo(((Wakeup) other).at);
+        }
+    }
+}
@@ -1,17 +1,43 @@
 package ru.practicum.shareit.booking.service;
 
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingDecision;
+import ru.practicum.shareit.booking.model.BookingSummary;
+import ru.practicum.shareit.pagination.CursorPage;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     Booking add(Booking booking);
 
+    List<Booking> addAll(List<Booking> bookings);
+
     Booking approveBooking(Integer bookingId, Integer userId, boolean approve);
 
+    List<BookingDecision> approveBookings(Collection<Integer> bookingIds, Integer userId, boolean approve);
+
+    BookingSummary getSummary(Integer userId);
+
+    BookingSummary getSummaryForItems(Integer userId);
+
     Booking getById(Integer bookingId, Integer userId);
 
     Collection<Booking> getAllBookingsByState(Integer userId, String bookingState, Integer from, Integer size);
 
+    CursorPage<Booking> getAllBookingsByStateAfter(Integer userId, String bookingState, String cursor, int size);
+
+    void streamAllBookingsByState(Integer userId, String bookingState, Consumer<Booking> action);
+
+    void exportAllBookings(Integer userId, Consumer<Booking> action);
+
     Collection<Booking> getAllBookingsForItemsByState(Integer userId, String bookingState, Integer from, Integer size);
+
+    CursorPage<Booking> getAllBookingsForItemsByStateAfter(Integer userId, String bookingState, String cursor,
+                                                           int size);
+
+    void streamAllBookingsForItemsByState(Integer userId, String bookingState, Consumer<Booking> action);
+
+    void exportAllBookingsForItems(Integer userId, Consumer<Booking> action);
 }
\ No newline at end of file
@@ -2,16 +2,33 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.entity.AbstractBookingEntity;
 import ru.practicum.shareit.booking.entity.BookingEntity;
+import ru.practicum.shareit.booking.entity.BookingHistoryEntity;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingDecision;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingSummary;
+import ru.practicum.shareit.booking.storage.BookingHistoryRepository;
+import ru.practicum.shareit.booking.storage.BookingKeysetRepository;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingSpecifications;
+import ru.practicum.shareit.event.model.DomainEventType;
+import ru.practicum.shareit.event.service.DomainEventOutbox;
 import ru.practicum.shareit.exception.DataAlreadyExistsException;
 import ru.practicum.shareit.exception.DataDoesNotExistsException;
 import ru.practicum.shareit.exception.NotAvailableException;
@@ -19,22 +36,46 @@ import ru.practicum.shareit.exception.NotOwnerException;
 import ru.practicum.shareit.exception.RepeatedRequestException;
 import ru.practicum.shareit.item.entity.ItemEntity;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
+import ru.practicum.shareit.stream.EntityStreams;
 import ru.practicum.shareit.user.entity.UserEntity;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class BookingServiceImpl implements BookingService {
 
+    private static final Sort EXPORT_SORT = Sort.by("start").descending().and(Sort.by("id").descending());
+
     private final BookingRepository bookingRepository;
+    private final BookingHistoryRepository bookingHistoryRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final ItemLocks itemLocks;
+    private final BookingPhaseScheduler phaseScheduler;
+    private final BookingCounters bookingCounters;
+    private final DomainEventOutbox domainEventOutbox;
+    private final BookingStatusHub bookingStatusHub;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityStreams entityStreams;
     private final BookingMapper mapper;
 
     @Override
@@ -59,14 +100,114 @@ public class BookingServiceImpl implements BookingService {
                 booking.getBooker().getId(), BookingStatus.WAITING)) {
             throw new DataAlreadyExistsException("Add booking failed, booking request already exists");
         }
+        if (bookingRepository.existsOverlapping(itemEntity.getId(), BookingStatus.APPROVED,
+                booking.getStart(), booking.getEnd())) {
+            throw new NotAvailableException(
+                    String.format("Add booking failed, item with id %d already booked from %s to %s",
+                            itemEntity.getId(), booking.getStart(), booking.getEnd()));
+        }
 
-        BookingEntity res = bookingRepository.save(mapper.toBookingEntity(booking));
+        BookingEntity bookingEntity = mapper.toBookingEntity(booking);
+        bookingEntity.setItemOwnerId(itemEntity.getOwner().getId());
+        bookingEntity.setPhase(BookingPhase.of(booking.getStart(), booking.getEnd(), LocalDateTime.now()));
+        BookingEntity res = transactionTemplate.execute(status -> {
+            BookingEntity saved = bookingRepository.save(bookingEntity);
+            bookingCounters.added(List.of(saved));
+            domainEventOutbox.add(DomainEventType.BOOKING_CREATED, saved.getId(), saved.getItemOwnerId());
+            return saved;
+        });
+        phaseScheduler.schedule(res);
         res.setItem(itemEntity);
         res.setBooker(userEntity);
         log.info("Booking added: {}", res);
         return mapper.toBooking(res);
     }
 
+    /**
+     * Items and bookers of the whole batch are loaded up front and the checks of {@link #add} run against them in
+     * memory, so the bookings are inserted together in JDBC batches.
+     */
+    @Override
+    public List<Booking> addAll(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return List.of();
+        }
+        Set<Integer> itemIds = bookings.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet());
+        Map<Integer, ItemEntity> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(ItemEntity::getId, Function.identity()));
+        Map<Integer, UserEntity> users = userRepository.findAllById(bookings.stream()
+                        .map(booking -> booking.getBooker().getId())
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(UserEntity::getId, Function.identity()));
+        Map<Integer, Set<Integer>> waitingItemIdsByBooker = new HashMap<>();
+        users.keySet().forEach(bookerId -> waitingItemIdsByBooker.put(bookerId, new HashSet<>()));
+        if (!users.isEmpty()) {
+            for (BookingEntity waiting : bookingRepository.findAllByBookerIdInAndItemIdInAndStatus(users.keySet(),
+                    itemIds, BookingStatus.WAITING)) {
+                waitingItemIdsByBooker.get(waiting.getBooker().getId()).add(waiting.getItem().getId());
+            }
+        }
+        Map<Integer, List<BookingEntity>> approvedByItem = findApprovedByItem(itemIds,
+                bookings.stream().map(Booking::getStart).min(Comparator.naturalOrder()).orElseThrow(),
+                bookings.stream().map(Booking::getEnd).max(Comparator.naturalOrder()).orElseThrow());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingEntity> bookingEntities = new ArrayList<>();
+        for (Booking booking : bookings) {
+            ItemEntity itemEntity = items.get(booking.getItem().getId());
+            if (itemEntity == null) {
+                throw new DataDoesNotExistsException(
+                        String.format("Add bookings failed, item with id %d not exists", booking.getItem().getId()));
+            }
+            if (!itemEntity.getAvailable()) {
+                throw new NotAvailableException(
+                        String.format("Add bookings failed, item with id %d not available now", itemEntity.getId()));
+            }
+            UserEntity userEntity = users.get(booking.getBooker().getId());
+            if (userEntity == null) {
+                throw new DataDoesNotExistsException(
+                        String.format("Add bookings failed, user with id %d not exists", booking.getBooker().getId()));
+            }
+            if (itemEntity.getOwner().getId().equals(userEntity.getId())) {
+                throw new DataDoesNotExistsException(
+                        String.format("Add bookings failed, user with id %d is owner", userEntity.getId()));
+            }
+            if (!waitingItemIdsByBooker.get(userEntity.getId()).add(itemEntity.getId())) {
+                throw new DataAlreadyExistsException(
+                        String.format("Add bookings failed, booking request of item with id %d already exists",
+                                itemEntity.getId()));
+            }
+            if (overlaps(approvedByItem.get(itemEntity.getId()), booking.getStart(), booking.getEnd())) {
+                throw new NotAvailableException(
+                        String.format("Add bookings failed, item with id %d already booked from %s to %s",
+                                itemEntity.getId(), booking.getStart(), booking.getEnd()));
+            }
+
+            BookingEntity bookingEntity = mapper.toBookingEntity(booking);
+            bookingEntity.setItem(itemEntity);
+            bookingEntity.setBooker(userEntity);
+            bookingEntity.setItemOwnerId(itemEntity.getOwner().getId());
+            bookingEntity.setPhase(BookingPhase.of(booking.getStart(), booking.getEnd(), now));
+            bookingEntities.add(bookingEntity);
+        }
+
+        List<BookingEntity> saved = transactionTemplate.execute(status -> {
+            List<BookingEntity> res = bookingRepository.saveAll(bookingEntities);
+            bookingCounters.added(res);
+            res.forEach(bookingEntity -> domainEventOutbox.add(DomainEventType.BOOKING_CREATED, bookingEntity.getId(),
+                    bookingEntity.getItemOwnerId()));
+            return res;
+        });
+        saved.forEach(phaseScheduler::schedule);
+        List<Booking> res = saved.stream()
+                .map(mapper::toBooking)
+                .collect(Collectors.toList());
+        log.info("Bookings added: {}", res.size());
+        return res;
+    }
+
     @Override
     public Booking approveBooking(Integer bookingId, Integer userId, boolean approve) {
         BookingEntity bookingEntity = bookingRepository.findById(bookingId).orElseThrow(
@@ -87,18 +228,207 @@ public class BookingServiceImpl implements BookingService {
                     String.format("Approve booking failed, user with id %d not owner", userId));
         }
 
-        if (approve) {
-            bookingEntity.setStatus(BookingStatus.APPROVED);
-        } else {
+        if (!approve) {
+            decideOne(bookingEntity, BookingStatus.REJECTED);
+            bookingStatusHub.statusChanged(List.of(bookingEntity), BookingStatus.REJECTED);
             bookingEntity.setStatus(BookingStatus.REJECTED);
+            return mapper.toBooking(bookingEntity);
+        }
+
+        Integer itemId = bookingEntity.getItem().getId();
+        return itemLocks.withLock(itemId, () -> {
+            String overlapMessage = String.format(
+                    "Approve booking failed, item with id %d already booked from %s to %s",
+                    itemId, bookingEntity.getStart(), bookingEntity.getEnd());
+            if (bookingRepository.existsOverlapping(itemId, BookingStatus.APPROVED,
+                    bookingEntity.getStart(), bookingEntity.getEnd())) {
+                throw new NotAvailableException(overlapMessage);
+            }
+            try {
+                decideOne(bookingEntity, BookingStatus.APPROVED);
+            } catch (DataIntegrityViolationException e) {
+                throw new NotAvailableException(overlapMessage);
+            }
+            bookingStatusHub.statusChanged(List.of(bookingEntity), BookingStatus.APPROVED);
+            bookingEntity.setStatus(BookingStatus.APPROVED);
+            return mapper.toBooking(bookingEntity);
+        });
+    }
+
+    /**
+     * Owner rights are checked for the whole batch with one query and the decided bookings are updated with one
+     * statement. Bookings that can not be decided get an error in their result instead of failing the batch.
+     */
+    @Override
+    public List<BookingDecision> approveBookings(Collection<Integer> bookingIds, Integer userId, boolean approve) {
+        if (!userRepository.existsById(userId)) {
+            throw new DataDoesNotExistsException(
+                    String.format("Approve bookings failed, user with id %d not exists", userId));
+        }
+        Set<Integer> ids = new LinkedHashSet<>(bookingIds);
+        Map<Integer, BookingEntity> owned = bookingRepository.findAllByIdInAndItemOwnerId(ids, userId).stream()
+                .collect(Collectors.toMap(BookingEntity::getId, Function.identity()));
+
+        Map<Integer, BookingDecision> decisions = new LinkedHashMap<>();
+        List<BookingEntity> waiting = new ArrayList<>();
+        for (Integer id : ids) {
+            BookingEntity bookingEntity = owned.get(id);
+            if (bookingEntity == null) {
+                decisions.put(id, new BookingDecision(id, null,
+                        String.format("Booking with id %d not exists or user with id %d not owner", id, userId)));
+            } else if (!bookingEntity.getStatus().equals(BookingStatus.WAITING)) {
+                decisions.put(id, new BookingDecision(id, bookingEntity.getStatus(),
+                        String.format("Booking with id %d already %s", id,
+                                bookingEntity.getStatus().name().toLowerCase())));
+            } else {
+                decisions.put(id, null);
+                waiting.add(bookingEntity);
+            }
+        }
+
+        if (!approve) {
+            decide(waiting, BookingStatus.REJECTED, decisions);
+        } else if (!waiting.isEmpty()) {
+            Set<Integer> itemIds = waiting.stream()
+                    .map(bookingEntity -> bookingEntity.getItem().getId())
+                    .collect(Collectors.toSet());
+            itemLocks.withLocks(itemIds, () -> {
+                approveNotOverlapping(waiting, itemIds, decisions);
+                return null;
+            });
+        }
+        log.info("Bookings decided by user with id {}: {}", userId, decisions.values());
+        return new ArrayList<>(decisions.values());
+    }
+
+    private void approveNotOverlapping(List<BookingEntity> waiting, Set<Integer> itemIds,
+                                       Map<Integer, BookingDecision> decisions) {
+        LocalDateTime from = waiting.stream().map(BookingEntity::getStart).min(Comparator.naturalOrder()).get();
+        LocalDateTime to = waiting.stream().map(BookingEntity::getEnd).max(Comparator.naturalOrder()).get();
+        Map<Integer, List<BookingEntity>> approvedByItem = findApprovedByItem(itemIds, from, to);
+
+        List<BookingEntity> accepted = new ArrayList<>();
+        for (BookingEntity bookingEntity : waiting) {
+            Integer itemId = bookingEntity.getItem().getId();
+            List<BookingEntity> approved = approvedByItem.computeIfAbsent(itemId, id -> new ArrayList<>());
+            if (overlaps(approved, bookingEntity.getStart(), bookingEntity.getEnd())) {
+                decisions.put(bookingEntity.getId(), new BookingDecision(bookingEntity.getId(), BookingStatus.WAITING,
+                        String.format("Item with id %d already booked from %s to %s",
+                                itemId, bookingEntity.getStart(), bookingEntity.getEnd())));
+            } else {
+                approved.add(bookingEntity);
+                accepted.add(bookingEntity);
+            }
+        }
+        try {
+            decide(accepted, BookingStatus.APPROVED, decisions);
+        } catch (DataIntegrityViolationException e) {
+            // an overlapping booking was approved elsewhere; find out which ones by approving them one by one
+            for (BookingEntity bookingEntity : accepted) {
+                try {
+                    decide(List.of(bookingEntity), BookingStatus.APPROVED, decisions);
+                } catch (DataIntegrityViolationException overlap) {
+                    decisions.put(bookingEntity.getId(), new BookingDecision(bookingEntity.getId(),
+                            BookingStatus.WAITING, String.format("Item with id %d already booked from %s to %s",
+                            bookingEntity.getItem().getId(), bookingEntity.getStart(), bookingEntity.getEnd())));
+                }
+            }
+        }
+    }
+
+    private Map<Integer, List<BookingEntity>> findApprovedByItem(Collection<Integer> itemIds, LocalDateTime from,
+                                                                 LocalDateTime to) {
+        Map<Integer, List<BookingEntity>> res = new HashMap<>();
+        for (BookingEntity approved : bookingRepository.findAllOverlappingByItemIds(itemIds, BookingStatus.APPROVED,
+                from, to)) {
+            res.computeIfAbsent(approved.getItem().getId(), id -> new ArrayList<>()).add(approved);
+        }
+        return res;
+    }
+
+    private static boolean overlaps(List<BookingEntity> bookings, LocalDateTime start, LocalDateTime end) {
+        return bookings != null && bookings.stream()
+                .anyMatch(other -> other.getStart().isBefore(end) && other.getEnd().isAfter(start));
+    }
+
+    private void decide(List<BookingEntity> bookings, BookingStatus status, Map<Integer, BookingDecision> decisions) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        List<BookingEntity> moved = transactionTemplate.execute(transaction -> decide(bookings, status));
+        bookingStatusHub.statusChanged(moved, status);
+        moved.forEach(bookingEntity -> decisions.put(bookingEntity.getId(),
+                new BookingDecision(bookingEntity.getId(), status, null)));
+        if (moved.size() == bookings.size()) {
+            return;
+        }
+        Set<Integer> missed = bookings.stream()
+                .map(BookingEntity::getId)
+                .filter(id -> decisions.get(id) == null)
+                .collect(Collectors.toSet());
+        for (BookingDecision current : bookingRepository.findAllDecisions(missed)) {
+            missed.remove(current.getBookingId());
+            decisions.put(current.getBookingId(), new BookingDecision(current.getBookingId(), current.getStatus(),
+                    String.format("Booking with id %d already %s", current.getBookingId(),
+                            current.getStatus().name().toLowerCase())));
         }
+        missed.forEach(id -> decisions.put(id, new BookingDecision(id, null,
+                String.format("Booking with id %d not exists", id))));
+    }
 
-        return mapper.toBooking(bookingRepository.save(bookingEntity));
+    private void decideOne(BookingEntity bookingEntity, BookingStatus status) {
+        if (transactionTemplate.execute(transaction -> decide(List.of(bookingEntity), status)).isEmpty()) {
+            throw new RepeatedRequestException(String.format(
+                    "Approve booking failed, booking with id %d already decided", bookingEntity.getId()));
+        }
+    }
+
+    /**
+     * Moves the bookings that are still waiting to {@code status} and returns them. The waiting rows are locked
+     * first, so bookings decided in the meantime are told apart and the counters are changed and events written
+     * only for bookings that really moved.
+     */
+    private List<BookingEntity> decide(List<BookingEntity> bookings, BookingStatus status) {
+        Set<Integer> waitingIds = new HashSet<>(bookingRepository.lockAllIdsByStatus(bookings.stream()
+                .map(BookingEntity::getId)
+                .collect(Collectors.toList()), BookingStatus.WAITING.name()));
+        List<BookingEntity> moved = bookings.stream()
+                .filter(bookingEntity -> waitingIds.contains(bookingEntity.getId()))
+                .collect(Collectors.toList());
+        if (moved.isEmpty()) {
+            return moved;
+        }
+        bookingRepository.updateStatus(waitingIds, BookingStatus.WAITING, status);
+        bookingCounters.statusChanged(moved, BookingStatus.WAITING, status);
+        DomainEventType type = status == BookingStatus.APPROVED
+                ? DomainEventType.BOOKING_APPROVED
+                : DomainEventType.BOOKING_REJECTED;
+        moved.forEach(bookingEntity -> domainEventOutbox.add(type, bookingEntity.getId(),
+                bookingEntity.getBooker().getId()));
+        return moved;
+    }
+
+    @Override
+    public BookingSummary getSummary(Integer userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new DataDoesNotExistsException(
+                    String.format("Get booking summary failed, user with id %d not exists", userId));
+        }
+        return bookingCounters.getSummary(userId, BookingRole.BOOKER);
+    }
+
+    @Override
+    public BookingSummary getSummaryForItems(Integer userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new DataDoesNotExistsException(
+                    String.format("Get booking summary failed, user with id %d not exists", userId));
+        }
+        return bookingCounters.getSummary(userId, BookingRole.OWNER);
     }
 
     @Override
     public Booking getById(Integer bookingId, Integer userId) {
-        BookingEntity bookingEntity = bookingRepository.findById(bookingId).orElseThrow(
+        BookingHistoryEntity bookingEntity = bookingHistoryRepository.findById(bookingId).orElseThrow(
                 () -> new DataDoesNotExistsException(
                         String.format("Get booking by id failed, booking with id %d not exists", bookingId)));
 
@@ -119,26 +449,27 @@ public class BookingServiceImpl implements BookingService {
                     String.format("Get all booking by state failed, user with id %d not exists", userId));
         }
         Pageable pageable = getPageable(from, size, Sort.by("start").descending());
-        Collection<BookingEntity> res = new ArrayList<>();
+        Collection<? extends AbstractBookingEntity> res = new ArrayList<>();
         switch (state) {
             case ALL:
-                res = bookingRepository.findAllByBookerId(userId, pageable).getContent();
+                res = bookingHistoryRepository.findAllByBookerId(userId, pageable).getContent();
                 break;
             case CURRENT:
-                res = bookingRepository.findAllByBookerIdAndStartIsBeforeAndEndIsAfter(userId, LocalDateTime.now(),
-                        LocalDateTime.now(), pageable).getContent();
+                res = bookingRepository.findAllByBookerIdAndPhase(userId, BookingPhase.CURRENT, pageable).getContent();
                 break;
             case PAST:
-                res = bookingRepository.findAllByBookerIdAndEndIsBefore(userId, LocalDateTime.now(), pageable).getContent();
+                res = bookingHistoryRepository.findAllByBookerIdAndPhase(userId, BookingPhase.PAST, pageable)
+                        .getContent();
                 break;
             case FUTURE:
-                res = bookingRepository.findAllByBookerIdAndStartIsAfter(userId, LocalDateTime.now(), pageable).getContent();
+                res = bookingRepository.findAllByBookerIdAndPhase(userId, BookingPhase.FUTURE, pageable).getContent();
                 break;
             case WAITING:
                 res = bookingRepository.findAllByBookerIdAndStatus(userId, BookingStatus.WAITING, pageable).getContent();
                 break;
             case REJECTED:
-                res = bookingRepository.findAllByBookerIdAndStatus(userId, BookingStatus.REJECTED, pageable).getContent();
+                res = bookingHistoryRepository.findAllByBookerIdAndStatus(userId, BookingStatus.REJECTED, pageable)
+                        .getContent();
                 break;
         }
         return res.stream()
@@ -146,6 +477,68 @@ public class BookingServiceImpl implements BookingService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPage<Booking> getAllBookingsByStateAfter(Integer userId, String bookingState, String cursor, int size) {
+        BookingState state = BookingState.valueOf(bookingState.toUpperCase());
+        if (!userRepository.existsById(userId)) {
+            throw new DataDoesNotExistsException(
+                    String.format("Get all booking by state failed, user with id %d not exists", userId));
+        }
+        return getSliceAfter(BookingSpecifications.bookerId(userId), state, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllBookingsByState(Integer userId, String bookingState, Consumer<Booking> action) {
+        BookingState state = BookingState.valueOf(bookingState.toUpperCase());
+        if (!userRepository.existsById(userId)) {
+            throw new DataDoesNotExistsException(
+                    String.format("Get all booking by state failed, user with id %d not exists", userId));
+        }
+        Sort sort = Sort.by("start").descending();
+        Stream<? extends AbstractBookingEntity> res = Stream.empty();
+        switch (state) {
+            case ALL:
+                res = bookingHistoryRepository.streamAllByBookerId(userId, sort);
+                break;
+            case CURRENT:
+                res = bookingRepository.streamAllByBookerIdAndPhase(userId, BookingPhase.CURRENT, sort);
+                break;
+            case PAST:
+                res = bookingHistoryRepository.streamAllByBookerIdAndPhase(userId, BookingPhase.PAST, sort);
+                break;
+            case FUTURE:
+                res = bookingRepository.streamAllByBookerIdAndPhase(userId, BookingPhase.FUTURE, sort);
+                break;
+            case WAITING:
+                res = bookingRepository.streamAllByBookerIdAndStatus(userId, BookingStatus.WAITING, sort);
+                break;
+            case REJECTED:
+                res = bookingHistoryRepository.streamAllByBookerIdAndStatus(userId, BookingStatus.REJECTED, sort);
+                break;
+        }
+        entityStreams.forEachBatch(res, batch -> batch.stream()
+                .map(mapper::toBooking)
+                .forEach(action));
+    }
+
+    /**
+     * Streams all bookings of the booker, archived ones included, from one snapshot, so bookings changed or
+     * archived while the export runs are neither missed nor repeated.
+     */
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void exportAllBookings(Integer userId, Consumer<Booking> action) {
+        if (!userRepository.existsById(userId)) {
+            throw new DataDoesNotExistsException(
+                    String.format("Export bookings failed, user with id %d not exists", userId));
+        }
+        entityStreams.forEachBatch(bookingHistoryRepository.streamAllByBookerId(userId, EXPORT_SORT),
+                batch -> batch.stream()
+                        .map(mapper::toBooking)
+                        .forEach(action));
+    }
+
     public Collection<Booking> getAllBookingsForItemsByState(Integer userId, String bookingState, Integer from, Integer size) {
         BookingState state = BookingState.valueOf(bookingState.toUpperCase());
         if (!userRepository.existsById(userId)) {
@@ -153,26 +546,27 @@ public class BookingServiceImpl implements BookingService {
                     String.format("Get all booking by state failed, user with id %d not exists", userId));
         }
         Pageable pageable = getPageable(from, size, Sort.by("start").descending());
-        Collection<BookingEntity> res = new ArrayList<>();
+        Collection<? extends AbstractBookingEntity> res = new ArrayList<>();
         switch (state) {
             case ALL:
-                res = bookingRepository.findAllByItemOwnerId(userId, pageable).getContent();
+                res = bookingHistoryRepository.findAllByItemOwnerId(userId, pageable).getContent();
                 break;
             case CURRENT:
-                res = bookingRepository.findAllByItemOwnerIdAndEndIsAfterAndStartIsBefore(userId, LocalDateTime.now(),
-                        LocalDateTime.now(), pageable).getContent();
+                res = bookingRepository.findAllByItemOwnerIdAndPhase(userId, BookingPhase.CURRENT, pageable).getContent();
                 break;
             case PAST:
-                res = bookingRepository.findAllByItemOwnerIdAndEndIsBefore(userId, LocalDateTime.now(), pageable).getContent();
+                res = bookingHistoryRepository.findAllByItemOwnerIdAndPhase(userId, BookingPhase.PAST, pageable)
+                        .getContent();
                 break;
             case FUTURE:
-                res = bookingRepository.findAllByItemOwnerIdAndStartIsAfter(userId, LocalDateTime.now(), pageable).getContent();
+                res = bookingRepository.findAllByItemOwnerIdAndPhase(userId, BookingPhase.FUTURE, pageable).getContent();
                 break;
             case WAITING:
                 res = bookingRepository.findAllByItemOwnerIdAndStatus(userId, BookingStatus.WAITING, pageable).getContent();
                 break;
             case REJECTED:
-                res = bookingRepository.findAllByItemOwnerIdAndStatus(userId, BookingStatus.REJECTED, pageable).getContent();
+                res = bookingHistoryRepository.findAllByItemOwnerIdAndStatus(userId, BookingStatus.REJECTED, pageable)
+                        .getContent();
                 break;
         }
         return res.stream()
@@ -180,11 +574,106 @@ public class BookingServiceImpl implements BookingService {
                 .collect(Collectors.toList());
     }
 
-    private Pageable getPageable(Integer from, Integer size, Sort sort) {
-        if (from != null && size != null) {
-            return PageRequest.of(from / size, size, sort);
+    @Override
+    public CursorPage<Booking> getAllBookingsForItemsByStateAfter(Integer userId, String bookingState, String cursor,
+                                                                  int size) {
+        BookingState state = BookingState.valueOf(bookingState.toUpperCase());
+        if (!userRepository.existsById(userId)) {
+            throw new DataDoesNotExistsException(
+                    String.format("Get all booking by state failed, user with id %d not exists", userId));
+        }
+        return getSliceAfter(BookingSpecifications.itemOwnerId(userId), state, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllBookingsForItemsByState(Integer userId, String bookingState, Consumer<Booking> action) {
+        BookingState state = BookingState.valueOf(bookingState.toUpperCase());
+        if (!userRepository.existsById(userId)) {
+            throw new DataDoesNotExistsException(
+                    String.format("Get all booking by state failed, user with id %d not exists", userId));
         }
-        int count = (int) bookingRepository.count();
-        return PageRequest.of(0, count > 0 ? count : 1, sort);
+        Sort sort = Sort.by("start").descending();
+        Stream<? extends AbstractBookingEntity> res = Stream.empty();
+        switch (state) {
+            case ALL:
+                res = bookingHistoryRepository.streamAllByItemOwnerId(userId, sort);
+                break;
+            case CURRENT:
+                res = bookingRepository.streamAllByItemOwnerIdAndPhase(userId, BookingPhase.CURRENT, sort);
+                break;
+            case PAST:
+                res = bookingHistoryRepository.streamAllByItemOwnerIdAndPhase(userId, BookingPhase.PAST, sort);
+                break;
+            case FUTURE:
+                res = bookingRepository.streamAllByItemOwnerIdAndPhase(userId, BookingPhase.FUTURE, sort);
+                break;
+            case WAITING:
+                res = bookingRepository.streamAllByItemOwnerIdAndStatus(userId, BookingStatus.WAITING, sort);
+                break;
+            case REJECTED:
+                res = bookingHistoryRepository.streamAllByItemOwnerIdAndStatus(userId, BookingStatus.REJECTED, sort);
+                break;
+        }
+        entityStreams.forEachBatch(res, batch -> batch.stream()
+                .map(mapper::toBooking)
+                .forEach(action));
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void exportAllBookingsForItems(Integer userId, Consumer<Booking> action) {
+        if (!userRepository.existsById(userId)) {
+            throw new DataDoesNotExistsException(
+                    String.format("Export bookings failed, user with id %d not exists", userId));
+        }
+        entityStreams.forEachBatch(bookingHistoryRepository.streamAllByItemOwnerId(userId, EXPORT_SORT),
+                batch -> batch.stream()
+                        .map(mapper::toBooking)
+                        .forEach(action));
+    }
+
+    /**
+     * All, past and rejected bookings are read together with the archive, the other states only from the hot table.
+     */
+    private CursorPage<Booking> getSliceAfter(Specification<AbstractBookingEntity> specification, BookingState state,
+                                              String cursor, int size) {
+        switch (state) {
+            case ALL:
+            case PAST:
+            case REJECTED:
+                return getSliceAfter(bookingHistoryRepository, BookingHistoryEntity.class, specification, state,
+                        cursor, size);
+            default:
+                return getSliceAfter(bookingRepository, BookingEntity.class, specification, state, cursor, size);
+        }
+    }
+
+    private <T extends AbstractBookingEntity> CursorPage<Booking> getSliceAfter(BookingKeysetRepository repository,
+                                                                                Class<T> type,
+                                                                                Specification<AbstractBookingEntity>
+                                                                                        specification,
+                                                                                BookingState state,
+                                                                                String cursor, int size) {
+        specification = specification.and(BookingSpecifications.inState(state));
+        if (cursor != null) {
+            Cursors.DateTimeKey key = Cursors.decodeDateTimeKey(cursor);
+            specification = specification.and(BookingSpecifications.startAndIdBefore(key.getValue(), key.getId()));
+        }
+        Slice<T> slice = repository.findSlice(type, specification,
+                Sort.by("start").descending().and(Sort.by("id").descending()), size);
+        List<T> content = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            T last = content.get(content.size() - 1);
+            nextCursor = Cursors.encode(last.getStart(), last.getId());
+        }
+        return new CursorPage<>(content.stream()
+                .map(mapper::toBooking)
+                .collect(Collectors.toList()), nextCursor);
+    }
+
+    private Pageable getPageable(Integer from, Integer size, Sort sort) {
+        return PageRequest.of(from / size, size, sort);
     }
 }
\ No newline at end of file
@@ -0,0 +1,215 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDecisionResponse;
+import ru.practicum.shareit.booking.entity.BookingEntity;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.BookingDecision;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exception.DataDoesNotExistsException;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pushes status changes of bookings to their bookers and owners over server-sent events. Open streams are parked by
+ * the servlet container in async mode, so idle subscribers hold no threads; events are written by a small shared
+ * pool of {@code shareit.booking.stream.senders} threads, one drain per subscriber at a time. Every subscriber
+ * buffers at most {@code shareit.booking.stream.buffer} events. A subscriber too slow to keep up loses its buffered
+ * events and gets a single {@value #RESYNC_EVENT} event instead, telling the client to reload its bookings with a
+ * regular request. Subscribers are kept per instance. Queued events are built anew for every subscriber, since a
+ * built {@link SseEmitter.SseEventBuilder} is not safe to send twice.
+ */
+@Slf4j
+@Component
+public class BookingStatusHub {
+
+    static final String STATUS_EVENT = "status";
+    static final String RESYNC_EVENT = "resync";
+
+    private final BookingMapper mapper;
+    private final UserRepository userRepository;
+    private final int bufferSize;
+    private final Duration timeout;
+    private final Executor senders;
+    private final Map<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Autowired
+    public BookingStatusHub(BookingMapper mapper,
+                            UserRepository userRepository,
+                            @Value("${shareit.booking.stream.buffer:64}") int bufferSize,
+                            @Value("${shareit.booking.stream.timeout:PT30M}") Duration timeout,
+                            @Value("${shareit.booking.stream.senders:4}") int senders) {
+        this(mapper, userRepository, bufferSize, timeout, Executors.newFixedThreadPool(senders, runnable -> {
+            Thread thread = new Thread(runnable, "booking-status-sender");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    BookingStatusHub(BookingMapper mapper, UserRepository userRepository, int bufferSize, Duration timeout,
+                     Executor senders) {
+        this.mapper = mapper;
+        this.userRepository = userRepository;
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.senders = senders;
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(subscriber ->
+                subscriber.emitter.complete()));
+        if (senders instanceof ExecutorService) {
+            ((ExecutorService) senders).shutdownNow();
+        }
+    }
+
+    public SseEmitter subscribe(Integer userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new DataDoesNotExistsException(
+                    String.format("Subscribe to booking statuses failed, user with id %d not exists", userId));
+        }
+        return subscribe(userId, new SseEmitter(timeout.toMillis()));
+    }
+
+    SseEmitter subscribe(Integer userId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        size.incrementAndGet();
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> remove(subscriber));
+        log.debug("User with id {} subscribed to booking statuses", userId);
+        return emitter;
+    }
+
+    /**
+     * Queues the new status of every booking for its booker and the owner of its item.
+     */
+    public void statusChanged(Collection<BookingEntity> bookings, BookingStatus status) {
+        for (BookingEntity bookingEntity : bookings) {
+            BookingDecisionResponse response = mapper.toDecisionResponse(
+                    new BookingDecision(bookingEntity.getId(), status, null));
+            Supplier<SseEmitter.SseEventBuilder> event = () -> SseEmitter.event()
+                    .name(STATUS_EVENT)
+                    .data(response);
+            for (Integer userId : List.of(bookingEntity.getBooker().getId(), bookingEntity.getItemOwnerId())) {
+                subscribers.getOrDefault(userId, Set.of()).forEach(subscriber -> subscriber.offer(event, false));
+            }
+        }
+    }
+
+    /**
+     * Writes a comment to idle streams, so proxies keep them open and closed clients are noticed.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking.stream.heartbeat:PT15S}")
+    public void heartbeat() {
+        Supplier<SseEmitter.SseEventBuilder> event = () -> SseEmitter.event().comment("heartbeat");
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(subscriber ->
+                subscriber.offer(event, true)));
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    private void remove(Subscriber subscriber) {
+        Set<Subscriber> userSubscribers = subscribers.get(subscriber.userId);
+        if (userSubscribers != null && userSubscribers.remove(subscriber)) {
+            size.decrementAndGet();
+            subscribers.computeIfPresent(subscriber.userId, (id, rest) -> rest.isEmpty() ? null : rest);
+        }
+    }
+
+    private final class Subscriber {
+
+        private final Integer userId;
+        private final SseEmitter emitter;
+        private final Queue<Supplier<SseEmitter.SseEventBuilder>> events = new ArrayDeque<>();
+        private boolean overflowed;
+        private boolean draining;
+
+        private Subscriber(Integer userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Buffers the event and starts a drain unless one is running. Heartbeats are skipped rather than counted
+         * towards an overflow; any other event overflowing the buffer replaces everything buffered with a resync.
+         */
+        private synchronized void offer(Supplier<SseEmitter.SseEventBuilder> event, boolean heartbeat) {
+            if (overflowed) {
+                return;
+            }
+            if (events.size() >= bufferSize) {
+                if (heartbeat) {
+                    return;
+                }
+                events.clear();
+                overflowed = true;
+                log.debug("Booking status stream of user with id {} overflowed, resync requested", userId);
+            } else {
+                events.add(event);
+            }
+            if (!draining) {
+                draining = true;
+                senders.execute(this::drain);
+            }
+        }
+
+        private synchronized Supplier<SseEmitter.SseEventBuilder> next() {
+            if (overflowed) {
+                overflowed = false;
+                return () -> SseEmitter.event().name(RESYNC_EVENT).data("");
+            }
+            Supplier<SseEmitter.SseEventBuilder> res = events.poll();
+            if (res == null) {
+                draining = false;
+            }
+            return res;
+        }
+
+        /**
+         * Sends the buffered events until none is left. Any failure, including one of converting an event, ends
+         * the stream, so the subscriber never stays marked as draining.
+         */
+        private void drain() {
+            Supplier<SseEmitter.SseEventBuilder> event;
+            while ((event = next()) != null) {
+                try {
+                    emitter.send(event.get());
+                } catch (IOException | RuntimeException e) {
+                    remove(this);
+                    synchronized (this) {
+                        events.clear();
+                        draining = false;
+                    }
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+    }
+}
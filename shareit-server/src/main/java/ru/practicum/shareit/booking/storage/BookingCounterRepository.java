@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.entity.BookingCounterEntity;
+
+public interface BookingCounterRepository extends JpaRepository<BookingCounterEntity, BookingCounterEntity.Key> {
+
+    /**
+     * Adds the counts of {@code delta} to the stored counter of the same user and role in one statement,
+     * so concurrent changes of one counter do not need a read first.
+     */
+    @Transactional
+    @Modifying
+    @Query("update BookingCounterEntity c set " +
+            "c.waiting = c.waiting + :#{#delta.waiting}, " +
+            "c.approved = c.approved + :#{#delta.approved}, " +
+            "c.rejected = c.rejected + :#{#delta.rejected}, " +
+            "c.canceled = c.canceled + :#{#delta.canceled}, " +
+            "c.future = c.future + :#{#delta.future}, " +
+            "c.current = c.current + :#{#delta.current}, " +
+            "c.past = c.past + :#{#delta.past} " +
+            "where c.userId = :#{#delta.userId} and c.role = :#{#delta.role}")
+    int add(@Param("delta") BookingCounterEntity delta);
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert into booking_counters (user_id, role) select :userId, :role " +
+            "where not exists (select 1 from booking_counters where user_id = :userId and role = :role)",
+            nativeQuery = true)
+    void createIfAbsent(@Param("userId") Integer userId, @Param("role") String role);
+
+    @Transactional
+    @Modifying
+    @Query("delete from BookingCounterEntity c where c.userId = :userId")
+    void deleteAllByUserId(@Param("userId") Integer userId);
+}
@@ -0,0 +1,126 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.entity.BookingHistoryEntity;
+import ru.practicum.shareit.booking.model.BookingCount;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.stream.EntityStreams;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+/**
+ * Reads bookings from the hot table and the archive together. Used for states that can include archived
+ * bookings: all, past and rejected ones.
+ */
+public interface BookingHistoryRepository extends JpaRepository<BookingHistoryEntity, Integer>,
+        BookingKeysetRepository {
+
+    Slice<BookingHistoryEntity> findAllByBookerId(Integer bookerId, Pageable pageable);
+
+    Slice<BookingHistoryEntity> findAllByBookerIdAndPhase(Integer bookerId, BookingPhase phase, Pageable pageable);
+
+    Slice<BookingHistoryEntity> findAllByBookerIdAndStatus(Integer bookerId, BookingStatus status,
+                                                           Pageable pageable);
+
+    Slice<BookingHistoryEntity> findAllByItemOwnerId(Integer ownerId, Pageable pageable);
+
+    Slice<BookingHistoryEntity> findAllByItemOwnerIdAndPhase(Integer ownerId, BookingPhase phase, Pageable pageable);
+
+    Slice<BookingHistoryEntity> findAllByItemOwnerIdAndStatus(Integer ownerId, BookingStatus status,
+                                                              Pageable pageable);
+
+    @EntityGraph(attributePaths = {"item", "item.owner", "booker"})
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    @Query("select b from BookingHistoryEntity b where b.booker.id = :bookerId")
+    Stream<BookingHistoryEntity> streamAllByBookerId(@Param("bookerId") Integer bookerId, Sort sort);
+
+    @EntityGraph(attributePaths = {"item", "item.owner", "booker"})
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    @Query("select b from BookingHistoryEntity b where b.booker.id = :bookerId and b.phase = :phase")
+    Stream<BookingHistoryEntity> streamAllByBookerIdAndPhase(@Param("bookerId") Integer bookerId,
+                                                             @Param("phase") BookingPhase phase, Sort sort);
+
+    @EntityGraph(attributePaths = {"item", "item.owner", "booker"})
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    @Query("select b from BookingHistoryEntity b where b.booker.id = :bookerId and b.status = :status")
+    Stream<BookingHistoryEntity> streamAllByBookerIdAndStatus(@Param("bookerId") Integer bookerId,
+                                                              @Param("status") BookingStatus status, Sort sort);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    @Query("select b from BookingHistoryEntity b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.itemOwnerId = :ownerId")
+    Stream<BookingHistoryEntity> streamAllByItemOwnerId(@Param("ownerId") Integer ownerId, Sort sort);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    @Query("select b from BookingHistoryEntity b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.itemOwnerId = :ownerId and b.phase = :phase")
+    Stream<BookingHistoryEntity> streamAllByItemOwnerIdAndPhase(@Param("ownerId") Integer ownerId,
+                                                                @Param("phase") BookingPhase phase, Sort sort);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    @Query("select b from BookingHistoryEntity b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.itemOwnerId = :ownerId and b.status = :status")
+    Stream<BookingHistoryEntity> streamAllByItemOwnerIdAndStatus(@Param("ownerId") Integer ownerId,
+                                                                 @Param("status") BookingStatus status, Sort sort);
+
+    Boolean existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(Integer itemId, Integer userId,
+                                                                    BookingStatus bookingStatus, LocalDateTime now);
+
+    /**
+     * The last booking may be archived, the next one is always in the hot table. Both tables are filtered before
+     * the union, so conditions on item ids reach their indexes.
+     */
+    @Query(value = "SELECT id, start_date, end_date, item_id, booker_id, owner_id, status, phase FROM (" +
+            "SELECT b.*, ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.end_date DESC) AS rn FROM (" +
+            "SELECT id, start_date, end_date, item_id, booker_id, owner_id, status, phase FROM bookings " +
+            "WHERE item_id IN (:itemIds) AND start_date < :now AND status = 'APPROVED' " +
+            "UNION ALL " +
+            "SELECT id, start_date, end_date, item_id, booker_id, owner_id, status, phase FROM bookings_archive " +
+            "WHERE item_id IN (:itemIds) AND start_date < :now AND status = 'APPROVED') AS b) AS last_bookings " +
+            "WHERE rn = 1 " +
+            "UNION ALL " +
+            "SELECT id, start_date, end_date, item_id, booker_id, owner_id, status, phase FROM (" +
+            "SELECT b.*, ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_date ASC) AS rn " +
+            "FROM bookings AS b " +
+            "WHERE b.item_id IN (:itemIds) AND b.start_date > :now AND b.status = 'APPROVED') AS next_bookings " +
+            "WHERE rn = 1",
+            nativeQuery = true)
+    Collection<BookingHistoryEntity> findLastAndNextBookingsByItemIds(@Param("itemIds") Collection<Integer> itemIds,
+                                                                      @Param("now") LocalDateTime now);
+
+    @Query("select b from BookingHistoryEntity b " +
+            "where b.item.id = :itemId and b.status = :status and b.start < :to and b.end > :from " +
+            "order by b.start")
+    List<BookingHistoryEntity> findAllOverlapping(@Param("itemId") Integer itemId,
+                                                  @Param("status") BookingStatus status,
+                                                  @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+
+    @Query("select new ru.practicum.shareit.booking.model.BookingCount(" +
+            "b.booker.id, b.itemOwnerId, b.status, b.phase, count(b)) " +
+            "from BookingHistoryEntity b join b.item i left join i.request r " +
+            "where b.booker.id = :userId or b.itemOwnerId = :userId or r.requestor.id = :userId " +
+            "group by b.booker.id, b.itemOwnerId, b.status, b.phase")
+    List<BookingCount> countAllCascadedByUser(@Param("userId") Integer userId);
+
+    @Query("select new ru.practicum.shareit.booking.model.BookingCount(" +
+            "b.booker.id, b.itemOwnerId, b.status, b.phase, count(b)) " +
+            "from BookingHistoryEntity b " +
+            "where b.item.id = :itemId " +
+            "group by b.booker.id, b.itemOwnerId, b.status, b.phase")
+    List<BookingCount> countAllByItemId(@Param("itemId") Integer itemId);
+}
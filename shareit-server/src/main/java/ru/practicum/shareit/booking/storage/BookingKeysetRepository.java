@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.entity.AbstractBookingEntity;
+
+public interface BookingKeysetRepository {
+
+    <T extends AbstractBookingEntity> Slice<T> findSlice(Class<T> type,
+                                                         Specification<AbstractBookingEntity> specification,
+                                                         Sort sort, int size);
+}
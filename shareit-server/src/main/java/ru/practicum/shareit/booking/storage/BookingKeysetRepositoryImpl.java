@@ -0,0 +1,50 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import ru.practicum.shareit.booking.entity.AbstractBookingEntity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+/**
+ * Fetches one row more than requested to tell whether a next slice exists, so no count query is needed.
+ */
+@RequiredArgsConstructor
+public class BookingKeysetRepositoryImpl implements BookingKeysetRepository {
+
+    private final EntityManager entityManager;
+
+    /**
+     * The specifications of {@link BookingSpecifications} only read attributes declared by
+     * {@link AbstractBookingEntity}, so they apply to the root of either booking entity.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends AbstractBookingEntity> Slice<T> findSlice(Class<T> type,
+                                                                Specification<AbstractBookingEntity> specification,
+                                                                Sort sort, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        root.fetch("item").fetch("owner");
+        root.fetch("booker");
+        query.select(root)
+                .where(specification.toPredicate((Root<AbstractBookingEntity>) root, query, cb))
+                .orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        List<T> res = entityManager.createQuery(query)
+                .setMaxResults(size + 1)
+                .getResultList();
+        boolean hasNext = res.size() > size;
+        return new SliceImpl<>(hasNext ? res.subList(0, size) : res, PageRequest.of(0, size, sort), hasNext);
+    }
+}
@@ -1,50 +1,158 @@
 package ru.practicum.shareit.booking.storage;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.entity.BookingEntity;
+import ru.practicum.shareit.booking.model.BookingDecision;
+import ru.practicum.shareit.booking.model.BookingPhase;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.stream.EntityStreams;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends JpaRepository<BookingEntity, Integer> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface BookingRepository extends JpaRepository<BookingEntity, Integer>, BookingKeysetRepository {
 
     boolean existsBookingByItemIdAndBookerIdAndStatus(Integer itemId, Integer bookerId, BookingStatus bookingStatus);
 
-    Page<BookingEntity> findAllByBookerId(Integer bookerId, Pageable pageable);
+    List<BookingEntity> findAllByBookerIdInAndItemIdInAndStatus(Collection<Integer> bookerIds,
+                                                                Collection<Integer> itemIds,
+                                                                BookingStatus bookingStatus);
+
+    Slice<BookingEntity> findAllByBookerIdAndPhase(Integer bookerId, BookingPhase phase, Pageable pageable);
+
+    Slice<BookingEntity> findAllByBookerIdAndStatus(Integer bookerId, BookingStatus status, Pageable pageable);
 
-    Page<BookingEntity> findAllByBookerIdAndEndIsBefore(Integer bookerId, LocalDateTime now, Pageable pageable);
+    Slice<BookingEntity> findAllByItemOwnerIdAndPhase(Integer ownerId, BookingPhase phase, Pageable pageable);
 
-    Page<BookingEntity> findAllByBookerIdAndStartIsBeforeAndEndIsAfter(Integer bookerId, LocalDateTime start,
-                                                                       LocalDateTime now, Pageable pageable);
+    Slice<BookingEntity> findAllByItemOwnerIdAndStatus(Integer ownerId, BookingStatus bookingStatus, Pageable pageable);
 
-    Page<BookingEntity> findAllByBookerIdAndStartIsAfter(Integer bookerId, LocalDateTime now, Pageable pageable);
+    @EntityGraph(attributePaths = {"item", "item.owner", "booker"})
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    @Query("select b from BookingEntity b where b.booker.id = :bookerId and b.phase = :phase")
+    Stream<BookingEntity> streamAllByBookerIdAndPhase(@Param("bookerId") Integer bookerId,
+                                                      @Param("phase") BookingPhase phase, Sort sort);
 
-    Page<BookingEntity> findAllByBookerIdAndStatus(Integer bookerId, BookingStatus status, Pageable pageable);
+    @EntityGraph(attributePaths = {"item", "item.owner", "booker"})
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    @Query("select b from BookingEntity b where b.booker.id = :bookerId and b.status = :status")
+    Stream<BookingEntity> streamAllByBookerIdAndStatus(@Param("bookerId") Integer bookerId,
+                                                       @Param("status") BookingStatus status, Sort sort);
 
-    Page<BookingEntity> findAllByItemOwnerId(Integer ownerId, Pageable pageable);
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    @Query("select b from BookingEntity b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.itemOwnerId = :ownerId and b.phase = :phase")
+    Stream<BookingEntity> streamAllByItemOwnerIdAndPhase(@Param("ownerId") Integer ownerId,
+                                                         @Param("phase") BookingPhase phase, Sort sort);
 
-    Page<BookingEntity> findAllByItemOwnerIdAndEndIsAfterAndStartIsBefore(Integer ownerId, LocalDateTime start,
-                                                                          LocalDateTime now, Pageable pageable);
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    @Query("select b from BookingEntity b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.itemOwnerId = :ownerId and b.status = :status")
+    Stream<BookingEntity> streamAllByItemOwnerIdAndStatus(@Param("ownerId") Integer ownerId,
+                                                          @Param("status") BookingStatus bookingStatus, Sort sort);
 
-    Page<BookingEntity> findAllByItemOwnerIdAndEndIsBefore(Integer ownerId, LocalDateTime now, Pageable pageable);
+    @Query("select count(b) > 0 from BookingEntity b " +
+            "where b.item.id = :itemId and b.status = :status and b.start < :to and b.end > :from")
+    boolean existsOverlapping(@Param("itemId") Integer itemId, @Param("status") BookingStatus status,
+                              @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
-    Page<BookingEntity> findAllByItemOwnerIdAndStartIsAfter(Integer ownerId, LocalDateTime now, Pageable pageable);
+    @Query("select b from BookingEntity b " +
+            "where b.item.id = :itemId and b.status = :status and b.start < :to and b.end > :from " +
+            "order by b.start")
+    List<BookingEntity> findAllOverlapping(@Param("itemId") Integer itemId, @Param("status") BookingStatus status,
+                                           @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
-    Page<BookingEntity> findAllByItemOwnerIdAndStatus(Integer ownerId, BookingStatus bookingStatus, Pageable pageable);
+    @Query("select b from BookingEntity b " +
+            "where b.item.id in :itemIds and b.status = :status and b.start < :to and b.end > :from")
+    List<BookingEntity> findAllOverlappingByItemIds(@Param("itemIds") Collection<Integer> itemIds,
+                                                    @Param("status") BookingStatus status,
+                                                    @Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to);
 
-    Boolean existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(Integer itemId, Integer userId,
-                                                                    BookingStatus bookingStatus, LocalDateTime now);
+    List<BookingEntity> findAllByIdInAndItemOwnerId(Collection<Integer> ids, Integer ownerId);
 
-    @Query(value = "SELECT * FROM (SELECT * FROM bookings AS b " +
-            "WHERE item_id = :itemId AND start_date < :now AND status = 'APPROVED' ORDER BY end_date DESC limit 1) " +
-            "UNION ALL " +
-            "(SELECT * FROM bookings AS b " +
-            "WHERE item_id = :itemId AND start_date > :now AND status = 'APPROVED' ORDER BY start_date ASC limit 1)",
+    @Query(value = "select cast(id as integer) from bookings where id in (:ids) and status = :status for update",
             nativeQuery = true)
-    Collection<BookingEntity> findLastAndNextBookingByItemId(@Param("itemId") Integer itemId, @Param("now") LocalDateTime now);
-}
\ No newline at end of file
+    List<Integer> lockAllIdsByStatus(@Param("ids") Collection<Integer> ids, @Param("status") String status);
+
+    @Query("select new ru.practicum.shareit.booking.model.BookingDecision(b.id, b.status) " +
+            "from BookingEntity b where b.id in :ids")
+    List<BookingDecision> findAllDecisions(@Param("ids") Collection<Integer> ids);
+
+    @Transactional
+    @Modifying
+    @Query("update BookingEntity b set b.status = :to where b.id in :ids and b.status = :from")
+    int updateStatus(@Param("ids") Collection<Integer> ids, @Param("from") BookingStatus from,
+                     @Param("to") BookingStatus to);
+
+    @Query(value = "select * from bookings where phase = :phase and start_date <= :now order by id limit :limit " +
+            "for update", nativeQuery = true)
+    List<BookingEntity> findAllStartedForUpdate(@Param("phase") String phase, @Param("now") LocalDateTime now,
+                                                @Param("limit") int limit);
+
+    @Query(value = "select * from bookings where phase = :phase and end_date <= :now order by id limit :limit " +
+            "for update", nativeQuery = true)
+    List<BookingEntity> findAllEndedForUpdate(@Param("phase") String phase, @Param("now") LocalDateTime now,
+                                              @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("update BookingEntity b set b.phase = :to where b.id in :ids and b.phase = :from")
+    int updatePhase(@Param("ids") Collection<Integer> ids, @Param("from") BookingPhase from,
+                    @Param("to") BookingPhase to);
+
+    /**
+     * Locks the bookings deleted together with the user: bookings of the user as booker or owner and bookings of
+     * items created for requests of the user.
+     */
+    @Query(value = "select cast(id as integer) from bookings " +
+            "where booker_id = :userId or owner_id = :userId " +
+            "or item_id in (select i.id from items i join requests r on r.id = i.request_id " +
+            "where r.requestor_id = :userId) " +
+            "for update", nativeQuery = true)
+    List<Integer> lockAllIdsCascadedByUser(@Param("userId") Integer userId);
+
+    @Query(value = "select cast(id as integer) from bookings where item_id = :itemId for update", nativeQuery = true)
+    List<Integer> lockAllIdsByItemId(@Param("itemId") Integer itemId);
+
+    @Query("select min(b.start) from BookingEntity b where b.phase = :phase")
+    LocalDateTime findFirstStartByPhase(@Param("phase") BookingPhase phase);
+
+    @Query("select min(b.end) from BookingEntity b where b.phase = :phase")
+    LocalDateTime findFirstEndByPhase(@Param("phase") BookingPhase phase);
+
+    /**
+     * Decided bookings that ended before {@code endedBefore}; waiting ones stay in the hot table.
+     */
+    @Query(value = "select cast(id as integer) from bookings " +
+            "where phase = 'PAST' and end_date < :endedBefore and status <> 'WAITING' " +
+            "order by end_date limit :limit for update", nativeQuery = true)
+    List<Integer> findIdsToArchiveForUpdate(@Param("endedBefore") LocalDateTime endedBefore,
+                                            @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert into bookings_archive " +
+            "(id, start_date, end_date, item_id, booker_id, owner_id, status, phase) " +
+            "select id, start_date, end_date, item_id, booker_id, owner_id, status, phase from bookings " +
+            "where id in (:ids)", nativeQuery = true)
+    int copyToArchive(@Param("ids") Collection<Integer> ids);
+
+    @Transactional
+    @Modifying
+    @Query("delete from BookingEntity b where b.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Integer> ids);
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.entity.AbstractBookingEntity;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+public final class BookingSpecifications {
+
+    private BookingSpecifications() {
+    }
+
+    public static Specification<AbstractBookingEntity> bookerId(Integer bookerId) {
+        return (root, query, cb) -> cb.equal(root.get("booker").get("id"), bookerId);
+    }
+
+    public static Specification<AbstractBookingEntity> itemOwnerId(Integer ownerId) {
+        return (root, query, cb) -> cb.equal(root.get("itemOwnerId"), ownerId);
+    }
+
+    public static Specification<AbstractBookingEntity> inState(BookingState state) {
+        switch (state) {
+            case CURRENT:
+                return (root, query, cb) -> cb.equal(root.get("phase"), BookingPhase.CURRENT);
+            case PAST:
+                return (root, query, cb) -> cb.equal(root.get("phase"), BookingPhase.PAST);
+            case FUTURE:
+                return (root, query, cb) -> cb.equal(root.get("phase"), BookingPhase.FUTURE);
+            case WAITING:
+                return (root, query, cb) -> cb.equal(root.get("status"), BookingStatus.WAITING);
+            case REJECTED:
+                return (root, query, cb) -> cb.equal(root.get("status"), BookingStatus.REJECTED);
+            default:
+                return (root, query, cb) -> cb.conjunction();
+        }
+    }
+
+    /**
+     * Rows that follow {@code (start, id)} in {@code start desc, id desc} order.
+     * The redundant {@code start <= ?} bound lets the planner start a range scan on the index.
+     */
+    public static Specification<AbstractBookingEntity> startAndIdBefore(LocalDateTime start, Integer id) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("start"), start),
+                cb.or(cb.lessThan(root.get("start"), start),
+                        cb.lessThan(root.get("id"), id)));
+    }
+}
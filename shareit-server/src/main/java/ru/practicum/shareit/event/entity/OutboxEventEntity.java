@@ -0,0 +1,48 @@
+package ru.practicum.shareit.event.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import ru.practicum.shareit.event.model.DomainEventType;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * A domain event written in the transaction of the change it describes and kept until it is delivered.
+ */
+@Getter
+@Setter
+@ToString
+@Entity
+@Table(name = "outbox_events", schema = "public")
+public class OutboxEventEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pk_outbox_event")
+    @SequenceGenerator(name = "pk_outbox_event", schema = "public", sequenceName = "outbox_events_id_seq",
+            allocationSize = 50)
+    @Column(name = "id", nullable = false, updatable = false, unique = true)
+    private Long id;
+
+    @Enumerated(value = EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private DomainEventType type;
+
+    @Column(name = "entity_id", nullable = false)
+    private Integer entityId;
+
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "created", nullable = false)
+    private LocalDateTime created;
+}
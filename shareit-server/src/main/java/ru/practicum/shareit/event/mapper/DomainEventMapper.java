@@ -0,0 +1,15 @@
+package ru.practicum.shareit.event.mapper;
+
+import org.mapstruct.Mapper;
+import ru.practicum.shareit.event.entity.OutboxEventEntity;
+import ru.practicum.shareit.event.model.DomainEvent;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface DomainEventMapper {
+
+    DomainEvent toEvent(OutboxEventEntity outboxEventEntity);
+
+    List<DomainEvent> toEvents(List<OutboxEventEntity> outboxEventEntities);
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.event.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class DomainEvent {
+    private Long id;
+    private DomainEventType type;
+    private Integer entityId;
+    private Integer userId;
+    private LocalDateTime created;
+}
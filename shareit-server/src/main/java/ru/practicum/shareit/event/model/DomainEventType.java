@@ -0,0 +1,31 @@
+package ru.practicum.shareit.event.model;
+
+/**
+ * Kinds of domain events written to the outbox, each with the entity it is about and the user it concerns.
+ */
+public enum DomainEventType {
+    /**
+     * A booking was requested; the user is the owner of the item.
+     */
+    BOOKING_CREATED,
+    /**
+     * A booking was approved; the user is the booker.
+     */
+    BOOKING_APPROVED,
+    /**
+     * A booking was rejected; the user is the booker.
+     */
+    BOOKING_REJECTED,
+    /**
+     * A request was created; the user is the requestor.
+     */
+    REQUEST_CREATED,
+    /**
+     * An item was added as an answer to a request; the entity is the item and the user is the requestor.
+     */
+    REQUEST_ANSWERED,
+    /**
+     * A comment was added; the user is the owner of the item.
+     */
+    COMMENT_ADDED
+}
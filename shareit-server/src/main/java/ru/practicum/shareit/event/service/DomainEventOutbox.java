@@ -0,0 +1,60 @@
+package ru.practicum.shareit.event.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.event.entity.OutboxEventEntity;
+import ru.practicum.shareit.event.model.DomainEventType;
+import ru.practicum.shareit.event.storage.OutboxEventRepository;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Writes domain events to the outbox table. Events are written only inside the transaction of the change they
+ * describe, so an event exists exactly when its change was committed; the commit wakes the {@link OutboxDispatcher}.
+ * Without subscribers to deliver them to, no events are written.
+ */
+@Component
+public class DomainEventOutbox {
+
+    static final String METRIC_PREFIX = "shareit.outbox";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxDispatcher outboxDispatcher;
+    private final Map<DomainEventType, Counter> published = new EnumMap<>(DomainEventType.class);
+
+    public DomainEventOutbox(OutboxEventRepository outboxEventRepository, OutboxDispatcher outboxDispatcher,
+                             MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxDispatcher = outboxDispatcher;
+        for (DomainEventType type : DomainEventType.values()) {
+            published.put(type, meterRegistry.counter(METRIC_PREFIX + ".published", "type", type.name()));
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(DomainEventType type, Integer entityId, Integer userId) {
+        if (!outboxDispatcher.hasSubscribers()) {
+            return;
+        }
+        OutboxEventEntity outboxEventEntity = new OutboxEventEntity();
+        outboxEventEntity.setType(type);
+        outboxEventEntity.setEntityId(entityId);
+        outboxEventEntity.setUserId(userId);
+        outboxEventEntity.setCreated(LocalDateTime.now());
+        outboxEventRepository.save(outboxEventEntity);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                published.get(type).increment();
+                outboxDispatcher.wakeUp();
+            }
+        });
+    }
+}
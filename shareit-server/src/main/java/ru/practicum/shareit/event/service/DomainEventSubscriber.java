@@ -0,0 +1,15 @@
+package ru.practicum.shareit.event.service;
+
+import ru.practicum.shareit.event.model.DomainEvent;
+
+import java.util.List;
+
+/**
+ * Receives domain events drained from the outbox. Every bean implementing it is called by {@link OutboxDispatcher}
+ * with batches of events in the order they were written. Delivery is at least once: when a subscriber throws, the
+ * batch is kept and delivered again to every subscriber, so subscribers must tolerate repeated events.
+ */
+public interface DomainEventSubscriber {
+
+    void onEvents(List<DomainEvent> events);
+}
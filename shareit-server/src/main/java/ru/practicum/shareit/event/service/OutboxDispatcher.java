@@ -0,0 +1,158 @@
+package ru.practicum.shareit.event.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.event.entity.OutboxEventEntity;
+import ru.practicum.shareit.event.mapper.DomainEventMapper;
+import ru.practicum.shareit.event.model.DomainEvent;
+import ru.practicum.shareit.event.storage.OutboxEventRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static ru.practicum.shareit.event.service.DomainEventOutbox.METRIC_PREFIX;
+
+/**
+ * Drains the outbox to the {@link DomainEventSubscriber} beans. A worker thread takes the oldest events in locked
+ * batches, hands each batch to every subscriber and deletes it in the same transaction, so a batch is either
+ * delivered and gone or kept for the next run. The worker runs after every commit that wrote events and at least
+ * every {@code shareit.outbox.poll-interval}, which also picks up events written by other instances. Delivered
+ * events, failed runs and the age of the oldest waiting event are exposed as metrics. While no subscriber is
+ * registered, {@link DomainEventOutbox} writes no events and the worker is not started; events left over from
+ * earlier runs are kept rather than deleted undelivered.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    static final int BATCH_SIZE = 100;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<DomainEventSubscriber> subscribers;
+    private final DomainEventMapper domainEventMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration pollInterval;
+    private final Semaphore wakeups = new Semaphore(0);
+    private final AtomicLong lag = new AtomicLong();
+    private final Counter delivered;
+    private final Counter failures;
+    private volatile Thread worker;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            List<DomainEventSubscriber> subscribers,
+                            DomainEventMapper domainEventMapper,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${shareit.outbox.poll-interval:PT5S}") Duration pollInterval,
+                            MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.subscribers = subscribers;
+        this.domainEventMapper = domainEventMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.pollInterval = pollInterval;
+        this.delivered = meterRegistry.counter(METRIC_PREFIX + ".delivered");
+        this.failures = meterRegistry.counter(METRIC_PREFIX + ".failures");
+        Gauge.builder(METRIC_PREFIX + ".lag", lag, AtomicLong::get)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (subscribers.isEmpty()) {
+            log.info("No domain event subscribers registered, outbox dispatcher not started");
+            return;
+        }
+        worker = new Thread(this::run, "outbox-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    public void wakeUp() {
+        wakeups.release();
+    }
+
+    /**
+     * Delivers and deletes batches of the oldest events until the outbox is empty and returns how many were
+     * delivered. A failing subscriber rolls the current batch back and stops the run; without subscribers nothing
+     * is delivered.
+     */
+    int dispatch() {
+        int res = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> {
+                List<OutboxEventEntity> outboxEventEntities = outboxEventRepository.findOldestForUpdate(BATCH_SIZE);
+                if (outboxEventEntities.isEmpty()) {
+                    lag.set(0);
+                    return 0;
+                }
+                lag.set(Duration.between(outboxEventEntities.get(0).getCreated(), LocalDateTime.now()).toMillis());
+                if (subscribers.isEmpty()) {
+                    return 0;
+                }
+                List<DomainEvent> events = domainEventMapper.toEvents(outboxEventEntities);
+                for (DomainEventSubscriber subscriber : subscribers) {
+                    subscriber.onEvents(events);
+                }
+                outboxEventRepository.deleteAllByIdIn(outboxEventEntities.stream()
+                        .map(OutboxEventEntity::getId)
+                        .collect(Collectors.toList()));
+                return outboxEventEntities.size();
+            });
+            delivered.increment(batch);
+            res += batch;
+        } while (batch == BATCH_SIZE);
+        return res;
+    }
+
+    boolean isStarted() {
+        return worker != null;
+    }
+
+    void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                int res = dispatch();
+                if (res > 0) {
+                    log.debug("Domain events delivered: {}", res);
+                }
+                wakeups.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                wakeups.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Delivering domain events failed, retrying in {}", pollInterval, e);
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
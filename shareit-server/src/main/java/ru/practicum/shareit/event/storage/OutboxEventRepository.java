@@ -0,0 +1,22 @@
+package ru.practicum.shareit.event.storage;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.event.entity.OutboxEventEntity;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+    @Query(value = "select * from outbox_events order by created, id limit :limit for update", nativeQuery = true)
+    List<OutboxEventEntity> findOldestForUpdate(@Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxEventEntity e where e.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -6,6 +6,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import javax.validation.ConstraintViolationException;
 import java.util.Map;
 
 @RestControllerAdvice
@@ -54,4 +55,24 @@ public class ErrorHandler {
         return Map.of("Bad request", e.getMessage());
     }
 
-}
\ No newline at end of file
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handle(InvalidCursorException e) {
+        log.warn(e.getMessage(), e);
+        return Map.of("Bad request", e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handle(InvalidPeriodException e) {
+        log.warn(e.getMessage(), e);
+        return Map.of("Bad request", e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handle(ConstraintViolationException e) {
+        log.warn(e.getMessage(), e);
+        return Map.of("Validation failed", e.getMessage());
+    }
+}
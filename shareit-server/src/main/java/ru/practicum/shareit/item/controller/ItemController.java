@@ -2,6 +2,8 @@ package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -12,8 +14,10 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.item.dto.CommentRequest;
 import ru.practicum.shareit.item.dto.CommentResponse;
+import ru.practicum.shareit.item.dto.ItemAvailabilityResponse;
 import ru.practicum.shareit.item.dto.ItemCreateRequest;
 import ru.practicum.shareit.item.dto.ItemResponse;
 import ru.practicum.shareit.item.dto.ItemUpdateRequest;
@@ -22,10 +26,14 @@ import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.stream.JsonArrayStreamer;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @RestController
@@ -40,6 +48,7 @@ public class ItemController {
     private final ItemService itemService;
     private final ItemMapper itemMapper;
     private final CommentMapper commentMapper;
+    private final JsonArrayStreamer jsonArrayStreamer;
 
     @PostMapping()
     public ItemResponse add(@RequestHeader(X_SHARER_USER_ID) Integer userId,
@@ -55,10 +64,20 @@ public class ItemController {
         return itemMapper.toItemWithBookingsResponse(itemService.get(itemId, userId));
     }
 
-    @GetMapping()
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityResponse getAvailability(@PathVariable Integer itemId,
+                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                    LocalDateTime from,
+                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                    LocalDateTime to) {
+        log.info("GET /items/{}/availability?from={}&to={}", itemId, from, to);
+        return itemMapper.toAvailabilityResponse(itemService.getAvailability(itemId, from, to));
+    }
+
+    @GetMapping(params = {"from", "size"})
     public Collection<ItemWithBookingsResponse> getAllForOwner(@RequestHeader(X_SHARER_USER_ID) Integer userId,
-                                                               @RequestParam(value = "from", required = false) @Min(0) Integer from,
-                                                               @RequestParam(value = "size", required = false) @Min(1) Integer size) {
+                                                               @RequestParam(value = "from") @Min(0) Integer from,
+                                                               @RequestParam(value = "size") @Min(1) Integer size) {
         log.info("GET /items X-Sharer-User-Id: {}", userId);
         return itemService.getByOwnerId(userId, from, size).stream()
                 .map(itemMapper::toItemWithBookingsResponse)
@@ -66,16 +85,62 @@ public class ItemController {
 
     }
 
-    @GetMapping("/search")
+    @GetMapping(params = {"size", "!from"})
+    public ResponseEntity<List<ItemWithBookingsResponse>> getAllForOwnerAfter(@RequestHeader(X_SHARER_USER_ID) Integer userId,
+                                                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                                                              @RequestParam(value = "size") @Min(1) Integer size) {
+        log.info("GET /items X-Sharer-User-Id: {}, cursor: {}", userId, cursor);
+        return itemService.getByOwnerIdAfter(userId, cursor, size).toResponse(itemMapper::toItemWithBookingsResponse);
+    }
+
+    @GetMapping()
+    public ResponseEntity<StreamingResponseBody> streamAllForOwner(@RequestHeader(X_SHARER_USER_ID) Integer userId) {
+        log.info("GET /items X-Sharer-User-Id: {}, streaming", userId);
+        return jsonArrayStreamer.stream(action -> itemService.streamByOwnerId(userId, action),
+                itemMapper::toItemWithBookingsResponse);
+    }
+
+    @GetMapping(value = "/search", params = {"from", "size", "fuzzy!=true"})
     public Collection<ItemResponse> search(@RequestParam String text,
-                                           @RequestParam(value = "from", required = false) @Min(0) Integer from,
-                                           @RequestParam(value = "size", required = false) @Min(1) Integer size) {
+                                           @RequestParam(value = "from") @Min(0) Integer from,
+                                           @RequestParam(value = "size") @Min(1) Integer size) {
         log.info("GET /items/search?text={}", text);
         return itemService.search(text, from, size).stream()
                 .map(itemMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
+    @GetMapping(value = "/search", params = {"size", "!from", "fuzzy!=true"})
+    public ResponseEntity<List<ItemResponse>> searchAfter(@RequestParam String text,
+                                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                                          @RequestParam(value = "size") @Min(1) Integer size) {
+        log.info("GET /items/search?text={}, cursor: {}", text, cursor);
+        return itemService.searchAfter(text, cursor, size).toResponse(itemMapper::toResponse);
+    }
+
+    @GetMapping(value = "/search", params = "fuzzy=true")
+    public Collection<ItemResponse> fuzzySearch(@RequestParam String text,
+                                                @RequestParam(value = "from", defaultValue = "0") @Min(0) Integer from,
+                                                @RequestParam(value = "size", defaultValue = "10") @Min(1) Integer size) {
+        log.info("GET /items/search?text={}&fuzzy=true", text);
+        return itemService.fuzzySearch(text, from, size).stream()
+                .map(itemMapper::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<StreamingResponseBody> streamSearch(@RequestParam String text) {
+        log.info("GET /items/search?text={}, streaming", text);
+        return jsonArrayStreamer.stream(action -> itemService.streamSearch(text, action), itemMapper::toResponse);
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam String prefix,
+                                @RequestParam(value = "limit", defaultValue = "10") @Min(1) @Max(100) Integer limit) {
+        log.info("GET /items/suggest?prefix={}", prefix);
+        return itemService.suggest(prefix, limit);
+    }
+
     @PatchMapping("/{id}")
     public ItemResponse update(@RequestHeader(X_SHARER_USER_ID) Integer userId, @PathVariable Integer id,
                                @Valid @RequestBody ItemUpdateRequest request) {
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+public class ItemAvailabilityResponse {
+
+    private Integer itemId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<IntervalResponse> busy;
+    private List<IntervalResponse> free;
+}
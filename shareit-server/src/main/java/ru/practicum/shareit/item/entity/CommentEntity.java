@@ -24,18 +24,18 @@ public class CommentEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pk_comment")
-    @SequenceGenerator(name = "pk_comment", schema = "public", sequenceName = "comments_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "pk_comment", schema = "public", sequenceName = "comments_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false, updatable = false, unique = true)
     private Integer id;
 
     @Column(name = "text", nullable = false)
     private String text;
 
-    @ManyToOne(fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "item_id")
     private ItemEntity item;
 
-    @ManyToOne(fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "author_id")
     private UserEntity author;
 
@@ -28,7 +28,7 @@ public class ItemEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pk_item")
-    @SequenceGenerator(name = "pk_item", schema = "public", sequenceName = "items_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "pk_item", schema = "public", sequenceName = "items_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false, updatable = false, unique = true)
     private Integer id;
 
@@ -41,7 +41,7 @@ public class ItemEntity {
     @Column(name = "is_available")
     private Boolean available;
 
-    @ManyToOne(fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "owner_id")
     private UserEntity owner;
 
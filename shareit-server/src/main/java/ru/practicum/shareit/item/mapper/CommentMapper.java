@@ -2,10 +2,13 @@ package ru.practicum.shareit.item.mapper;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 import ru.practicum.shareit.item.dto.CommentRequest;
 import ru.practicum.shareit.item.dto.CommentResponse;
 import ru.practicum.shareit.item.entity.CommentEntity;
+import ru.practicum.shareit.item.entity.ItemEntity;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
 
 import java.util.Collection;
 import java.util.stream.Collectors;
@@ -23,8 +26,19 @@ public abstract class CommentMapper {
 
     public abstract CommentEntity toCommentEntity(Comment comment);
 
+    @Mapping(target = "item", source = "item", qualifiedByName = "toItemReference")
     public abstract Comment toComment(CommentEntity entity);
 
+    @Named("toItemReference")
+    protected Item toItemReference(ItemEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+        Item item = new Item();
+        item.setId(entity.getId());
+        return item;
+    }
+
     public Collection<Comment> toComments(Collection<CommentEntity> entities) {
         return entities.stream()
                 .map(this::toComment)
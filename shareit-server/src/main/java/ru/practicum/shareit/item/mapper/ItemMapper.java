@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.mapstruct.CollectionMappingStrategy;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import ru.practicum.shareit.item.dto.ItemAvailabilityResponse;
 import ru.practicum.shareit.item.dto.ItemCreateRequest;
 import ru.practicum.shareit.item.dto.ItemResponse;
 import ru.practicum.shareit.item.dto.ItemShortResponse;
@@ -11,6 +12,7 @@ import ru.practicum.shareit.item.dto.ItemUpdateRequest;
 import ru.practicum.shareit.item.dto.ItemWithBookingsResponse;
 import ru.practicum.shareit.item.entity.ItemEntity;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemAvailability;
 
 import java.util.Collection;
 
@@ -34,6 +36,8 @@ public abstract class ItemMapper {
 
     public abstract ItemEntity toItemEntity(Item item);
 
+    public abstract ItemAvailabilityResponse toAvailabilityResponse(ItemAvailability availability);
+
     public abstract Collection<Item> toItems(Collection<ItemEntity> itemEntities);
 
     @Mapping(target = "lastBooking.bookerId", source = "lastBooking.booker.id")
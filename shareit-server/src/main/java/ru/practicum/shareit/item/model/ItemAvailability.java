@@ -0,0 +1,19 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@ToString
+public class ItemAvailability {
+    private Integer itemId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<Interval> busy;
+    private List<Interval> free;
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * PostgreSQL full-text search over the generated {@code items.search_vector} column (see schema-postgresql.sql).
+ * Every word of the query is matched as a prefix, so "дре" still finds "Дрель".
+ * Offset pages are ordered by rank, cursor pages by id.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "fulltext")
+public class FullTextItemSearchEngine implements ItemSearchEngine {
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public Collection<ItemEntity> search(String text, Pageable pageable) {
+        String query = toTsQuery(text);
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return itemRepository.searchFullText(query, pageable);
+    }
+
+    @Override
+    public Slice<ItemEntity> searchAfter(String text, Integer afterId, int size) {
+        String query = toTsQuery(text);
+        if (query.isEmpty()) {
+            return new SliceImpl<>(Collections.emptyList());
+        }
+        return itemRepository.searchFullTextAfter(query, afterId, PageRequest.ofSize(size));
+    }
+
+    @Override
+    public Stream<ItemEntity> stream(String text) {
+        String query = toTsQuery(text);
+        if (query.isEmpty()) {
+            return Stream.empty();
+        }
+        return itemRepository.streamFullText(query);
+    }
+
+    static String toTsQuery(String text) {
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+}
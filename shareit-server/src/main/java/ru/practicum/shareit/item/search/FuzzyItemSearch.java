@@ -0,0 +1,20 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.entity.ItemEntity;
+
+import java.util.List;
+
+/**
+ * Typo-tolerant item search. Results are ordered by similarity to the query, most similar first.
+ */
+public interface FuzzyItemSearch {
+
+    List<ItemEntity> search(String text, Pageable pageable);
+
+    default void index(ItemEntity item) {
+    }
+
+    default void remove(Integer itemId) {
+    }
+}
@@ -0,0 +1,303 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Typeahead over the words of available item names. Words live in a trie whose children are kept in sorted
+ * parallel arrays; every node also stores the highest word frequency below it, so the top completions are found
+ * best-first without walking the whole subtree. The footprint is estimated from the node, edge and item counts
+ * and new items are skipped once it reaches {@code shareit.suggest.max-bytes}.
+ */
+@Slf4j
+@Component
+public class ItemNameSuggester {
+
+    static final long NODE_BYTES = 64;
+    static final long EDGE_BYTES = 6;
+    static final long ITEM_BYTES = 104;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final String METRIC_PREFIX = "shareit.suggest";
+
+    private final ItemRepository itemRepository;
+    private final long maxBytes;
+    private final Node root = new Node();
+    private final Map<Integer, String> names = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Counter skipped;
+    private long nodes = 1;
+    private long edges;
+    private long nameChars;
+
+    public ItemNameSuggester(ItemRepository itemRepository,
+                             @Value("${shareit.suggest.max-bytes:67108864}") long maxBytes,
+                             MeterRegistry meterRegistry) {
+        this.itemRepository = itemRepository;
+        this.maxBytes = maxBytes;
+        this.skipped = meterRegistry.counter(METRIC_PREFIX + ".skipped");
+        Gauge.builder(METRIC_PREFIX + ".footprint", this, ItemNameSuggester::footprint)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".items", this, ItemNameSuggester::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        Pageable pageable = PageRequest.of(0, LOAD_BATCH_SIZE, Sort.by("id"));
+        Slice<ItemEntity> slice;
+        do {
+            slice = itemRepository.findAllByAvailableTrue(pageable);
+            slice.forEach(this::index);
+            pageable = slice.nextPageable();
+        } while (slice.hasNext());
+        log.info("Suggest index built: {} items, {} nodes, ~{} bytes", size(), nodes, footprint());
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        String query = normalize(prefix).strip();
+        List<String> res = new ArrayList<>();
+        if (query.isEmpty() || limit <= 0) {
+            return res;
+        }
+        lock.readLock().lock();
+        try {
+            Node start = root;
+            for (int i = 0; i < query.length() && start != null; i++) {
+                start = start.child(query.charAt(i));
+            }
+            if (start == null) {
+                return res;
+            }
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(Candidate.ORDER);
+            queue.add(new Candidate(query, start, start.maxCount));
+            while (!queue.isEmpty() && res.size() < limit) {
+                Candidate candidate = queue.poll();
+                if (candidate.node == null) {
+                    res.add(candidate.word);
+                    continue;
+                }
+                Node node = candidate.node;
+                if (node.count > 0) {
+                    queue.add(new Candidate(candidate.word, null, node.count));
+                }
+                for (int i = 0; i < node.size; i++) {
+                    queue.add(new Candidate(candidate.word + node.keys[i], node.children[i],
+                            node.children[i].maxCount));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return res;
+    }
+
+    public void index(ItemEntity itemEntity) {
+        if (!Boolean.TRUE.equals(itemEntity.getAvailable())) {
+            remove(itemEntity.getId());
+            return;
+        }
+        String name = normalize(itemEntity.getName());
+        lock.writeLock().lock();
+        try {
+            String previous = names.get(itemEntity.getId());
+            if (name.equals(previous)) {
+                return;
+            }
+            removeName(itemEntity.getId());
+            if (footprint() + ITEM_BYTES + 2L * name.length() > maxBytes) {
+                skipped.increment();
+                log.warn("Suggest index is over its {} bytes budget, item {} skipped", maxBytes, itemEntity.getId());
+                return;
+            }
+            names.put(itemEntity.getId(), name);
+            nameChars += name.length();
+            for (String token : tokens(name)) {
+                add(token);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer itemId) {
+        lock.writeLock().lock();
+        try {
+            removeName(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Estimated heap taken by the trie and the indexed names, in bytes.
+     */
+    public long footprint() {
+        return nodes * NODE_BYTES + edges * EDGE_BYTES + names.size() * ITEM_BYTES + 2 * nameChars;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeName(Integer itemId) {
+        String name = names.remove(itemId);
+        if (name == null) {
+            return;
+        }
+        nameChars -= name.length();
+        for (String token : tokens(name)) {
+            remove(root, token, 0);
+        }
+    }
+
+    private void add(String token) {
+        Node node = root;
+        for (int i = 0; i < token.length(); i++) {
+            Node child = node.child(token.charAt(i));
+            if (child == null) {
+                child = node.addChild(token.charAt(i));
+                nodes++;
+                edges++;
+            }
+            node = child;
+        }
+        node.count++;
+        int count = node.count;
+        node = root;
+        node.maxCount = Math.max(node.maxCount, count);
+        for (int i = 0; i < token.length(); i++) {
+            node = node.child(token.charAt(i));
+            node.maxCount = Math.max(node.maxCount, count);
+        }
+    }
+
+    private void remove(Node node, String token, int depth) {
+        if (depth == token.length()) {
+            node.count--;
+        } else {
+            Node child = node.child(token.charAt(depth));
+            remove(child, token, depth + 1);
+            if (child.count == 0 && child.size == 0) {
+                node.removeChild(token.charAt(depth));
+                nodes--;
+                edges--;
+            }
+        }
+        node.updateMaxCount();
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> tokens(String name) {
+        Set<String> res = new LinkedHashSet<>(Arrays.asList(TOKEN_SEPARATOR.split(name)));
+        res.remove("");
+        return res;
+    }
+
+    private static final class Node {
+
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private int size;
+        private int count;
+        private int maxCount;
+
+        private Node child(char key) {
+            int i = Arrays.binarySearch(keys, 0, size, key);
+            return i < 0 ? null : children[i];
+        }
+
+        private Node addChild(char key) {
+            int i = -Arrays.binarySearch(keys, 0, size, key) - 1;
+            if (size == keys.length) {
+                int capacity = size + Math.max(1, size >> 1);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, i, keys, i + 1, size - i);
+            System.arraycopy(children, i, children, i + 1, size - i);
+            Node child = new Node();
+            keys[i] = key;
+            children[i] = child;
+            size++;
+            return child;
+        }
+
+        private void removeChild(char key) {
+            int i = Arrays.binarySearch(keys, 0, size, key);
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(children, i + 1, children, i, size - i - 1);
+            size--;
+            children[size] = null;
+            if (size == 0) {
+                keys = NO_KEYS;
+                children = NO_CHILDREN;
+            }
+        }
+
+        private void updateMaxCount() {
+            int max = count;
+            for (int i = 0; i < size; i++) {
+                max = Math.max(max, children[i].maxCount);
+            }
+            maxCount = max;
+        }
+    }
+
+    private static final class Candidate {
+
+        /**
+         * Highest frequency first, then alphabetical; a finished word goes before the subtree it is a prefix of.
+         */
+        private static final Comparator<Candidate> ORDER = Comparator
+                .comparingInt((Candidate c) -> -c.score)
+                .thenComparing(c -> c.word)
+                .thenComparing(c -> c.node != null);
+
+        private final String word;
+        private final Node node;
+        private final int score;
+
+        private Candidate(String word, Node node, int score) {
+            this.word = word;
+            this.node = node;
+            this.score = score;
+        }
+    }
+}
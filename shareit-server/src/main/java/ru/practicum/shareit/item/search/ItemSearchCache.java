@@ -0,0 +1,98 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of offset search pages. Every entry is keyed by the catalog version it was loaded at,
+ * so a page computed before an item mutation is never served after it, even if the load was still in flight.
+ */
+@Component
+public class ItemSearchCache {
+
+    private static final String METRIC_PREFIX = "shareit.search.cache";
+
+    private final int maxSize;
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final Map<Key, List<Item>> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public ItemSearchCache(@Value("${shareit.search.cache.max-size:1000}") int maxSize, MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Item>> eldest) {
+                if (size() > ItemSearchCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = meterRegistry.counter(METRIC_PREFIX + ".gets", "result", "hit");
+        this.misses = meterRegistry.counter(METRIC_PREFIX + ".gets", "result", "miss");
+        this.evictions = meterRegistry.counter(METRIC_PREFIX + ".evictions");
+        Gauge.builder(METRIC_PREFIX + ".size", this, ItemSearchCache::size).register(meterRegistry);
+    }
+
+    public Collection<Item> get(String text, int from, int size, Supplier<Collection<Item>> loader) {
+        Key key = new Key(catalogVersion.get(), text.toLowerCase(Locale.ROOT), from, size);
+        List<Item> res;
+        synchronized (entries) {
+            res = entries.get(key);
+        }
+        if (res != null) {
+            hits.increment();
+            return res;
+        }
+        misses.increment();
+        res = List.copyOf(loader.get());
+        if (maxSize > 0 && key.version == catalogVersion.get()) {
+            synchronized (entries) {
+                entries.put(key, res);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Bumps the catalog version after an item was added, changed or removed.
+     */
+    public void invalidate() {
+        catalogVersion.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class Key {
+        private final long version;
+        private final String text;
+        private final int from;
+        private final int size;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.item.entity.ItemEntity;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+public interface ItemSearchEngine {
+
+    Collection<ItemEntity> search(String text, Pageable pageable);
+
+    Slice<ItemEntity> searchAfter(String text, Integer afterId, int size);
+
+    Stream<ItemEntity> stream(String text);
+
+    default void index(ItemEntity item) {
+    }
+
+    default void remove(Integer itemId) {
+    }
+}
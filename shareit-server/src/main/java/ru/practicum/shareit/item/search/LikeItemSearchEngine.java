@@ -0,0 +1,36 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "like", matchIfMissing = true)
+public class LikeItemSearchEngine implements ItemSearchEngine {
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public Collection<ItemEntity> search(String text, Pageable pageable) {
+        return itemRepository.search(text, pageable).getContent();
+    }
+
+    @Override
+    public Slice<ItemEntity> searchAfter(String text, Integer afterId, int size) {
+        return itemRepository.searchAfter(text, afterId, PageRequest.ofSize(size));
+    }
+
+    @Override
+    public Stream<ItemEntity> stream(String text) {
+        return itemRepository.streamSearch(text);
+    }
+}
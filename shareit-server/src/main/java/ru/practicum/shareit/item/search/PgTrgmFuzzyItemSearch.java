@@ -0,0 +1,33 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * PostgreSQL pg_trgm word similarity over item names and descriptions, served by the trigram GIN indexes
+ * from schema-postgresql.sql.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.fuzzy", havingValue = "trigram")
+public class PgTrgmFuzzyItemSearch implements FuzzyItemSearch {
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<ItemEntity> search(String text, Pageable pageable) {
+        String query = text.toLowerCase(Locale.ROOT).strip();
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return itemRepository.searchSimilar(query, pageable);
+    }
+}
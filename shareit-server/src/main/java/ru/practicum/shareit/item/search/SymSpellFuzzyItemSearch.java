@@ -0,0 +1,270 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-process fuzzy search for databases without pg_trgm. Words of available items are kept in a SymSpell
+ * dictionary: every word is stored under all variants of its first {@value #PREFIX_LENGTH} letters with up to
+ * {@value #MAX_EDIT_DISTANCE} letters deleted, so a query word only needs its own delete variants looked up
+ * instead of a scan over the vocabulary. Every query word has to match some word of an item; the item is ranked
+ * by the summed similarity of those matches.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.fuzzy", havingValue = "dictionary", matchIfMissing = true)
+public class SymSpellFuzzyItemSearch implements FuzzyItemSearch {
+
+    static final int MAX_EDIT_DISTANCE = 2;
+    static final int PREFIX_LENGTH = 7;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+
+    private final Map<Integer, Set<String>> itemWords = new HashMap<>();
+    private final Map<String, Set<Integer>> postings = new HashMap<>();
+    private final Map<String, Set<String>> deletes = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void load() {
+        Pageable pageable = PageRequest.of(0, LOAD_BATCH_SIZE, Sort.by("id"));
+        Slice<ItemEntity> slice;
+        do {
+            slice = itemRepository.findAllByAvailableTrue(pageable);
+            slice.forEach(this::index);
+            pageable = slice.nextPageable();
+        } while (slice.hasNext());
+        log.info("Fuzzy search dictionary built: {} items, {} words, {} delete variants",
+                itemWords.size(), postings.size(), deletes.size());
+    }
+
+    @Override
+    public List<ItemEntity> search(String text, Pageable pageable) {
+        Set<String> query = tokens(text);
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Integer> ids;
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = null;
+            for (String token : query) {
+                Map<Integer, Double> tokenScores = new HashMap<>();
+                lookup(token).forEach((word, distance) -> {
+                    double similarity = 1 - (double) distance / Math.max(token.length(), word.length());
+                    postings.get(word).forEach(id -> tokenScores.merge(id, similarity, Math::max));
+                });
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            ids = scores.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .skip(pageable.isPaged() ? pageable.getOffset() : 0)
+                    .limit(pageable.isPaged() ? pageable.getPageSize() : Long.MAX_VALUE)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<Integer, ItemEntity> found = itemRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(ItemEntity::getId, Function.identity()));
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void index(ItemEntity itemEntity) {
+        if (!Boolean.TRUE.equals(itemEntity.getAvailable())) {
+            remove(itemEntity.getId());
+            return;
+        }
+        Set<String> words = tokens(itemEntity.getName(), itemEntity.getDescription());
+        lock.writeLock().lock();
+        try {
+            removeWords(itemEntity.getId());
+            itemWords.put(itemEntity.getId(), words);
+            for (String word : words) {
+                Set<Integer> ids = postings.get(word);
+                if (ids == null) {
+                    ids = new HashSet<>();
+                    postings.put(word, ids);
+                    for (String variant : deleteVariants(prefix(word), MAX_EDIT_DISTANCE)) {
+                        deletes.computeIfAbsent(variant, v -> new HashSet<>()).add(word);
+                    }
+                }
+                ids.add(itemEntity.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Integer itemId) {
+        lock.writeLock().lock();
+        try {
+            removeWords(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return itemWords.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeWords(Integer itemId) {
+        Set<String> words = itemWords.remove(itemId);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            Set<Integer> ids = postings.get(word);
+            ids.remove(itemId);
+            if (!ids.isEmpty()) {
+                continue;
+            }
+            postings.remove(word);
+            for (String variant : deleteVariants(prefix(word), MAX_EDIT_DISTANCE)) {
+                Set<String> variantWords = deletes.get(variant);
+                variantWords.remove(word);
+                if (variantWords.isEmpty()) {
+                    deletes.remove(variant);
+                }
+            }
+        }
+    }
+
+    /**
+     * Dictionary words within the allowed edit distance of the token, with their distances.
+     */
+    private Map<String, Integer> lookup(String token) {
+        int allowed = allowedDistance(token);
+        Map<String, Integer> res = new HashMap<>();
+        Set<String> checked = new HashSet<>();
+        for (String variant : deleteVariants(prefix(token), allowed)) {
+            for (String word : deletes.getOrDefault(variant, Collections.emptySet())) {
+                if (!checked.add(word)) {
+                    continue;
+                }
+                int distance = distance(token, word, allowed);
+                if (distance <= allowed) {
+                    res.put(word, distance);
+                }
+            }
+        }
+        return res;
+    }
+
+    static int allowedDistance(String token) {
+        if (token.length() <= 2) {
+            return 0;
+        }
+        return token.length() <= 5 ? 1 : MAX_EDIT_DISTANCE;
+    }
+
+    /**
+     * Optimal string alignment distance; anything above {@code max} is reported as {@code max + 1}.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int rowMin = Integer.MAX_VALUE;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, d[i][j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+        }
+        return Math.min(d[a.length()][b.length()], max + 1);
+    }
+
+    private static Set<String> deleteVariants(String word, int distance) {
+        Set<String> res = new HashSet<>();
+        res.add(word);
+        Set<String> level = Set.of(word);
+        for (int k = 0; k < distance; k++) {
+            Set<String> next = new HashSet<>();
+            for (String variant : level) {
+                for (int i = 0; i < variant.length(); i++) {
+                    String deleted = variant.substring(0, i) + variant.substring(i + 1);
+                    if (res.add(deleted)) {
+                        next.add(deleted);
+                    }
+                }
+            }
+            level = next;
+        }
+        return res;
+    }
+
+    private static String prefix(String word) {
+        return word.length() <= PREFIX_LENGTH ? word : word.substring(0, PREFIX_LENGTH);
+    }
+
+    private static Set<String> tokens(String... texts) {
+        return Arrays.stream(texts)
+                .filter(Objects::nonNull)
+                .flatMap(text -> TOKEN_SEPARATOR.splitAsStream(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
@@ -0,0 +1,254 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.entity.ItemRequestEntity;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory trigram inverted index over the name and description of available items.
+ * Keeps the substring semantics of {@link ItemRepository#search}: posting lists only narrow the candidates,
+ * every candidate is then checked with {@link String#contains}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory")
+public class TrigramItemSearchEngine implements ItemSearchEngine {
+
+    static final int GRAM_LENGTH = 3;
+    static final int STREAM_CHUNK_SIZE = 100;
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+
+    private final NavigableMap<Integer, IndexedItem> items = new TreeMap<>();
+    private final Map<String, NavigableSet<Integer>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void load() {
+        Pageable pageable = PageRequest.of(0, LOAD_BATCH_SIZE, Sort.by("id"));
+        Slice<ItemEntity> slice;
+        do {
+            slice = itemRepository.findAllByAvailableTrue(pageable);
+            slice.forEach(this::index);
+            pageable = slice.nextPageable();
+        } while (slice.hasNext());
+        log.info("Trigram search index built: {} items, {} trigrams", items.size(), postings.size());
+    }
+
+    @Override
+    public Collection<ItemEntity> search(String text, Pageable pageable) {
+        String query = normalize(text);
+        long skip = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        List<ItemEntity> res = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Iterator<Integer> candidates = candidates(query, null);
+            while (candidates.hasNext() && res.size() < limit) {
+                IndexedItem item = items.get(candidates.next());
+                if (!item.matches(query)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    res.add(item.toEntity());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return res;
+    }
+
+    @Override
+    public Slice<ItemEntity> searchAfter(String text, Integer afterId, int size) {
+        List<ItemEntity> res = chunk(normalize(text), afterId, size + 1);
+        boolean hasNext = res.size() > size;
+        return new SliceImpl<>(hasNext ? res.subList(0, size) : res, PageRequest.ofSize(size), hasNext);
+    }
+
+    @Override
+    public Stream<ItemEntity> stream(String text) {
+        String query = normalize(text);
+        return Stream.iterate(chunk(query, null, STREAM_CHUNK_SIZE),
+                        batch -> !batch.isEmpty(),
+                        batch -> batch.size() < STREAM_CHUNK_SIZE
+                                ? List.of()
+                                : chunk(query, batch.get(batch.size() - 1).getId(), STREAM_CHUNK_SIZE))
+                .flatMap(List::stream);
+    }
+
+    @Override
+    public void index(ItemEntity itemEntity) {
+        if (!Boolean.TRUE.equals(itemEntity.getAvailable())) {
+            remove(itemEntity.getId());
+            return;
+        }
+        IndexedItem item = new IndexedItem(itemEntity);
+        lock.writeLock().lock();
+        try {
+            removeFromPostings(items.put(item.id, item));
+            for (String gram : item.grams()) {
+                postings.computeIfAbsent(gram, g -> new TreeSet<>()).add(item.id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Integer itemId) {
+        lock.writeLock().lock();
+        try {
+            removeFromPostings(items.remove(itemId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return items.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<ItemEntity> chunk(String query, Integer afterId, int limit) {
+        List<ItemEntity> res = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Iterator<Integer> candidates = candidates(query, afterId);
+            while (candidates.hasNext() && res.size() < limit) {
+                IndexedItem item = items.get(candidates.next());
+                if (item.matches(query)) {
+                    res.add(item.toEntity());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return res;
+    }
+
+    private Iterator<Integer> candidates(String query, Integer afterId) {
+        if (query.length() < GRAM_LENGTH) {
+            return (afterId == null ? items : items.tailMap(afterId, false)).keySet().iterator();
+        }
+        List<NavigableSet<Integer>> lists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            NavigableSet<Integer> list = postings.get(gram);
+            if (list == null) {
+                return Collections.emptyIterator();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        NavigableSet<Integer> shortest = afterId == null ? lists.get(0) : lists.get(0).tailSet(afterId, false);
+        List<NavigableSet<Integer>> rest = lists.subList(1, lists.size());
+        return shortest.stream()
+                .filter(id -> rest.stream().allMatch(list -> list.contains(id)))
+                .iterator();
+    }
+
+    private void removeFromPostings(IndexedItem item) {
+        if (item == null) {
+            return;
+        }
+        for (String gram : item.grams()) {
+            NavigableSet<Integer> list = postings.get(gram);
+            list.remove(item.id);
+            if (list.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toUpperCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> res = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            res.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return res;
+    }
+
+    private static final class IndexedItem {
+
+        private final Integer id;
+        private final String name;
+        private final String description;
+        private final Integer requestId;
+        private final String normalizedName;
+        private final String normalizedDescription;
+
+        private IndexedItem(ItemEntity entity) {
+            id = entity.getId();
+            name = entity.getName();
+            description = entity.getDescription();
+            requestId = entity.getRequest() == null ? null : entity.getRequest().getId();
+            normalizedName = normalize(name);
+            normalizedDescription = normalize(description);
+        }
+
+        private boolean matches(String query) {
+            return normalizedName.contains(query) || normalizedDescription.contains(query);
+        }
+
+        private Set<String> grams() {
+            Set<String> res = TrigramItemSearchEngine.grams(normalizedName);
+            res.addAll(TrigramItemSearchEngine.grams(normalizedDescription));
+            return res;
+        }
+
+        private ItemEntity toEntity() {
+            ItemEntity entity = new ItemEntity();
+            entity.setId(id);
+            entity.setName(name);
+            entity.setDescription(description);
+            entity.setAvailable(true);
+            if (requestId != null) {
+                ItemRequestEntity request = new ItemRequestEntity();
+                request.setId(requestId);
+                entity.setRequest(request);
+            }
+            return entity;
+        }
+    }
+}
@@ -2,8 +2,13 @@ package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemAvailability;
+import ru.practicum.shareit.pagination.CursorPage;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface ItemService {
 
@@ -15,9 +20,23 @@ public interface ItemService {
 
     void delete(int userId, int id);
 
+    ItemAvailability getAvailability(int itemId, LocalDateTime from, LocalDateTime to);
+
     Collection<Item> search(String text, Integer from, Integer size);
 
+    Collection<Item> fuzzySearch(String text, Integer from, Integer size);
+
+    CursorPage<Item> searchAfter(String text, String cursor, int size);
+
+    void streamSearch(String text, Consumer<Item> action);
+
+    List<String> suggest(String prefix, int limit);
+
     Collection<Item> getByOwnerId(int userId, Integer from, Integer size);
 
+    CursorPage<Item> getByOwnerIdAfter(int userId, String cursor, int size);
+
+    void streamByOwnerId(int userId, Consumer<Item> action);
+
     Comment addComment(Comment comment);
 }
\ No newline at end of file
@@ -4,25 +4,46 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
-import ru.practicum.shareit.booking.entity.BookingEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.entity.AbstractBookingEntity;
+import ru.practicum.shareit.booking.entity.BookingHistoryEntity;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingArchiver;
+import ru.practicum.shareit.booking.service.BookingCounters;
+import ru.practicum.shareit.booking.storage.BookingHistoryRepository;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.event.model.DomainEventType;
+import ru.practicum.shareit.event.service.DomainEventOutbox;
 import ru.practicum.shareit.exception.DataAlreadyExistsException;
 import ru.practicum.shareit.exception.DataDoesNotExistsException;
+import ru.practicum.shareit.exception.InvalidPeriodException;
 import ru.practicum.shareit.exception.WithoutBookingException;
 import ru.practicum.shareit.item.entity.CommentEntity;
 import ru.practicum.shareit.item.entity.ItemEntity;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Interval;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemAvailability;
+import ru.practicum.shareit.item.search.FuzzyItemSearch;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
 import ru.practicum.shareit.request.entity.ItemRequestEntity;
+import ru.practicum.shareit.request.service.ItemRequestFeed;
+import ru.practicum.shareit.request.service.RequestMatcher;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.stream.EntityStreams;
 import ru.practicum.shareit.user.entity.UserEntity;
 import ru.practicum.shareit.user.storage.UserRepository;
 
@@ -31,6 +52,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
@@ -42,7 +66,19 @@ public class ItemServiceImpl implements ItemService {
     private final UserRepository userRepository;
     private final ItemRequestRepository itemRequestRepository;
     private final BookingRepository bookingRepository;
+    private final BookingHistoryRepository bookingHistoryRepository;
+    private final BookingArchiver bookingArchiver;
+    private final BookingCounters bookingCounters;
     private final CommentRepository commentRepository;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemNameSuggester itemNameSuggester;
+    private final FuzzyItemSearch fuzzyItemSearch;
+    private final RequestMatcher requestMatcher;
+    private final ItemRequestFeed itemRequestFeed;
+    private final DomainEventOutbox domainEventOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityStreams entityStreams;
     private final ItemMapper itemMapper;
     private final BookingMapper bookingMapper;
     private final CommentMapper commentMapper;
@@ -62,7 +98,19 @@ public class ItemServiceImpl implements ItemService {
         ItemEntity res = itemMapper.toItemEntity(item);
         res.setOwner(userEntity);
         res.setRequest(itemRequestEntity);
-        itemRepository.save(res);
+        transactionTemplate.executeWithoutResult(status -> {
+            itemRepository.save(res);
+            if (res.getRequest() != null) {
+                domainEventOutbox.add(DomainEventType.REQUEST_ANSWERED, res.getId(),
+                        res.getRequest().getRequestor().getId());
+            }
+        });
+        itemSearchEngine.index(res);
+        itemSearchCache.invalidate();
+        itemNameSuggester.index(res);
+        fuzzyItemSearch.index(res);
+        requestMatcher.itemChanged(res);
+        itemRequestFeed.itemChanged(res);
         log.info("Item added: {}", res);
         return itemMapper.toItem(res);
     }
@@ -108,11 +156,18 @@ public class ItemServiceImpl implements ItemService {
             itemEntity.setAvailable(item.getAvailable());
         }
         itemRepository.save(itemEntity);
+        itemSearchEngine.index(itemEntity);
+        itemSearchCache.invalidate();
+        itemNameSuggester.index(itemEntity);
+        fuzzyItemSearch.index(itemEntity);
+        requestMatcher.itemChanged(itemEntity);
+        itemRequestFeed.itemChanged(itemEntity);
         log.info("Item updated: {}", itemEntity);
         return itemMapper.toItem(itemEntity);
     }
 
     @Override
+    @Transactional
     public void delete(int userId, int id) {
         ItemEntity itemEntity = itemRepository.findById(id).orElseThrow(
                 () -> new DataDoesNotExistsException(
@@ -122,37 +177,118 @@ public class ItemServiceImpl implements ItemService {
             throw new DataDoesNotExistsException(
                     String.format("Delete item failed, user with %d not owner", userId));
         }
+        bookingRepository.lockAllIdsByItemId(id);
+        bookingCounters.itemRemoved(bookingHistoryRepository.countAllByItemId(id));
         itemRepository.deleteById(id);
+        itemSearchEngine.remove(id);
+        itemSearchCache.invalidate();
+        itemNameSuggester.remove(id);
+        fuzzyItemSearch.remove(id);
+        requestMatcher.itemRemoved(itemEntity);
+        itemRequestFeed.itemRemoved(id);
         log.info("Item with id {} deleted", id);
     }
 
 
+    @Override
+    public ItemAvailability getAvailability(int itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new InvalidPeriodException(
+                    String.format("Get item availability failed, period %s - %s is empty", from, to));
+        }
+        if (!itemRepository.existsById(itemId)) {
+            throw new DataDoesNotExistsException(
+                    String.format("Get item availability failed, item with id %d not exists", itemId));
+        }
+        // only bookings that ended before the archive cutoff can be archived, later periods are read from the hot table
+        List<? extends AbstractBookingEntity> bookings = from.isBefore(bookingArchiver.archivedBefore())
+                ? bookingHistoryRepository.findAllOverlapping(itemId, BookingStatus.APPROVED, from, to)
+                : bookingRepository.findAllOverlapping(itemId, BookingStatus.APPROVED, from, to);
+        List<Interval> busy = new ArrayList<>();
+        for (AbstractBookingEntity booking : bookings) {
+            LocalDateTime start = booking.getStart().isBefore(from) ? from : booking.getStart();
+            LocalDateTime end = booking.getEnd().isAfter(to) ? to : booking.getEnd();
+            Interval last = busy.isEmpty() ? null : busy.get(busy.size() - 1);
+            if (last != null && !start.isAfter(last.getEnd())) {
+                if (end.isAfter(last.getEnd())) {
+                    last.setEnd(end);
+                }
+            } else {
+                busy.add(new Interval(start, end));
+            }
+        }
+        List<Interval> free = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        for (Interval interval : busy) {
+            if (freeFrom.isBefore(interval.getStart())) {
+                free.add(new Interval(freeFrom, interval.getStart()));
+            }
+            freeFrom = interval.getEnd();
+        }
+        if (freeFrom.isBefore(to)) {
+            free.add(new Interval(freeFrom, to));
+        }
+        ItemAvailability availability = new ItemAvailability();
+        availability.setItemId(itemId);
+        availability.setFrom(from);
+        availability.setTo(to);
+        availability.setBusy(busy);
+        availability.setFree(free);
+        log.info("Item availability received: {}", availability);
+        return availability;
+    }
+
     @Override
     public Collection<Item> search(String text, Integer from, Integer size) {
         if (text.isBlank() || text.isEmpty()) {
             return Collections.emptyList();
         }
-        Pageable pageable;
-        if (from != null && size != null) {
-            pageable = PageRequest.of(from, size);
-        } else {
-            int count = (int) itemRepository.count();
-            pageable = PageRequest.of(0, count > 0 ? count : 1);
-        }
-        Collection<ItemEntity> items = itemRepository.search(text, pageable).getContent();
+        Collection<Item> items = itemSearchCache.get(text, from, size,
+                () -> itemMapper.toItems(itemSearchEngine.search(text, PageRequest.of(from, size))));
         log.info("Item search by request \"{}\" received: {}", text, items);
+        return items;
+    }
+
+    @Override
+    public Collection<Item> fuzzySearch(String text, Integer from, Integer size) {
+        if (text.isBlank()) {
+            return Collections.emptyList();
+        }
+        Collection<ItemEntity> items = fuzzyItemSearch.search(text, PageRequest.of(from / size, size));
+        log.info("Fuzzy item search by request \"{}\" received: {}", text, items);
         return itemMapper.toItems(items);
     }
 
     @Override
-    public Collection<Item> getByOwnerId(int userId, Integer from, Integer size) {
-        Pageable pageable;
-        if (from != null && size != null) {
-            pageable = PageRequest.of(from / size, size, Sort.by("id"));
-        } else {
-            int count = (int) itemRepository.count();
-            pageable = PageRequest.of(0, count > 0 ? count : 1, Sort.by("id"));
+    public CursorPage<Item> searchAfter(String text, String cursor, int size) {
+        if (text.isBlank()) {
+            return new CursorPage<>(Collections.emptyList(), null);
         }
+        Slice<ItemEntity> slice = itemSearchEngine.searchAfter(text, afterId(cursor), size);
+        Collection<Item> items = itemMapper.toItems(slice.getContent());
+        log.info("Item search by request \"{}\" after cursor {} received: {}", text, cursor, items);
+        return new CursorPage<>(items, nextCursor(slice));
+    }
+
+    @Override
+    public List<String> suggest(String prefix, int limit) {
+        return itemNameSuggester.suggest(prefix, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamSearch(String text, Consumer<Item> action) {
+        if (text.isBlank()) {
+            return;
+        }
+        entityStreams.forEachBatch(itemSearchEngine.stream(text),
+                batch -> itemMapper.toItems(batch).forEach(action));
+        log.info("Item search by request \"{}\" streamed", text);
+    }
+
+    @Override
+    public Collection<Item> getByOwnerId(int userId, Integer from, Integer size) {
+        Pageable pageable = PageRequest.of(from / size, size, Sort.by("id"));
         Collection<Item> items = itemRepository.findAllByOwnerId(userId, pageable).stream()
                 .map(itemMapper::toItem)
                 .collect(Collectors.toList());
@@ -162,6 +298,29 @@ public class ItemServiceImpl implements ItemService {
         return items;
     }
 
+    @Override
+    public CursorPage<Item> getByOwnerIdAfter(int userId, String cursor, int size) {
+        Slice<ItemEntity> slice = itemRepository.findAllByOwnerIdAndIdGreaterThan(userId, afterId(cursor),
+                PageRequest.of(0, size, Sort.by("id")));
+        Collection<Item> items = itemMapper.toItems(slice.getContent());
+        addBookingsToItems(items);
+        addCommentsToItems(items);
+        log.info("Items for owner after cursor {} received: {}", cursor, items);
+        return new CursorPage<>(items, nextCursor(slice));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamByOwnerId(int userId, Consumer<Item> action) {
+        entityStreams.forEachBatch(itemRepository.streamAllByOwnerId(userId, Sort.by("id")), batch -> {
+            Collection<Item> items = itemMapper.toItems(batch);
+            addBookingsToItems(items);
+            addCommentsToItems(items);
+            items.forEach(action);
+        });
+        log.info("Items for owner {} streamed", userId);
+    }
+
     @Override
     public Comment addComment(Comment comment) {
         UserEntity userEntity = userRepository.findById(comment.getAuthor().getId()).orElseThrow(
@@ -172,8 +331,8 @@ public class ItemServiceImpl implements ItemService {
                 () -> new DataDoesNotExistsException(
                         String.format("Add comment failed, item with id %d not exists", comment.getAuthor().getId())));
 
-        if (!bookingRepository.existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(comment.getItem().getId(),
-                comment.getAuthor().getId(), BookingStatus.APPROVED, LocalDateTime.now())) {
+        if (!bookingHistoryRepository.existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(
+                comment.getItem().getId(), comment.getAuthor().getId(), BookingStatus.APPROVED, LocalDateTime.now())) {
             throw new WithoutBookingException(
                     String.format("Add comment failed, user with id %d did not booked this thing",
                             comment.getAuthor().getId()));
@@ -183,32 +342,57 @@ public class ItemServiceImpl implements ItemService {
             throw new DataAlreadyExistsException("Add comment failed, comment already exists");
         }
 
-        CommentEntity commentEntity = commentRepository.save(commentMapper.toCommentEntity(comment));
+        CommentEntity commentEntity = transactionTemplate.execute(status -> {
+            CommentEntity saved = commentRepository.save(commentMapper.toCommentEntity(comment));
+            domainEventOutbox.add(DomainEventType.COMMENT_ADDED, saved.getId(), itemEntity.getOwner().getId());
+            return saved;
+        });
         commentEntity.setItem(itemEntity);
         commentEntity.setAuthor(userEntity);
         return commentMapper.toComment(commentEntity);
     }
 
+    private static Integer afterId(String cursor) {
+        return cursor == null ? 0 : Cursors.decodeId(cursor);
+    }
+
+    private static String nextCursor(Slice<ItemEntity> slice) {
+        if (!slice.hasNext()) {
+            return null;
+        }
+        List<ItemEntity> content = slice.getContent();
+        return Cursors.encode(content.get(content.size() - 1).getId());
+    }
+
     private void addBookingsToItems(Collection<Item> items) {
-        for (Item item : items) {
-            ArrayList<BookingEntity> bookingEntities = new ArrayList<>(bookingRepository.findLastAndNextBookingByItemId(
-                    item.getId(), LocalDateTime.now()));
-            if (bookingEntities.size() == 2) {
-                item.setLastBooking(bookingMapper.toBooking(bookingEntities.get(0)));
-                item.setNextBooking(bookingMapper.toBooking(bookingEntities.get(1)));
-            } else if (bookingEntities.size() == 1) {
-                if (bookingEntities.get(0).getStart().isBefore(LocalDateTime.now())) {
-                    item.setLastBooking(bookingMapper.toBooking(bookingEntities.get(0)));
-                } else {
-                    item.setNextBooking(bookingMapper.toBooking(bookingEntities.get(0)));
-                }
+        if (items.isEmpty()) {
+            return;
+        }
+        Map<Integer, Item> itemsById = items.stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
+        for (BookingHistoryEntity bookingEntity : bookingHistoryRepository.findLastAndNextBookingsByItemIds(
+                itemsById.keySet(), now)) {
+            Item item = itemsById.get(bookingEntity.getItem().getId());
+            if (bookingEntity.getStart().isBefore(now)) {
+                item.setLastBooking(bookingMapper.toBooking(bookingEntity));
+            } else {
+                item.setNextBooking(bookingMapper.toBooking(bookingEntity));
             }
         }
     }
 
     private void addCommentsToItems(Collection<Item> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<Comment>> commentsByItemId = commentMapper.toComments(
+                        commentRepository.findAllWithAuthorByItemIdIn(items.stream()
+                                .map(Item::getId)
+                                .collect(Collectors.toSet()))).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
         for (Item item : items) {
-            item.setComments(List.copyOf(commentMapper.toComments(commentRepository.findAllByItemId(item.getId()))));
+            item.setComments(commentsByItemId.getOrDefault(item.getId(), Collections.emptyList()));
         }
     }
 }
\ No newline at end of file
@@ -1,13 +1,19 @@
 package ru.practicum.shareit.item.storage;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.entity.CommentEntity;
 
 import java.util.Collection;
 
 public interface CommentRepository extends JpaRepository<CommentEntity, Integer> {
 
-    Collection<CommentEntity> findAllByItemId(Integer itemId);
+    @Query("select c from CommentEntity c " +
+            "join fetch c.author " +
+            "where c.item.id in :itemIds " +
+            "order by c.created")
+    Collection<CommentEntity> findAllWithAuthorByItemIdIn(@Param("itemIds") Collection<Integer> itemIds);
 
     boolean existsByItemIdAndAuthorId(Integer itemId, Integer authorId);
 }
\ No newline at end of file
@@ -1,25 +1,96 @@
 package ru.practicum.shareit.item.storage;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.stream.EntityStreams;
 
+import javax.persistence.QueryHint;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface ItemRepository extends JpaRepository<ItemEntity, Integer> {
 
-    Page<ItemEntity> findAllByOwnerId(Integer ownerId, Pageable pageable);
+    Slice<ItemEntity> findAllByOwnerId(Integer ownerId, Pageable pageable);
+
+    Slice<ItemEntity> findAllByOwnerIdAndIdGreaterThan(Integer ownerId, Integer id, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"owner", "request", "request.requestor"})
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    Stream<ItemEntity> streamAllByOwnerId(Integer ownerId, Sort sort);
 
     @Query("select i from ItemEntity i " +
             "where (upper(i.name) like upper(concat('%', :text, '%')) " +
             "or upper(i.description) like upper(concat('%', :text, '%'))) " +
             "and i.available = true")
-    Page<ItemEntity> search(@Param("text") String text, Pageable pageable);
+    Slice<ItemEntity> search(@Param("text") String text, Pageable pageable);
+
+    @Query("select i from ItemEntity i " +
+            "where (upper(i.name) like upper(concat('%', :text, '%')) " +
+            "or upper(i.description) like upper(concat('%', :text, '%'))) " +
+            "and i.available = true " +
+            "and i.id > :afterId " +
+            "order by i.id")
+    Slice<ItemEntity> searchAfter(@Param("text") String text, @Param("afterId") Integer afterId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"owner", "request", "request.requestor"})
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    @Query("select i from ItemEntity i " +
+            "where (upper(i.name) like upper(concat('%', :text, '%')) " +
+            "or upper(i.description) like upper(concat('%', :text, '%'))) " +
+            "and i.available = true " +
+            "order by i.id")
+    Stream<ItemEntity> streamSearch(@Param("text") String text);
+
+    @Query(value = "SELECT i.* FROM items AS i, to_tsquery('simple', :query) AS q " +
+            "WHERE i.is_available = true AND i.search_vector @@ q " +
+            "ORDER BY ts_rank(i.search_vector, q) DESC, i.id",
+            nativeQuery = true)
+    List<ItemEntity> searchFullText(@Param("query") String query, Pageable pageable);
+
+    @Query(value = "SELECT i.* FROM items AS i " +
+            "WHERE i.is_available = true AND i.search_vector @@ to_tsquery('simple', :query) AND i.id > :afterId " +
+            "ORDER BY i.id",
+            nativeQuery = true)
+    Slice<ItemEntity> searchFullTextAfter(@Param("query") String query, @Param("afterId") Integer afterId,
+                                          Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    @Query(value = "SELECT i.* FROM items AS i, to_tsquery('simple', :query) AS q " +
+            "WHERE i.is_available = true AND i.search_vector @@ q " +
+            "ORDER BY ts_rank(i.search_vector, q) DESC, i.id",
+            nativeQuery = true)
+    Stream<ItemEntity> streamFullText(@Param("query") String query);
+
+    @Query(value = "SELECT i.* FROM items AS i " +
+            "WHERE i.is_available = true AND (:text <% lower(i.name) OR :text <% lower(i.description)) " +
+            "ORDER BY greatest(word_similarity(:text, lower(i.name)), " +
+            "word_similarity(:text, lower(i.description))) DESC, i.id",
+            nativeQuery = true)
+    List<ItemEntity> searchSimilar(@Param("text") String text, Pageable pageable);
+
+    Slice<ItemEntity> findAllByAvailableTrue(Pageable pageable);
+
+    @Query("select i.id from ItemEntity i " +
+            "left join i.request r " +
+            "where i.owner.id = :userId or r.requestor.id = :userId")
+    Collection<Integer> findAllIdsByOwnerIdOrRequestorId(@Param("userId") Integer userId);
 
-    Collection<ItemEntity> findAllByRequestRequestorId(Integer userId);
+    @Query("select distinct r.id from ItemEntity i " +
+            "join i.request r " +
+            "where i.owner.id = :userId and r.requestor.id <> :userId")
+    Collection<Integer> findAllRequestIdsAnsweredByOwnerId(@Param("userId") Integer userId);
 
-    Collection<ItemEntity> findAllByRequestId(Integer requestId);
+    @EntityGraph(attributePaths = {"owner", "request", "request.requestor"})
+    @Query("select i from ItemEntity i where i.request.id in :requestIds")
+    Collection<ItemEntity> findAllByRequestIdIn(@Param("requestIds") Collection<Integer> requestIds);
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursors: the sort key of the last returned row, base64url-encoded.
+ */
+public final class Cursors {
+
+    private static final String SEPARATOR = "|";
+
+    private Cursors() {
+    }
+
+    public static String encode(Integer id) {
+        return encode(String.valueOf(id));
+    }
+
+    public static String encode(LocalDateTime key, Integer id) {
+        return encode(key + SEPARATOR + id);
+    }
+
+    public static Integer decodeId(String cursor) {
+        return parseId(cursor, decode(cursor, 1)[0]);
+    }
+
+    public static DateTimeKey decodeDateTimeKey(String cursor) {
+        String[] parts = decode(cursor, 2);
+        try {
+            return new DateTimeKey(LocalDateTime.parse(parts[0]), parseId(cursor, parts[1]));
+        } catch (DateTimeParseException e) {
+            throw invalid(cursor);
+        }
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decode(String cursor, int parts) {
+        try {
+            String[] res = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR, -1);
+            if (res.length == parts) {
+                return res;
+            }
+        } catch (IllegalArgumentException ignored) {
+        }
+        throw invalid(cursor);
+    }
+
+    private static Integer parseId(String cursor, String id) {
+        try {
+            return Integer.valueOf(id);
+        } catch (NumberFormatException e) {
+            throw invalid(cursor);
+        }
+    }
+
+    private static InvalidCursorException invalid(String cursor) {
+        return new InvalidCursorException(String.format("Invalid pagination cursor %s", cursor));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class DateTimeKey {
+        private final LocalDateTime value;
+        private final Integer id;
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.request.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -11,17 +12,21 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.request.dto.ItemRequestRequest;
 import ru.practicum.shareit.request.dto.ItemRequestResponse;
 import ru.practicum.shareit.request.dto.ItemRequestResponseWithItems;
+import ru.practicum.shareit.request.dto.RequestMatchResponse;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.stream.JsonArrayStreamer;
 import ru.practicum.shareit.user.model.User;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -35,6 +40,7 @@ public class ItemRequestController {
 
     private final ItemRequestService itemRequestService;
     private final ItemRequestMapper mapper;
+    private final JsonArrayStreamer jsonArrayStreamer;
 
     @PostMapping()
     public ItemRequestResponse create(@Valid @RequestBody ItemRequestRequest request,
@@ -54,9 +60,9 @@ public class ItemRequestController {
                 .collect(Collectors.toList());
     }
 
-    @GetMapping("/all")
-    public Collection<ItemRequestResponseWithItems> getAll(@RequestParam(value = "from", required = false) @Min(0) Integer from,
-                                                           @RequestParam(value = "size", required = false) @Min(1) Integer size,
+    @GetMapping(value = "/all", params = {"from", "size"})
+    public Collection<ItemRequestResponseWithItems> getAll(@RequestParam(value = "from") @Min(0) Integer from,
+                                                           @RequestParam(value = "size") @Min(1) Integer size,
                                                            @RequestHeader(X_SHARER_USER_ID) Integer userId) {
         log.info("GET /requests/all");
         return itemRequestService.getAll(userId, from, size).stream()
@@ -64,6 +70,32 @@ public class ItemRequestController {
                 .collect(Collectors.toList());
     }
 
+    @GetMapping(value = "/all", params = {"size", "!from"})
+    public ResponseEntity<List<ItemRequestResponseWithItems>> getAllAfter(@RequestParam(value = "cursor", required = false) String cursor,
+                                                                          @RequestParam(value = "size") @Min(1) Integer size,
+                                                                          @RequestHeader(X_SHARER_USER_ID) Integer userId) {
+        log.info("GET /requests/all, cursor: {}", cursor);
+        return itemRequestService.getAllAfter(userId, cursor, size).toResponse(mapper::toResponseWithItems);
+    }
+
+    @GetMapping("/all")
+    public ResponseEntity<StreamingResponseBody> streamAll(@RequestHeader(X_SHARER_USER_ID) Integer userId) {
+        log.info("GET /requests/all, streaming");
+        return jsonArrayStreamer.stream(action -> itemRequestService.streamAll(userId, action),
+                mapper::toResponseWithItems);
+    }
+
+    @GetMapping("/matches")
+    public Collection<RequestMatchResponse> getMatches(
+            @RequestParam(value = "from", defaultValue = "0") @Min(0) Integer from,
+            @RequestParam(value = "size", defaultValue = "10") @Min(1) Integer size,
+            @RequestHeader(X_SHARER_USER_ID) Integer userId) {
+        log.info("GET /requests/matches, X-Sharer-User-Id: {}", userId);
+        return itemRequestService.getMatches(userId, from, size).stream()
+                .map(mapper::toMatchResponse)
+                .collect(Collectors.toList());
+    }
+
     @GetMapping("/{requestId}")
     public ItemRequestResponseWithItems getById(@PathVariable Integer requestId,
                                                 @RequestHeader(X_SHARER_USER_ID) Integer userId) {
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class RequestMatchResponse {
+    private Integer itemId;
+    private String itemName;
+    private ItemRequestResponse request;
+    private Double score;
+    private LocalDateTime created;
+}
@@ -26,14 +26,14 @@ public class ItemRequestEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pk_request")
-    @SequenceGenerator(name = "pk_request", schema = "public", sequenceName = "requests_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "pk_request", schema = "public", sequenceName = "requests_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false, updatable = false, unique = true)
     private Integer id;
 
     @Column(name = "description")
     private String description;
 
-    @ManyToOne(fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "requestor_id")
     private UserEntity requestor;
 
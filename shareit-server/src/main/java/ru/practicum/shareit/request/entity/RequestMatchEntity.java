@@ -0,0 +1,62 @@
+package ru.practicum.shareit.request.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import ru.practicum.shareit.item.entity.ItemEntity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * An item suggested to its owner as an answer to an open request, with the share of the request words the item has.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@IdClass(RequestMatchEntity.Key.class)
+@Table(name = "request_matches", schema = "public")
+public class RequestMatchEntity {
+
+    @Id
+    @Column(name = "request_id", nullable = false)
+    private Integer requestId;
+
+    @Id
+    @Column(name = "item_id", nullable = false)
+    private Integer itemId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "request_id", insertable = false, updatable = false)
+    private ItemRequestEntity request;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", insertable = false, updatable = false)
+    private ItemEntity item;
+
+    @Column(name = "score", nullable = false)
+    private Double score;
+
+    @Column(name = "created", nullable = false)
+    private LocalDateTime created;
+
+    @Getter
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer requestId;
+        private Integer itemId;
+    }
+}
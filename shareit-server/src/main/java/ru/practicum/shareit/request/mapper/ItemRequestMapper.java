@@ -1,12 +1,16 @@
 package ru.practicum.shareit.request.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.request.dto.ItemRequestRequest;
 import ru.practicum.shareit.request.dto.ItemRequestResponse;
 import ru.practicum.shareit.request.dto.ItemRequestResponseWithItems;
+import ru.practicum.shareit.request.dto.RequestMatchResponse;
 import ru.practicum.shareit.request.entity.ItemRequestEntity;
+import ru.practicum.shareit.request.entity.RequestMatchEntity;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestMatch;
 
 import java.util.Collection;
 
@@ -26,4 +30,11 @@ public interface ItemRequestMapper {
     ItemRequestResponseWithItems toResponseWithItems(ItemRequest itemRequest);
 
     Collection<ItemRequest> toItemRequests(Collection<ItemRequestEntity> itemRequestEntities);
-}
\ No newline at end of file
+
+    @Mapping(target = "itemName", source = "item.name")
+    RequestMatch toRequestMatch(RequestMatchEntity requestMatchEntity);
+
+    Collection<RequestMatch> toRequestMatches(Collection<RequestMatchEntity> requestMatchEntities);
+
+    RequestMatchResponse toMatchResponse(RequestMatch requestMatch);
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class RequestMatch {
+
+    private Integer itemId;
+    private String itemName;
+    private ItemRequest request;
+    private Double score;
+    private LocalDateTime created;
+}
@@ -0,0 +1,262 @@
+package ru.practicum.shareit.request.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.entity.ItemRequestEntity;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * The newest {@code shareit.request.feed.size} requests with the items answering them, kept in memory so that first
+ * pages of the request feed are served without the database. Created requests enter at the head and the oldest fall
+ * off the tail; answers, changes and deletions of items and deletions of users are applied to the kept requests.
+ * A page is served only when the kept requests cover it: enough requests of other users are kept, or every stored
+ * request is; pages past them continue from the {@link #getAnchor anchor} they give. Changes made past
+ * {@link ItemRequestServiceImpl}, {@code ItemServiceImpl} and {@code UserServiceImpl}, including those of other
+ * instances, are not seen until the next {@link #load()}.
+ */
+@Slf4j
+@Component
+public class ItemRequestFeed {
+
+    static final Comparator<ItemRequest> NEWEST_FIRST = Comparator.comparing(ItemRequest::getCreated)
+            .thenComparing(ItemRequest::getId)
+            .reversed();
+
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemRepository itemRepository;
+    private final ItemRequestMapper itemRequestMapper;
+    private final int capacity;
+    private final Deque<ItemRequest> requests = new ArrayDeque<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean complete;
+
+    public ItemRequestFeed(ItemRequestRepository itemRequestRepository,
+                           ItemRepository itemRepository,
+                           ItemRequestMapper itemRequestMapper,
+                           @Value("${shareit.request.feed.size:1000}") int capacity) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.itemRepository = itemRepository;
+        this.itemRequestMapper = itemRequestMapper;
+        this.capacity = capacity;
+    }
+
+    @PostConstruct
+    public void load() {
+        if (capacity <= 0) {
+            return;
+        }
+        Slice<ItemRequestEntity> slice = itemRequestRepository.findAllWithRequestor(PageRequest.of(0, capacity,
+                Sort.by("created").descending().and(Sort.by("id").descending())));
+        List<ItemRequest> loaded = new ArrayList<>();
+        Map<Integer, ItemRequest> byId = new HashMap<>();
+        for (ItemRequestEntity itemRequestEntity : slice) {
+            ItemRequest itemRequest = itemRequestMapper.toItemRequest(itemRequestEntity);
+            itemRequest.setItems(new ArrayList<>());
+            loaded.add(itemRequest);
+            byId.put(itemRequest.getId(), itemRequest);
+        }
+        if (!byId.isEmpty()) {
+            for (ItemEntity itemEntity : itemRepository.findAllByRequestIdIn(byId.keySet())) {
+                byId.get(itemEntity.getRequest().getId()).getItems().add(toItem(itemEntity));
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            requests.clear();
+            requests.addAll(loaded);
+            complete = !slice.hasNext();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Request feed loaded: {} requests, complete: {}", loaded.size(), !slice.hasNext());
+    }
+
+    /**
+     * Returns up to {@code limit} requests of users other than {@code userId}, newest first, skipping the first
+     * {@code offset} of them, or nothing when the kept requests do not cover that page.
+     */
+    public Optional<List<ItemRequest>> getNewest(Integer userId, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<ItemRequest> res = requests.stream()
+                    .filter(itemRequest -> !itemRequest.getRequestor().getId().equals(userId))
+                    .skip(offset)
+                    .limit(limit)
+                    .map(ItemRequestFeed::copy)
+                    .collect(Collectors.toList());
+            if (res.size() < limit && !complete) {
+                return Optional.empty();
+            }
+            return Optional.of(res);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the last kept request of users other than {@code userId} among the first {@code offset} of them, with
+     * its position, from where a page the kept requests do not cover continues; nothing when none is kept.
+     */
+    public Optional<Anchor> getAnchor(Integer userId, long offset) {
+        lock.readLock().lock();
+        try {
+            ItemRequest last = null;
+            long position = 0;
+            for (ItemRequest itemRequest : requests) {
+                if (position == offset) {
+                    break;
+                }
+                if (!itemRequest.getRequestor().getId().equals(userId)) {
+                    last = itemRequest;
+                    position++;
+                }
+            }
+            if (last == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new Anchor(last.getCreated(), last.getId(), position));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void added(ItemRequestEntity itemRequestEntity) {
+        if (capacity <= 0) {
+            return;
+        }
+        ItemRequest itemRequest = itemRequestMapper.toItemRequest(itemRequestEntity);
+        itemRequest.setItems(new ArrayList<>());
+        lock.writeLock().lock();
+        try {
+            if (requests.isEmpty() || NEWEST_FIRST.compare(itemRequest, requests.peekFirst()) < 0) {
+                requests.addFirst(itemRequest);
+            } else if (NEWEST_FIRST.compare(itemRequest, requests.peekLast()) > 0) {
+                if (!complete) {
+                    return;
+                }
+                requests.addLast(itemRequest);
+            } else {
+                List<ItemRequest> sorted = new ArrayList<>(requests);
+                sorted.add(itemRequest);
+                sorted.sort(NEWEST_FIRST);
+                requests.clear();
+                requests.addAll(sorted);
+            }
+            if (requests.size() > capacity) {
+                requests.removeLast();
+                complete = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces the item among the answers of its request, when the request is kept.
+     */
+    public void itemChanged(ItemEntity itemEntity) {
+        if (itemEntity.getRequest() == null) {
+            return;
+        }
+        Item item = toItem(itemEntity);
+        lock.writeLock().lock();
+        try {
+            for (ItemRequest itemRequest : requests) {
+                if (itemRequest.getId().equals(item.getRequest().getId())) {
+                    itemRequest.getItems().removeIf(answer -> answer.getId().equals(item.getId()));
+                    itemRequest.getItems().add(item);
+                    return;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void itemRemoved(Integer itemId) {
+        lock.writeLock().lock();
+        try {
+            requests.forEach(itemRequest -> itemRequest.getItems().removeIf(item -> item.getId().equals(itemId)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void requestorRemoved(Integer userId) {
+        lock.writeLock().lock();
+        try {
+            requests.removeIf(itemRequest -> itemRequest.getRequestor().getId().equals(userId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return requests.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keeps only the fields the feed shows, so kept items do not hold on to their owners and requests.
+     */
+    private static Item toItem(ItemEntity itemEntity) {
+        Item item = new Item();
+        item.setId(itemEntity.getId());
+        item.setName(itemEntity.getName());
+        item.setDescription(itemEntity.getDescription());
+        item.setAvailable(itemEntity.getAvailable());
+        item.setRequest(new ItemRequest());
+        item.getRequest().setId(itemEntity.getRequest().getId());
+        return item;
+    }
+
+    private static ItemRequest copy(ItemRequest itemRequest) {
+        ItemRequest res = new ItemRequest();
+        res.setId(itemRequest.getId());
+        res.setDescription(itemRequest.getDescription());
+        res.setRequestor(itemRequest.getRequestor());
+        res.setCreated(itemRequest.getCreated());
+        res.setItems(List.copyOf(itemRequest.getItems()));
+        return res;
+    }
+
+    /**
+     * The sort key of a kept request and the number of requests of other users up to and including it.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Anchor {
+        private final LocalDateTime created;
+        private final Integer id;
+        private final long position;
+    }
+}
@@ -1,8 +1,11 @@
 package ru.practicum.shareit.request.service;
 
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestMatch;
 
 import java.util.Collection;
+import java.util.function.Consumer;
 
 public interface ItemRequestService {
 
@@ -12,5 +15,11 @@ public interface ItemRequestService {
 
     Collection<ItemRequest> getAll(Integer userId, Integer from, Integer size);
 
+    CursorPage<ItemRequest> getAllAfter(Integer userId, String cursor, int size);
+
+    void streamAll(Integer userId, Consumer<ItemRequest> action);
+
     ItemRequest getById(Integer userId, Integer id);
+
+    Collection<RequestMatch> getMatches(Integer userId, Integer from, Integer size);
 }
\ No newline at end of file
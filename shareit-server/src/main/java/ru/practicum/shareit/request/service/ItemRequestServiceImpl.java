@@ -4,20 +4,37 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.event.model.DomainEventType;
+import ru.practicum.shareit.event.service.DomainEventOutbox;
 import ru.practicum.shareit.exception.DataDoesNotExistsException;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+import ru.practicum.shareit.request.entity.ItemRequestEntity;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestMatch;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.request.storage.RequestMatchRepository;
+import ru.practicum.shareit.stream.EntityStreams;
 import ru.practicum.shareit.user.entity.UserEntity;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 @Component
@@ -27,6 +44,12 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final RequestMatchRepository requestMatchRepository;
+    private final RequestMatcher requestMatcher;
+    private final ItemRequestFeed itemRequestFeed;
+    private final DomainEventOutbox domainEventOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityStreams entityStreams;
     private final UserMapper userMapper;
     private final ItemRequestMapper itemRequestMapper;
     private final ItemMapper itemMapper;
@@ -39,7 +62,14 @@ public class ItemRequestServiceImpl implements ItemRequestService {
                                 itemRequest.getRequestor().getId())));
 
         itemRequest.setRequestor(userMapper.toUser(userEntity));
-        return itemRequestMapper.toItemRequest(itemRequestRepository.save(itemRequestMapper.toEntity(itemRequest)));
+        ItemRequestEntity saved = transactionTemplate.execute(status -> {
+            ItemRequestEntity res = itemRequestRepository.save(itemRequestMapper.toEntity(itemRequest));
+            domainEventOutbox.add(DomainEventType.REQUEST_CREATED, res.getId(), userEntity.getId());
+            return res;
+        });
+        requestMatcher.index(saved);
+        itemRequestFeed.added(saved);
+        return itemRequestMapper.toItemRequest(saved);
     }
 
     @Override
@@ -50,25 +80,73 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         }
         Collection<ItemRequest> itemRequests = List.copyOf(itemRequestMapper.toItemRequests(itemRequestRepository
                 .findAllByRequestorIdOrderByCreatedDesc(userId)));
-        itemRequests.forEach(i -> i.setItems(List.copyOf(itemMapper.toItems(itemRepository.findAllByRequestRequestorId(userId)))));
+        attachItems(itemRequests);
         return itemRequests;
     }
 
     @Override
     public Collection<ItemRequest> getAll(Integer userId, Integer from, Integer size) {
-        Pageable pageable;
-        if (from != null & size != null) {
-            pageable = PageRequest.of(from, size, Sort.by("created").descending());
+        long offset = (long) from * size;
+        Optional<List<ItemRequest>> newest = itemRequestFeed.getNewest(userId, offset, size);
+        if (newest.isPresent()) {
+            return newest.get();
+        }
+        Sort sort = Sort.by("created").descending().and(Sort.by("id").descending());
+        Optional<ItemRequestFeed.Anchor> anchor = itemRequestFeed.getAnchor(userId, offset);
+        Slice<ItemRequestEntity> slice;
+        if (anchor.isPresent()) {
+            slice = itemRequestRepository.findAllWithoutRequestorBefore(userId, anchor.get().getCreated(),
+                    anchor.get().getId(), OffsetPageRequest.of(offset - anchor.get().getPosition(), size, sort));
         } else {
-            int count = (int) itemRequestRepository.count();
-            pageable = PageRequest.of(0, count > 0 ? count : 1, Sort.by("created").descending());
+            slice = itemRequestRepository.findAllWithoutRequestor(userId, PageRequest.of(from, size, sort));
         }
-        Collection<ItemRequest> itemRequests = itemRequestMapper.toItemRequests(
-                itemRequestRepository.findAllWithoutRequestor(userId, pageable).getContent());
-        itemRequests.forEach(i -> i.setItems(List.copyOf(itemMapper.toItems(itemRepository.findAllByRequestId(i.getId())))));
+        Collection<ItemRequest> itemRequests = itemRequestMapper.toItemRequests(slice.getContent());
+        attachItems(itemRequests);
         return itemRequests;
     }
 
+    @Override
+    public CursorPage<ItemRequest> getAllAfter(Integer userId, String cursor, int size) {
+        if (cursor == null) {
+            Optional<List<ItemRequest>> newest = itemRequestFeed.getNewest(userId, 0, size + 1);
+            if (newest.isPresent()) {
+                List<ItemRequest> itemRequests = newest.get();
+                if (itemRequests.size() <= size) {
+                    return new CursorPage<>(itemRequests, null);
+                }
+                ItemRequest last = itemRequests.get(size - 1);
+                return new CursorPage<>(itemRequests.subList(0, size), Cursors.encode(last.getCreated(), last.getId()));
+            }
+        }
+        Pageable pageable = PageRequest.of(0, size, Sort.by("created").descending().and(Sort.by("id").descending()));
+        Slice<ItemRequestEntity> slice;
+        if (cursor == null) {
+            slice = itemRequestRepository.findAllWithoutRequestor(userId, pageable);
+        } else {
+            Cursors.DateTimeKey key = Cursors.decodeDateTimeKey(cursor);
+            slice = itemRequestRepository.findAllWithoutRequestorBefore(userId, key.getValue(), key.getId(), pageable);
+        }
+        Collection<ItemRequest> itemRequests = itemRequestMapper.toItemRequests(slice.getContent());
+        attachItems(itemRequests);
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            ItemRequestEntity last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            nextCursor = Cursors.encode(last.getCreated(), last.getId());
+        }
+        return new CursorPage<>(itemRequests, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Integer userId, Consumer<ItemRequest> action) {
+        entityStreams.forEachBatch(itemRequestRepository.streamAllWithoutRequestor(userId,
+                Sort.by("created").descending()), batch -> {
+            Collection<ItemRequest> itemRequests = itemRequestMapper.toItemRequests(batch);
+            attachItems(itemRequests);
+            itemRequests.forEach(action);
+        });
+    }
+
     @Override
     public ItemRequest getById(Integer userId, Integer id) {
         if (!userRepository.existsById(userId)) {
@@ -78,7 +156,32 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         ItemRequest itemRequest = itemRequestMapper.toItemRequest(itemRequestRepository.findById(id)
                 .orElseThrow(() -> new DataDoesNotExistsException(
                         String.format("Get ItemRequest by id failed, itemRequest with id %d not exists", id))));
-        itemRequest.setItems(List.copyOf(itemMapper.toItems(itemRepository.findAllByRequestId(itemRequest.getId()))));
+        attachItems(List.of(itemRequest));
         return itemRequest;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Collection<RequestMatch> getMatches(Integer userId, Integer from, Integer size) {
+        if (!userRepository.existsById(userId)) {
+            throw new DataDoesNotExistsException(
+                    String.format("Get request matches failed, user with id %d not exists", userId));
+        }
+        return itemRequestMapper.toRequestMatches(
+                requestMatchRepository.findAllByItemOwnerId(userId, PageRequest.of(from / size, size)));
+    }
+
+    /**
+     * Loads the items answering all the given requests with one query and gives every request its own items, so a
+     * page of requests costs the same number of queries at any size.
+     */
+    private void attachItems(Collection<ItemRequest> itemRequests) {
+        if (itemRequests.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<Item>> itemsByRequestId = itemMapper.toItems(itemRepository.findAllByRequestIdIn(
+                        itemRequests.stream().map(ItemRequest::getId).collect(Collectors.toList())))
+                .stream()
+                .collect(Collectors.groupingBy(item -> item.getRequest().getId()));
+        itemRequests.forEach(i -> i.setItems(itemsByRequestId.getOrDefault(i.getId(), List.of())));
+    }
+}
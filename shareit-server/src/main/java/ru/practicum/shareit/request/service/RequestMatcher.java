@@ -0,0 +1,298 @@
+package ru.practicum.shareit.request.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.request.entity.ItemRequestEntity;
+import ru.practicum.shareit.request.entity.RequestMatchEntity;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.request.storage.RequestMatchRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Suggests items to their owners as answers to open requests, that is requests no item has answered yet. Words of
+ * open request descriptions are kept in an inverted index from word to request ids, built on start and updated as
+ * requests are created and answered. Added and changed items are scored on a worker thread by reading only the
+ * request ids of the item's own words, so the cost follows the size of the item and not the number of open
+ * requests; words found in more than {@link #MAX_POSTINGS} requests tell nothing about any of them and are skipped.
+ * A request scores the share of its words the item has. The best {@link #MAX_MATCHES} requests scoring at least
+ * {@code shareit.request.match.min-score} replace the stored matches of the item.
+ */
+@Slf4j
+@Component
+public class RequestMatcher {
+
+    static final int MIN_TOKEN_LENGTH = 3;
+    static final int MAX_POSTINGS = 1000;
+    static final int MAX_MATCHES = 10;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final ItemRequestRepository itemRequestRepository;
+    private final RequestMatchRepository requestMatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final double minScore;
+    private final Map<String, Set<Integer>> postings = new HashMap<>();
+    private final Map<Integer, OpenRequest> requests = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "request-matcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RequestMatcher(ItemRequestRepository itemRequestRepository,
+                          RequestMatchRepository requestMatchRepository,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${shareit.request.match.min-score:0.5}") double minScore) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.requestMatchRepository = requestMatchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.minScore = minScore;
+    }
+
+    @PostConstruct
+    public void load() {
+        Pageable pageable = PageRequest.of(0, LOAD_BATCH_SIZE, Sort.by("id"));
+        Slice<ItemRequestEntity> slice;
+        do {
+            slice = itemRequestRepository.findAllOpen(pageable);
+            slice.forEach(this::index);
+            pageable = slice.nextPageable();
+        } while (slice.hasNext());
+        log.info("Request match index built: {} open requests, {} words", size(), words());
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.shutdownNow();
+    }
+
+    public void index(ItemRequestEntity itemRequestEntity) {
+        Set<String> tokens = tokens(itemRequestEntity.getDescription());
+        lock.writeLock().lock();
+        try {
+            removeRequest(itemRequestEntity.getId());
+            if (tokens.isEmpty()) {
+                return;
+            }
+            requests.put(itemRequestEntity.getId(),
+                    new OpenRequest(itemRequestEntity.getRequestor().getId(), tokens));
+            for (String token : tokens) {
+                postings.computeIfAbsent(token, key -> new HashSet<>()).add(itemRequestEntity.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer requestId) {
+        lock.writeLock().lock();
+        try {
+            removeRequest(requestId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeAllOf(Integer requestorId) {
+        lock.writeLock().lock();
+        try {
+            List<Integer> ids = requests.entrySet().stream()
+                    .filter(entry -> entry.getValue().requestorId.equals(requestorId))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            ids.forEach(this::removeRequest);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Queues an added or changed item for matching. An item answering a request closes that request, so the
+     * request leaves the index and the suggestions made for it are dropped.
+     */
+    public void itemChanged(ItemEntity itemEntity) {
+        Integer itemId = itemEntity.getId();
+        Integer ownerId = itemEntity.getOwner().getId();
+        Integer answeredId = itemEntity.getRequest() == null ? null : itemEntity.getRequest().getId();
+        String text = Boolean.TRUE.equals(itemEntity.getAvailable())
+                ? itemEntity.getName() + " " + Objects.toString(itemEntity.getDescription(), "")
+                : null;
+        if (answeredId != null) {
+            remove(answeredId);
+        }
+        worker.execute(() -> {
+            try {
+                match(itemId, ownerId, text, answeredId);
+            } catch (RuntimeException e) {
+                log.warn("Matching item {} against open requests failed", itemId, e);
+            }
+        });
+    }
+
+    /**
+     * Queues a deleted item. Its matches are deleted with it; a request it answered is open again once no other
+     * item answers it, so the request returns to the index.
+     */
+    public void itemRemoved(ItemEntity itemEntity) {
+        if (itemEntity.getRequest() != null) {
+            answerRemoved(itemEntity.getRequest().getId());
+        }
+    }
+
+    /**
+     * Queues a request one of whose answers was deleted, returning it to the index if no answer is left. Inside a
+     * transaction the request is checked once the transaction commits, so the deleted answer is no longer seen.
+     */
+    public void answerRemoved(Integer requestId) {
+        Runnable reopen = () -> worker.execute(() -> {
+            try {
+                itemRequestRepository.findOpenById(requestId).ifPresent(this::index);
+            } catch (RuntimeException e) {
+                log.warn("Reopening request {} after its answer was deleted failed", requestId, e);
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reopen.run();
+                }
+            });
+        } else {
+            reopen.run();
+        }
+    }
+
+    /**
+     * Replaces the stored matches of the item with its best scoring open requests and returns them.
+     */
+    List<RequestMatchEntity> match(Integer itemId, Integer ownerId, String text, Integer answeredId) {
+        List<RequestMatchEntity> matches = score(itemId, ownerId, text);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (answeredId != null) {
+                requestMatchRepository.deleteAllByRequestId(answeredId);
+            }
+            requestMatchRepository.deleteAllByItemId(itemId);
+            matches.forEach(requestMatchRepository::add);
+        });
+        if (!matches.isEmpty()) {
+            log.info("Item {} matched {} open requests", itemId, matches.size());
+        }
+        return matches;
+    }
+
+    List<RequestMatchEntity> score(Integer itemId, Integer ownerId, String text) {
+        Map<Integer, Integer> hits = new HashMap<>();
+        List<RequestMatchEntity> res = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        lock.readLock().lock();
+        try {
+            for (String token : tokens(text)) {
+                Set<Integer> ids = postings.get(token);
+                if (ids != null && ids.size() <= MAX_POSTINGS) {
+                    ids.forEach(id -> hits.merge(id, 1, Integer::sum));
+                }
+            }
+            hits.forEach((requestId, count) -> {
+                OpenRequest request = requests.get(requestId);
+                double score = (double) count / request.tokens.size();
+                if (!request.requestorId.equals(ownerId) && score >= minScore) {
+                    RequestMatchEntity match = new RequestMatchEntity();
+                    match.setRequestId(requestId);
+                    match.setItemId(itemId);
+                    match.setScore(score);
+                    match.setCreated(now);
+                    res.add(match);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return res.stream()
+                .sorted(Comparator.comparing(RequestMatchEntity::getScore).reversed()
+                        .thenComparing(RequestMatchEntity::getRequestId, Comparator.reverseOrder()))
+                .limit(MAX_MATCHES)
+                .collect(Collectors.toList());
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return requests.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int words() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeRequest(Integer requestId) {
+        OpenRequest request = requests.remove(requestId);
+        if (request == null) {
+            return;
+        }
+        for (String token : request.tokens) {
+            Set<Integer> ids = postings.get(token);
+            ids.remove(requestId);
+            if (ids.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    private static Set<String> tokens(String text) {
+        if (text == null) {
+            return Set.of();
+        }
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> token.length() >= MIN_TOKEN_LENGTH)
+                .collect(Collectors.toSet());
+    }
+
+    private static final class OpenRequest {
+
+        private final Integer requestorId;
+        private final Set<String> tokens;
+
+        private OpenRequest(Integer requestorId, Set<String> tokens) {
+            this.requestorId = requestorId;
+            this.tokens = tokens;
+        }
+    }
+}
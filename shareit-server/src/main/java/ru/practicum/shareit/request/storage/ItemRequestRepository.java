@@ -1,18 +1,58 @@
 package ru.practicum.shareit.request.storage;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.request.entity.ItemRequestEntity;
+import ru.practicum.shareit.stream.EntityStreams;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequestEntity, Integer> {
 
+    @EntityGraph(attributePaths = "requestor")
     Collection<ItemRequestEntity> findAllByRequestorIdOrderByCreatedDesc(Integer requestorId);
 
-    @Query(value = "SELECT * FROM requests " +
-            "WHERE requestor_id != :userId", nativeQuery = true)
-    Page<ItemRequestEntity> findAllWithoutRequestor(Integer userId, Pageable pageable);
-}
\ No newline at end of file
+    @EntityGraph(attributePaths = "requestor")
+    @Query("select r from ItemRequestEntity r where r.requestor.id <> :userId")
+    Slice<ItemRequestEntity> findAllWithoutRequestor(@Param("userId") Integer userId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "requestor")
+    @Query("select r from ItemRequestEntity r " +
+            "where r.requestor.id <> :userId " +
+            "and r.created <= :created and (r.created < :created or r.id < :id)")
+    Slice<ItemRequestEntity> findAllWithoutRequestorBefore(@Param("userId") Integer userId,
+                                                           @Param("created") LocalDateTime created,
+                                                           @Param("id") Integer id,
+                                                           Pageable pageable);
+
+    @EntityGraph(attributePaths = "requestor")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    @Query("select r from ItemRequestEntity r where r.requestor.id <> :userId")
+    Stream<ItemRequestEntity> streamAllWithoutRequestor(@Param("userId") Integer userId, Sort sort);
+
+    @EntityGraph(attributePaths = "requestor")
+    @Query("select r from ItemRequestEntity r")
+    Slice<ItemRequestEntity> findAllWithRequestor(Pageable pageable);
+
+    @EntityGraph(attributePaths = "requestor")
+    @Query("select r from ItemRequestEntity r " +
+            "where not exists (select i.id from ItemEntity i where i.request = r)")
+    Slice<ItemRequestEntity> findAllOpen(Pageable pageable);
+
+    @EntityGraph(attributePaths = "requestor")
+    @Query("select r from ItemRequestEntity r " +
+            "where r.id = :id and not exists (select i.id from ItemEntity i where i.request = r)")
+    Optional<ItemRequestEntity> findOpenById(@Param("id") Integer id);
+}
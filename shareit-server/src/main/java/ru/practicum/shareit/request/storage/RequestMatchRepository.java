@@ -0,0 +1,44 @@
+package ru.practicum.shareit.request.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.request.entity.RequestMatchEntity;
+
+import java.util.List;
+
+public interface RequestMatchRepository extends JpaRepository<RequestMatchEntity, RequestMatchEntity.Key> {
+
+    @Query("select m from RequestMatchEntity m " +
+            "join fetch m.item i " +
+            "join fetch m.request r " +
+            "join fetch r.requestor " +
+            "where i.owner.id = :ownerId " +
+            "order by m.score desc, m.created desc, m.requestId desc")
+    List<RequestMatchEntity> findAllByItemOwnerId(@Param("ownerId") Integer ownerId, Pageable pageable);
+
+    /**
+     * Inserts the match unless its request or item has been deleted in the meantime.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into request_matches (request_id, item_id, score, created) " +
+            "select :#{#match.requestId}, :#{#match.itemId}, :#{#match.score}, :#{#match.created} " +
+            "where exists (select 1 from requests where id = :#{#match.requestId}) " +
+            "and exists (select 1 from items where id = :#{#match.itemId})",
+            nativeQuery = true)
+    void add(@Param("match") RequestMatchEntity match);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RequestMatchEntity m where m.itemId = :itemId")
+    void deleteAllByItemId(@Param("itemId") Integer itemId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RequestMatchEntity m where m.requestId = :requestId")
+    void deleteAllByRequestId(@Param("requestId") Integer requestId);
+}
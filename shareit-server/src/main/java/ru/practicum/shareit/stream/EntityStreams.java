@@ -0,0 +1,40 @@
+package ru.practicum.shareit.stream;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Consumes a repository stream in fixed-size batches and detaches every batch once it has been handled,
+ * so the persistence context does not grow with the size of the result.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityStreams {
+
+    public static final String FETCH_SIZE = "100";
+    public static final int BATCH_SIZE = 100;
+
+    private final EntityManager entityManager;
+
+    public <T> void forEachBatch(Stream<T> entities, Consumer<List<T>> action) {
+        try (entities) {
+            Iterator<T> iterator = entities.iterator();
+            List<T> batch = new ArrayList<>(BATCH_SIZE);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == BATCH_SIZE || !iterator.hasNext()) {
+                    action.accept(batch);
+                    entityManager.clear();
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+        }
+    }
+}
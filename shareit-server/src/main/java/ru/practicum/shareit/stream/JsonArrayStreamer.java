@@ -0,0 +1,47 @@
+package ru.practicum.shareit.stream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Writes elements to the response as a JSON array while they are produced.
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonArrayStreamer {
+
+    private final ObjectMapper objectMapper;
+
+    public <T, R> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> source,
+                                                               Function<T, R> mapper) {
+        StreamingResponseBody body = out -> {
+            // Not closed on failure: an error raised before the first buffer is flushed
+            // leaves the response uncommitted, so ErrorHandler can still write it.
+            JsonGenerator generator = objectMapper.createGenerator(StreamUtils.nonClosing(out));
+            generator.writeStartArray();
+            source.accept(element -> {
+                try {
+                    generator.writeObject(mapper.apply(element));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.close();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.stream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Writes elements to the response as newline-delimited JSON while they are produced, one object per line.
+ */
+@Component
+@RequiredArgsConstructor
+public class NdjsonStreamer {
+
+    private final ObjectMapper objectMapper;
+
+    public <T, R> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> source,
+                                                               Function<T, R> mapper) {
+        StreamingResponseBody body = out -> {
+            // Not closed on failure, see JsonArrayStreamer and NdjsonErrorConfig.
+            JsonGenerator generator = objectMapper.createGenerator(StreamUtils.nonClosing(out));
+            generator.setRootValueSeparator(null);
+            source.accept(element -> {
+                try {
+                    generator.writeObject(mapper.apply(element));
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.close();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
@@ -23,7 +23,7 @@ public class UserEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pk_user")
-    @SequenceGenerator(name = "pk_user", schema = "public", sequenceName = "users_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "pk_user", schema = "public", sequenceName = "users_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false, updatable = false, unique = true)
     private Integer id;
 
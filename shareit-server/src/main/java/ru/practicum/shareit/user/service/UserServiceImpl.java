@@ -3,8 +3,19 @@ package ru.practicum.shareit.user.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.service.BookingCounters;
+import ru.practicum.shareit.booking.storage.BookingHistoryRepository;
+import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.exception.DataAlreadyExistsException;
 import ru.practicum.shareit.exception.DataDoesNotExistsException;
+import ru.practicum.shareit.item.search.FuzzyItemSearch;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.service.ItemRequestFeed;
+import ru.practicum.shareit.request.service.RequestMatcher;
 import ru.practicum.shareit.user.entity.UserEntity;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
@@ -18,12 +29,25 @@ import java.util.Collection;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingHistoryRepository bookingHistoryRepository;
+    private final BookingCounters bookingCounters;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemNameSuggester itemNameSuggester;
+    private final FuzzyItemSearch fuzzyItemSearch;
+    private final RequestMatcher requestMatcher;
+    private final ItemRequestFeed itemRequestFeed;
     private final UserMapper mapper;
 
     @Override
+    @Transactional
     public User add(User user) {
-        log.info("User added: {}", user);
-        return mapper.toUser(userRepository.save(mapper.toUserEntity(user)));
+        UserEntity userEntity = userRepository.save(mapper.toUserEntity(user));
+        bookingCounters.userAdded(userEntity.getId());
+        log.info("User added: {}", userEntity);
+        return mapper.toUser(userEntity);
     }
 
     @Override
@@ -57,8 +81,23 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public void delete(Integer id) {
+        Collection<Integer> cascadedItemIds = itemRepository.findAllIdsByOwnerIdOrRequestorId(id);
+        Collection<Integer> answeredRequestIds = itemRepository.findAllRequestIdsAnsweredByOwnerId(id);
+        bookingRepository.lockAllIdsCascadedByUser(id);
+        bookingCounters.userRemoved(id, bookingHistoryRepository.countAllCascadedByUser(id));
         userRepository.deleteById(id);
+        cascadedItemIds.forEach(itemSearchEngine::remove);
+        cascadedItemIds.forEach(itemNameSuggester::remove);
+        cascadedItemIds.forEach(fuzzyItemSearch::remove);
+        requestMatcher.removeAllOf(id);
+        answeredRequestIds.forEach(requestMatcher::answerRemoved);
+        cascadedItemIds.forEach(itemRequestFeed::itemRemoved);
+        itemRequestFeed.requestorRemoved(id);
+        if (!cascadedItemIds.isEmpty()) {
+            itemSearchCache.invalidate();
+        }
         log.info("User with id {} removed", id);
     }
 
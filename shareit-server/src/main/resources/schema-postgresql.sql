@@ -0,0 +1,28 @@
+alter table items add column if not exists search_vector tsvector
+    generated always as (to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(description, ''))) stored;
+
+create index if not exists idx_items_search_vector on items using gin (search_vector) where is_available;
+
+create extension if not exists pg_trgm;
+
+create index if not exists idx_items_name_trgm on items using gin (lower(name) gin_trgm_ops) where is_available;
+
+create index if not exists idx_items_description_trgm on items using gin (lower(description) gin_trgm_ops)
+    where is_available;
+
+create extension if not exists btree_gist;
+
+alter table bookings add constraint ex_bookings_item_approved_period
+    exclude using gist (item_id with =, tsrange(start_date, end_date) with &&) where (status = 'APPROVED');
+
+create index if not exists idx_bookings_booker_waiting on bookings (booker_id, start_date desc)
+    where status = 'WAITING';
+
+create index if not exists idx_bookings_booker_rejected on bookings (booker_id, start_date desc)
+    where status = 'REJECTED';
+
+create index if not exists idx_bookings_owner_waiting on bookings (owner_id, start_date desc)
+    where status = 'WAITING';
+
+create index if not exists idx_bookings_owner_rejected on bookings (owner_id, start_date desc)
+    where status = 'REJECTED';
@@ -1,8 +1,9 @@
-create sequence users_id_seq;
-create sequence requests_id_seq;
-create sequence items_id_seq;
-create sequence bookings_id_seq;
-create sequence comments_id_seq;
+create sequence users_id_seq increment by 50;
+create sequence requests_id_seq increment by 50;
+create sequence items_id_seq increment by 50;
+create sequence bookings_id_seq increment by 50;
+create sequence comments_id_seq increment by 50;
+create sequence outbox_events_id_seq increment by 50;
 
 create table users (
     id BIGINT not null default nextval('users_id_seq'),
@@ -27,6 +28,7 @@ create table items (
     is_available boolean not null,
     owner_id bigint references users (id) on delete cascade not null,
     request_id bigint references requests (id) on delete cascade,
+    constraint uq_item_owner unique (id, owner_id),
     constraint pk_item primary key (id)
 );
 
@@ -36,10 +38,33 @@ create table bookings (
     end_date timestamp not null check(start_date < end_date),
     item_id bigint references items (id) on delete cascade not null,
     booker_id bigint references users (id) on delete cascade not null,
+    owner_id bigint not null,
     status varchar(50) not null,
+    phase varchar(50) not null,
+    constraint fk_booking_item_owner foreign key (item_id, owner_id) references items (id, owner_id)
+        on update cascade on delete cascade,
     constraint pk_booking primary key (id)
 );
 
+create table bookings_archive (
+    id BIGINT not null,
+    start_date timestamp not null,
+    end_date timestamp not null check(start_date < end_date),
+    item_id bigint references items (id) on delete cascade not null,
+    booker_id bigint references users (id) on delete cascade not null,
+    owner_id bigint not null,
+    status varchar(50) not null,
+    phase varchar(50) not null,
+    constraint fk_booking_archive_item_owner foreign key (item_id, owner_id) references items (id, owner_id)
+        on update cascade on delete cascade,
+    constraint pk_booking_archive primary key (id)
+);
+
+create view booking_history as
+    select id, start_date, end_date, item_id, booker_id, owner_id, status, phase from bookings
+    union all
+    select id, start_date, end_date, item_id, booker_id, owner_id, status, phase from bookings_archive;
+
 create table comments (
     id BIGINT not null default nextval('comments_id_seq'),
     text varchar(1024) not null,
@@ -48,4 +73,58 @@ create table comments (
     created timestamp not null,
     constraint uq_comment unique (item_id, author_id),
     constraint pk_comment primary key (id)
-);
\ No newline at end of file
+);
+
+create table booking_counters (
+    user_id bigint not null,
+    role varchar(50) not null,
+    waiting_count bigint not null default 0,
+    approved_count bigint not null default 0,
+    rejected_count bigint not null default 0,
+    canceled_count bigint not null default 0,
+    future_count bigint not null default 0,
+    current_count bigint not null default 0,
+    past_count bigint not null default 0,
+    constraint pk_booking_counter primary key (user_id, role)
+);
+
+create table request_matches (
+    request_id bigint references requests (id) on delete cascade not null,
+    item_id bigint references items (id) on delete cascade not null,
+    score double precision not null,
+    created timestamp not null,
+    constraint pk_request_match primary key (request_id, item_id)
+);
+
+create table outbox_events (
+    id bigint not null default nextval('outbox_events_id_seq'),
+    type varchar(50) not null,
+    entity_id bigint not null,
+    user_id bigint,
+    created timestamp not null,
+    constraint pk_outbox_event primary key (id)
+);
+
+create index idx_items_owner_id on items (owner_id, id);
+create index idx_requests_created_id on requests (created desc, id desc);
+create index idx_bookings_booker_start_id on bookings (booker_id, start_date desc, id desc);
+create index idx_bookings_item_start_id on bookings (item_id, start_date desc, id desc);
+create index idx_bookings_owner_start_id on bookings (owner_id, start_date desc, id desc);
+create index idx_bookings_item_status_end on bookings (item_id, status, end_date, start_date);
+create index idx_bookings_item_status_start on bookings (item_id, status, start_date);
+create index idx_bookings_booker_status_start on bookings (booker_id, status, start_date desc);
+create index idx_bookings_owner_status_start on bookings (owner_id, status, start_date desc);
+create index idx_bookings_booker_phase_start on bookings (booker_id, phase, start_date desc);
+create index idx_bookings_owner_phase_start on bookings (owner_id, phase, start_date desc);
+create index idx_bookings_phase_start on bookings (phase, start_date);
+create index idx_bookings_phase_end on bookings (phase, end_date);
+create index idx_items_request_id on items (request_id);
+create index idx_requests_requestor_created on requests (requestor_id, created desc);
+create index idx_comments_author_id on comments (author_id);
+create index idx_bookings_archive_booker_start_id on bookings_archive (booker_id, start_date desc, id desc);
+create index idx_bookings_archive_owner_start_id on bookings_archive (owner_id, start_date desc, id desc);
+create index idx_bookings_archive_booker_status_start on bookings_archive (booker_id, status, start_date desc);
+create index idx_bookings_archive_owner_status_start on bookings_archive (owner_id, status, start_date desc);
+create index idx_bookings_archive_item_status_end on bookings_archive (item_id, status, end_date, start_date);
+create index idx_request_matches_item_id on request_matches (item_id);
+create index idx_outbox_events_created_id on outbox_events (created, id);
@@ -0,0 +1,247 @@
+package ru.practicum.shareit;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.entity.BookingEntity;
+import ru.practicum.shareit.booking.entity.BookingHistoryEntity;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingHistoryRepository;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingSpecifications;
+import ru.practicum.shareit.event.storage.OutboxEventRepository;
+import ru.practicum.shareit.item.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs EXPLAIN for the SQL every repository method generates and fails when a filtered table is read
+ * with a full scan, so a query change that no longer matches an index is caught here.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.practicum.shareit.QueryPlanTest$CapturingInspector")
+class QueryPlanTest {
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("PUBLIC\\.(\\w+)\\.tableScan");
+    private static final LocalDateTime NOW = LocalDateTime.now();
+    private static final Sort START_DESC = Sort.by("start").descending();
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingHistoryRepository bookingHistoryRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The planner picks table scans for empty tables, so every table gets enough rows for indexes to pay off.
+     * ANALYZE commits them, so they are inserted once for the whole class.
+     */
+    @BeforeEach
+    void setUp() {
+        CapturingInspector.STATEMENTS.clear();
+        if (jdbcTemplate.queryForObject("select count(*) from users", Integer.class) > 0) {
+            return;
+        }
+        jdbcTemplate.update("insert into users (id, name, email) select x, 'user' || x, 'user' || x || '@yandex.ru' " +
+                "from system_range(1, 100)");
+        jdbcTemplate.update("insert into requests (id, description, requestor_id, created) " +
+                "select x, 'request' || x, 1 + mod(x, 100), now() " +
+                "from system_range(1, 500)");
+        jdbcTemplate.update("insert into items (id, name, description, is_available, owner_id, request_id) " +
+                "select x, 'item' || x, 'description' || x, true, 1 + mod(x, 100), " +
+                "case when mod(x, 2) = 0 then 1 + mod(x, 500) end " +
+                "from system_range(1, 1000)");
+        jdbcTemplate.update("insert into bookings " +
+                "(id, start_date, end_date, item_id, booker_id, owner_id, status, phase) " +
+                "select x, dateadd('DAY', x - 5000, now()), dateadd('DAY', x - 4999, now()), i.id, 1 + mod(x, 100), " +
+                "i.owner_id, case mod(x, 3) when 0 then 'WAITING' when 1 then 'APPROVED' else 'REJECTED' end, " +
+                "case when x < 5000 then 'PAST' when x = 5000 then 'CURRENT' else 'FUTURE' end " +
+                "from system_range(1, 10000) join items i on i.id = 1 + mod(x, 1000)");
+        jdbcTemplate.update("insert into bookings_archive " +
+                "(id, start_date, end_date, item_id, booker_id, owner_id, status, phase) " +
+                "select id, start_date, end_date, item_id, booker_id, owner_id, status, phase from bookings " +
+                "where id <= 2000");
+        jdbcTemplate.update("delete from bookings where id <= 2000");
+        jdbcTemplate.update("insert into comments (id, text, item_id, author_id, created) " +
+                "select x, 'comment' || x, 1 + mod(x, 1000), 1 + mod(x / 1000, 100), now() " +
+                "from system_range(1, 3000)");
+        jdbcTemplate.update("insert into outbox_events (id, type, entity_id, user_id, created) " +
+                "select x, 'BOOKING_CREATED', x, 1 + mod(x, 100), dateadd('SECOND', x, now()) " +
+                "from system_range(1, 3000)");
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    void bookingQueriesUseIndexes() {
+        Pageable page = Pageable.ofSize(10);
+        assertIndexed(() -> bookingRepository.existsBookingByItemIdAndBookerIdAndStatus(1, 1, BookingStatus.WAITING));
+        assertIndexed(() -> bookingHistoryRepository.findAllByBookerId(1, page));
+        assertIndexed(() -> bookingRepository.findAllByBookerIdAndPhase(1, BookingPhase.CURRENT, page));
+        assertIndexed(() -> bookingRepository.findAllByBookerIdAndStatus(1, BookingStatus.WAITING, page));
+        assertIndexed(() -> bookingHistoryRepository.findAllByItemOwnerId(1, page));
+        assertIndexed(() -> bookingRepository.findAllByItemOwnerIdAndPhase(1, BookingPhase.CURRENT, page));
+        assertIndexed(() -> bookingRepository.findAllByItemOwnerIdAndStatus(1, BookingStatus.REJECTED, page));
+        assertIndexed(() -> bookingHistoryRepository.streamAllByBookerId(1, START_DESC).close());
+        assertIndexed(() -> bookingRepository.streamAllByBookerIdAndPhase(1, BookingPhase.PAST, START_DESC).close());
+        assertIndexed(() -> bookingRepository.streamAllByBookerIdAndStatus(1, BookingStatus.WAITING,
+                START_DESC).close());
+        assertIndexed(() -> bookingHistoryRepository.streamAllByItemOwnerId(1, START_DESC).close());
+        assertIndexed(() -> bookingRepository.streamAllByItemOwnerIdAndPhase(1, BookingPhase.FUTURE,
+                START_DESC).close());
+        assertIndexed(() -> bookingRepository.streamAllByItemOwnerIdAndStatus(1, BookingStatus.WAITING,
+                START_DESC).close());
+        assertIndexed(() -> bookingHistoryRepository.existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(1, 1,
+                BookingStatus.APPROVED, NOW));
+        assertIndexed(() -> bookingHistoryRepository.findLastAndNextBookingsByItemIds(List.of(1, 2), NOW));
+        assertIndexed(() -> bookingHistoryRepository.findAllOverlapping(1, BookingStatus.APPROVED, NOW,
+                NOW.plusDays(1)));
+        assertIndexed(() -> bookingRepository.existsOverlapping(1, BookingStatus.APPROVED, NOW, NOW.plusDays(1)));
+        assertIndexed(() -> bookingRepository.findAllOverlapping(1, BookingStatus.APPROVED, NOW, NOW.plusDays(1)));
+        assertIndexed(() -> bookingRepository.findAllOverlappingByItemIds(List.of(1, 2), BookingStatus.APPROVED, NOW,
+                NOW.plusDays(1)));
+        assertIndexed(() -> bookingRepository.findAllByIdInAndItemOwnerId(List.of(1, 2), 1));
+        assertIndexed(() -> bookingRepository.findAllByBookerIdInAndItemIdInAndStatus(List.of(1, 2), List.of(1, 2),
+                BookingStatus.WAITING));
+        assertIndexed(() -> bookingRepository.findFirstStartByPhase(BookingPhase.FUTURE));
+        assertIndexed(() -> bookingRepository.findFirstEndByPhase(BookingPhase.CURRENT));
+        assertIndexed(() -> bookingRepository.findAllStartedForUpdate(BookingPhase.FUTURE.name(), NOW, 1000));
+        assertIndexed(() -> bookingRepository.findAllEndedForUpdate(BookingPhase.CURRENT.name(), NOW, 1000));
+        assertIndexed(() -> bookingRepository.updatePhase(List.of(1, 2), BookingPhase.FUTURE, BookingPhase.CURRENT));
+        assertIndexed(() -> bookingRepository.updateStatus(List.of(1, 2), BookingStatus.WAITING,
+                BookingStatus.APPROVED));
+        for (BookingState state : BookingState.values()) {
+            assertIndexed(() -> bookingRepository.findSlice(BookingEntity.class, BookingSpecifications.bookerId(1)
+                    .and(BookingSpecifications.inState(state)), START_DESC, 10));
+            assertIndexed(() -> bookingRepository.findSlice(BookingEntity.class, BookingSpecifications.itemOwnerId(1)
+                    .and(BookingSpecifications.inState(state)), START_DESC, 10));
+        }
+        assertIndexed(() -> bookingRepository.findSlice(BookingEntity.class, BookingSpecifications.bookerId(1)
+                .and(BookingSpecifications.startAndIdBefore(NOW, 1)), START_DESC, 10));
+        assertIndexed(() -> bookingRepository.findIdsToArchiveForUpdate(NOW, 1000));
+        assertIndexed(() -> bookingRepository.copyToArchive(List.of(1, 2)));
+        assertIndexed(() -> bookingRepository.deleteAllByIdIn(List.of(1, 2)));
+    }
+
+    @Test
+    void bookingHistoryQueriesUseIndexes() {
+        Pageable page = Pageable.ofSize(10);
+        assertIndexed(() -> bookingHistoryRepository.findAllByBookerIdAndPhase(1, BookingPhase.PAST, page));
+        assertIndexed(() -> bookingHistoryRepository.findAllByBookerIdAndStatus(1, BookingStatus.REJECTED, page));
+        assertIndexed(() -> bookingHistoryRepository.findAllByItemOwnerIdAndPhase(1, BookingPhase.PAST, page));
+        assertIndexed(() -> bookingHistoryRepository.findAllByItemOwnerIdAndStatus(1, BookingStatus.REJECTED,
+                page));
+        assertIndexed(() -> bookingHistoryRepository.streamAllByBookerIdAndPhase(1, BookingPhase.PAST,
+                START_DESC).close());
+        assertIndexed(() -> bookingHistoryRepository.streamAllByItemOwnerIdAndStatus(1, BookingStatus.REJECTED,
+                START_DESC).close());
+        Sort export = START_DESC.and(Sort.by("id").descending());
+        assertIndexed(() -> bookingHistoryRepository.streamAllByBookerId(1, export).close());
+        assertIndexed(() -> bookingHistoryRepository.streamAllByItemOwnerId(1, export).close());
+        for (BookingState state : List.of(BookingState.ALL, BookingState.PAST, BookingState.REJECTED)) {
+            assertIndexed(() -> bookingHistoryRepository.findSlice(BookingHistoryEntity.class,
+                    BookingSpecifications.bookerId(1).and(BookingSpecifications.inState(state)), START_DESC, 10));
+            assertIndexed(() -> bookingHistoryRepository.findSlice(BookingHistoryEntity.class,
+                    BookingSpecifications.itemOwnerId(1).and(BookingSpecifications.inState(state)), START_DESC, 10));
+        }
+    }
+
+    @Test
+    void ownerBookingQueriesReadOnlyBookings() {
+        Pageable page = Pageable.ofSize(10);
+        assertSingleTable(() -> bookingRepository.findAllByItemOwnerIdAndPhase(1, BookingPhase.CURRENT, page));
+        assertSingleTable(() -> bookingRepository.findAllByItemOwnerIdAndPhase(1, BookingPhase.PAST, page));
+        assertSingleTable(() -> bookingRepository.findAllByItemOwnerIdAndStatus(1, BookingStatus.WAITING, page));
+    }
+
+    @Test
+    void itemQueriesUseIndexes() {
+        assertIndexed(() -> itemRepository.findAllByOwnerId(1, Pageable.ofSize(10)));
+        assertIndexed(() -> itemRepository.findAllByOwnerIdAndIdGreaterThan(1, 1, Pageable.ofSize(10)));
+        assertIndexed(() -> itemRepository.streamAllByOwnerId(1, Sort.by("id")).close());
+        assertIndexed(() -> itemRepository.findAllByRequestIdIn(List.of(1, 2)));
+        assertIndexed(() -> commentRepository.findAllWithAuthorByItemIdIn(List.of(1, 2)));
+        assertIndexed(() -> commentRepository.existsByItemIdAndAuthorId(1, 1));
+        assertIndexed(() -> itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(1));
+    }
+
+    @Test
+    void outboxQueriesUseIndexes() {
+        assertIndexed(() -> outboxEventRepository.findOldestForUpdate(100));
+    }
+
+    private void assertIndexed(Runnable query) {
+        CapturingInspector.STATEMENTS.clear();
+        query.run();
+        List<String> statements = new ArrayList<>(CapturingInspector.STATEMENTS);
+        assertFalse(statements.isEmpty());
+        for (String sql : statements) {
+            String plan = explain(sql);
+            Matcher matcher = TABLE_SCAN.matcher(plan);
+            if (matcher.find()) {
+                fail(String.format("Full scan of %s in plan:%n%s", matcher.group(1).toLowerCase(Locale.ROOT), plan));
+            }
+        }
+    }
+
+    private void assertSingleTable(Runnable query) {
+        assertIndexed(query);
+        for (String sql : CapturingInspector.STATEMENTS) {
+            String plan = explain(sql);
+            assertFalse(plan.contains("JOIN"), () -> String.format("Join in plan:%n%s", plan));
+        }
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.query(con -> con.prepareStatement("EXPLAIN " + sql), rs -> {
+            StringBuilder res = new StringBuilder();
+            while (rs.next()) {
+                res.append(rs.getString(1)).append('\n');
+            }
+            return res.toString();
+        });
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.entity.BookingEntity;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.classBuilder.TestBookingProvider;
+import ru.practicum.shareit.classBuilder.TestItemProvider;
+import ru.practicum.shareit.classBuilder.TestUserProvider;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.entity.UserEntity;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+
+/**
+ * Many threads send approvals of competing bookings of one item; per period exactly one approval has to win.
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:contention")
+@AutoConfigureMockMvc
+class BookingApprovalContentionTest {
+
+    private static final int THREADS = 16;
+    private static final int PERIODS = 10;
+    private static final int COMPETITORS = 8;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    private UserEntity owner;
+    private UserEntity booker;
+    private ItemEntity item;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.findById(userService.add(TestUserProvider.buildUser(null, "owner",
+                "contention-owner@yandex.ru")).getId()).orElseThrow();
+        booker = userRepository.findById(userService.add(TestUserProvider.buildUser(null, "booker",
+                "contention-booker@yandex.ru")).getId()).orElseThrow();
+        item = itemRepository.save(TestItemProvider.provideItemEntity(null, "Дрель", "Проводная дрель", true,
+                owner, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAllById(List.of(owner.getId(), booker.getId()));
+    }
+
+    @Test
+    void concurrentApprovalsOfOneItemNeverOverlap() throws Exception {
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+        List<Integer> bookingIds = new ArrayList<>();
+        for (int period = 0; period < PERIODS; period++) {
+            for (int competitor = 0; competitor < COMPETITORS; competitor++) {
+                LocalDateTime start = base.plusDays(2L * period).plusHours(competitor);
+                bookingIds.add(bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                        start, start.plusDays(1), item, booker, BookingStatus.WAITING)).getId());
+            }
+        }
+        Collections.shuffle(bookingIds);
+
+        AtomicInteger approved = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Integer bookingId : bookingIds) {
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                int status = mvc.perform(patch("/bookings/{bookingId}", bookingId)
+                                .header("X-Sharer-User-Id", owner.getId())
+                                .param("approved", "true"))
+                        .andReturn()
+                        .getResponse()
+                        .getStatus();
+                if (status == HttpStatus.OK.value()) {
+                    approved.incrementAndGet();
+                } else if (status == HttpStatus.BAD_REQUEST.value()) {
+                    conflicts.incrementAndGet();
+                } else {
+                    throw new IllegalStateException("Unexpected status " + status);
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        startSignal.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        executor.shutdown();
+
+        log.info("Approval contention: {} threads, {} approvals in {} s ({} per s), {} approved, conflict rate {}",
+                THREADS, bookingIds.size(), String.format("%.3f", seconds),
+                String.format("%.1f", bookingIds.size() / seconds), approved.get(),
+                String.format("%.2f", (double) conflicts.get() / bookingIds.size()));
+
+        assertEquals(PERIODS, approved.get());
+        assertEquals(PERIODS * (COMPETITORS - 1), conflicts.get());
+        List<BookingEntity> approvedBookings = bookingRepository.findAllOverlapping(item.getId(),
+                BookingStatus.APPROVED, base, base.plusDays(2L * PERIODS + 1));
+        assertEquals(PERIODS, approvedBookings.size());
+        for (int i = 1; i < approvedBookings.size(); i++) {
+            assertTrue(!approvedBookings.get(i).getStart().isBefore(approvedBookings.get(i - 1).getEnd()));
+        }
+        assertEquals(PERIODS, approvedBookings.stream()
+                .map(booking -> booking.getStart().toLocalDate())
+                .collect(Collectors.toSet())
+                .size());
+        assertEquals(PERIODS, bookingService.getSummaryForItems(owner.getId()).getStatuses()
+                .get(BookingStatus.APPROVED));
+    }
+}
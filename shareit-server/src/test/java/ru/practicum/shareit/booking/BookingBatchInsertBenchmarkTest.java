@@ -0,0 +1,138 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.classBuilder.TestItemProvider;
+import ru.practicum.shareit.classBuilder.TestUserProvider;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.entity.UserEntity;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Inserts the same number of bookings one request at a time and with one batch request, and compares throughput
+ * and the number of JDBC statements each way needs.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class BookingBatchInsertBenchmarkTest {
+
+    private static final int BOOKINGS = 500;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UserEntity owner;
+    private UserEntity booker;
+    private List<ItemEntity> items;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(TestUserProvider.buildUserEntity(null, "owner", "batch-owner@yandex.ru"));
+        booker = userRepository.save(TestUserProvider.buildUserEntity(null, "booker", "batch-booker@yandex.ru"));
+        List<ItemEntity> newItems = new ArrayList<>();
+        for (int i = 0; i < 2 * BOOKINGS; i++) {
+            newItems.add(TestItemProvider.provideItemEntity(null, "Дрель " + i, "Проводная дрель", true, owner, null));
+        }
+        items = itemRepository.saveAll(newItems);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAllById(List.of(owner.getId(), booker.getId()));
+    }
+
+    @Test
+    void batchInsertNeedsFewerStatements() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        statistics.clear();
+        long started = System.nanoTime();
+        for (ItemEntity item : items.subList(0, BOOKINGS)) {
+            mvc.perform(post("/bookings")
+                            .content(objectMapper.writeValueAsString(provideRequest(item, start)))
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", booker.getId()))
+                    .andExpect(status().isOk());
+        }
+        double singleSeconds = (System.nanoTime() - started) / 1e9;
+        long singleStatements = statistics.getPrepareStatementCount();
+
+        List<BookingRequest> requests = new ArrayList<>();
+        for (ItemEntity item : items.subList(BOOKINGS, 2 * BOOKINGS)) {
+            requests.add(provideRequest(item, start));
+        }
+        statistics.clear();
+        started = System.nanoTime();
+        mvc.perform(post("/bookings/batch")
+                        .content(objectMapper.writeValueAsString(requests))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", booker.getId()))
+                .andExpect(status().isOk());
+        double batchSeconds = (System.nanoTime() - started) / 1e9;
+        long batchStatements = statistics.getPrepareStatementCount();
+
+        log.info("Booking inserts: {} one by one in {} s ({} per s, {} statements), {} in one batch in {} s " +
+                        "({} per s, {} statements)",
+                BOOKINGS, String.format("%.3f", singleSeconds), String.format("%.1f", BOOKINGS / singleSeconds),
+                singleStatements, BOOKINGS, String.format("%.3f", batchSeconds),
+                String.format("%.1f", BOOKINGS / batchSeconds), batchStatements);
+
+        assertEquals(2L * BOOKINGS, bookingRepository.count());
+        assertTrue(batchStatements * 10 < singleStatements,
+                () -> String.format("%d statements for batch, %d one by one", batchStatements, singleStatements));
+    }
+
+    private static BookingRequest provideRequest(ItemEntity item, LocalDateTime start) {
+        BookingRequest request = new BookingRequest();
+        request.setItemId(item.getId());
+        request.setStart(start);
+        request.setEnd(start.plusDays(1));
+        return request;
+    }
+}
@@ -8,34 +8,57 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.booking.controller.BookingController;
+import ru.practicum.shareit.booking.dto.BookingDecisionRequest;
 import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.entity.BookingEntity;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingDecision;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingSummary;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingStatusHub;
 import ru.practicum.shareit.classBuilder.TestBookingProvider;
 import ru.practicum.shareit.classBuilder.TestItemProvider;
 import ru.practicum.shareit.classBuilder.TestUserProvider;
+import ru.practicum.shareit.exception.DataDoesNotExistsException;
 import ru.practicum.shareit.exception.ErrorHandler;
+import ru.practicum.shareit.exception.InvalidCursorException;
+import ru.practicum.shareit.stream.JsonArrayStreamer;
+import ru.practicum.shareit.stream.NdjsonStreamer;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest({BookingController.class, BookingMapper.class, ErrorHandler.class})
+@WebMvcTest({BookingController.class, BookingMapper.class, BookingStatusHub.class, ErrorHandler.class,
+        JsonArrayStreamer.class, NdjsonStreamer.class})
 class BookingControllerTest {
 
     private final BookingMapper mapper = Mappers.getMapper(BookingMapper.class);
@@ -43,8 +66,12 @@ class BookingControllerTest {
     private MockMvc mvc;
     @Autowired
     private ObjectMapper objectMapper;
+    @Autowired
+    private BookingStatusHub bookingStatusHub;
     @MockBean
     private BookingService bookingService;
+    @MockBean
+    private UserRepository userRepository;
 
     @Test
     void add() throws Exception {
@@ -73,6 +100,51 @@ class BookingControllerTest {
                 .andExpect(content().json(objectMapper.writeValueAsString(mapper.toResponse(booking))));
     }
 
+    @Test
+    void addAll() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingRequest first = new BookingRequest();
+        first.setItemId(7);
+        first.setStart(start);
+        first.setEnd(start.plusDays(1));
+        BookingRequest second = new BookingRequest();
+        second.setItemId(8);
+        second.setStart(start);
+        second.setEnd(start.plusDays(2));
+
+        List<Booking> bookings = List.of(
+                TestBookingProvider.provideBooking(1, first.getStart(), first.getEnd(),
+                        TestItemProvider.provideItem(7, "item", "desc", true, new User(), null, null, null,
+                                new ArrayList<>()),
+                        TestUserProvider.buildUser(3, "name", "email"), BookingStatus.WAITING),
+                TestBookingProvider.provideBooking(2, second.getStart(), second.getEnd(),
+                        TestItemProvider.provideItem(8, "item", "desc", true, new User(), null, null, null,
+                                new ArrayList<>()),
+                        TestUserProvider.buildUser(3, "name", "email"), BookingStatus.WAITING));
+
+        when(bookingService.addAll(any())).thenReturn(bookings);
+
+        mvc.perform(post("/bookings/batch")
+                        .content(objectMapper.writeValueAsString(List.of(first, second)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 3)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(bookings.stream()
+                        .map(mapper::toResponse)
+                        .collect(Collectors.toList()))));
+
+        first.setStart(null);
+        mvc.perform(post("/bookings/batch")
+                        .content(objectMapper.writeValueAsString(List.of(first, second)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 3)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void approveOrReject() throws Exception {
         Booking booking = TestBookingProvider.provideBooking(1, LocalDateTime.now(), LocalDateTime.now().plusDays(1),
@@ -91,6 +163,142 @@ class BookingControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void getSummary() throws Exception {
+        BookingSummary summary = new BookingSummary();
+        summary.setStates(new EnumMap<>(Map.of(BookingState.ALL, 3L, BookingState.WAITING, 2L)));
+        summary.setStatuses(new EnumMap<>(Map.of(BookingStatus.WAITING, 2L, BookingStatus.APPROVED, 1L)));
+        when(bookingService.getSummary(1)).thenReturn(summary);
+        when(bookingService.getSummaryForItems(2)).thenReturn(summary);
+
+        mvc.perform(get("/bookings/summary")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.states.ALL").value(3))
+                .andExpect(jsonPath("$.states.WAITING").value(2))
+                .andExpect(jsonPath("$.statuses.APPROVED").value(1));
+
+        mvc.perform(get("/bookings/owner/summary")
+                        .header("X-Sharer-User-Id", 2)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.states.ALL").value(3));
+    }
+
+    @Test
+    void export() throws Exception {
+        List<Booking> bookings = List.of(
+                TestBookingProvider.provideBooking(1, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                        TestItemProvider.provideItem(2, "item", "desc", true, new User(),
+                                null, null, null, new ArrayList<>()),
+                        TestUserProvider.buildUser(3, "name", "email"),
+                        BookingStatus.APPROVED),
+                TestBookingProvider.provideBooking(4, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                        TestItemProvider.provideItem(3, "item2", "desc2", true, new User(),
+                                null, null, null, new ArrayList<>()),
+                        TestUserProvider.buildUser(3, "name", "email"),
+                        BookingStatus.WAITING));
+        doAnswer(invocation -> {
+            Consumer<Booking> action = invocation.getArgument(1);
+            bookings.forEach(action);
+            return null;
+        }).when(bookingService).exportAllBookings(eq(3), any());
+        doThrow(new DataDoesNotExistsException("user not exists"))
+                .when(bookingService).exportAllBookingsForItems(eq(99), any());
+
+        MvcResult result = mvc.perform(get("/bookings/export")
+                        .header("X-Sharer-User-Id", 3))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(objectMapper.writeValueAsString(mapper.toResponse(bookings.get(0))), lines[0]);
+        assertEquals(objectMapper.writeValueAsString(mapper.toResponse(bookings.get(1))), lines[1]);
+
+        result = mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 99))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$['Data not found']").value("user not exists"));
+    }
+
+    @Test
+    void stream() throws Exception {
+        BookingEntity booking = TestBookingProvider.provideBookingEntity(1, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2),
+                TestItemProvider.provideItemEntity(2, "item", "desc", true,
+                        TestUserProvider.buildUserEntity(4, "owner", "owner@yandex.ru"), null),
+                TestUserProvider.buildUserEntity(3, "booker", "booker@yandex.ru"), BookingStatus.WAITING);
+
+        when(userRepository.existsById(3)).thenReturn(true);
+
+        MvcResult result = mvc.perform(get("/bookings/stream")
+                        .header("X-Sharer-User-Id", 3))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        bookingStatusHub.statusChanged(List.of(booking), BookingStatus.APPROVED);
+
+        String expected = "event:status\ndata:" + objectMapper.writeValueAsString(
+                mapper.toDecisionResponse(new BookingDecision(1, BookingStatus.APPROVED, null)));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!result.getResponse().getContentAsString(StandardCharsets.UTF_8).contains(expected)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(MediaType.TEXT_EVENT_STREAM_VALUE, result.getResponse().getContentType());
+        assertEquals(expected + "\n\n", result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void streamOfUnknownUser() throws Exception {
+        mvc.perform(get("/bookings/stream")
+                        .header("X-Sharer-User-Id", 99))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void approveOrRejectAll() throws Exception {
+        BookingDecisionRequest request = new BookingDecisionRequest();
+        request.setBookingIds(List.of(1, 2));
+        request.setApproved(true);
+
+        when(bookingService.approveBookings(List.of(1, 2), 1, true)).thenReturn(List.of(
+                new BookingDecision(1, BookingStatus.APPROVED, null),
+                new BookingDecision(2, BookingStatus.WAITING, "Item with id 1 already booked")));
+
+        mvc.perform(patch("/bookings/approve")
+                        .content(objectMapper.writeValueAsString(request))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookingId").value(1))
+                .andExpect(jsonPath("$[0].status").value("APPROVED"))
+                .andExpect(jsonPath("$[0].error").isEmpty())
+                .andExpect(jsonPath("$[1].bookingId").value(2))
+                .andExpect(jsonPath("$[1].status").value("WAITING"))
+                .andExpect(jsonPath("$[1].error").value("Item with id 1 already booked"));
+
+        request.setBookingIds(List.of());
+        mvc.perform(patch("/bookings/approve")
+                        .content(objectMapper.writeValueAsString(request))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getById() throws Exception {
         Booking booking = TestBookingProvider.provideBooking(1, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
@@ -124,7 +332,13 @@ class BookingControllerTest {
                         BookingStatus.WAITING));
 
         when(bookingService.getAllBookingsByState(3, "ALL", 0, 10)).thenReturn(bookings);
-        when(bookingService.getAllBookingsByState(3, null, null, null)).thenReturn(bookings);
+        doAnswer(invocation -> {
+            Consumer<Booking> action = invocation.getArgument(2);
+            bookings.forEach(action);
+            return null;
+        }).when(bookingService).streamAllBookingsByState(eq(3), isNull(), any());
+        doThrow(new DataDoesNotExistsException("user not exists"))
+                .when(bookingService).streamAllBookingsByState(eq(99), isNull(), any());
 
         mvc.perform(get("/bookings?state=ALL&from=0&size=10")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -147,15 +361,44 @@ class BookingControllerTest {
                 .andExpect(jsonPath("[1].item.id").value(3))
                 .andExpect(jsonPath("[1].item.name").value("item2"));
 
-        mvc.perform(get("/bookings")
+        MvcResult result = mvc.perform(get("/bookings")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 3)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(bookings.stream()
                         .map(mapper::toResponse)
                         .collect(Collectors.toList()))));
+
+        result = mvc.perform(get("/bookings")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 99)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$['Data not found']").value("user not exists"));
+    }
+
+    @Test
+    void getAllByStateAfterWithInvalidCursor() throws Exception {
+        when(bookingService.getAllBookingsByStateAfter(1, "ALL", "broken", 10))
+                .thenThrow(new InvalidCursorException("Invalid pagination cursor broken"));
+
+        mvc.perform(get("/bookings?state=ALL&size=10&cursor=broken")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$['Bad request']").value("Invalid pagination cursor broken"));
     }
 
     @Test
@@ -173,7 +416,11 @@ class BookingControllerTest {
                         BookingStatus.WAITING));
 
         when(bookingService.getAllBookingsForItemsByState(3, "ALL", 0, 10)).thenReturn(bookings);
-        when(bookingService.getAllBookingsForItemsByState(3, null, null, null)).thenReturn(bookings);
+        doAnswer(invocation -> {
+            Consumer<Booking> action = invocation.getArgument(2);
+            bookings.forEach(action);
+            return null;
+        }).when(bookingService).streamAllBookingsForItemsByState(eq(3), isNull(), any());
 
         mvc.perform(get("/bookings/owner?state=ALL&from=0&size=10")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -185,11 +432,15 @@ class BookingControllerTest {
                         .map(mapper::toResponse)
                         .collect(Collectors.toList()))));
 
-        mvc.perform(get("/bookings/owner")
+        MvcResult result = mvc.perform(get("/bookings/owner")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 3)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(bookings.stream()
                         .map(mapper::toResponse)
@@ -4,20 +4,37 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.entity.AbstractBookingEntity;
 import ru.practicum.shareit.booking.entity.BookingEntity;
+import ru.practicum.shareit.booking.model.BookingCount;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingHistoryRepository;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingSpecifications;
 import ru.practicum.shareit.classBuilder.TestBookingProvider;
 import ru.practicum.shareit.classBuilder.TestItemProvider;
+import ru.practicum.shareit.classBuilder.TestItemRequestProvider;
 import ru.practicum.shareit.classBuilder.TestUserProvider;
 import ru.practicum.shareit.item.entity.ItemEntity;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.entity.ItemRequestEntity;
 import ru.practicum.shareit.user.entity.UserEntity;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -29,12 +46,18 @@ class BookingRepositoryTest {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private BookingHistoryRepository bookingHistoryRepository;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private UserEntity itemOwner;
     private UserEntity booker;
     private ItemEntity item;
@@ -67,38 +90,27 @@ class BookingRepositoryTest {
     void findAllByBookerId() {
         BookingEntity booking = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING);
         bookingRepository.save(booking);
+        entityManager.flush();
 
-        assertEquals(List.of(booking),
-                bookingRepository.findAllByBookerId(booker.getId(), Pageable.ofSize(10)).getContent());
+        assertEquals(List.of(booking.getId()),
+                ids(bookingHistoryRepository.findAllByBookerId(booker.getId(), Pageable.ofSize(10)).getContent()));
     }
 
     @Test
-    void findAllByBookerIdAndEndIsBefore() {
-        BookingEntity booking = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING);
-        bookingRepository.save(booking);
-
-        assertEquals(List.of(booking),
-                bookingRepository.findAllByBookerIdAndEndIsBefore(booker.getId(), LocalDateTime.now().plusDays(10),
-                        Pageable.ofSize(10)).getContent());
-    }
-
-    @Test
-    void findAllByBookerIdAndStartIsBeforeAndEndIsAfter() {
-        BookingEntity booking = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING);
-        bookingRepository.save(booking);
-
-        assertEquals(List.of(booking),
-                bookingRepository.findAllByBookerIdAndStartIsBeforeAndEndIsAfter(booker.getId(), LocalDateTime.now(),
-                        LocalDateTime.now(), Pageable.ofSize(10)).getContent());
-    }
-
-    @Test
-    void findAllByBookerIdAndStartIsAfter() {
-        BookingEntity booking = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING);
-        bookingRepository.save(booking);
-
-        assertEquals(List.of(booking), bookingRepository.findAllByBookerIdAndStartIsAfter(booker.getId(), LocalDateTime.now(),
+    void findAllByBookerIdAndPhase() {
+        BookingEntity past = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), item, booker, BookingStatus.WAITING));
+        BookingEntity current = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING));
+        BookingEntity future = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING));
+
+        assertEquals(List.of(past), bookingRepository.findAllByBookerIdAndPhase(booker.getId(), BookingPhase.PAST,
                 Pageable.ofSize(10)).getContent());
+        assertEquals(List.of(current), bookingRepository.findAllByBookerIdAndPhase(booker.getId(),
+                BookingPhase.CURRENT, Pageable.ofSize(10)).getContent());
+        assertEquals(List.of(future), bookingRepository.findAllByBookerIdAndPhase(booker.getId(),
+                BookingPhase.FUTURE, Pageable.ofSize(10)).getContent());
     }
 
     @Test
@@ -111,42 +123,61 @@ class BookingRepositoryTest {
     }
 
     @Test
-    void findAllByItemOwnerId() {
-        BookingEntity booking = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING);
-        bookingRepository.save(booking);
-
-        assertEquals(List.of(booking),
-                bookingRepository.findAllByItemOwnerId(itemOwner.getId(), Pageable.ofSize(10)).getContent());
+    void streamAllByBookerId() {
+        BookingEntity booking = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING));
+        BookingEntity laterBooking = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4), item, booker, BookingStatus.WAITING));
+        entityManager.flush();
+
+        assertEquals(List.of(laterBooking.getId(), booking.getId()),
+                ids(bookingHistoryRepository.streamAllByBookerId(booker.getId(), Sort.by("start").descending())
+                        .collect(Collectors.toList())));
+        assertEquals(List.of(),
+                bookingHistoryRepository.streamAllByBookerId(itemOwner.getId(), Sort.by("start").descending())
+                        .collect(Collectors.toList()));
     }
 
     @Test
-    void findAllByItemOwnerIdAndEndIsAfterAndStartIsBefore() {
-        BookingEntity booking = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING);
-        bookingRepository.save(booking);
+    void streamAllByItemOwnerIdAndStatus() {
+        BookingEntity booking = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING));
+        bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4), item, booker, BookingStatus.REJECTED));
 
         assertEquals(List.of(booking),
-                bookingRepository.findAllByItemOwnerIdAndEndIsAfterAndStartIsBefore(itemOwner.getId(),
-                        LocalDateTime.now(), LocalDateTime.now(), Pageable.ofSize(10)).getContent());
+                bookingRepository.streamAllByItemOwnerIdAndStatus(itemOwner.getId(), BookingStatus.WAITING,
+                        Sort.by("start").descending()).collect(Collectors.toList()));
     }
 
     @Test
-    void findAllByItemOwnerIdAndEndIsBefore() {
-        BookingEntity booking = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), item, booker, BookingStatus.WAITING);
+    void findAllByItemOwnerId() {
+        BookingEntity booking = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING);
         bookingRepository.save(booking);
+        entityManager.flush();
 
-        assertEquals(List.of(booking),
-                bookingRepository.findAllByItemOwnerIdAndEndIsBefore(itemOwner.getId(),
-                        LocalDateTime.now(), Pageable.ofSize(10)).getContent());
+        assertEquals(List.of(booking.getId()),
+                ids(bookingHistoryRepository.findAllByItemOwnerId(itemOwner.getId(), Pageable.ofSize(10))
+                        .getContent()));
     }
 
     @Test
-    void findAllByItemOwnerIdAndStartIsAfter() {
-        BookingEntity booking = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING);
-        bookingRepository.save(booking);
-
-        assertEquals(List.of(booking),
-                bookingRepository.findAllByItemOwnerIdAndStartIsAfter(itemOwner.getId(),
-                        LocalDateTime.now(), Pageable.ofSize(10)).getContent());
+    void findAllByItemOwnerIdAndPhase() {
+        BookingEntity past = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), item, booker, BookingStatus.WAITING));
+        BookingEntity current = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING));
+        BookingEntity future = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING));
+
+        assertEquals(List.of(past), bookingRepository.findAllByItemOwnerIdAndPhase(itemOwner.getId(),
+                BookingPhase.PAST, Pageable.ofSize(10)).getContent());
+        assertEquals(List.of(current), bookingRepository.findAllByItemOwnerIdAndPhase(itemOwner.getId(),
+                BookingPhase.CURRENT, Pageable.ofSize(10)).getContent());
+        assertEquals(List.of(future), bookingRepository.findAllByItemOwnerIdAndPhase(itemOwner.getId(),
+                BookingPhase.FUTURE, Pageable.ofSize(10)).getContent());
+        assertEquals(List.of(), bookingRepository.findAllByItemOwnerIdAndPhase(booker.getId(),
+                BookingPhase.FUTURE, Pageable.ofSize(10)).getContent());
     }
 
     @Test
@@ -162,21 +193,328 @@ class BookingRepositoryTest {
     void existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore() {
         BookingEntity booking = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), item, booker, BookingStatus.WAITING);
         bookingRepository.save(booking);
+        entityManager.flush();
 
-        assertTrue(bookingRepository.existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(item.getId(),
+        assertTrue(bookingHistoryRepository.existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(item.getId(),
                 booker.getId(), BookingStatus.WAITING, LocalDateTime.now()));
-        assertFalse(bookingRepository.existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(item.getId(),
+        assertFalse(bookingHistoryRepository.existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(item.getId(),
                 booker.getId(), BookingStatus.REJECTED, LocalDateTime.now()));
     }
 
     @Test
-    void findLastAndNextBookingByItemId() {
+    void findLastAndNextBookingsByItemIds() {
+        ItemEntity otherItem = itemRepository.save(
+                TestItemProvider.provideItemEntity(null, "Отвертка", "Аккумуляторная отвертка", true, itemOwner, null));
+        BookingEntity oldLast = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().minusDays(4), LocalDateTime.now().minusDays(3), item, booker, BookingStatus.APPROVED);
+        bookingRepository.save(oldLast);
         BookingEntity last = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), item, booker, BookingStatus.APPROVED);
         bookingRepository.save(last);
         BookingEntity next = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.APPROVED);
         bookingRepository.save(next);
+        BookingEntity laterNext = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4), item, booker, BookingStatus.APPROVED);
+        bookingRepository.save(laterNext);
+        BookingEntity rejected = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), otherItem, booker, BookingStatus.REJECTED);
+        bookingRepository.save(rejected);
+        BookingEntity otherNext = TestBookingProvider.provideBookingEntity(null, LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(6), otherItem, booker, BookingStatus.APPROVED);
+        bookingRepository.save(otherNext);
+
+        assertEquals(Set.of(last.getId(), next.getId(), otherNext.getId()),
+                Set.copyOf(ids(bookingHistoryRepository.findLastAndNextBookingsByItemIds(
+                        List.of(item.getId(), otherItem.getId()), LocalDateTime.now()))));
+    }
+
+    @Test
+    void findSlice() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        BookingEntity first = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), item, booker, BookingStatus.WAITING));
+        BookingEntity second = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), item, booker, BookingStatus.WAITING));
+        BookingEntity third = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start.plusDays(2), start.plusDays(3), item, booker, BookingStatus.REJECTED));
+        Sort sort = Sort.by("start").descending().and(Sort.by("id").descending());
+        Specification<AbstractBookingEntity> byBooker = BookingSpecifications.bookerId(booker.getId());
+
+        Slice<BookingEntity> slice = bookingRepository.findSlice(BookingEntity.class, byBooker, sort, 2);
+        assertEquals(List.of(third, second), slice.getContent());
+        assertTrue(slice.hasNext());
+
+        slice = bookingRepository.findSlice(BookingEntity.class,
+                byBooker.and(BookingSpecifications.startAndIdBefore(start, second.getId())), sort, 2);
+        assertEquals(List.of(first), slice.getContent());
+        assertFalse(slice.hasNext());
+
+        assertEquals(List.of(third), bookingRepository.findSlice(BookingEntity.class,
+                BookingSpecifications.itemOwnerId(itemOwner.getId())
+                        .and(BookingSpecifications.inState(BookingState.REJECTED)),
+                sort, 10).getContent());
+        assertEquals(List.of(), bookingRepository.findSlice(BookingEntity.class,
+                BookingSpecifications.itemOwnerId(booker.getId()), sort, 10).getContent());
+    }
+
+    @Test
+    void existsOverlapping() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(2), item, booker, BookingStatus.APPROVED));
+
+        assertTrue(bookingRepository.existsOverlapping(item.getId(), BookingStatus.APPROVED,
+                start.plusDays(1), start.plusDays(3)));
+        assertTrue(bookingRepository.existsOverlapping(item.getId(), BookingStatus.APPROVED,
+                start.minusDays(1), start.plusDays(3)));
+        assertFalse(bookingRepository.existsOverlapping(item.getId(), BookingStatus.APPROVED,
+                start.plusDays(2), start.plusDays(3)));
+        assertFalse(bookingRepository.existsOverlapping(item.getId(), BookingStatus.APPROVED,
+                start.minusDays(1), start));
+        assertFalse(bookingRepository.existsOverlapping(item.getId(), BookingStatus.WAITING,
+                start, start.plusDays(1)));
+    }
+
+    @Test
+    void findAllOverlapping() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        BookingEntity second = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start.plusDays(3), start.plusDays(4), item, booker, BookingStatus.APPROVED));
+        BookingEntity first = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), item, booker, BookingStatus.APPROVED));
+        bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start.plusDays(1), start.plusDays(2), item, booker, BookingStatus.REJECTED));
+        bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start.plusDays(5), start.plusDays(6), item, booker, BookingStatus.APPROVED));
+
+        assertEquals(List.of(first, second), bookingRepository.findAllOverlapping(item.getId(),
+                BookingStatus.APPROVED, start.plusHours(12), start.plusDays(5)));
+    }
+
+    @Test
+    void itemOwnerIdFollowsItemOwner() {
+        BookingEntity booking = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING));
+        assertEquals(itemOwner.getId(), booking.getItemOwnerId());
+
+        UserEntity newOwner = userRepository.save(TestUserProvider.buildUserEntity(null, "newOwner", "new@yandex.ru"));
+        item.setOwner(newOwner);
+        itemRepository.saveAndFlush(item);
+        entityManager.clear();
+
+        assertEquals(List.of(booking.getId()),
+                ids(bookingHistoryRepository.findAllByItemOwnerId(newOwner.getId(), Pageable.ofSize(10))
+                        .getContent()));
+        assertEquals(List.of(),
+                bookingHistoryRepository.findAllByItemOwnerId(itemOwner.getId(), Pageable.ofSize(10)).getContent());
+    }
+
+    @Test
+    void findAllByIdInAndItemOwnerIdAndUpdateStatus() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        BookingEntity first = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), item, booker, BookingStatus.WAITING));
+        BookingEntity second = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start.plusDays(2), start.plusDays(3), item, booker, BookingStatus.WAITING));
+        ItemEntity otherItem = itemRepository.save(TestItemProvider.provideItemEntity(null, "Пила", "Ручная пила",
+                true, booker, null));
+        BookingEntity foreign = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), otherItem, itemOwner, BookingStatus.WAITING));
+
+        assertEquals(Set.of(first, second), Set.copyOf(bookingRepository.findAllByIdInAndItemOwnerId(
+                List.of(first.getId(), second.getId(), foreign.getId()), itemOwner.getId())));
+
+        assertEquals(2, bookingRepository.updateStatus(List.of(first.getId(), second.getId()),
+                BookingStatus.WAITING, BookingStatus.REJECTED));
+        assertEquals(0, bookingRepository.updateStatus(List.of(first.getId()), BookingStatus.WAITING,
+                BookingStatus.APPROVED));
+        entityManager.clear();
+        assertEquals(BookingStatus.REJECTED, bookingRepository.findById(first.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatus.REJECTED, bookingRepository.findById(second.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(foreign.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void lockAllIdsByStatusAndFindAllDecisions() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        BookingEntity waiting = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), item, booker, BookingStatus.WAITING));
+        BookingEntity rejected = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start.plusDays(2), start.plusDays(3), item, booker, BookingStatus.REJECTED));
+
+        assertEquals(List.of(waiting.getId()), bookingRepository.lockAllIdsByStatus(
+                List.of(waiting.getId(), rejected.getId()), BookingStatus.WAITING.name()));
+        bookingRepository.updateStatus(List.of(waiting.getId()), BookingStatus.WAITING, BookingStatus.APPROVED);
+        assertEquals(List.of(waiting.getId() + " APPROVED", rejected.getId() + " REJECTED"),
+                bookingRepository.findAllDecisions(List.of(waiting.getId(), rejected.getId())).stream()
+                        .map(decision -> decision.getBookingId() + " " + decision.getStatus())
+                        .sorted()
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    void findAllOverlappingByItemIds() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        ItemEntity otherItem = itemRepository.save(TestItemProvider.provideItemEntity(null, "Пила", "Ручная пила",
+                true, itemOwner, null));
+        BookingEntity first = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), item, booker, BookingStatus.APPROVED));
+        BookingEntity second = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start.plusDays(1), start.plusDays(2), otherItem, booker, BookingStatus.APPROVED));
+        bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), otherItem, booker, BookingStatus.WAITING));
+        bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start.plusDays(5), start.plusDays(6), item, booker, BookingStatus.APPROVED));
+
+        assertEquals(Set.of(first, second), Set.copyOf(bookingRepository.findAllOverlappingByItemIds(
+                List.of(item.getId(), otherItem.getId()), BookingStatus.APPROVED, start, start.plusDays(5))));
+    }
+
+    @Test
+    void findAllByBookerIdInAndItemIdInAndStatus() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        ItemEntity otherItem = itemRepository.save(TestItemProvider.provideItemEntity(null, "Пила", "Ручная пила",
+                true, itemOwner, null));
+        UserEntity otherBooker = userRepository.save(TestUserProvider.buildUserEntity(null, "otherBooker",
+                "other-booker@yandex.ru"));
+        BookingEntity waiting = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), item, booker, BookingStatus.WAITING));
+        bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), otherItem, booker, BookingStatus.REJECTED));
+        BookingEntity otherWaiting = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), otherItem, otherBooker, BookingStatus.WAITING));
+
+        assertEquals(Set.of(waiting, otherWaiting), Set.copyOf(bookingRepository
+                .findAllByBookerIdInAndItemIdInAndStatus(List.of(booker.getId(), otherBooker.getId()),
+                        List.of(item.getId(), otherItem.getId()), BookingStatus.WAITING)));
+        assertEquals(List.of(waiting), bookingRepository.findAllByBookerIdInAndItemIdInAndStatus(
+                List.of(booker.getId()), List.of(item.getId(), otherItem.getId()), BookingStatus.WAITING));
+        assertEquals(List.of(), bookingRepository.findAllByBookerIdInAndItemIdInAndStatus(
+                List.of(itemOwner.getId()), List.of(item.getId(), otherItem.getId()), BookingStatus.WAITING));
+    }
+
+    @Test
+    void advancePhase() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        BookingEntity starting = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                now.plusHours(1), now.plusHours(3), item, booker, BookingStatus.APPROVED));
+        BookingEntity ending = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                now.minusHours(1), now.plusHours(2), item, booker, BookingStatus.APPROVED));
+        BookingEntity future = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.APPROVED));
+
+        assertEquals(starting.getStart(), bookingRepository.findFirstStartByPhase(BookingPhase.FUTURE));
+        assertEquals(ending.getEnd(), bookingRepository.findFirstEndByPhase(BookingPhase.CURRENT));
+
+        LocalDateTime later = now.plusHours(2);
+        assertEquals(List.of(starting), bookingRepository.findAllStartedForUpdate(BookingPhase.FUTURE.name(), later,
+                10));
+        assertEquals(List.of(ending), bookingRepository.findAllEndedForUpdate(BookingPhase.CURRENT.name(), later,
+                10));
+        assertEquals(1, bookingRepository.updatePhase(List.of(ending.getId()), BookingPhase.CURRENT,
+                BookingPhase.PAST));
+        assertEquals(1, bookingRepository.updatePhase(List.of(starting.getId()), BookingPhase.FUTURE,
+                BookingPhase.CURRENT));
+        assertEquals(0, bookingRepository.updatePhase(List.of(future.getId()), BookingPhase.CURRENT,
+                BookingPhase.PAST));
+        entityManager.clear();
+
+        assertEquals(BookingPhase.CURRENT, bookingRepository.findById(starting.getId()).orElseThrow().getPhase());
+        assertEquals(BookingPhase.PAST, bookingRepository.findById(ending.getId()).orElseThrow().getPhase());
+        assertEquals(BookingPhase.FUTURE, bookingRepository.findById(future.getId()).orElseThrow().getPhase());
+        assertEquals(future.getStart(), bookingRepository.findFirstStartByPhase(BookingPhase.FUTURE));
+        assertEquals(starting.getEnd(), bookingRepository.findFirstEndByPhase(BookingPhase.CURRENT));
+    }
+
+    @Test
+    void phaseIsNotOverwrittenBySave() {
+        BookingEntity booking = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), item, booker,
+                BookingStatus.WAITING));
+        entityManager.flush();
+        bookingRepository.updatePhase(List.of(booking.getId()), BookingPhase.FUTURE, BookingPhase.CURRENT);
+
+        booking.setStatus(BookingStatus.APPROVED);
+        bookingRepository.saveAndFlush(booking);
+        entityManager.clear();
+
+        BookingEntity stored = bookingRepository.findById(booking.getId()).orElseThrow();
+        assertEquals(BookingStatus.APPROVED, stored.getStatus());
+        assertEquals(BookingPhase.CURRENT, stored.getPhase());
+    }
+
+    @Test
+    void countAllCascadedByUser() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        UserEntity requestor = userRepository.save(TestUserProvider.buildUserEntity(null, "requestor",
+                "requestor@yandex.ru"));
+        ItemRequestEntity request = entityManager.persist(TestItemRequestProvider.provideItemRequestEntity(null,
+                "Нужна пила", requestor, LocalDateTime.now()));
+        ItemEntity requestedItem = itemRepository.save(TestItemProvider.provideItemEntity(null, "Пила",
+                "Ручная пила", true, itemOwner, request));
+        bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), item, booker, BookingStatus.WAITING));
+        bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start.plusDays(1), start.plusDays(2), item, booker, BookingStatus.WAITING));
+        bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), requestedItem, booker, BookingStatus.APPROVED));
+        entityManager.flush();
+
+        List<BookingCount> ofBooker = bookingHistoryRepository.countAllCascadedByUser(booker.getId());
+        assertEquals(2, ofBooker.size());
+        assertEquals(3, ofBooker.stream().mapToLong(BookingCount::getCount).sum());
+
+        List<BookingCount> ofRequestor = bookingHistoryRepository.countAllCascadedByUser(requestor.getId());
+        assertEquals(1, ofRequestor.size());
+        assertEquals(booker.getId(), ofRequestor.get(0).getBookerId());
+        assertEquals(itemOwner.getId(), ofRequestor.get(0).getOwnerId());
+        assertEquals(BookingStatus.APPROVED, ofRequestor.get(0).getStatus());
+        assertEquals(BookingPhase.FUTURE, ofRequestor.get(0).getPhase());
+        assertEquals(1, bookingRepository.lockAllIdsCascadedByUser(requestor.getId()).size());
+    }
+
+    @Test
+    void countAllByItemId() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), item, booker, BookingStatus.WAITING));
+        bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start.plusDays(1), start.plusDays(2), item, booker, BookingStatus.WAITING));
+        entityManager.flush();
+
+        List<BookingCount> counts = bookingHistoryRepository.countAllByItemId(item.getId());
+        assertEquals(1, counts.size());
+        assertEquals(booker.getId(), counts.get(0).getBookerId());
+        assertEquals(itemOwner.getId(), counts.get(0).getOwnerId());
+        assertEquals(2, counts.get(0).getCount());
+        assertEquals(2, bookingRepository.lockAllIdsByItemId(item.getId()).size());
+    }
+
+    @Test
+    void archive() {
+        LocalDateTime start = LocalDateTime.now().minusYears(2).truncatedTo(ChronoUnit.SECONDS);
+        BookingEntity old = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), item, booker, BookingStatus.APPROVED));
+        BookingEntity waiting = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start.plusDays(2), start.plusDays(3), item, booker, BookingStatus.WAITING));
+        BookingEntity recent = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), item, booker,
+                BookingStatus.REJECTED));
+
+        List<Integer> ids = bookingRepository.findIdsToArchiveForUpdate(LocalDateTime.now().minusYears(1), 10);
+        assertEquals(List.of(old.getId()), ids);
+        assertEquals(1, bookingRepository.copyToArchive(ids));
+        assertEquals(1, bookingRepository.deleteAllByIdIn(ids));
+        entityManager.clear();
+
+        assertFalse(bookingRepository.existsById(old.getId()));
+        assertEquals(List.of(recent.getId(), waiting.getId(), old.getId()),
+                ids(bookingHistoryRepository.findAllByBookerIdAndPhase(booker.getId(), BookingPhase.PAST,
+                        PageRequest.of(0, 10, Sort.by("start").descending())).getContent()));
+        assertTrue(bookingHistoryRepository.existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(item.getId(),
+                booker.getId(), BookingStatus.APPROVED, LocalDateTime.now()));
+        assertEquals(List.of(old.getId()), ids(bookingHistoryRepository.findAllOverlapping(item.getId(),
+                BookingStatus.APPROVED, start.minusDays(1), LocalDateTime.now())));
+    }
 
-        assertEquals(List.of(last, next),
-                bookingRepository.findLastAndNextBookingByItemId(item.getId(), LocalDateTime.now()));
+    private static List<Integer> ids(Collection<? extends AbstractBookingEntity> bookings) {
+        return bookings.stream()
+                .map(AbstractBookingEntity::getId)
+                .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
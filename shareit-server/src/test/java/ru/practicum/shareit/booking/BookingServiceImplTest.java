@@ -5,34 +5,67 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mapstruct.factory.Mappers;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.entity.BookingEntity;
+import ru.practicum.shareit.booking.entity.BookingHistoryEntity;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingDecision;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingSummary;
+import ru.practicum.shareit.booking.service.BookingCounters;
+import ru.practicum.shareit.booking.service.BookingPhaseScheduler;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.service.BookingStatusHub;
+import ru.practicum.shareit.booking.service.ItemLocks;
+import ru.practicum.shareit.booking.storage.BookingHistoryRepository;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.classBuilder.TestBookingProvider;
 import ru.practicum.shareit.classBuilder.TestItemProvider;
 import ru.practicum.shareit.classBuilder.TestUserProvider;
+import ru.practicum.shareit.event.model.DomainEventType;
+import ru.practicum.shareit.event.service.DomainEventOutbox;
 import ru.practicum.shareit.exception.DataAlreadyExistsException;
 import ru.practicum.shareit.exception.DataDoesNotExistsException;
+import ru.practicum.shareit.exception.InvalidCursorException;
 import ru.practicum.shareit.exception.NotAvailableException;
 import ru.practicum.shareit.exception.NotOwnerException;
 import ru.practicum.shareit.exception.RepeatedRequestException;
+import ru.practicum.shareit.item.entity.ItemEntity;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
+import ru.practicum.shareit.stream.EntityStreams;
+import ru.practicum.shareit.user.entity.UserEntity;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -49,17 +82,33 @@ class BookingServiceImplTest {
     private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
     private BookingService bookingService;
     private BookingRepository bookingRepository;
+    private BookingHistoryRepository bookingHistoryRepository;
     private ItemRepository itemRepository;
     private UserRepository userRepository;
+    private EntityManager entityManager;
     private BookingMapper bookingMapper;
+    private BookingPhaseScheduler phaseScheduler;
+    private BookingCounters bookingCounters;
+    private DomainEventOutbox domainEventOutbox;
+    private BookingStatusHub bookingStatusHub;
 
     @BeforeEach
     void setUp() {
         bookingRepository = mock(BookingRepository.class);
+        bookingHistoryRepository = mock(BookingHistoryRepository.class);
         itemRepository = mock(ItemRepository.class);
         userRepository = mock(UserRepository.class);
         bookingMapper = Mappers.getMapper(BookingMapper.class);
-        bookingService = new BookingServiceImpl(bookingRepository, itemRepository, userRepository, bookingMapper);
+        entityManager = mock(EntityManager.class);
+        phaseScheduler = mock(BookingPhaseScheduler.class);
+        bookingCounters = mock(BookingCounters.class);
+        domainEventOutbox = mock(DomainEventOutbox.class);
+        bookingStatusHub = mock(BookingStatusHub.class);
+        bookingService = new BookingServiceImpl(bookingRepository, bookingHistoryRepository, itemRepository, userRepository,
+                new ItemLocks(4),
+                phaseScheduler, bookingCounters, domainEventOutbox, bookingStatusHub,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new EntityStreams(entityManager), bookingMapper);
 
     }
 
@@ -156,6 +205,76 @@ class BookingServiceImplTest {
 
         assertEquals(booking, bookingService.add(booking));
         verify(bookingRepository, times(1)).save(any());
+        verify(bookingCounters, times(1)).added(any());
+        verify(domainEventOutbox, times(1)).add(eq(DomainEventType.BOOKING_CREATED), any(), any());
+    }
+
+    @Test
+    void addAll() {
+        UserEntity owner = TestUserProvider.buildUserEntity(2, "owner", "owner@yandex.ru");
+        UserEntity booker = TestUserProvider.buildUserEntity(1, "booker", "booker@yandex.ru");
+        ItemEntity drill = TestItemProvider.provideItemEntity(1, "Дрель", "Проводная дрель", true, owner, null);
+        ItemEntity saw = TestItemProvider.provideItemEntity(2, "Пила", "Ручная пила", true, owner, null);
+        ItemEntity ownSaw = TestItemProvider.provideItemEntity(3, "Пила", "Ручная пила", true, booker, null);
+        ItemEntity unavailable = TestItemProvider.provideItemEntity(4, "Рубанок", "Ручной рубанок", false, owner,
+                null);
+        drill.setId(1);
+        saw.setId(2);
+        ownSaw.setId(3);
+        unavailable.setId(4);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        Booking drillBooking = provideBatchBooking(1, start, start.plusDays(1));
+        Booking sawBooking = provideBatchBooking(2, start.plusDays(1), start.plusDays(2));
+
+        when(itemRepository.findAllById(any())).thenReturn(List.of(drill, saw, ownSaw, unavailable));
+        when(userRepository.findAllById(Set.of(1))).thenReturn(List.of(booker));
+        when(bookingRepository.findAllByBookerIdInAndItemIdInAndStatus(eq(Set.of(1)), any(),
+                eq(BookingStatus.WAITING)))
+                .thenReturn(List.of());
+        when(bookingRepository.findAllOverlappingByItemIds(any(), eq(BookingStatus.APPROVED), any(), any()))
+                .thenReturn(List.of(TestBookingProvider.provideBookingEntity(10, start.plusDays(5),
+                        start.plusDays(6), saw, booker, BookingStatus.APPROVED)));
+        when(bookingRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Booking> added = bookingService.addAll(List.of(drillBooking, sawBooking));
+        assertEquals(2, added.size());
+        assertEquals(owner.getId(), added.get(0).getItem().getOwner().getId());
+        assertEquals(BookingStatus.WAITING, added.get(1).getStatus());
+
+        assertThrows(DataDoesNotExistsException.class, () -> bookingService.addAll(List.of(drillBooking,
+                provideBatchBooking(99, start, start.plusDays(1)))));
+        assertThrows(NotAvailableException.class, () -> bookingService.addAll(List.of(
+                provideBatchBooking(4, start, start.plusDays(1)))));
+        assertThrows(DataDoesNotExistsException.class, () -> bookingService.addAll(List.of(
+                provideBatchBooking(3, start, start.plusDays(1)))));
+        assertThrows(DataAlreadyExistsException.class, () -> bookingService.addAll(List.of(drillBooking,
+                provideBatchBooking(1, start.plusDays(3), start.plusDays(4)))));
+        assertThrows(NotAvailableException.class, () -> bookingService.addAll(List.of(
+                provideBatchBooking(2, start.plusDays(4), start.plusDays(7)))));
+        verify(bookingRepository, times(1)).saveAll(any());
+        verify(bookingCounters, times(1)).added(any());
+        verify(phaseScheduler, times(2)).schedule(any(BookingEntity.class));
+    }
+
+    @Test
+    void addAndApproveRejectOverlappingBookings() {
+        Booking booking = TestBookingProvider.provideBooking(1,
+                LocalDateTime.of(2030, 1, 20, 20, 30),
+                LocalDateTime.of(2030, 1, 21, 20, 30),
+                TestItemProvider.provideItem(1, "item", "desc", true, TestUserProvider.buildUser(2, "user", "email"), null, null, null, null),
+                TestUserProvider.buildUser(1, "user", "email"),
+                BookingStatus.WAITING);
+
+        when(itemRepository.findById(1)).thenReturn(Optional.of(itemMapper.toItemEntity(booking.getItem())));
+        when(userRepository.findById(1)).thenReturn(Optional.of(userMapper.toUserEntity(booking.getBooker())));
+        when(userRepository.findById(2)).thenReturn(Optional.of(userMapper.toUserEntity(booking.getItem().getOwner())));
+        when(bookingRepository.findById(1)).thenReturn(Optional.of(bookingMapper.toBookingEntity(booking)));
+        when(bookingRepository.existsOverlapping(1, BookingStatus.APPROVED, booking.getStart(), booking.getEnd()))
+                .thenReturn(true);
+
+        assertThrows(NotAvailableException.class, () -> bookingService.add(booking));
+        assertThrows(NotAvailableException.class, () -> bookingService.approveBooking(1, 2, true));
+        verify(bookingRepository, never()).save(any());
     }
 
     @Test
@@ -207,8 +326,7 @@ class BookingServiceImplTest {
                 Optional.of(bookingMapper.toBookingEntity(booking)));
         when(userRepository.findById(4)).thenReturn(
                 Optional.of(userMapper.toUserEntity(booking.getBooker())));
-        when(bookingRepository.save(bookingMapper.toBookingEntity(booking))).thenReturn(
-                bookingMapper.toBookingEntity(booking));
+        when(bookingRepository.lockAllIdsByStatus(List.of(4), BookingStatus.WAITING.name())).thenReturn(List.of(4));
 
 
         assertThrows(DataDoesNotExistsException.class, () -> bookingService.approveBooking(99, 1, true));
@@ -223,8 +341,144 @@ class BookingServiceImplTest {
         assertThrows(NotOwnerException.class, () -> bookingService.approveBooking(3, 3, true));
         verify(bookingRepository, never()).save(any());
 
-        assertEquals(booking, bookingService.approveBooking(4, 4, true));
-        verify(bookingRepository, times(1)).save(any());
+        Booking approved = bookingService.approveBooking(4, 4, true);
+        assertEquals(booking, approved);
+        assertEquals(BookingStatus.APPROVED, approved.getStatus());
+        verify(bookingRepository, never()).save(any());
+        verify(bookingCounters, times(1)).statusChanged(any(), eq(BookingStatus.WAITING),
+                eq(BookingStatus.APPROVED));
+        verify(domainEventOutbox, times(1)).add(eq(DomainEventType.BOOKING_APPROVED), eq(4), any());
+        verify(bookingStatusHub, times(1)).statusChanged(any(), eq(BookingStatus.APPROVED));
+
+        assertThrows(RepeatedRequestException.class, () -> bookingService.approveBooking(4, 4, false));
+        verify(bookingCounters, never()).statusChanged(any(), any(), eq(BookingStatus.REJECTED));
+    }
+
+    @Test
+    void approveBookings() {
+        UserEntity owner = TestUserProvider.buildUserEntity(2, "owner", "owner@yandex.ru");
+        UserEntity booker = TestUserProvider.buildUserEntity(1, "booker", "booker@yandex.ru");
+        ItemEntity drill = TestItemProvider.provideItemEntity(1, "Дрель", "Проводная дрель", true, owner, null);
+        ItemEntity saw = TestItemProvider.provideItemEntity(2, "Пила", "Ручная пила", true, owner, null);
+        drill.setId(1);
+        saw.setId(2);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        BookingEntity first = TestBookingProvider.provideBookingEntity(1, start, start.plusDays(1), drill, booker,
+                BookingStatus.WAITING);
+        BookingEntity overlapsFirst = TestBookingProvider.provideBookingEntity(2, start.plusHours(12),
+                start.plusDays(2), drill, booker, BookingStatus.WAITING);
+        BookingEntity overlapsApproved = TestBookingProvider.provideBookingEntity(3, start, start.plusDays(1), saw,
+                booker, BookingStatus.WAITING);
+        BookingEntity alreadyApproved = TestBookingProvider.provideBookingEntity(4, start.plusDays(5),
+                start.plusDays(6), drill, booker, BookingStatus.APPROVED);
+        BookingEntity approvedSaw = TestBookingProvider.provideBookingEntity(10, start.minusDays(1),
+                start.plusHours(1), saw, booker, BookingStatus.APPROVED);
+
+        when(userRepository.existsById(99)).thenReturn(false);
+        when(userRepository.existsById(2)).thenReturn(true);
+        when(bookingRepository.findAllByIdInAndItemOwnerId(Set.of(1, 2, 3, 4, 5), 2))
+                .thenReturn(List.of(first, overlapsFirst, overlapsApproved, alreadyApproved));
+        when(bookingRepository.findAllByIdInAndItemOwnerId(Set.of(2, 3), 2))
+                .thenReturn(List.of(overlapsFirst, overlapsApproved));
+        when(bookingRepository.findAllOverlappingByItemIds(Set.of(1, 2), BookingStatus.APPROVED, start,
+                start.plusDays(2))).thenReturn(List.of(approvedSaw));
+        when(bookingRepository.lockAllIdsByStatus(List.of(1), BookingStatus.WAITING.name()))
+                .thenReturn(List.of(1));
+        when(bookingRepository.lockAllIdsByStatus(List.of(2, 3), BookingStatus.WAITING.name()))
+                .thenReturn(List.of(2, 3));
+
+        assertThrows(DataDoesNotExistsException.class, () -> bookingService.approveBookings(List.of(1), 99, true));
+
+        List<BookingDecision> approved = bookingService.approveBookings(List.of(1, 2, 3, 4, 5, 1), 2, true);
+        assertEquals(List.of(1, 2, 3, 4, 5), approved.stream()
+                .map(BookingDecision::getBookingId)
+                .collect(Collectors.toList()));
+        assertEquals(BookingStatus.APPROVED, approved.get(0).getStatus());
+        assertNull(approved.get(0).getError());
+        assertEquals(BookingStatus.WAITING, approved.get(1).getStatus());
+        assertNotNull(approved.get(1).getError());
+        assertEquals(BookingStatus.WAITING, approved.get(2).getStatus());
+        assertNotNull(approved.get(2).getError());
+        assertEquals(BookingStatus.APPROVED, approved.get(3).getStatus());
+        assertNotNull(approved.get(3).getError());
+        assertNull(approved.get(4).getStatus());
+        assertNotNull(approved.get(4).getError());
+        verify(bookingCounters).statusChanged(List.of(first), BookingStatus.WAITING, BookingStatus.APPROVED);
+
+        List<BookingDecision> rejected = bookingService.approveBookings(List.of(2, 3), 2, false);
+        assertEquals(List.of(BookingStatus.REJECTED, BookingStatus.REJECTED), rejected.stream()
+                .map(BookingDecision::getStatus)
+                .collect(Collectors.toList()));
+        verify(bookingCounters).statusChanged(List.of(overlapsFirst, overlapsApproved), BookingStatus.WAITING,
+                BookingStatus.REJECTED);
+        verify(bookingStatusHub).statusChanged(List.of(first), BookingStatus.APPROVED);
+        verify(bookingStatusHub).statusChanged(List.of(overlapsFirst, overlapsApproved), BookingStatus.REJECTED);
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void approveBookingsDecidedElsewhere() {
+        UserEntity owner = TestUserProvider.buildUserEntity(2, "owner", "owner@yandex.ru");
+        UserEntity booker = TestUserProvider.buildUserEntity(1, "booker", "booker@yandex.ru");
+        List<BookingEntity> bookings = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        for (int id = 1; id <= 4; id++) {
+            ItemEntity item = TestItemProvider.provideItemEntity(id, "Дрель", "Проводная дрель", true, owner, null);
+            item.setId(id);
+            bookings.add(TestBookingProvider.provideBookingEntity(id, start, start.plusDays(1), item, booker,
+                    BookingStatus.WAITING));
+        }
+        when(userRepository.existsById(2)).thenReturn(true);
+        when(bookingRepository.findAllByIdInAndItemOwnerId(Set.of(1, 2, 3, 4), 2)).thenReturn(bookings);
+        when(bookingRepository.findAllOverlappingByItemIds(Set.of(1, 2, 3, 4), BookingStatus.APPROVED, start,
+                start.plusDays(1))).thenReturn(List.of());
+        // booking 2 was rejected and booking 3 deleted by concurrent requests, booking 4 clashes with a booking
+        // approved elsewhere, so the batch is retried one by one
+        when(bookingRepository.lockAllIdsByStatus(List.of(1, 2, 3, 4), BookingStatus.WAITING.name()))
+                .thenReturn(List.of(1, 4));
+        when(bookingRepository.updateStatus(Set.of(1, 4), BookingStatus.WAITING, BookingStatus.APPROVED))
+                .thenThrow(new DataIntegrityViolationException("bookings_no_overlap"));
+        when(bookingRepository.lockAllIdsByStatus(List.of(1), BookingStatus.WAITING.name())).thenReturn(List.of(1));
+        when(bookingRepository.updateStatus(Set.of(1), BookingStatus.WAITING, BookingStatus.APPROVED)).thenReturn(1);
+        when(bookingRepository.lockAllIdsByStatus(List.of(2), BookingStatus.WAITING.name())).thenReturn(List.of());
+        when(bookingRepository.lockAllIdsByStatus(List.of(3), BookingStatus.WAITING.name())).thenReturn(List.of());
+        when(bookingRepository.lockAllIdsByStatus(List.of(4), BookingStatus.WAITING.name())).thenReturn(List.of(4));
+        when(bookingRepository.updateStatus(Set.of(4), BookingStatus.WAITING, BookingStatus.APPROVED))
+                .thenThrow(new DataIntegrityViolationException("bookings_no_overlap"));
+        when(bookingRepository.findAllDecisions(Set.of(2)))
+                .thenReturn(List.of(new BookingDecision(2, BookingStatus.REJECTED, null)));
+        when(bookingRepository.findAllDecisions(Set.of(3))).thenReturn(List.of());
+
+        List<BookingDecision> decisions = bookingService.approveBookings(List.of(1, 2, 3, 4), 2, true);
+
+        assertEquals(Arrays.asList(BookingStatus.APPROVED, BookingStatus.REJECTED, null, BookingStatus.WAITING),
+                decisions.stream()
+                        .map(BookingDecision::getStatus)
+                        .collect(Collectors.toList()));
+        assertNull(decisions.get(0).getError());
+        assertEquals("Booking with id 2 already rejected", decisions.get(1).getError());
+        assertEquals("Booking with id 3 not exists", decisions.get(2).getError());
+        assertNotNull(decisions.get(3).getError());
+        verify(bookingCounters).statusChanged(List.of(bookings.get(0)), BookingStatus.WAITING,
+                BookingStatus.APPROVED);
+        verify(bookingCounters, times(1)).statusChanged(any(), any(), any());
+        verify(domainEventOutbox).add(DomainEventType.BOOKING_APPROVED, 1, 1);
+        verify(domainEventOutbox, times(1)).add(any(), any(), any());
+        verify(bookingStatusHub).statusChanged(List.of(bookings.get(0)), BookingStatus.APPROVED);
+    }
+
+    @Test
+    void getSummary() {
+        BookingSummary summary = new BookingSummary();
+        when(userRepository.existsById(99)).thenReturn(false);
+        when(userRepository.existsById(1)).thenReturn(true);
+        when(bookingCounters.getSummary(1, BookingRole.BOOKER)).thenReturn(summary);
+        when(bookingCounters.getSummary(1, BookingRole.OWNER)).thenReturn(summary);
+
+        assertThrows(DataDoesNotExistsException.class, () -> bookingService.getSummary(99));
+        assertThrows(DataDoesNotExistsException.class, () -> bookingService.getSummaryForItems(99));
+        assertEquals(summary, bookingService.getSummary(1));
+        assertEquals(summary, bookingService.getSummaryForItems(1));
     }
 
     @Test
@@ -237,9 +491,10 @@ class BookingServiceImplTest {
                 BookingStatus.WAITING);
 
 
-        when(bookingRepository.findById(99)).thenReturn(Optional.empty());
+        when(bookingHistoryRepository.findById(99)).thenReturn(Optional.empty());
 
-        when(bookingRepository.findById(1)).thenReturn(Optional.of(bookingMapper.toBookingEntity(booking)));
+        when(bookingHistoryRepository.findById(1)).thenReturn(
+                Optional.of(toHistoryEntity(bookingMapper.toBookingEntity(booking))));
 
 
         assertThrows(DataDoesNotExistsException.class, () -> bookingService.getById(99, 1));
@@ -252,54 +507,55 @@ class BookingServiceImplTest {
     @Test
     void getAllBookingsByState() {
         Page<BookingEntity> page = new PageImpl<>(Collections.emptyList());
+        Page<BookingHistoryEntity> history = new PageImpl<>(Collections.emptyList());
 
 
         when(userRepository.existsById(99)).thenReturn(false);
 
         when(userRepository.existsById(1)).thenReturn(true);
 
-        when(bookingRepository.findAllByBookerId(eq(1), any())).thenReturn(page);
-
-        when(bookingRepository.findAllByBookerIdAndStartIsBeforeAndEndIsAfter(eq(1), any(),
-                any(), any())).thenReturn(page);
+        when(bookingHistoryRepository.findAllByBookerId(eq(1), any())).thenReturn(history);
 
-        when(bookingRepository.findAllByBookerIdAndEndIsBefore(eq(1), any(),
+        when(bookingRepository.findAllByBookerIdAndPhase(eq(1), eq(BookingPhase.CURRENT),
                 any())).thenReturn(page);
 
-        when(bookingRepository.findAllByBookerIdAndStartIsAfter(eq(1), any(),
+        when(bookingHistoryRepository.findAllByBookerIdAndPhase(eq(1), eq(BookingPhase.PAST),
+                any())).thenReturn(history);
+
+        when(bookingRepository.findAllByBookerIdAndPhase(eq(1), eq(BookingPhase.FUTURE),
                 any())).thenReturn(page);
 
         when(bookingRepository.findAllByBookerIdAndStatus(eq(1), eq(BookingStatus.WAITING),
                 any())).thenReturn(page);
 
-        when(bookingRepository.findAllByBookerIdAndStatus(eq(1), eq(BookingStatus.REJECTED),
-                any())).thenReturn(page);
+        when(bookingHistoryRepository.findAllByBookerIdAndStatus(eq(1), eq(BookingStatus.REJECTED),
+                any())).thenReturn(history);
 
 
         assertThrows(DataDoesNotExistsException.class, () -> bookingService.getAllBookingsByState(99, "All", 0, 1));
-        verify(bookingRepository, never()).findAllByItemOwnerId(any(), any());
+        verify(bookingHistoryRepository, never()).findAllByItemOwnerId(any(), any());
 
         assertEquals(Collections.emptyList(), bookingService.getAllBookingsByState(1, "ALL", 0, 1));
-        verify(bookingRepository, times(1)).findAllByBookerId(any(), any());
+        verify(bookingHistoryRepository, times(1)).findAllByBookerId(any(), any());
 
         assertEquals(Collections.emptyList(), bookingService.getAllBookingsByState(1, "CURRENT", 0, 1));
         verify(bookingRepository, times(1))
-                .findAllByBookerIdAndStartIsBeforeAndEndIsAfter(any(), any(), any(), any());
+                .findAllByBookerIdAndPhase(any(), eq(BookingPhase.CURRENT), any());
 
         assertEquals(Collections.emptyList(), bookingService.getAllBookingsByState(1, "PAST", 0, 1));
-        verify(bookingRepository, times(1))
-                .findAllByBookerIdAndEndIsBefore(any(), any(), any());
+        verify(bookingHistoryRepository, times(1))
+                .findAllByBookerIdAndPhase(any(), eq(BookingPhase.PAST), any());
 
         assertEquals(Collections.emptyList(), bookingService.getAllBookingsByState(1, "FUTURE", 0, 1));
         verify(bookingRepository, times(1))
-                .findAllByBookerIdAndStartIsAfter(any(), any(), any());
+                .findAllByBookerIdAndPhase(any(), eq(BookingPhase.FUTURE), any());
 
         assertEquals(Collections.emptyList(), bookingService.getAllBookingsByState(1, "WAITING", 0, 1));
         verify(bookingRepository, times(1))
                 .findAllByBookerIdAndStatus(any(), eq(BookingStatus.WAITING), any());
 
         assertEquals(Collections.emptyList(), bookingService.getAllBookingsByState(1, "REJECTED", 0, 1));
-        verify(bookingRepository, times(1))
+        verify(bookingHistoryRepository, times(1))
                 .findAllByBookerIdAndStatus(any(), eq(BookingStatus.REJECTED), any());
 
     }
@@ -307,48 +563,49 @@ class BookingServiceImplTest {
     @Test
     void getAllBookingsForItemsByState() {
         Page<BookingEntity> page = new PageImpl<>(Collections.emptyList());
+        Page<BookingHistoryEntity> history = new PageImpl<>(Collections.emptyList());
 
 
         when(userRepository.existsById(99)).thenReturn(false);
 
         when(userRepository.existsById(1)).thenReturn(true);
 
-        when(bookingRepository.findAllByItemOwnerId(any(), any())).thenReturn(page);
+        when(bookingHistoryRepository.findAllByItemOwnerId(any(), any())).thenReturn(history);
 
-        when(bookingRepository.findAllByItemOwnerIdAndEndIsAfterAndStartIsBefore(any(), any(),
-                any(), any())).thenReturn(page);
-
-        when(bookingRepository.findAllByItemOwnerIdAndEndIsBefore(any(), any(),
+        when(bookingRepository.findAllByItemOwnerIdAndPhase(any(), eq(BookingPhase.CURRENT),
                 any())).thenReturn(page);
 
-        when(bookingRepository.findAllByItemOwnerIdAndStartIsAfter(any(), any(),
+        when(bookingHistoryRepository.findAllByItemOwnerIdAndPhase(any(), eq(BookingPhase.PAST),
+                any())).thenReturn(history);
+
+        when(bookingRepository.findAllByItemOwnerIdAndPhase(any(), eq(BookingPhase.FUTURE),
                 any())).thenReturn(page);
 
         when(bookingRepository.findAllByItemOwnerIdAndStatus(any(), eq(BookingStatus.WAITING),
                 any())).thenReturn(page);
 
-        when(bookingRepository.findAllByItemOwnerIdAndStatus(any(), eq(BookingStatus.REJECTED),
-                any())).thenReturn(page);
+        when(bookingHistoryRepository.findAllByItemOwnerIdAndStatus(any(), eq(BookingStatus.REJECTED),
+                any())).thenReturn(history);
 
 
         assertThrows(DataDoesNotExistsException.class, () -> bookingService.getAllBookingsForItemsByState(99, "ALL", 0, 1));
-        verify(bookingRepository, never()).findAllByItemOwnerId(any(), any());
+        verify(bookingHistoryRepository, never()).findAllByItemOwnerId(any(), any());
 
         assertEquals(Collections.emptyList(), bookingService.getAllBookingsForItemsByState(1, "ALL", 0, 1));
-        verify(bookingRepository, times(1))
+        verify(bookingHistoryRepository, times(1))
                 .findAllByItemOwnerId(any(), any());
 
         assertEquals(Collections.emptyList(), bookingService.getAllBookingsForItemsByState(1, "CURRENT", 0, 1));
         verify(bookingRepository, times(1))
-                .findAllByItemOwnerIdAndEndIsAfterAndStartIsBefore(any(), any(), any(), any());
+                .findAllByItemOwnerIdAndPhase(any(), eq(BookingPhase.CURRENT), any());
 
         assertEquals(Collections.emptyList(), bookingService.getAllBookingsForItemsByState(1, "PAST", 0, 1));
-        verify(bookingRepository, times(1))
-                .findAllByItemOwnerIdAndEndIsBefore(any(), any(), any());
+        verify(bookingHistoryRepository, times(1))
+                .findAllByItemOwnerIdAndPhase(any(), eq(BookingPhase.PAST), any());
 
         assertEquals(Collections.emptyList(), bookingService.getAllBookingsForItemsByState(1, "FUTURE", 0, 1));
         verify(bookingRepository, times(1))
-                .findAllByItemOwnerIdAndStartIsAfter(any(), any(), any());
+                .findAllByItemOwnerIdAndPhase(any(), eq(BookingPhase.FUTURE), any());
 
         assertEquals(Collections.emptyList(), bookingService.getAllBookingsForItemsByState(1, "WAITING", 0, 1));
         verify(bookingRepository, times(1))
@@ -358,4 +615,145 @@ class BookingServiceImplTest {
         verify(bookingRepository, times(1))
                 .findAllByItemOwnerIdAndStatus(any(), eq(BookingStatus.WAITING), any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void streamAllBookingsByState() {
+        BookingEntity bookingEntity = bookingMapper.toBookingEntity(TestBookingProvider.provideBooking(1,
+                LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                TestItemProvider.provideItem(2, "item", "desc", true, TestUserProvider.buildUser(3, "owner", "email"),
+                        null, null, null, null),
+                TestUserProvider.buildUser(1, "user", "email"),
+                BookingStatus.APPROVED));
+
+
+        when(userRepository.existsById(99)).thenReturn(false);
+        when(userRepository.existsById(1)).thenReturn(true);
+        when(bookingHistoryRepository.streamAllByBookerIdAndPhase(eq(1), eq(BookingPhase.PAST), any()))
+                .thenReturn(Stream.of(toHistoryEntity(bookingEntity)));
+        when(bookingRepository.streamAllByBookerIdAndStatus(eq(1), eq(BookingStatus.WAITING), any()))
+                .thenReturn(Stream.empty());
+
+
+        List<Booking> bookings = new ArrayList<>();
+        assertThrows(DataDoesNotExistsException.class,
+                () -> bookingService.streamAllBookingsByState(99, "ALL", bookings::add));
+        verify(bookingHistoryRepository, never()).streamAllByBookerId(any(), any());
+
+        bookingService.streamAllBookingsByState(1, "WAITING", bookings::add);
+        assertEquals(List.of(), bookings);
+
+        bookingService.streamAllBookingsByState(1, "past", bookings::add);
+        assertEquals(1, bookings.size());
+        assertEquals(1, bookings.get(0).getId());
+        assertEquals(2, bookings.get(0).getItem().getId());
+        verify(bookingRepository, never()).count();
+    }
+
+    @Test
+    void exportAllBookings() {
+        BookingEntity bookingEntity = bookingMapper.toBookingEntity(TestBookingProvider.provideBooking(1,
+                LocalDateTime.now().minusYears(2), LocalDateTime.now().minusYears(2).plusDays(1),
+                TestItemProvider.provideItem(2, "item", "desc", true, TestUserProvider.buildUser(3, "owner", "email"),
+                        null, null, null, null),
+                TestUserProvider.buildUser(1, "user", "email"),
+                BookingStatus.APPROVED));
+
+
+        when(userRepository.existsById(99)).thenReturn(false);
+        when(userRepository.existsById(1)).thenReturn(true);
+        when(userRepository.existsById(3)).thenReturn(true);
+        when(bookingHistoryRepository.streamAllByBookerId(eq(1), any()))
+                .thenReturn(Stream.of(toHistoryEntity(bookingEntity)));
+        when(bookingHistoryRepository.streamAllByItemOwnerId(eq(3), any()))
+                .thenReturn(Stream.of(toHistoryEntity(bookingEntity)));
+
+
+        List<Booking> bookings = new ArrayList<>();
+        assertThrows(DataDoesNotExistsException.class, () -> bookingService.exportAllBookings(99, bookings::add));
+        assertThrows(DataDoesNotExistsException.class,
+                () -> bookingService.exportAllBookingsForItems(99, bookings::add));
+
+        bookingService.exportAllBookings(1, bookings::add);
+        bookingService.exportAllBookingsForItems(3, bookings::add);
+        assertEquals(2, bookings.size());
+        assertEquals(1, bookings.get(0).getId());
+        assertEquals(1, bookings.get(1).getId());
+        verify(bookingHistoryRepository, times(1)).streamAllByBookerId(1,
+                Sort.by("start").descending().and(Sort.by("id").descending()));
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void getAllBookingsByStateAfter() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingEntity bookingEntity = bookingMapper.toBookingEntity(TestBookingProvider.provideBooking(4,
+                start, start.plusDays(1),
+                TestItemProvider.provideItem(2, "item", "desc", true, TestUserProvider.buildUser(3, "owner", "email"),
+                        null, null, null, null),
+                TestUserProvider.buildUser(1, "user", "email"),
+                BookingStatus.WAITING));
+
+
+        when(userRepository.existsById(99)).thenReturn(false);
+        when(userRepository.existsById(1)).thenReturn(true);
+        when(bookingRepository.findSlice(eq(BookingEntity.class), any(), any(), eq(1)))
+                .thenReturn(new SliceImpl<>(List.of(bookingEntity), PageRequest.ofSize(1), true));
+
+
+        assertThrows(DataDoesNotExistsException.class,
+                () -> bookingService.getAllBookingsByStateAfter(99, "ALL", null, 1));
+        assertThrows(InvalidCursorException.class,
+                () -> bookingService.getAllBookingsByStateAfter(1, "ALL", Cursors.encode(4), 1));
+
+        CursorPage<Booking> page = bookingService.getAllBookingsByStateAfter(1, "future", null, 1);
+        assertEquals(4, List.copyOf(page.getContent()).get(0).getId());
+        Cursors.DateTimeKey key = Cursors.decodeDateTimeKey(page.getNextCursor());
+        assertEquals(start, key.getValue());
+        assertEquals(4, key.getId());
+        verify(bookingRepository, times(1)).findSlice(eq(BookingEntity.class), any(), any(), eq(1));
+        verify(bookingHistoryRepository, never()).findSlice(any(), any(), any(), eq(1));
+    }
+
+    @Test
+    void streamAllBookingsForItemsByState() {
+        BookingEntity bookingEntity = bookingMapper.toBookingEntity(TestBookingProvider.provideBooking(1,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                TestItemProvider.provideItem(2, "item", "desc", true, TestUserProvider.buildUser(3, "owner", "email"),
+                        null, null, null, null),
+                TestUserProvider.buildUser(1, "user", "email"),
+                BookingStatus.WAITING));
+
+
+        when(userRepository.existsById(3)).thenReturn(true);
+        when(bookingRepository.streamAllByItemOwnerIdAndPhase(eq(3), eq(BookingPhase.FUTURE), any()))
+                .thenReturn(Stream.of(bookingEntity));
+
+
+        List<Booking> bookings = new ArrayList<>();
+        bookingService.streamAllBookingsForItemsByState(3, "FUTURE", bookings::add);
+        assertEquals(1, bookings.size());
+        assertEquals(1, bookings.get(0).getBooker().getId());
+        verify(bookingRepository, times(1)).streamAllByItemOwnerIdAndPhase(any(), any(), any());
+        verify(entityManager, times(1)).clear();
+    }
+
+    private static Booking provideBatchBooking(Integer itemId, LocalDateTime start, LocalDateTime end) {
+        return TestBookingProvider.provideBooking(null, start, end,
+                TestItemProvider.provideItem(itemId, null, null, null, null, null, null, null, null),
+                TestUserProvider.buildUser(1, null, null),
+                BookingStatus.WAITING);
+    }
+
+    private static BookingHistoryEntity toHistoryEntity(BookingEntity bookingEntity) {
+        BookingHistoryEntity res = new BookingHistoryEntity();
+        res.setId(bookingEntity.getId());
+        res.setStart(bookingEntity.getStart());
+        res.setEnd(bookingEntity.getEnd());
+        res.setItem(bookingEntity.getItem());
+        res.setBooker(bookingEntity.getBooker());
+        res.setItemOwnerId(bookingEntity.getItemOwnerId());
+        res.setStatus(bookingEntity.getStatus());
+        res.setPhase(bookingEntity.getPhase());
+        return res;
+    }
+}
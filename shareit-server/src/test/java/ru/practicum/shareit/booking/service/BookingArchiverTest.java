@@ -0,0 +1,59 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingArchiverTest {
+
+    private BookingRepository bookingRepository;
+    private BookingArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        archiver = new BookingArchiver(bookingRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), Duration.ofDays(365));
+    }
+
+    @Test
+    void archiveMovesBatchesUntilShortOne() {
+        LocalDateTime endedBefore = LocalDateTime.of(2030, 1, 1, 12, 0);
+        List<Integer> full = new ArrayList<>();
+        for (int i = 0; i < BookingArchiver.BATCH_SIZE; i++) {
+            full.add(i + 1);
+        }
+        when(bookingRepository.findIdsToArchiveForUpdate(endedBefore, BookingArchiver.BATCH_SIZE))
+                .thenReturn(full)
+                .thenReturn(List.of(BookingArchiver.BATCH_SIZE + 1));
+        when(bookingRepository.deleteAllByIdIn(full)).thenReturn(full.size());
+        when(bookingRepository.deleteAllByIdIn(List.of(BookingArchiver.BATCH_SIZE + 1))).thenReturn(1);
+
+        assertEquals(BookingArchiver.BATCH_SIZE + 1, archiver.archive(endedBefore));
+        verify(bookingRepository).copyToArchive(full);
+        verify(bookingRepository).copyToArchive(List.of(BookingArchiver.BATCH_SIZE + 1));
+        verify(bookingRepository, times(2)).findIdsToArchiveForUpdate(endedBefore, BookingArchiver.BATCH_SIZE);
+    }
+
+    @Test
+    void archiveWithoutOldBookings() {
+        assertEquals(0, archiver.archive(LocalDateTime.of(2030, 1, 1, 12, 0)));
+        verify(bookingRepository, never()).copyToArchive(any());
+        verify(bookingRepository, never()).deleteAllByIdIn(any());
+    }
+}
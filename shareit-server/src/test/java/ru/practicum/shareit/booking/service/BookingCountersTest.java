@@ -0,0 +1,122 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.booking.entity.BookingEntity;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingSummary;
+import ru.practicum.shareit.booking.storage.BookingHistoryRepository;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.classBuilder.TestBookingProvider;
+import ru.practicum.shareit.classBuilder.TestItemProvider;
+import ru.practicum.shareit.classBuilder.TestUserProvider;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.entity.UserEntity;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Import(BookingCounters.class)
+class BookingCountersTest {
+
+    @Autowired
+    private BookingCounters bookingCounters;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingHistoryRepository bookingHistoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private UserEntity itemOwner;
+    private UserEntity booker;
+    private BookingEntity first;
+    private BookingEntity second;
+
+    @BeforeEach
+    void setUp() {
+        itemOwner = userRepository.save(TestUserProvider.buildUserEntity(null, "itemOwner", "owner@yandex.ru"));
+        booker = userRepository.save(TestUserProvider.buildUserEntity(null, "booker", "booker@yandex.ru"));
+        ItemEntity item = itemRepository.save(TestItemProvider.provideItemEntity(null, "Дрель", "Проводная дрель",
+                true, itemOwner, null));
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        first = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start, start.plusDays(1), item, booker, BookingStatus.WAITING));
+        second = bookingRepository.save(TestBookingProvider.provideBookingEntity(null,
+                start.plusDays(2), start.plusDays(3), item, booker, BookingStatus.WAITING));
+    }
+
+    @Test
+    void countersFollowBookings() {
+        bookingCounters.added(List.of(first, second));
+        bookingCounters.statusChanged(List.of(first), BookingStatus.WAITING, BookingStatus.APPROVED);
+        bookingCounters.phaseChanged(List.of(first), BookingPhase.FUTURE, BookingPhase.CURRENT);
+        entityManager.clear();
+
+        for (BookingSummary summary : List.of(bookingCounters.getSummary(booker.getId(), BookingRole.BOOKER),
+                bookingCounters.getSummary(itemOwner.getId(), BookingRole.OWNER))) {
+            assertEquals(2L, summary.getStates().get(BookingState.ALL));
+            assertEquals(1L, summary.getStates().get(BookingState.WAITING));
+            assertEquals(1L, summary.getStates().get(BookingState.CURRENT));
+            assertEquals(1L, summary.getStates().get(BookingState.FUTURE));
+            assertEquals(0L, summary.getStates().get(BookingState.PAST));
+            assertEquals(0L, summary.getStates().get(BookingState.REJECTED));
+            assertEquals(1L, summary.getStatuses().get(BookingStatus.APPROVED));
+        }
+        assertEquals(0L, bookingCounters.getSummary(booker.getId(), BookingRole.OWNER).getStates()
+                .get(BookingState.ALL));
+    }
+
+    @Test
+    void userRemoved() {
+        bookingCounters.added(List.of(first, second));
+        bookingCounters.userRemoved(booker.getId(),
+                bookingHistoryRepository.countAllCascadedByUser(booker.getId()));
+        entityManager.clear();
+
+        BookingSummary ofOwner = bookingCounters.getSummary(itemOwner.getId(), BookingRole.OWNER);
+        assertEquals(0L, ofOwner.getStates().get(BookingState.ALL));
+        assertEquals(0L, ofOwner.getStates().get(BookingState.FUTURE));
+        assertEquals(0L, bookingCounters.getSummary(booker.getId(), BookingRole.BOOKER).getStates()
+                .get(BookingState.ALL));
+    }
+
+    @Test
+    void itemRemoved() {
+        bookingCounters.added(List.of(first, second));
+        bookingCounters.itemRemoved(bookingHistoryRepository.countAllByItemId(first.getItem().getId()));
+        itemRepository.deleteById(first.getItem().getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        for (BookingSummary summary : List.of(bookingCounters.getSummary(booker.getId(), BookingRole.BOOKER),
+                bookingCounters.getSummary(itemOwner.getId(), BookingRole.OWNER))) {
+            assertEquals(0L, summary.getStates().get(BookingState.ALL));
+            assertEquals(0L, summary.getStates().get(BookingState.WAITING));
+            assertEquals(0L, summary.getStates().get(BookingState.FUTURE));
+        }
+        assertEquals(List.of(), bookingRepository.findAll());
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.entity.BookingEntity;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingPhaseSchedulerTest {
+
+    private BookingRepository bookingRepository;
+    private BookingCounters bookingCounters;
+    private BookingPhaseScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        bookingCounters = mock(BookingCounters.class);
+        scheduler = new BookingPhaseScheduler(bookingRepository, bookingCounters,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    void advance() {
+        LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+        assertNull(scheduler.advance(now));
+        verify(bookingRepository).findAllStartedForUpdate("FUTURE", now, BookingPhaseScheduler.BATCH_SIZE);
+        verify(bookingRepository).findAllEndedForUpdate("CURRENT", now, BookingPhaseScheduler.BATCH_SIZE);
+        verify(bookingRepository, never()).updatePhase(any(), any(), any());
+
+        when(bookingRepository.findFirstStartByPhase(BookingPhase.FUTURE)).thenReturn(now.plusHours(2));
+        assertEquals(now.plusHours(2), scheduler.advance(now));
+
+        when(bookingRepository.findFirstEndByPhase(BookingPhase.CURRENT)).thenReturn(now.plusHours(1));
+        assertEquals(now.plusHours(1), scheduler.advance(now));
+
+        when(bookingRepository.findFirstStartByPhase(BookingPhase.FUTURE)).thenReturn(null);
+        assertEquals(now.plusHours(1), scheduler.advance(now));
+    }
+
+    @Test
+    void advanceMovesBookingsWithCounters() {
+        LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+        BookingEntity started = provideBookingEntity(1);
+        List<BookingEntity> ended = new ArrayList<>();
+        for (int i = 0; i < BookingPhaseScheduler.BATCH_SIZE; i++) {
+            ended.add(provideBookingEntity(i + 2));
+        }
+        when(bookingRepository.findAllStartedForUpdate("FUTURE", now, BookingPhaseScheduler.BATCH_SIZE))
+                .thenReturn(List.of(started));
+        when(bookingRepository.findAllEndedForUpdate("CURRENT", now, BookingPhaseScheduler.BATCH_SIZE))
+                .thenReturn(ended)
+                .thenReturn(List.of());
+
+        scheduler.advance(now);
+
+        verify(bookingRepository).updatePhase(List.of(1), BookingPhase.FUTURE, BookingPhase.CURRENT);
+        verify(bookingCounters).phaseChanged(List.of(started), BookingPhase.FUTURE, BookingPhase.CURRENT);
+        verify(bookingRepository, times(2)).findAllEndedForUpdate("CURRENT", now, BookingPhaseScheduler.BATCH_SIZE);
+        verify(bookingCounters).phaseChanged(ended, BookingPhase.CURRENT, BookingPhase.PAST);
+    }
+
+    @Test
+    void wakesAtNextBoundary() {
+        when(bookingRepository.findFirstStartByPhase(BookingPhase.FUTURE))
+                .thenReturn(LocalDateTime.now().plusNanos(300_000_000))
+                .thenReturn(null);
+
+        scheduler.start();
+
+        verify(bookingRepository, timeout(5000).times(2)).findAllStartedForUpdate(any(), any(), anyInt());
+    }
+
+    @Test
+    void scheduledBookingWakesScheduler() {
+        scheduler.start();
+        verify(bookingRepository, timeout(5000).times(1)).findAllStartedForUpdate(any(), any(), anyInt());
+
+        scheduler.schedule(LocalDateTime.now().plusNanos(200_000_000));
+
+        verify(bookingRepository, timeout(5000).times(2)).findAllStartedForUpdate(any(), any(), anyInt());
+    }
+
+    private static BookingEntity provideBookingEntity(Integer id) {
+        BookingEntity bookingEntity = new BookingEntity();
+        bookingEntity.setId(id);
+        return bookingEntity;
+    }
+}
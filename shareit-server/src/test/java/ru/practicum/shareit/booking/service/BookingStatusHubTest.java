@@ -0,0 +1,182 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDecisionResponse;
+import ru.practicum.shareit.booking.entity.BookingEntity;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.classBuilder.TestBookingProvider;
+import ru.practicum.shareit.classBuilder.TestItemProvider;
+import ru.practicum.shareit.classBuilder.TestUserProvider;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.user.entity.UserEntity;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class BookingStatusHubTest {
+
+    private static final int BUFFER_SIZE = 2;
+
+    private final UserEntity owner = TestUserProvider.buildUserEntity(1, "owner", "owner@yandex.ru");
+    private final UserEntity booker = TestUserProvider.buildUserEntity(2, "booker", "booker@yandex.ru");
+    private final ItemEntity item = TestItemProvider.provideItemEntity(1, "Дрель", "Проводная дрель", true, owner,
+            null);
+    private final Queue<Runnable> drains = new ArrayDeque<>();
+    private BookingStatusHub hub;
+
+    @BeforeEach
+    void setUp() {
+        hub = new BookingStatusHub(Mappers.getMapper(BookingMapper.class), mock(UserRepository.class), BUFFER_SIZE,
+                Duration.ofMinutes(1), drains::add);
+    }
+
+    @Test
+    void statusChanged() {
+        RecordingEmitter bookerEmitter = subscribe(booker.getId());
+        RecordingEmitter ownerEmitter = subscribe(owner.getId());
+        RecordingEmitter otherEmitter = subscribe(3);
+
+        hub.statusChanged(List.of(provideBooking(1), provideBooking(2)), BookingStatus.APPROVED);
+        runDrains();
+
+        assertEquals(List.of("status 1 APPROVED", "status 2 APPROVED"), bookerEmitter.events);
+        assertEquals(List.of("status 1 APPROVED", "status 2 APPROVED"), ownerEmitter.events);
+        assertEquals(List.of(), otherEmitter.events);
+    }
+
+    @Test
+    void everySubscriberGetsItsOwnEvent() {
+        RecordingEmitter bookerEmitter = subscribe(booker.getId());
+        RecordingEmitter ownerEmitter = subscribe(owner.getId());
+
+        hub.statusChanged(List.of(provideBooking(1)), BookingStatus.APPROVED);
+        hub.heartbeat();
+        runDrains();
+
+        assertEquals(List.of(3, 1), bookerEmitter.parts);
+        assertEquals(List.of(3, 1), ownerEmitter.parts);
+    }
+
+    @Test
+    void slowSubscriberIsResynced() {
+        RecordingEmitter emitter = subscribe(booker.getId());
+
+        for (int i = 1; i <= BUFFER_SIZE + 1; i++) {
+            hub.statusChanged(List.of(provideBooking(i)), BookingStatus.REJECTED);
+        }
+        hub.heartbeat();
+        runDrains();
+        hub.statusChanged(List.of(provideBooking(10)), BookingStatus.APPROVED);
+        runDrains();
+
+        assertEquals(List.of("resync", "status 10 APPROVED"), emitter.events);
+    }
+
+    @Test
+    void heartbeatDoesNotOverflow() {
+        RecordingEmitter emitter = subscribe(booker.getId());
+
+        hub.statusChanged(List.of(provideBooking(1), provideBooking(2)), BookingStatus.APPROVED);
+        hub.heartbeat();
+        runDrains();
+        hub.heartbeat();
+        runDrains();
+
+        assertEquals(List.of("status 1 APPROVED", "status 2 APPROVED", "heartbeat"), emitter.events);
+    }
+
+    @Test
+    void closedSubscriberIsRemoved() {
+        RecordingEmitter emitter = subscribe(booker.getId());
+        emitter.closed = true;
+
+        hub.statusChanged(List.of(provideBooking(1)), BookingStatus.APPROVED);
+        runDrains();
+
+        assertEquals(0, hub.size());
+        hub.statusChanged(List.of(provideBooking(2)), BookingStatus.APPROVED);
+        assertEquals(0, drains.size());
+    }
+
+    @Test
+    void failedSubscriberIsRemoved() {
+        RecordingEmitter emitter = subscribe(booker.getId());
+        RecordingEmitter otherEmitter = subscribe(booker.getId());
+        emitter.failure = new IllegalArgumentException("No converter");
+
+        hub.statusChanged(List.of(provideBooking(1)), BookingStatus.APPROVED);
+        runDrains();
+
+        assertEquals(1, hub.size());
+        assertEquals(List.of("status 1 APPROVED"), otherEmitter.events);
+        hub.statusChanged(List.of(provideBooking(2)), BookingStatus.APPROVED);
+        runDrains();
+        assertEquals(List.of("status 1 APPROVED", "status 2 APPROVED"), otherEmitter.events);
+    }
+
+    private RecordingEmitter subscribe(Integer userId) {
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.subscribe(userId, emitter);
+        return emitter;
+    }
+
+    private void runDrains() {
+        while (!drains.isEmpty()) {
+            drains.poll().run();
+        }
+    }
+
+    private BookingEntity provideBooking(Integer id) {
+        return TestBookingProvider.provideBookingEntity(id, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING);
+    }
+
+    /**
+     * Keeps a short description of every event sent: the event name with the booking and its status, or the
+     * comment of a heartbeat, and the number of parts it was built of.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new ArrayList<>();
+        private final List<Integer> parts = new ArrayList<>();
+        private boolean closed;
+        private RuntimeException failure;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (closed) {
+                throw new IOException("Broken pipe");
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            List<Object> parts = builder.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .collect(Collectors.toList());
+            this.parts.add(parts.size());
+            String text = parts.get(0).toString();
+            if (text.startsWith(":")) {
+                events.add(text.substring(1).strip());
+            } else if (parts.get(1) instanceof BookingDecisionResponse) {
+                BookingDecisionResponse response = (BookingDecisionResponse) parts.get(1);
+                events.add("status " + response.getBookingId() + " " + response.getStatus());
+            } else {
+                events.add(text.substring("event:".length(), text.indexOf('\n')));
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.classBuilder;
 
 import ru.practicum.shareit.booking.entity.BookingEntity;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.entity.ItemEntity;
 import ru.practicum.shareit.item.model.Item;
@@ -32,7 +33,9 @@ public class TestBookingProvider {
         bookingEntity.setEnd(end);
         bookingEntity.setItem(item);
         bookingEntity.setBooker(booker);
+        bookingEntity.setItemOwnerId(item != null && item.getOwner() != null ? item.getOwner().getId() : null);
         bookingEntity.setStatus(status);
+        bookingEntity.setPhase(start != null && end != null ? BookingPhase.of(start, end, LocalDateTime.now()) : null);
         return bookingEntity;
     }
 }
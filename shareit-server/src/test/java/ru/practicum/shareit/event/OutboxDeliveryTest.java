@@ -0,0 +1,89 @@
+package ru.practicum.shareit.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.classBuilder.TestItemRequestProvider;
+import ru.practicum.shareit.classBuilder.TestUserProvider;
+import ru.practicum.shareit.event.model.DomainEvent;
+import ru.practicum.shareit.event.model.DomainEventType;
+import ru.practicum.shareit.event.service.DomainEventOutbox;
+import ru.practicum.shareit.event.service.DomainEventSubscriber;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Writes domain events through the services and the outbox and checks that the dispatcher delivers exactly the
+ * committed ones to a registered subscriber.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:outbox")
+class OutboxDeliveryTest {
+
+    private static final int ROLLED_BACK_ID = 999_999;
+
+    @MockBean
+    private DomainEventSubscriber subscriber;
+
+    @Autowired
+    private DomainEventOutbox domainEventOutbox;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRequestService itemRequestService;
+
+    private User requestor;
+
+    @BeforeEach
+    void setUp() {
+        requestor = userService.add(TestUserProvider.buildUser(null, "requestor", "outbox-requestor@yandex.ru"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(requestor.getId());
+    }
+
+    @Test
+    void committedEventsReachSubscriber() {
+        transactionTemplate.executeWithoutResult(status -> {
+            domainEventOutbox.add(DomainEventType.COMMENT_ADDED, ROLLED_BACK_ID, requestor.getId());
+            status.setRollbackOnly();
+        });
+        ItemRequest itemRequest = itemRequestService.create(TestItemRequestProvider.provideItemRequest(null,
+                "Нужна дрель", requestor, LocalDateTime.now(), null));
+
+        verify(subscriber, timeout(5000)).onEvents(argThat(events ->
+                contains(events, DomainEventType.REQUEST_CREATED, itemRequest.getId())));
+        verify(subscriber, never()).onEvents(argThat(events ->
+                contains(events, DomainEventType.COMMENT_ADDED, ROLLED_BACK_ID)));
+    }
+
+    private boolean contains(List<DomainEvent> events, DomainEventType type, Integer entityId) {
+        return events.stream().anyMatch(event -> event.getType() == type
+                && event.getEntityId().equals(entityId)
+                && event.getUserId().equals(requestor.getId()));
+    }
+}
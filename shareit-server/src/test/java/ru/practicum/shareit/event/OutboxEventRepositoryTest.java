@@ -0,0 +1,49 @@
+package ru.practicum.shareit.event;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.shareit.event.entity.OutboxEventEntity;
+import ru.practicum.shareit.event.model.DomainEventType;
+import ru.practicum.shareit.event.storage.OutboxEventRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class OutboxEventRepositoryTest {
+
+    @Autowired
+    private OutboxEventRepository repository;
+
+    @Test
+    void findOldestForUpdate() {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxEventEntity later = repository.save(provideEvent(DomainEventType.BOOKING_APPROVED, now.plusSeconds(1)));
+        OutboxEventEntity first = repository.save(provideEvent(DomainEventType.BOOKING_CREATED, now));
+        OutboxEventEntity second = repository.save(provideEvent(DomainEventType.BOOKING_CREATED, now));
+        repository.flush();
+
+        assertEquals(List.of(first.getId(), second.getId()), ids(repository.findOldestForUpdate(2)));
+        assertEquals(2, repository.deleteAllByIdIn(List.of(first.getId(), second.getId())));
+        assertEquals(List.of(later.getId()), ids(repository.findOldestForUpdate(2)));
+    }
+
+    private static OutboxEventEntity provideEvent(DomainEventType type, LocalDateTime created) {
+        OutboxEventEntity outboxEventEntity = new OutboxEventEntity();
+        outboxEventEntity.setType(type);
+        outboxEventEntity.setEntityId(1);
+        outboxEventEntity.setUserId(2);
+        outboxEventEntity.setCreated(created);
+        return outboxEventEntity;
+    }
+
+    private static List<Long> ids(List<OutboxEventEntity> outboxEventEntities) {
+        return outboxEventEntities.stream()
+                .map(OutboxEventEntity::getId)
+                .collect(Collectors.toList());
+    }
+}
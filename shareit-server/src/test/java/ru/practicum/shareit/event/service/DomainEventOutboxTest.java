@@ -0,0 +1,63 @@
+package ru.practicum.shareit.event.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.event.entity.OutboxEventEntity;
+import ru.practicum.shareit.event.model.DomainEventType;
+import ru.practicum.shareit.event.storage.OutboxEventRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DomainEventOutboxTest {
+
+    private OutboxEventRepository outboxEventRepository;
+    private OutboxDispatcher outboxDispatcher;
+    private MeterRegistry meterRegistry;
+    private DomainEventOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        outboxDispatcher = mock(OutboxDispatcher.class);
+        meterRegistry = new SimpleMeterRegistry();
+        outbox = new DomainEventOutbox(outboxEventRepository, outboxDispatcher, meterRegistry);
+    }
+
+    @Test
+    void addWithoutSubscribersWritesNothing() {
+        outbox.add(DomainEventType.BOOKING_CREATED, 1, 2);
+
+        verify(outboxEventRepository, never()).save(any());
+        verify(outboxDispatcher, never()).wakeUp();
+    }
+
+    @Test
+    void addWakesDispatcherAfterCommit() {
+        when(outboxDispatcher.hasSubscribers()).thenReturn(true);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            outbox.add(DomainEventType.BOOKING_CREATED, 1, 2);
+
+            verify(outboxEventRepository).save(argThat((OutboxEventEntity event) ->
+                    event.getType() == DomainEventType.BOOKING_CREATED
+                            && event.getEntityId() == 1 && event.getUserId() == 2));
+            verify(outboxDispatcher, never()).wakeUp();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(outboxDispatcher).wakeUp();
+            assertEquals(1, meterRegistry.counter("shareit.outbox.published", "type", "BOOKING_CREATED").count());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
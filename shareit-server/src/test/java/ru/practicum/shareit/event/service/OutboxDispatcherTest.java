@@ -0,0 +1,141 @@
+package ru.practicum.shareit.event.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.event.entity.OutboxEventEntity;
+import ru.practicum.shareit.event.mapper.DomainEventMapper;
+import ru.practicum.shareit.event.model.DomainEvent;
+import ru.practicum.shareit.event.model.DomainEventType;
+import ru.practicum.shareit.event.storage.OutboxEventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxDispatcherTest {
+
+    private final List<List<Long>> received = new ArrayList<>();
+    private OutboxEventRepository outboxEventRepository;
+    private MeterRegistry meterRegistry;
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new OutboxDispatcher(outboxEventRepository, List.of(events -> received.add(events.stream()
+                .map(DomainEvent::getId)
+                .collect(Collectors.toList()))), Mappers.getMapper(DomainEventMapper.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), Duration.ofSeconds(1),
+                meterRegistry);
+    }
+
+    @Test
+    void dispatch() {
+        LocalDateTime created = LocalDateTime.now().minusMinutes(1);
+        List<OutboxEventEntity> full = provideEvents(1, OutboxDispatcher.BATCH_SIZE, created);
+        List<OutboxEventEntity> rest = provideEvents(OutboxDispatcher.BATCH_SIZE + 1, 2, created);
+        when(outboxEventRepository.findOldestForUpdate(OutboxDispatcher.BATCH_SIZE)).thenReturn(full, rest);
+
+        assertEquals(OutboxDispatcher.BATCH_SIZE + 2, dispatcher.dispatch());
+
+        assertEquals(List.of(ids(full), ids(rest)), received);
+        verify(outboxEventRepository).deleteAllByIdIn(ids(full));
+        verify(outboxEventRepository).deleteAllByIdIn(ids(rest));
+        assertEquals(OutboxDispatcher.BATCH_SIZE + 2, meterRegistry.counter("shareit.outbox.delivered").count());
+        assertTrue(meterRegistry.get("shareit.outbox.lag").gauge().value() >= 60_000);
+    }
+
+    @Test
+    void dispatchEmpty() {
+        when(outboxEventRepository.findOldestForUpdate(OutboxDispatcher.BATCH_SIZE)).thenReturn(List.of());
+
+        assertEquals(0, dispatcher.dispatch());
+
+        assertEquals(List.of(), received);
+        verify(outboxEventRepository, never()).deleteAllByIdIn(any());
+        assertEquals(0, meterRegistry.get("shareit.outbox.lag").gauge().value());
+    }
+
+    @Test
+    void dispatchWithoutSubscribersKeepsEvents() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new OutboxDispatcher(outboxEventRepository, List.of(), Mappers.getMapper(DomainEventMapper.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), Duration.ofSeconds(1),
+                meterRegistry);
+        when(outboxEventRepository.findOldestForUpdate(OutboxDispatcher.BATCH_SIZE))
+                .thenReturn(provideEvents(1, 1, LocalDateTime.now().minusMinutes(1)));
+
+        assertEquals(0, dispatcher.dispatch());
+
+        verify(outboxEventRepository, never()).deleteAllByIdIn(any());
+        assertEquals(0, meterRegistry.counter("shareit.outbox.delivered").count());
+        assertTrue(meterRegistry.get("shareit.outbox.lag").gauge().value() >= 60_000);
+    }
+
+    @Test
+    void startWithoutSubscribers() {
+        dispatcher = new OutboxDispatcher(outboxEventRepository, List.of(), Mappers.getMapper(DomainEventMapper.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), Duration.ofSeconds(1),
+                new SimpleMeterRegistry());
+
+        dispatcher.start();
+
+        assertFalse(dispatcher.hasSubscribers());
+        assertFalse(dispatcher.isStarted());
+    }
+
+    @Test
+    void failedSubscriberKeepsEvents() {
+        dispatcher = new OutboxDispatcher(outboxEventRepository, List.of(events -> {
+            throw new IllegalStateException("subscriber is down");
+        }), Mappers.getMapper(DomainEventMapper.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), Duration.ofSeconds(1),
+                meterRegistry);
+        when(outboxEventRepository.findOldestForUpdate(OutboxDispatcher.BATCH_SIZE))
+                .thenReturn(provideEvents(1, 1, LocalDateTime.now()));
+
+        assertThrows(IllegalStateException.class, () -> dispatcher.dispatch());
+
+        verify(outboxEventRepository, never()).deleteAllByIdIn(any());
+        assertEquals(0, meterRegistry.counter("shareit.outbox.delivered").count());
+    }
+
+    private static List<OutboxEventEntity> provideEvents(long from, int count, LocalDateTime created) {
+        return LongStream.range(from, from + count)
+                .mapToObj(id -> {
+                    OutboxEventEntity outboxEventEntity = new OutboxEventEntity();
+                    outboxEventEntity.setId(id);
+                    outboxEventEntity.setType(DomainEventType.BOOKING_CREATED);
+                    outboxEventEntity.setEntityId((int) id);
+                    outboxEventEntity.setUserId(1);
+                    outboxEventEntity.setCreated(created);
+                    return outboxEventEntity;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(List<OutboxEventEntity> outboxEventEntities) {
+        return outboxEventEntities.stream()
+                .map(OutboxEventEntity::getId)
+                .collect(Collectors.toList());
+    }
+}
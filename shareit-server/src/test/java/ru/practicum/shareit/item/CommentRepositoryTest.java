@@ -54,8 +54,16 @@ class CommentRepositoryTest {
     }
 
     @Test
-    void findAllByItemId() {
-        assertEquals(List.of(comment), commentRepository.findAllByItemId(item.getId()));
+    void findAllWithAuthorByItemIdIn() {
+        ItemEntity otherItem = itemRepository.save(
+                TestItemProvider.provideItemEntity(null, "Отвертка", "Аккумуляторная отвертка", true, user, null));
+        CommentEntity otherComment = commentRepository.save(
+                TestCommentProvider.provideCommentEntity(null, "other text", otherItem, user, LocalDateTime.now()));
+
+        assertEquals(List.of(comment), commentRepository.findAllWithAuthorByItemIdIn(List.of(item.getId())));
+        assertEquals(List.of(comment, otherComment),
+                commentRepository.findAllWithAuthorByItemIdIn(List.of(item.getId(), otherItem.getId())));
+        assertEquals(List.of(), commentRepository.findAllWithAuthorByItemIdIn(List.of(99)));
     }
 
     @Test
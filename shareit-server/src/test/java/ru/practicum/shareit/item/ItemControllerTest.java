@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.practicum.shareit.classBuilder.TestCommentProvider;
 import ru.practicum.shareit.classBuilder.TestItemProvider;
@@ -19,23 +20,33 @@ import ru.practicum.shareit.item.dto.ItemUpdateRequest;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Interval;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemAvailability;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
+import ru.practicum.shareit.stream.JsonArrayStreamer;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest({ItemController.class, ItemMapper.class, CommentMapper.class})
+@WebMvcTest({ItemController.class, ItemMapper.class, CommentMapper.class, JsonArrayStreamer.class})
 class ItemControllerTest {
 
     private final ItemMapper mapper = Mappers.getMapper(ItemMapper.class);
@@ -98,13 +109,21 @@ class ItemControllerTest {
                         null, null, null, null));
 
         when(itemService.getByOwnerId(1, 0, 1)).thenReturn(List.of(items.get(0)));
-        when(itemService.getByOwnerId(1, null, null)).thenReturn(items);
+        doAnswer(invocation -> {
+            Consumer<Item> action = invocation.getArgument(1);
+            items.forEach(action);
+            return null;
+        }).when(itemService).streamByOwnerId(eq(1), any());
 
-        mvc.perform(MockMvcRequestBuilders.get("/items")
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/items")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(items.stream()
                         .map(mapper::toItemWithBookingsResponse)
@@ -132,12 +151,20 @@ class ItemControllerTest {
                         null, null, null, null));
 
         when(itemService.search("other", 0, 1)).thenReturn(List.of(items.get(0)));
-        when(itemService.search("item", null, null)).thenReturn(items);
+        doAnswer(invocation -> {
+            Consumer<Item> action = invocation.getArgument(1);
+            items.forEach(action);
+            return null;
+        }).when(itemService).streamSearch(eq("item"), any());
 
-        mvc.perform(MockMvcRequestBuilders.get("/items/search?text=item")
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/items/search?text=item")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(items.stream()
                         .map(mapper::toResponse)
@@ -154,6 +181,95 @@ class ItemControllerTest {
                         .collect(Collectors.toList()))));
     }
 
+    @Test
+    void fuzzySearch() throws Exception {
+        Item item = TestItemProvider.provideItem(1, "Дрель", "desc", true,
+                TestUserProvider.buildUser(1, "user", "email"),
+                null, null, null, null);
+
+        when(itemService.fuzzySearch("дрлеь", 0, 10)).thenReturn(List.of(item));
+        when(itemService.fuzzySearch("дрлеь", 10, 5)).thenReturn(List.of());
+
+        mvc.perform(MockMvcRequestBuilders.get("/items/search")
+                        .param("text", "дрлеь")
+                        .param("fuzzy", "true")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(List.of(mapper.toResponse(item)))));
+
+        mvc.perform(MockMvcRequestBuilders.get("/items/search")
+                        .param("text", "дрлеь")
+                        .param("fuzzy", "true")
+                        .param("from", "10")
+                        .param("size", "5")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+    }
+
+    @Test
+    void suggest() throws Exception {
+        when(itemService.suggest("дре", 10)).thenReturn(List.of("дрель", "дрезина"));
+
+        mvc.perform(MockMvcRequestBuilders.get("/items/suggest")
+                        .param("prefix", "дре")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[\"дрель\", \"дрезина\"]"));
+    }
+
+    @Test
+    void getAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(10);
+        ItemAvailability availability = new ItemAvailability();
+        availability.setItemId(1);
+        availability.setFrom(from);
+        availability.setTo(to);
+        availability.setBusy(List.of(new Interval(from.plusDays(2), from.plusDays(3))));
+        availability.setFree(List.of(new Interval(from, from.plusDays(2)), new Interval(from.plusDays(3), to)));
+
+        when(itemService.getAvailability(1, from, to)).thenReturn(availability);
+
+        mvc.perform(MockMvcRequestBuilders.get("/items/1/availability")
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-11T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"itemId\": 1, " +
+                        "\"busy\": [{\"start\": \"2030-01-03T00:00:00\", \"end\": \"2030-01-04T00:00:00\"}], " +
+                        "\"free\": [{\"start\": \"2030-01-01T00:00:00\", \"end\": \"2030-01-03T00:00:00\"}, " +
+                        "{\"start\": \"2030-01-04T00:00:00\", \"end\": \"2030-01-11T00:00:00\"}]}"));
+    }
+
+    @Test
+    void searchAfter() throws Exception {
+        Item item = TestItemProvider.provideItem(3, "item", "desc", true,
+                TestUserProvider.buildUser(1, "user", "email"),
+                null, null, null, null);
+        String cursor = Cursors.encode(3);
+
+        when(itemService.searchAfter("item", null, 1)).thenReturn(new CursorPage<>(List.of(item), cursor));
+        when(itemService.searchAfter("item", cursor, 1)).thenReturn(new CursorPage<>(List.of(), null));
+
+        mvc.perform(MockMvcRequestBuilders.get("/items/search?text=item&size=1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, cursor))
+                .andExpect(content().json(objectMapper.writeValueAsString(List.of(mapper.toResponse(item)))));
+
+        mvc.perform(MockMvcRequestBuilders.get("/items/search?text=item&size=1&cursor=" + cursor)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER))
+                .andExpect(content().json("[]"));
+    }
+
     @Test
     void update() throws Exception {
         ItemUpdateRequest request = new ItemUpdateRequest();
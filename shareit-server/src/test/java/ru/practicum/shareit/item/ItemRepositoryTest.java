@@ -4,11 +4,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.classBuilder.TestItemProvider;
 import ru.practicum.shareit.classBuilder.TestItemRequestProvider;
 import ru.practicum.shareit.classBuilder.TestUserProvider;
 import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.LikeItemSearchEngine;
+import ru.practicum.shareit.item.search.TrigramItemSearchEngine;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.request.entity.ItemRequestEntity;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
@@ -16,9 +22,14 @@ import ru.practicum.shareit.user.entity.UserEntity;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 class ItemRepositoryTest {
@@ -71,14 +82,103 @@ class ItemRepositoryTest {
                 itemRepository.search("дрель", Pageable.ofSize(10)).getContent());
     }
 
+    @Test
+    void findAllByOwnerIdAndIdGreaterThan() {
+        ItemEntity item3 = itemRepository.save(
+                TestItemProvider.provideItemEntity(null, "Пила", "Ручная пила", false, user1, null));
+        Pageable pageable = PageRequest.of(0, 1, Sort.by("id"));
+
+        Slice<ItemEntity> slice = itemRepository.findAllByOwnerIdAndIdGreaterThan(user1.getId(), 0, pageable);
+        assertEquals(List.of(item1), slice.getContent());
+        assertTrue(slice.hasNext());
+
+        slice = itemRepository.findAllByOwnerIdAndIdGreaterThan(user1.getId(), item1.getId(), pageable);
+        assertEquals(List.of(item3), slice.getContent());
+        assertFalse(slice.hasNext());
+    }
+
+    @Test
+    void searchAfter() {
+        ItemEntity item3 = itemRepository.save(
+                TestItemProvider.provideItemEntity(null, "Дрель", "Ударная дрель", true, user2, null));
+
+        assertEquals(List.of(item1, item3), itemRepository.searchAfter("дрель", 0, Pageable.ofSize(10)).getContent());
+        assertEquals(List.of(item3),
+                itemRepository.searchAfter("дрель", item1.getId(), Pageable.ofSize(10)).getContent());
+    }
+
+    @Test
+    void streamAllByOwnerId() {
+        ItemEntity item3 = itemRepository.save(
+                TestItemProvider.provideItemEntity(null, "Пила", "Ручная пила", false, user1, null));
+
+        assertEquals(List.of(item1, item3),
+                itemRepository.streamAllByOwnerId(user1.getId(), Sort.by("id")).collect(Collectors.toList()));
+    }
 
     @Test
-    void findAllByRequestRequestorId() {
-        assertEquals(List.of(item2), itemRepository.findAllByRequestRequestorId(user1.getId()));
+    void streamSearch() {
+        itemRepository.save(
+                TestItemProvider.provideItemEntity(null, "Пила", "Ручная пила для дрели", false, user1, null));
+
+        assertEquals(List.of(item1), itemRepository.streamSearch("дрел").collect(Collectors.toList()));
+        assertEquals(List.of(item2), itemRepository.streamSearch("МИКС").collect(Collectors.toList()));
     }
 
     @Test
-    void findAllByRequestId() {
-        assertEquals(List.of(item2), itemRepository.findAllByRequestId(itemRequest1.getId()));
+    void findAllByAvailableTrue() {
+        itemRepository.save(
+                TestItemProvider.provideItemEntity(null, "Пила", "Ручная пила", false, user1, null));
+
+        assertEquals(List.of(item1, item2),
+                itemRepository.findAllByAvailableTrue(PageRequest.of(0, 10, Sort.by("id"))).getContent());
+        assertEquals(List.of(item1),
+                itemRepository.findAllByAvailableTrue(PageRequest.of(0, 1, Sort.by("id"))).getContent());
+    }
+
+    @Test
+    void findAllIdsByOwnerIdOrRequestorId() {
+        assertEquals(Set.of(item1.getId(), item2.getId()),
+                Set.copyOf(itemRepository.findAllIdsByOwnerIdOrRequestorId(user1.getId())));
+        assertEquals(Set.of(item2.getId()),
+                Set.copyOf(itemRepository.findAllIdsByOwnerIdOrRequestorId(user2.getId())));
+    }
+
+    @Test
+    void findAllRequestIdsAnsweredByOwnerId() {
+        assertEquals(List.of(itemRequest1.getId()),
+                List.copyOf(itemRepository.findAllRequestIdsAnsweredByOwnerId(user2.getId())));
+        assertEquals(List.of(), List.copyOf(itemRepository.findAllRequestIdsAnsweredByOwnerId(user1.getId())));
+    }
+
+    @Test
+    void searchEnginesFoldCaseAlike() {
+        List<ItemEntity> items = List.of(
+                TestItemProvider.provideItemEntity(null, "Straße", "Karte", true, user1, null),
+                TestItemProvider.provideItemEntity(null, "STRASSE", "Schild", true, user1, null),
+                TestItemProvider.provideItemEntity(null, "Istanbul", "Rehber", true, user1, null),
+                TestItemProvider.provideItemEntity(null, "Kırmızı", "Halı", true, user1, null));
+        ItemSearchEngine likeEngine = new LikeItemSearchEngine(itemRepository);
+        TrigramItemSearchEngine trigramEngine = new TrigramItemSearchEngine(itemRepository);
+        itemRepository.saveAll(items).forEach(trigramEngine::index);
+        Pageable pageable = PageRequest.of(0, 10);
+
+        for (String text : List.of("straße", "STRASSE", "strasse", "traß", "istanbul", "İstanbul", "ı", "kirmizi",
+                "HALI")) {
+            assertEquals(ids(likeEngine.search(text, pageable)), ids(trigramEngine.search(text, pageable)), text);
+        }
+        assertEquals(2, likeEngine.search("strasse", pageable).size());
+    }
+
+    @Test
+    void findAllByRequestIdIn() {
+        assertEquals(List.of(item2), itemRepository.findAllByRequestIdIn(List.of(itemRequest1.getId())));
+        assertEquals(List.of(), itemRepository.findAllByRequestIdIn(List.of(itemRequest1.getId() + 100)));
+    }
+
+    private static Set<Integer> ids(Collection<ItemEntity> items) {
+        return items.stream()
+                .map(ItemEntity::getId)
+                .collect(Collectors.toSet());
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -7,38 +8,71 @@ import org.mapstruct.factory.Mappers;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
-import ru.practicum.shareit.booking.entity.BookingEntity;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.entity.BookingHistoryEntity;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.BookingCount;
+import ru.practicum.shareit.booking.model.BookingPhase;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingArchiver;
+import ru.practicum.shareit.booking.service.BookingCounters;
+import ru.practicum.shareit.booking.storage.BookingHistoryRepository;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.classBuilder.TestBookingProvider;
 import ru.practicum.shareit.classBuilder.TestCommentProvider;
 import ru.practicum.shareit.classBuilder.TestItemProvider;
 import ru.practicum.shareit.classBuilder.TestItemRequestProvider;
 import ru.practicum.shareit.classBuilder.TestUserProvider;
+import ru.practicum.shareit.event.model.DomainEventType;
+import ru.practicum.shareit.event.service.DomainEventOutbox;
 import ru.practicum.shareit.exception.DataAlreadyExistsException;
 import ru.practicum.shareit.exception.DataDoesNotExistsException;
+import ru.practicum.shareit.exception.InvalidCursorException;
+import ru.practicum.shareit.exception.InvalidPeriodException;
 import ru.practicum.shareit.exception.WithoutBookingException;
 import ru.practicum.shareit.item.dto.ItemShortResponse;
 import ru.practicum.shareit.item.entity.ItemEntity;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Interval;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemAvailability;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.LikeItemSearchEngine;
+import ru.practicum.shareit.item.search.SymSpellFuzzyItemSearch;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.service.ItemRequestFeed;
+import ru.practicum.shareit.request.service.RequestMatcher;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.stream.EntityStreams;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.storage.UserRepository;
 
+import javax.persistence.EntityManager;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -60,7 +94,13 @@ class ItemServiceImplTest {
     private UserRepository userRepository;
     private ItemRequestRepository itemRequestRepository;
     private BookingRepository bookingRepository;
+    private BookingHistoryRepository bookingHistoryRepository;
+    private BookingCounters bookingCounters;
     private CommentRepository commentRepository;
+    private RequestMatcher requestMatcher;
+    private ItemRequestFeed itemRequestFeed;
+    private DomainEventOutbox domainEventOutbox;
+    private EntityManager entityManager;
     private ItemMapper itemMapper;
     private BookingMapper bookingMapper;
     private CommentMapper commentMapper;
@@ -71,12 +111,26 @@ class ItemServiceImplTest {
         userRepository = mock(UserRepository.class);
         itemRequestRepository = mock(ItemRequestRepository.class);
         bookingRepository = mock(BookingRepository.class);
+        bookingHistoryRepository = mock(BookingHistoryRepository.class);
+        bookingCounters = mock(BookingCounters.class);
         commentRepository = mock(CommentRepository.class);
+        requestMatcher = mock(RequestMatcher.class);
+        itemRequestFeed = mock(ItemRequestFeed.class);
+        domainEventOutbox = mock(DomainEventOutbox.class);
+        entityManager = mock(EntityManager.class);
         itemMapper = Mappers.getMapper(ItemMapper.class);
         bookingMapper = Mappers.getMapper(BookingMapper.class);
         commentMapper = Mappers.getMapper(CommentMapper.class);
         itemService = new ItemServiceImpl(itemRepository, userRepository, itemRequestRepository, bookingRepository,
-                commentRepository, itemMapper, bookingMapper, commentMapper);
+                bookingHistoryRepository, new BookingArchiver(bookingRepository,
+                        new TransactionTemplate(mock(PlatformTransactionManager.class)), Duration.ofDays(365)),
+                bookingCounters, commentRepository, new LikeItemSearchEngine(itemRepository),
+                new ItemSearchCache(10, new SimpleMeterRegistry()),
+                new ItemNameSuggester(itemRepository, Long.MAX_VALUE, new SimpleMeterRegistry()),
+                new SymSpellFuzzyItemSearch(itemRepository), requestMatcher, itemRequestFeed,
+                domainEventOutbox, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new EntityStreams(entityManager),
+                itemMapper, bookingMapper, commentMapper);
     }
 
     @Test
@@ -91,7 +145,8 @@ class ItemServiceImplTest {
 
         Item item2 = TestItemProvider.provideItem(3, "item", "desc", true,
                 TestUserProvider.buildUser(1, "user", "email"),
-                TestItemRequestProvider.provideItemRequest(2, null, null, null, null),
+                TestItemRequestProvider.provideItemRequest(2, null,
+                        TestUserProvider.buildUser(2, "requestor", "requestor@yandex.ru"), null, null),
                 null, null, null);
 
         ItemEntity item2Entity = itemMapper.toItemEntity(item2);
@@ -112,6 +167,13 @@ class ItemServiceImplTest {
         verify(itemRepository, never()).save(itemMapper.toItemEntity(item));
         assertEquals(item2, itemService.add(1, item2));
         verify(itemRepository, times(1)).save(item2Entity);
+        verify(requestMatcher, times(1)).itemChanged(item2Entity);
+        verify(itemRequestFeed, times(1)).itemChanged(item2Entity);
+        verify(domainEventOutbox, times(1)).add(DomainEventType.REQUEST_ANSWERED, 3, 2);
+        assertEquals(List.of("item"), itemService.suggest("IT", 5));
+        when(itemRepository.findAllById(List.of(3))).thenReturn(List.of(item2Entity));
+        assertEquals(List.of(item2), List.copyOf(itemService.fuzzySearch("iten", 0, 10)));
+        assertEquals(List.of(), List.copyOf(itemService.fuzzySearch(" ", 0, 10)));
     }
 
     @Test
@@ -121,14 +183,15 @@ class ItemServiceImplTest {
                 TestItemRequestProvider.provideItemRequest(1, null, null, null, null),
                 null, null, null);
         ItemEntity itemEntity = itemMapper.toItemEntity(item);
-        BookingEntity bookingEntity = new BookingEntity();
-        bookingEntity.setStart(LocalDateTime.now());
+        BookingHistoryEntity bookingEntity = new BookingHistoryEntity();
+        bookingEntity.setItem(itemEntity);
+        bookingEntity.setStart(LocalDateTime.now().plusDays(1));
 
 
         when(itemRepository.findById(99)).thenReturn(Optional.empty());
         when(itemRepository.findById(1)).thenReturn(Optional.of(itemEntity));
-        when(commentRepository.findAllByItemId(item.getId())).thenReturn(Collections.emptyList());
-        when(bookingRepository.findLastAndNextBookingByItemId(anyInt(), any(LocalDateTime.class)))
+        when(commentRepository.findAllWithAuthorByItemIdIn(Set.of(item.getId()))).thenReturn(Collections.emptyList());
+        when(bookingHistoryRepository.findLastAndNextBookingsByItemIds(any(), any(LocalDateTime.class)))
                 .thenReturn(List.of(bookingEntity));
 
 
@@ -198,6 +261,8 @@ class ItemServiceImplTest {
         when(itemRepository.findById(99)).thenReturn(Optional.empty());
         when(itemRepository.findById(1)).thenReturn(Optional.of(itemEntityWithIncorrectOwnerId));
         when(itemRepository.findById(2)).thenReturn(Optional.of(itemEntity));
+        List<BookingCount> counts = List.of(new BookingCount(3, 2, BookingStatus.APPROVED, BookingPhase.PAST, 2));
+        when(bookingHistoryRepository.countAllByItemId(2)).thenReturn(counts);
 
 
         assertThrows(DataDoesNotExistsException.class, () -> itemService.delete(1, 99));
@@ -207,7 +272,10 @@ class ItemServiceImplTest {
         verify(itemRepository, never()).deleteById(1);
 
         itemService.delete(2, 2);
+        verify(bookingRepository, times(1)).lockAllIdsByItemId(2);
+        verify(bookingCounters, times(1)).itemRemoved(counts);
         verify(itemRepository, times(1)).deleteById(2);
+        verify(requestMatcher, times(1)).itemRemoved(itemEntity);
     }
 
     @Test
@@ -230,20 +298,152 @@ class ItemServiceImplTest {
         verify(itemRepository, times(1)).search(anyString(), any());
     }
 
+    @Test
+    void searchIsCachedUntilCatalogChanges() {
+        ItemEntity itemEntity = itemMapper.toItemEntity(TestItemProvider.provideItem(1, "item", "desc", true,
+                null, null, null, null, null));
+        itemEntity.setOwner(userMapper.toUserEntity(TestUserProvider.buildUser(1, "user", "email")));
+
+
+        when(itemRepository.search(eq("item"), any())).thenReturn(new PageImpl<>(List.of(itemEntity)));
+        when(itemRepository.findById(1)).thenReturn(Optional.of(itemEntity));
+
+
+        assertEquals(1, itemService.search("item", 0, 10).size());
+        assertEquals(1, itemService.search("ITEM", 0, 10).size());
+        verify(itemRepository, times(1)).search(anyString(), any());
+
+        itemService.search("item", 1, 10);
+        verify(itemRepository, times(2)).search(anyString(), any());
+
+        itemService.delete(1, 1);
+        itemService.search("item", 0, 10);
+        verify(itemRepository, times(3)).search(anyString(), any());
+    }
+
+    @Test
+    void searchAfter() {
+        ItemEntity itemEntity = itemMapper.toItemEntity(TestItemProvider.provideItem(3, "item", "desc", true,
+                null, null, null, null, null));
+
+
+        when(itemRepository.searchAfter(eq("search"), eq(0), any()))
+                .thenReturn(new SliceImpl<>(List.of(itemEntity), PageRequest.ofSize(1), true));
+        when(itemRepository.searchAfter(eq("search"), eq(3), any()))
+                .thenReturn(new SliceImpl<>(List.of(), PageRequest.ofSize(1), false));
+
+
+        assertEquals(List.of(), List.copyOf(itemService.searchAfter(" ", null, 1).getContent()));
+
+        CursorPage<Item> page = itemService.searchAfter("search", null, 1);
+        assertEquals(List.of(3), page.getContent().stream().map(Item::getId).collect(Collectors.toList()));
+        assertEquals(Cursors.encode(3), page.getNextCursor());
+
+        page = itemService.searchAfter("search", page.getNextCursor(), 1);
+        assertEquals(List.of(), List.copyOf(page.getContent()));
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getByOwnerIdAfterWithInvalidCursor() {
+        assertThrows(InvalidCursorException.class, () -> itemService.getByOwnerIdAfter(1, "not a cursor", 10));
+        verify(itemRepository, never()).findAllByOwnerIdAndIdGreaterThan(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void streamSearch() {
+        Item item = TestItemProvider.provideItem(1, "item", "desc", true,
+                TestUserProvider.buildUser(1, "user", "email"),
+                null, null, null, null);
+
+
+        when(itemRepository.streamSearch("search")).thenReturn(Stream.of(itemMapper.toItemEntity(item)));
+
+
+        List<Item> items = new ArrayList<>();
+        itemService.streamSearch(" ", items::add);
+        assertEquals(List.of(), items);
+        verify(itemRepository, never()).streamSearch(anyString());
+
+        itemService.streamSearch("search", items::add);
+        assertEquals(List.of(item), items);
+        verify(itemRepository, times(1)).streamSearch(anyString());
+        verify(itemRepository, never()).count();
+    }
+
+    @Test
+    void streamByOwnerId() {
+        List<ItemEntity> itemEntities = new ArrayList<>();
+        for (int id = 1; id <= EntityStreams.BATCH_SIZE + 1; id++) {
+            itemEntities.add(itemMapper.toItemEntity(TestItemProvider.provideItem(id, "item", "desc", true,
+                    TestUserProvider.buildUser(1, "user", "email"),
+                    null, null, null, null)));
+        }
+        BookingHistoryEntity lastBooking = new BookingHistoryEntity();
+        lastBooking.setId(1);
+        lastBooking.setItem(itemEntities.get(EntityStreams.BATCH_SIZE));
+        lastBooking.setStart(LocalDateTime.now().minusDays(2));
+
+
+        when(itemRepository.streamAllByOwnerId(eq(1), any())).thenReturn(itemEntities.stream());
+        when(bookingHistoryRepository.findLastAndNextBookingsByItemIds(any(), any(LocalDateTime.class)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(lastBooking));
+
+
+        List<Item> items = new ArrayList<>();
+        itemService.streamByOwnerId(1, items::add);
+        assertEquals(EntityStreams.BATCH_SIZE + 1, items.size());
+        assertEquals(1, items.get(0).getId());
+        assertEquals(List.of(), items.get(0).getComments());
+        assertEquals(1, items.get(EntityStreams.BATCH_SIZE).getLastBooking().getId());
+        verify(bookingHistoryRepository, times(2)).findLastAndNextBookingsByItemIds(any(), any());
+        verify(commentRepository, times(2)).findAllWithAuthorByItemIdIn(any());
+        verify(entityManager, times(2)).clear();
+        verify(itemRepository, never()).count();
+    }
+
     @Test
     void getByOwnerId() {
         Item item = TestItemProvider.provideItem(1, "item", "desc", true,
                 TestUserProvider.buildUser(1, "user", "email"),
                 null, null, null, null);
+        Item otherItem = TestItemProvider.provideItem(2, "other item", "other desc", true,
+                TestUserProvider.buildUser(1, "user", "email"),
+                null, null, null, null);
         ItemEntity itemEntity = itemMapper.toItemEntity(item);
-        Page<ItemEntity> page = new PageImpl<>(List.of(itemEntity));
+        ItemEntity otherItemEntity = itemMapper.toItemEntity(otherItem);
+        Page<ItemEntity> page = new PageImpl<>(List.of(itemEntity, otherItemEntity));
+        BookingHistoryEntity lastBooking = new BookingHistoryEntity();
+        lastBooking.setId(1);
+        lastBooking.setItem(itemEntity);
+        lastBooking.setStart(LocalDateTime.now().minusDays(2));
+        BookingHistoryEntity nextBooking = new BookingHistoryEntity();
+        nextBooking.setId(2);
+        nextBooking.setItem(otherItemEntity);
+        nextBooking.setStart(LocalDateTime.now().plusDays(2));
 
 
         when(itemRepository.findAllByOwnerId(anyInt(), any())).thenReturn(page);
-
-
-        assertEquals(List.of(item), itemService.getByOwnerId(1, 0, 1));
+        when(bookingHistoryRepository.findLastAndNextBookingsByItemIds(eq(Set.of(1, 2)), any(LocalDateTime.class)))
+                .thenReturn(List.of(lastBooking, nextBooking));
+        when(commentRepository.findAllWithAuthorByItemIdIn(Set.of(1, 2))).thenReturn(List.of(
+                TestCommentProvider.provideCommentEntity(1, "comment", otherItemEntity,
+                        userMapper.toUserEntity(TestUserProvider.buildUser(2, "author", "email")), LocalDateTime.now())));
+
+
+        List<Item> items = List.copyOf(itemService.getByOwnerId(1, 0, 2));
+        assertEquals(List.of(item, otherItem), items);
+        assertEquals(1, items.get(0).getLastBooking().getId());
+        assertNull(items.get(0).getNextBooking());
+        assertEquals(2, items.get(1).getNextBooking().getId());
+        assertNull(items.get(1).getLastBooking());
+        assertEquals(List.of(), items.get(0).getComments());
+        assertEquals(1, items.get(1).getComments().size());
+        assertEquals("author", items.get(1).getComments().get(0).getAuthor().getName());
         verify(itemRepository, times(1)).findAllByOwnerId(anyInt(), any());
+        verify(bookingHistoryRepository, times(1)).findLastAndNextBookingsByItemIds(any(), any());
+        verify(commentRepository, times(1)).findAllWithAuthorByItemIdIn(any());
     }
 
     @Test
@@ -269,7 +469,8 @@ class ItemServiceImplTest {
                 LocalDateTime.now());
 
         Comment comment = TestCommentProvider.provideComment(4, "comment",
-                TestItemProvider.provideItem(4, null, null, true, null, null, null, null, null),
+                TestItemProvider.provideItem(4, null, null, true, TestUserProvider.buildUser(5, null, null), null,
+                        null, null, null),
                 TestUserProvider.buildUser(4, null, null),
                 LocalDateTime.now());
 
@@ -281,18 +482,18 @@ class ItemServiceImplTest {
 
         when(userRepository.findById(2)).thenReturn(Optional.of(userMapper.toUserEntity(commentWithoutBooking.getAuthor())));
         when(itemRepository.findById(2)).thenReturn(Optional.of(itemMapper.toItemEntity(commentWithoutBooking.getItem())));
-        when(bookingRepository.existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(eq(2),
+        when(bookingHistoryRepository.existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(eq(2),
                 eq(2), eq(BookingStatus.APPROVED), any(LocalDateTime.class))).thenReturn(false);
 
         when(userRepository.findById(3)).thenReturn(Optional.of(userMapper.toUserEntity(repeatedComment.getAuthor())));
         when(itemRepository.findById(3)).thenReturn(Optional.of(itemMapper.toItemEntity(repeatedComment.getItem())));
-        when(bookingRepository.existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(eq(3),
+        when(bookingHistoryRepository.existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(eq(3),
                 eq(3), eq(BookingStatus.APPROVED), any(LocalDateTime.class))).thenReturn(true);
         when(commentRepository.existsByItemIdAndAuthorId(3, 3)).thenReturn(true);
 
         when(userRepository.findById(4)).thenReturn(Optional.of(userMapper.toUserEntity(repeatedComment.getAuthor())));
-        when(itemRepository.findById(4)).thenReturn(Optional.of(itemMapper.toItemEntity(repeatedComment.getItem())));
-        when(bookingRepository.existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(eq(4),
+        when(itemRepository.findById(4)).thenReturn(Optional.of(itemMapper.toItemEntity(comment.getItem())));
+        when(bookingHistoryRepository.existsBookingByItemIdAndBookerIdAndStatusAndEndIsBefore(eq(4),
                 eq(4), eq(BookingStatus.APPROVED), any(LocalDateTime.class))).thenReturn(true);
         when(commentRepository.existsByItemIdAndAuthorId(4, 4)).thenReturn(false);
         when(commentRepository.save(any())).thenReturn(commentMapper.toCommentEntity(comment));
@@ -312,6 +513,56 @@ class ItemServiceImplTest {
 
         assertEquals(comment, itemService.addComment(comment));
         verify(commentRepository, times(1)).save(any());
+        verify(domainEventOutbox, times(1)).add(DomainEventType.COMMENT_ADDED, 4, 5);
+    }
+
+    @Test
+    void getAvailability() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(10);
+        ItemEntity item = TestItemProvider.provideItemEntity(1, "item", "desc", true, null, null);
+
+        when(itemRepository.existsById(1)).thenReturn(true);
+        when(itemRepository.existsById(99)).thenReturn(false);
+        when(bookingRepository.findAllOverlapping(1, BookingStatus.APPROVED, from, to)).thenReturn(List.of(
+                TestBookingProvider.provideBookingEntity(1, from.minusDays(1), from.plusDays(1), item, null,
+                        BookingStatus.APPROVED),
+                TestBookingProvider.provideBookingEntity(2, from.plusDays(3), from.plusDays(5), item, null,
+                        BookingStatus.APPROVED),
+                TestBookingProvider.provideBookingEntity(3, from.plusDays(4), from.plusDays(6), item, null,
+                        BookingStatus.APPROVED),
+                TestBookingProvider.provideBookingEntity(4, from.plusDays(6), from.plusDays(7), item, null,
+                        BookingStatus.APPROVED)));
+
+        ItemAvailability availability = itemService.getAvailability(1, from, to);
+        assertEquals(List.of(new Interval(from, from.plusDays(1)), new Interval(from.plusDays(3), from.plusDays(7))),
+                availability.getBusy());
+        assertEquals(List.of(new Interval(from.plusDays(1), from.plusDays(3)), new Interval(from.plusDays(7), to)),
+                availability.getFree());
+
+        assertThrows(InvalidPeriodException.class, () -> itemService.getAvailability(1, to, from));
+        assertThrows(InvalidPeriodException.class, () -> itemService.getAvailability(1, from, from));
+        assertThrows(DataDoesNotExistsException.class, () -> itemService.getAvailability(99, from, to));
+    }
+
+    @Test
+    void getAvailabilityOfArchivedPeriod() {
+        LocalDateTime from = LocalDateTime.now().minusYears(3).truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime to = from.plusDays(10);
+        ItemEntity item = TestItemProvider.provideItemEntity(1, "item", "desc", true, null, null);
+        BookingHistoryEntity archived = new BookingHistoryEntity();
+        archived.setItem(item);
+        archived.setStart(from.plusDays(1));
+        archived.setEnd(from.plusDays(2));
+        archived.setStatus(BookingStatus.APPROVED);
+
+        when(itemRepository.existsById(1)).thenReturn(true);
+        when(bookingHistoryRepository.findAllOverlapping(1, BookingStatus.APPROVED, from, to))
+                .thenReturn(List.of(archived));
+
+        ItemAvailability availability = itemService.getAvailability(1, from, to);
+        assertEquals(List.of(new Interval(from.plusDays(1), from.plusDays(2))), availability.getBusy());
+        verify(bookingRepository, never()).findAllOverlapping(any(), any(), any(), any());
     }
 
     @Test
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.classBuilder.TestItemProvider;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FullTextItemSearchEngineTest {
+
+    private ItemRepository itemRepository;
+    private FullTextItemSearchEngine searchEngine;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        searchEngine = new FullTextItemSearchEngine(itemRepository);
+    }
+
+    @Test
+    void toTsQuery() {
+        assertEquals("дрель:*", FullTextItemSearchEngine.toTsQuery("Дрель"));
+        assertEquals("аккумуляторная:* & дрель:*", FullTextItemSearchEngine.toTsQuery(" Аккумуляторная  дрель! "));
+        assertEquals("it:* & s:* & 100:*", FullTextItemSearchEngine.toTsQuery("it's 100%"));
+        assertEquals("", FullTextItemSearchEngine.toTsQuery("&|!:*"));
+    }
+
+    @Test
+    void search() {
+        ItemEntity item = TestItemProvider.provideItemEntity(1, "Дрель", "Простая дрель", true, null, null);
+        Pageable pageable = PageRequest.of(0, 10);
+
+        when(itemRepository.searchFullText("дрель:*", pageable)).thenReturn(List.of(item));
+
+        assertEquals(List.of(item), searchEngine.search("ДРЕЛЬ", pageable));
+        assertEquals(Collections.emptyList(), searchEngine.search("&&", pageable));
+        verify(itemRepository, times(1)).searchFullText(anyString(), any());
+    }
+}
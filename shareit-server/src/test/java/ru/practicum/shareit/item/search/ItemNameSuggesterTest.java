@@ -0,0 +1,99 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import ru.practicum.shareit.classBuilder.TestItemProvider;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemNameSuggesterTest {
+
+    private ItemRepository itemRepository;
+    private MeterRegistry meterRegistry;
+    private ItemNameSuggester suggester;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        suggester = new ItemNameSuggester(itemRepository, Long.MAX_VALUE, meterRegistry);
+    }
+
+    @Test
+    void load() {
+        when(itemRepository.findAllByAvailableTrue(any()))
+                .thenReturn(new SliceImpl<>(List.of(provideItem(1, "Дрель", true)), PageRequest.of(0, 1), true))
+                .thenReturn(new SliceImpl<>(List.of(provideItem(2, "Пила", true)), PageRequest.of(1, 1), false));
+
+        suggester.load();
+
+        assertEquals(2, suggester.size());
+        assertEquals(List.of("пила"), suggester.suggest("Пи", 10));
+    }
+
+    @Test
+    void suggestRanksByFrequencyThenAlphabetically() {
+        suggester.index(provideItem(1, "Дрель ударная", true));
+        suggester.index(provideItem(2, "Дрель-шуруповерт", true));
+        suggester.index(provideItem(3, "Дрельный станок", true));
+        suggester.index(provideItem(4, "Дрожжи", true));
+
+        assertEquals(List.of("дрель", "дрельный", "дрожжи"), suggester.suggest("др", 10));
+        assertEquals(List.of("дрель", "дрельный"), suggester.suggest("ДРЕЛ", 2));
+        assertEquals(List.of("шуруповерт"), suggester.suggest("шуруп", 10));
+        assertEquals(List.of(), suggester.suggest("пила", 10));
+        assertEquals(List.of(), suggester.suggest(" ", 10));
+    }
+
+    @Test
+    void indexUpdatesAndRemoves() {
+        long empty = suggester.footprint();
+        suggester.index(provideItem(1, "Дрель", true));
+        suggester.index(provideItem(2, "Дрель", true));
+        suggester.index(provideItem(1, "Перфоратор", true));
+
+        assertEquals(List.of("дрель"), suggester.suggest("д", 10));
+        assertEquals(List.of("перфоратор"), suggester.suggest("п", 10));
+
+        suggester.index(provideItem(1, "Перфоратор", false));
+        suggester.remove(2);
+        suggester.remove(99);
+        assertEquals(List.of(), suggester.suggest("д", 10));
+        assertEquals(List.of(), suggester.suggest("п", 10));
+        assertEquals(0, suggester.size());
+        assertEquals(empty, suggester.footprint());
+    }
+
+    @Test
+    void indexSkipsItemsOverBudget() {
+        meterRegistry = new SimpleMeterRegistry();
+        suggester = new ItemNameSuggester(itemRepository,
+                ItemNameSuggester.NODE_BYTES * 6 + ItemNameSuggester.EDGE_BYTES * 5 + ItemNameSuggester.ITEM_BYTES + 10,
+                meterRegistry);
+
+        suggester.index(provideItem(1, "Дрель", true));
+        suggester.index(provideItem(2, "Пила", true));
+
+        assertEquals(List.of("дрель"), suggester.suggest("д", 10));
+        assertEquals(List.of(), suggester.suggest("п", 10));
+        assertEquals(1, meterRegistry.counter("shareit.suggest.skipped").count());
+        assertEquals(suggester.footprint(), meterRegistry.get("shareit.suggest.footprint").gauge().value());
+    }
+
+    private static ItemEntity provideItem(Integer id, String name, Boolean available) {
+        ItemEntity item = TestItemProvider.provideItemEntity(id, name, "desc", available, null, null);
+        item.setId(id);
+        return item;
+    }
+}
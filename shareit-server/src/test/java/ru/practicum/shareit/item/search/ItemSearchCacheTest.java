@@ -0,0 +1,84 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.classBuilder.TestItemProvider;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemSearchCacheTest {
+
+    private final List<Item> items = List.of(TestItemProvider.provideItem(1, "item", "desc", true,
+            null, null, null, null, null));
+    private MeterRegistry meterRegistry;
+    private ItemSearchCache cache;
+    private int loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ItemSearchCache(2, meterRegistry);
+        loads = 0;
+    }
+
+    @Test
+    void getCachesByNormalizedTextAndPage() {
+        assertEquals(items, cache.get("Item", 0, 10, this::load));
+        assertEquals(items, cache.get("iTEM", 0, 10, this::load));
+        cache.get("item", 1, 10, this::load);
+        cache.get("item", 0, 5, this::load);
+
+        assertEquals(3, loads);
+        assertEquals(1, counter("shareit.search.cache.gets", "hit"));
+        assertEquals(3, counter("shareit.search.cache.gets", "miss"));
+    }
+
+    @Test
+    void getEvictsLeastRecentlyUsed() {
+        cache.get("drill", 0, 10, this::load);
+        cache.get("saw", 0, 10, this::load);
+        cache.get("drill", 0, 10, this::load);
+        cache.get("mixer", 0, 10, this::load);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, meterRegistry.counter("shareit.search.cache.evictions").count());
+        assertEquals(2, meterRegistry.get("shareit.search.cache.size").gauge().value());
+
+        cache.get("drill", 0, 10, this::load);
+        assertEquals(3, loads);
+        cache.get("saw", 0, 10, this::load);
+        assertEquals(4, loads);
+    }
+
+    @Test
+    void invalidateDropsEntriesAndInFlightLoads() {
+        cache.get("drill", 0, 10, this::load);
+        cache.invalidate();
+        assertEquals(0, cache.size());
+
+        cache.get("drill", 0, 10, () -> {
+            cache.invalidate();
+            return load();
+        });
+        assertEquals(0, cache.size());
+
+        cache.get("drill", 0, 10, this::load);
+        assertEquals(3, loads);
+        assertEquals(1, cache.size());
+    }
+
+    private Collection<Item> load() {
+        loads++;
+        return items;
+    }
+
+    private double counter(String name, String result) {
+        return meterRegistry.counter(name, "result", result).count();
+    }
+}
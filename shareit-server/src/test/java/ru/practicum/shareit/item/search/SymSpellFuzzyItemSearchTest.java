@@ -0,0 +1,118 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import ru.practicum.shareit.classBuilder.TestItemProvider;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SymSpellFuzzyItemSearchTest {
+
+    private final Pageable pageable = PageRequest.of(0, 10);
+    private final Map<Integer, ItemEntity> stored = new HashMap<>();
+    private ItemRepository itemRepository;
+    private SymSpellFuzzyItemSearch search;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        when(itemRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Iterable<Integer> ids = invocation.getArgument(0);
+            List<ItemEntity> res = new ArrayList<>();
+            ids.forEach(id -> res.add(stored.get(id)));
+            return res;
+        });
+        search = new SymSpellFuzzyItemSearch(itemRepository);
+    }
+
+    @Test
+    void load() {
+        ItemEntity drill = provideItem(1, "Дрель", "Проводная дрель", true);
+        ItemEntity saw = provideItem(2, "Пила", "Ручная пила", true);
+        stored.put(2, saw);
+
+        when(itemRepository.findAllByAvailableTrue(any()))
+                .thenReturn(new SliceImpl<>(List.of(drill), PageRequest.of(0, 1), true))
+                .thenReturn(new SliceImpl<>(List.of(saw), PageRequest.of(1, 1), false));
+
+        search.load();
+
+        assertEquals(2, search.size());
+        assertEquals(List.of(2), ids(search.search("пилп", pageable)));
+    }
+
+    @Test
+    void searchToleratesTyposAndRanksBySimilarity() {
+        index(provideItem(1, "Дрель", "Проводная дрель", true));
+        index(provideItem(2, "Перфоратор", "Мощный перфоратор", true));
+        index(provideItem(3, "Дрели", "Набор", true));
+        index(provideItem(4, "Отвертка", "Аккумуляторная отвертка", true));
+
+        assertEquals(List.of(1, 3), ids(search.search("ДРЕЛЬ", pageable)));
+        assertEquals(List.of(1, 3), ids(search.search("дрел", pageable)));
+        assertEquals(List.of(2), ids(search.search("перфоротр", pageable)));
+        assertEquals(List.of(4), ids(search.search("аккумулятоная отвёртка", pageable)));
+        assertEquals(List.of(), ids(search.search("перфоратор дрель", pageable)));
+        assertEquals(List.of(), ids(search.search("пф", pageable)));
+        assertEquals(List.of(3), ids(search.search("дрел", PageRequest.of(1, 1))));
+    }
+
+    @Test
+    void indexUpdatesAndRemoves() {
+        index(provideItem(1, "Дрель", "Проводная дрель", true));
+        index(provideItem(1, "Перфоратор", null, true));
+
+        assertEquals(List.of(), ids(search.search("дрель", pageable)));
+        assertEquals(List.of(1), ids(search.search("перфоратор", pageable)));
+
+        index(provideItem(1, "Перфоратор", null, false));
+        assertEquals(List.of(), ids(search.search("перфоратор", pageable)));
+        assertEquals(0, search.size());
+
+        index(provideItem(2, "Пила", "Ручная пила", true));
+        search.remove(2);
+        search.remove(99);
+        assertEquals(List.of(), ids(search.search("пила", pageable)));
+    }
+
+    @Test
+    void distance() {
+        assertEquals(0, SymSpellFuzzyItemSearch.distance("дрель", "дрель", 2));
+        assertEquals(1, SymSpellFuzzyItemSearch.distance("дрлеь", "дрель", 2));
+        assertEquals(2, SymSpellFuzzyItemSearch.distance("дрл", "дрель", 2));
+        assertEquals(3, SymSpellFuzzyItemSearch.distance("пила", "дрель", 2));
+    }
+
+    private void index(ItemEntity item) {
+        stored.put(item.getId(), item);
+        search.index(item);
+    }
+
+    private static ItemEntity provideItem(Integer id, String name, String description, Boolean available) {
+        ItemEntity item = TestItemProvider.provideItemEntity(id, name, description, available, null, null);
+        item.setId(id);
+        return item;
+    }
+
+    private static List<Integer> ids(Collection<ItemEntity> items) {
+        return items.stream()
+                .map(ItemEntity::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import ru.practicum.shareit.classBuilder.TestItemProvider;
+import ru.practicum.shareit.classBuilder.TestItemRequestProvider;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TrigramItemSearchEngineTest {
+
+    private final Pageable pageable = PageRequest.of(0, 10);
+    private ItemRepository itemRepository;
+    private TrigramItemSearchEngine searchEngine;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        searchEngine = new TrigramItemSearchEngine(itemRepository);
+    }
+
+    @Test
+    void load() {
+        ItemEntity drill = provideItem(1, "Дрель", "Проводная дрель", true);
+        ItemEntity saw = provideItem(2, "Пила", "Ручная пила", true);
+
+        when(itemRepository.findAllByAvailableTrue(any()))
+                .thenReturn(new SliceImpl<>(List.of(drill), PageRequest.of(0, 1), true))
+                .thenReturn(new SliceImpl<>(List.of(saw), PageRequest.of(1, 1), false));
+
+        searchEngine.load();
+
+        assertEquals(2, searchEngine.size());
+        assertEquals(List.of(2), ids(searchEngine.search("пил", pageable)));
+    }
+
+    @Test
+    void searchKeepsSubstringSemantics() {
+        searchEngine.index(provideItem(1, "Дрель", "Проводная дрель", true));
+        searchEngine.index(provideItem(2, "Аккумуляторная отвертка", "Аккумулятор на 2 часа", true));
+        searchEngine.index(provideItem(3, "Пила", "Дрель не входит в комплект", true));
+
+        assertEquals(List.of(1, 3), ids(searchEngine.search("ДРЕЛЬ", pageable)));
+        assertEquals(List.of(2), ids(searchEngine.search("торная отв", pageable)));
+        assertEquals(List.of(2), ids(searchEngine.search("ккумулятор", pageable)));
+        assertEquals(List.of(), ids(searchEngine.search("дрельпила", pageable)));
+        assertEquals(List.of(), ids(searchEngine.search("ель пров", pageable)));
+        assertEquals(List.of(1, 3), ids(searchEngine.search("ел", pageable)));
+    }
+
+    @Test
+    void searchPages() {
+        for (int id = 1; id <= 5; id++) {
+            searchEngine.index(provideItem(id, "Дрель " + id, "desc", true));
+        }
+
+        assertEquals(List.of(1, 2), ids(searchEngine.search("дрель", PageRequest.of(0, 2))));
+        assertEquals(List.of(3, 4), ids(searchEngine.search("дрель", PageRequest.of(1, 2))));
+        assertEquals(List.of(5), ids(searchEngine.search("дрель", PageRequest.of(2, 2))));
+        assertEquals(List.of(1, 2, 3, 4, 5), ids(searchEngine.search("дрель", Pageable.unpaged())));
+    }
+
+    @Test
+    void indexUpdatesAndRemoves() {
+        searchEngine.index(provideItem(1, "Дрель", "Проводная дрель", true));
+        searchEngine.index(provideItem(1, "Перфоратор", "Мощный перфоратор", true));
+
+        assertEquals(List.of(), ids(searchEngine.search("дрель", pageable)));
+        assertEquals(List.of(1), ids(searchEngine.search("перфоратор", pageable)));
+
+        searchEngine.index(provideItem(1, "Перфоратор", "Мощный перфоратор", false));
+        assertEquals(List.of(), ids(searchEngine.search("перфоратор", pageable)));
+        assertEquals(0, searchEngine.size());
+
+        searchEngine.index(provideItem(2, "Пила", "Ручная пила", true));
+        searchEngine.remove(2);
+        searchEngine.remove(99);
+        assertEquals(List.of(), ids(searchEngine.search("пила", pageable)));
+    }
+
+    @Test
+    void searchReturnsIndexedFields() {
+        ItemEntity item = provideItem(1, "Миксер", "Кухонный миксер", true);
+        item.setRequest(TestItemRequestProvider.provideItemRequestEntity(7, "Нужен миксер", null, null));
+        searchEngine.index(item);
+        searchEngine.index(provideItem(2, "Миксер", "Строительный миксер", true));
+
+        List<ItemEntity> found = List.copyOf(searchEngine.search("миксер", pageable));
+        assertEquals("Кухонный миксер", found.get(0).getDescription());
+        assertEquals(true, found.get(0).getAvailable());
+        assertEquals(7, found.get(0).getRequest().getId());
+        assertNull(found.get(1).getRequest());
+    }
+
+    private static ItemEntity provideItem(Integer id, String name, String description, Boolean available) {
+        ItemEntity item = TestItemProvider.provideItemEntity(id, name, description, available, null, null);
+        item.setId(id);
+        return item;
+    }
+
+    private static List<Integer> ids(Collection<ItemEntity> items) {
+        return items.stream()
+                .map(ItemEntity::getId)
+                .collect(Collectors.toList());
+    }
+}
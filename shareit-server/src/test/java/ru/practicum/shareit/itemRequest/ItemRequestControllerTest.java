@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.classBuilder.TestItemRequestProvider;
 import ru.practicum.shareit.classBuilder.TestUserProvider;
 import ru.practicum.shareit.item.mapper.CommentMapper;
@@ -16,22 +17,30 @@ import ru.practicum.shareit.request.controller.ItemRequestController;
 import ru.practicum.shareit.request.dto.ItemRequestRequest;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestMatch;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.stream.JsonArrayStreamer;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest({ItemRequestController.class, ItemRequestMapper.class, ItemMapper.class, CommentMapper.class})
+@WebMvcTest({ItemRequestController.class, ItemRequestMapper.class, ItemMapper.class, CommentMapper.class,
+        JsonArrayStreamer.class})
 class ItemRequestControllerTest {
 
     private final ItemRequestMapper mapper = Mappers.getMapper(ItemRequestMapper.class);
@@ -99,14 +108,22 @@ class ItemRequestControllerTest {
                         TestUserProvider.buildUser(1, "name", "email"),
                         LocalDateTime.now(), new ArrayList<>()));
 
-        when(itemRequestService.getAll(1, null, null)).thenReturn(itemRequests);
+        doAnswer(invocation -> {
+            Consumer<ItemRequest> action = invocation.getArgument(1);
+            itemRequests.forEach(action);
+            return null;
+        }).when(itemRequestService).streamAll(eq(1), any());
         when(itemRequestService.getAll(1, 0, 1)).thenReturn(List.of(itemRequests.get(0)));
 
-        mvc.perform(get("/requests/all")
+        MvcResult result = mvc.perform(get("/requests/all")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(itemRequests.stream()
                         .map(mapper::toResponseWithItems)
@@ -140,4 +157,25 @@ class ItemRequestControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(mapper.toResponseWithItems(itemRequest))));
     }
+
+    @Test
+    void getMatches() throws Exception {
+        RequestMatch match = new RequestMatch();
+        match.setItemId(5);
+        match.setItemName("Дрель");
+        match.setRequest(TestItemRequestProvider.provideItemRequest(1, "Нужна дрель",
+                TestUserProvider.buildUser(2, "name", "email"), LocalDateTime.now(), null));
+        match.setScore(1.0);
+        match.setCreated(LocalDateTime.now());
+
+        when(itemRequestService.getMatches(1, 0, 10)).thenReturn(List.of(match));
+
+        mvc.perform(get("/requests/matches")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(List.of(mapper.toMatchResponse(match)))));
+    }
 }
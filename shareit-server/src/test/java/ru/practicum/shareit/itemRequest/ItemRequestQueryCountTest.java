@@ -0,0 +1,158 @@
+package ru.practicum.shareit.itemRequest;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.practicum.shareit.classBuilder.TestItemProvider;
+import ru.practicum.shareit.classBuilder.TestUserProvider;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.entity.ItemRequestEntity;
+import ru.practicum.shareit.request.service.ItemRequestFeed;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.user.entity.UserEntity;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reads pages of requests, each answered by an item of another owner, and checks that the number of JDBC statements
+ * does not grow with the number of requests on the page. The in-memory feed keeps fewer requests than a full page,
+ * so full pages are read from the database.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:requests",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "shareit.request.feed.size=" + ItemRequestQueryCountTest.FEED_SIZE
+})
+@AutoConfigureMockMvc
+class ItemRequestQueryCountTest {
+
+    static final int FEED_SIZE = 50;
+    private static final int REQUESTS = 100;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemRequestFeed itemRequestFeed;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<UserEntity> users = new ArrayList<>();
+    private UserEntity requestor;
+    private UserEntity reader;
+    private ItemRequestEntity firstRequest;
+
+    @BeforeEach
+    void setUp() {
+        requestor = save(TestUserProvider.buildUserEntity(null, "requestor", "count-requestor@yandex.ru"));
+        reader = save(TestUserProvider.buildUserEntity(null, "reader", "count-reader@yandex.ru"));
+        LocalDateTime created = LocalDateTime.now();
+        for (int i = 0; i < REQUESTS; i++) {
+            UserEntity owner = save(TestUserProvider.buildUserEntity(null, "owner" + i,
+                    "count-owner" + i + "@yandex.ru"));
+            ItemRequestEntity request = new ItemRequestEntity();
+            request.setDescription("Нужна дрель " + i);
+            request.setRequestor(requestor);
+            request.setCreated(created.minusMinutes(i));
+            request = itemRequestRepository.save(request);
+            if (firstRequest == null) {
+                firstRequest = request;
+            }
+            ItemEntity item = TestItemProvider.provideItemEntity(null, "Дрель " + i, "Проводная дрель", true, owner,
+                    null);
+            item.setRequest(request);
+            itemRepository.save(item);
+        }
+        itemRequestFeed.load();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void pagesOfRequestsCostConstantStatements() throws Exception {
+        assertStatements(2, get("/requests/all")
+                .param("from", "0")
+                .param("size", String.valueOf(REQUESTS))
+                .header("X-Sharer-User-Id", reader.getId()), REQUESTS);
+        assertStatements(2, get("/requests/all")
+                .param("from", "1")
+                .param("size", String.valueOf(REQUESTS - FEED_SIZE))
+                .header("X-Sharer-User-Id", reader.getId()), REQUESTS - FEED_SIZE);
+        assertStatements(2, get("/requests/all")
+                .param("size", String.valueOf(REQUESTS))
+                .header("X-Sharer-User-Id", reader.getId()), REQUESTS);
+        assertStatements(3, get("/requests")
+                .header("X-Sharer-User-Id", requestor.getId()), REQUESTS);
+    }
+
+    @Test
+    void firstPagesComeFromFeed() throws Exception {
+        assertStatements(0, get("/requests/all")
+                .param("from", "1")
+                .param("size", "10")
+                .header("X-Sharer-User-Id", reader.getId()), 10);
+        assertStatements(0, get("/requests/all")
+                .param("size", String.valueOf(FEED_SIZE - 1))
+                .header("X-Sharer-User-Id", reader.getId()), FEED_SIZE - 1);
+    }
+
+    @Test
+    void requestByIdCostsConstantStatements() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        mvc.perform(get("/requests/{requestId}", firstRequest.getId())
+                        .header("X-Sharer-User-Id", reader.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)));
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    private void assertStatements(long expected, RequestBuilder request, int size) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(size)))
+                .andExpect(jsonPath("$[*].items[0]", hasSize(size)));
+        assertEquals(expected, statistics.getPrepareStatementCount());
+    }
+
+    private UserEntity save(UserEntity user) {
+        UserEntity saved = userRepository.save(user);
+        users.add(saved);
+        return saved;
+    }
+}
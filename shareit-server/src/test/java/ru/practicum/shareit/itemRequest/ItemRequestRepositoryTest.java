@@ -4,16 +4,23 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.classBuilder.TestItemProvider;
 import ru.practicum.shareit.classBuilder.TestItemRequestProvider;
 import ru.practicum.shareit.classBuilder.TestUserProvider;
+import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.request.entity.ItemRequestEntity;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
 import ru.practicum.shareit.user.entity.UserEntity;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -26,6 +33,9 @@ class ItemRequestRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ItemRepository itemRepository;
+
     private UserEntity user1;
     private UserEntity user2;
     private ItemRequestEntity itemRequest1;
@@ -42,9 +52,11 @@ class ItemRequestRepositoryTest {
         user2 = TestUserProvider.buildUserEntity(null, "other name", "otherEmail@yandex.ru");
         user2 = userRepository.save(user2);
 
-        itemRequest1 = TestItemRequestProvider.provideItemRequestEntity(null, "desc", user1, LocalDateTime.now());
+        itemRequest1 = TestItemRequestProvider.provideItemRequestEntity(null, "desc", user1,
+                LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
         itemRequest1 = repository.save(itemRequest1);
-        itemRequest2 = TestItemRequestProvider.provideItemRequestEntity(null, "desc", user1, LocalDateTime.now());
+        itemRequest2 = TestItemRequestProvider.provideItemRequestEntity(null, "desc", user1,
+                itemRequest1.getCreated().plusSeconds(1));
         itemRequest2 = repository.save(itemRequest2);
         itemRequest3 = TestItemRequestProvider.provideItemRequestEntity(null, "desc", user2, LocalDateTime.now());
         itemRequest3 = repository.save(itemRequest3);
@@ -60,4 +72,44 @@ class ItemRequestRepositoryTest {
         assertEquals(List.of(itemRequest3),
                 repository.findAllWithoutRequestor(user1.getId(), Pageable.ofSize(10)).getContent());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAllWithoutRequestorBefore() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("created").descending().and(Sort.by("id").descending()));
+
+        assertEquals(List.of(itemRequest1), repository.findAllWithoutRequestorBefore(user2.getId(),
+                itemRequest2.getCreated(), itemRequest2.getId(), pageable).getContent());
+        assertEquals(List.of(), repository.findAllWithoutRequestorBefore(user2.getId(),
+                itemRequest1.getCreated(), itemRequest1.getId(), pageable).getContent());
+        assertEquals(List.of(itemRequest3), repository.findAllWithoutRequestorBefore(user1.getId(),
+                itemRequest3.getCreated().plusDays(1), 0, pageable).getContent());
+    }
+
+    @Test
+    void streamAllWithoutRequestor() {
+        assertEquals(List.of(itemRequest3),
+                repository.streamAllWithoutRequestor(user1.getId(), Sort.by("created").descending())
+                        .collect(Collectors.toList()));
+        assertEquals(List.of(itemRequest2, itemRequest1),
+                repository.streamAllWithoutRequestor(user2.getId(), Sort.by("created").descending())
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    void findAllOpen() {
+        itemRepository.save(TestItemProvider.provideItemEntity(null, "Дрель", "Проводная дрель", true, user2,
+                itemRequest1));
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("id"));
+
+        assertEquals(List.of(itemRequest2, itemRequest3), repository.findAllOpen(pageable).getContent());
+    }
+
+    @Test
+    void findOpenById() {
+        itemRepository.save(TestItemProvider.provideItemEntity(null, "Дрель", "Проводная дрель", true, user2,
+                itemRequest1));
+
+        assertEquals(Optional.empty(), repository.findOpenById(itemRequest1.getId()));
+        assertEquals(Optional.of(itemRequest2), repository.findOpenById(itemRequest2.getId()));
+    }
+}
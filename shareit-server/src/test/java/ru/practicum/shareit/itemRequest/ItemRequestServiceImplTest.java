@@ -7,27 +7,48 @@ import org.mapstruct.factory.Mappers;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.classBuilder.TestItemRequestProvider;
 import ru.practicum.shareit.classBuilder.TestUserProvider;
+import ru.practicum.shareit.event.model.DomainEventType;
+import ru.practicum.shareit.event.service.DomainEventOutbox;
 import ru.practicum.shareit.exception.DataDoesNotExistsException;
+import ru.practicum.shareit.exception.InvalidCursorException;
 import ru.practicum.shareit.item.entity.ItemEntity;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
 import ru.practicum.shareit.request.entity.ItemRequestEntity;
+import ru.practicum.shareit.request.entity.RequestMatchEntity;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestMatch;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
+import ru.practicum.shareit.request.service.ItemRequestFeed;
+import ru.practicum.shareit.request.service.RequestMatcher;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.request.storage.RequestMatchRepository;
+import ru.practicum.shareit.stream.EntityStreams;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.storage.UserRepository;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -44,6 +65,11 @@ class ItemRequestServiceImplTest {
     private UserRepository userRepository;
     private ItemRepository itemRepository;
     private ItemRequestRepository itemRequestRepository;
+    private RequestMatchRepository requestMatchRepository;
+    private RequestMatcher requestMatcher;
+    private ItemRequestFeed itemRequestFeed;
+    private DomainEventOutbox domainEventOutbox;
+    private EntityManager entityManager;
     private UserMapper userMapper;
     private ItemRequestMapper itemRequestMapper;
     private ItemMapper itemMapper;
@@ -53,10 +79,17 @@ class ItemRequestServiceImplTest {
         userRepository = mock(UserRepository.class);
         itemRepository = mock(ItemRepository.class);
         itemRequestRepository = mock(ItemRequestRepository.class);
+        requestMatchRepository = mock(RequestMatchRepository.class);
+        requestMatcher = mock(RequestMatcher.class);
+        itemRequestFeed = mock(ItemRequestFeed.class);
+        domainEventOutbox = mock(DomainEventOutbox.class);
+        entityManager = mock(EntityManager.class);
         userMapper = Mappers.getMapper(UserMapper.class);
         itemRequestMapper = Mappers.getMapper(ItemRequestMapper.class);
         itemMapper = Mappers.getMapper(ItemMapper.class);
         itemRequestService = new ItemRequestServiceImpl(userRepository, itemRepository, itemRequestRepository,
+                requestMatchRepository, requestMatcher, itemRequestFeed, domainEventOutbox,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new EntityStreams(entityManager),
                 userMapper, itemRequestMapper, itemMapper);
     }
 
@@ -79,9 +112,13 @@ class ItemRequestServiceImplTest {
 
         assertThrows(DataDoesNotExistsException.class, () -> itemRequestService.create(itemRequestWithIncorrectRequestorId));
         verify(itemRequestRepository, never()).save(any());
+        verify(requestMatcher, never()).index(any());
 
         assertEquals(itemRequest, itemRequestService.create(itemRequest));
         verify(itemRequestRepository, times(1)).save(any());
+        verify(requestMatcher, times(1)).index(any());
+        verify(itemRequestFeed, times(1)).added(any());
+        verify(domainEventOutbox, times(1)).add(DomainEventType.REQUEST_CREATED, 1, 1);
     }
 
     @Test
@@ -89,24 +126,35 @@ class ItemRequestServiceImplTest {
         ItemRequest itemRequest = TestItemRequestProvider.provideItemRequest(1, "desc",
                 TestUserProvider.buildUser(1, "user", "email"),
                 LocalDateTime.now(), null);
+        ItemRequest otherItemRequest = TestItemRequestProvider.provideItemRequest(2, "other desc",
+                TestUserProvider.buildUser(1, "user", "email"),
+                LocalDateTime.now(), null);
 
         ItemRequestEntity itemRequestEntity = itemRequestMapper.toEntity(itemRequest);
+        ItemRequestEntity otherItemRequestEntity = itemRequestMapper.toEntity(otherItemRequest);
+        ItemEntity itemEntity = new ItemEntity();
+        itemEntity.setId(5);
+        itemEntity.setRequest(otherItemRequestEntity);
 
 
         when(userRepository.existsById(99)).thenReturn(false);
 
         when(userRepository.existsById(1)).thenReturn(true);
-        when(itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(1)).thenReturn(Collections.singletonList(itemRequestEntity));
-        when(itemRepository.findAllByRequestRequestorId(1)).thenReturn(Collections.singletonList(new ItemEntity()));
+        when(itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(1))
+                .thenReturn(List.of(itemRequestEntity, otherItemRequestEntity));
+        when(itemRepository.findAllByRequestIdIn(List.of(1, 2))).thenReturn(List.of(itemEntity));
 
 
         assertThrows(DataDoesNotExistsException.class, () -> itemRequestService.getAllForUser(99));
         verify(itemRequestRepository, never()).findAllByRequestorIdOrderByCreatedDesc(any());
-        verify(itemRepository, never()).findAllByRequestRequestorId(any());
+        verify(itemRepository, never()).findAllByRequestIdIn(any());
 
-        assertEquals(Collections.singletonList(itemRequest), itemRequestService.getAllForUser(1));
+        List<ItemRequest> itemRequests = List.copyOf(itemRequestService.getAllForUser(1));
+        assertEquals(List.of(itemRequest, otherItemRequest), itemRequests);
+        assertEquals(List.of(), itemRequests.get(0).getItems());
+        assertEquals(5, itemRequests.get(1).getItems().get(0).getId());
         verify(itemRequestRepository, times(1)).findAllByRequestorIdOrderByCreatedDesc(any());
-        verify(itemRepository, times(1)).findAllByRequestRequestorId(any());
+        verify(itemRepository, times(1)).findAllByRequestIdIn(any());
     }
 
     @Test
@@ -119,16 +167,108 @@ class ItemRequestServiceImplTest {
         Page<ItemRequestEntity> page = new PageImpl(List.of(itemRequestEntity));
 
 
-        when(itemRequestRepository.findAllWithoutRequestor(any(), any())).thenReturn(page);
-        when(itemRepository.findAllByRequestId(any())).thenReturn(List.of(new ItemEntity()));
-
         when(itemRequestRepository.findAllWithoutRequestor(eq(1), any())).thenReturn(page);
-        when(itemRepository.findAllByRequestId(any())).thenReturn(List.of(new ItemEntity()));
+        when(itemRepository.findAllByRequestIdIn(List.of(1))).thenReturn(List.of());
 
 
         assertEquals(List.of(itemRequest), itemRequestService.getAll(1, 0, 1));
         verify(itemRequestRepository, times(1)).findAllWithoutRequestor(any(), any());
-        verify(itemRepository, times(1)).findAllByRequestId(any());
+        verify(itemRepository, times(1)).findAllByRequestIdIn(any());
+    }
+
+    @Test
+    void getAllPastFeed() {
+        LocalDateTime created = LocalDateTime.now();
+        ItemRequest itemRequest = TestItemRequestProvider.provideItemRequest(3, "desc",
+                TestUserProvider.buildUser(2, "user", "email"), created.minusMinutes(5), null);
+        ItemRequestEntity itemRequestEntity = itemRequestMapper.toEntity(itemRequest);
+
+
+        when(itemRequestFeed.getAnchor(1, 4)).thenReturn(Optional.of(new ItemRequestFeed.Anchor(created, 8, 3)));
+        when(itemRequestRepository.findAllWithoutRequestorBefore(1, created, 8, OffsetPageRequest.of(1, 2,
+                Sort.by("created").descending().and(Sort.by("id").descending()))))
+                .thenReturn(new SliceImpl<>(List.of(itemRequestEntity)));
+        when(itemRepository.findAllByRequestIdIn(List.of(3))).thenReturn(List.of());
+
+
+        assertEquals(List.of(itemRequest), itemRequestService.getAll(1, 2, 2));
+        verify(itemRequestRepository, never()).findAllWithoutRequestor(any(), any());
+    }
+
+    @Test
+    void getAllFromFeed() {
+        LocalDateTime created = LocalDateTime.now();
+        ItemRequest newest = TestItemRequestProvider.provideItemRequest(8, "desc",
+                TestUserProvider.buildUser(2, "user", "email"), created, List.of());
+        ItemRequest older = TestItemRequestProvider.provideItemRequest(7, "desc",
+                TestUserProvider.buildUser(2, "user", "email"), created.minusMinutes(1), List.of());
+
+
+        when(itemRequestFeed.getNewest(1, 2, 2)).thenReturn(Optional.of(List.of(newest, older)));
+        when(itemRequestFeed.getNewest(1, 0, 2)).thenReturn(Optional.of(List.of(newest, older)));
+        when(itemRequestFeed.getNewest(1, 0, 3)).thenReturn(Optional.of(List.of(newest, older)));
+
+
+        assertEquals(List.of(newest, older), itemRequestService.getAll(1, 1, 2));
+
+        CursorPage<ItemRequest> page = itemRequestService.getAllAfter(1, null, 1);
+        assertEquals(List.of(newest), List.copyOf(page.getContent()));
+        assertEquals(Cursors.encode(created, 8), page.getNextCursor());
+
+        page = itemRequestService.getAllAfter(1, null, 2);
+        assertEquals(List.of(newest, older), List.copyOf(page.getContent()));
+        assertNull(page.getNextCursor());
+        verify(itemRequestRepository, never()).findAllWithoutRequestor(any(), any());
+        verify(itemRepository, never()).findAllByRequestIdIn(any());
+    }
+
+    @Test
+    void getAllAfter() {
+        LocalDateTime created = LocalDateTime.now();
+        ItemRequest itemRequest = TestItemRequestProvider.provideItemRequest(7, "desc",
+                TestUserProvider.buildUser(2, "user", "email"), created, null);
+        ItemRequestEntity itemRequestEntity = itemRequestMapper.toEntity(itemRequest);
+
+
+        when(itemRequestRepository.findAllWithoutRequestor(eq(1), any()))
+                .thenReturn(new SliceImpl<>(List.of(itemRequestEntity), PageRequest.ofSize(1), true));
+        when(itemRequestRepository.findAllWithoutRequestorBefore(eq(1), eq(created), eq(7), any()))
+                .thenReturn(new SliceImpl<>(List.of(), PageRequest.ofSize(1), false));
+        when(itemRepository.findAllByRequestIdIn(List.of(7))).thenReturn(List.of());
+
+
+        CursorPage<ItemRequest> page = itemRequestService.getAllAfter(1, null, 1);
+        assertEquals(List.of(itemRequest), List.copyOf(page.getContent()));
+        assertEquals(Cursors.encode(created, 7), page.getNextCursor());
+
+        page = itemRequestService.getAllAfter(1, page.getNextCursor(), 1);
+        assertEquals(List.of(), List.copyOf(page.getContent()));
+        assertNull(page.getNextCursor());
+        assertThrows(InvalidCursorException.class, () -> itemRequestService.getAllAfter(1, "###", 1));
+    }
+
+    @Test
+    void streamAll() {
+        ItemRequest itemRequest = TestItemRequestProvider.provideItemRequest(1, "desc",
+                TestUserProvider.buildUser(2, "user", "email"),
+                LocalDateTime.now(), null);
+        ItemRequestEntity itemRequestEntity = itemRequestMapper.toEntity(itemRequest);
+        ItemEntity itemEntity = new ItemEntity();
+        itemEntity.setId(5);
+        itemEntity.setRequest(itemRequestEntity);
+
+
+        when(itemRequestRepository.streamAllWithoutRequestor(eq(1), any()))
+                .thenReturn(Stream.of(itemRequestEntity));
+        when(itemRepository.findAllByRequestIdIn(List.of(1))).thenReturn(List.of(itemEntity));
+
+
+        List<ItemRequest> itemRequests = new ArrayList<>();
+        itemRequestService.streamAll(1, itemRequests::add);
+        assertEquals(List.of(itemRequest), itemRequests);
+        assertEquals(5, itemRequests.get(0).getItems().get(0).getId());
+        verify(itemRequestRepository, never()).count();
+        verify(entityManager, times(1)).clear();
     }
 
     @Test
@@ -144,16 +284,48 @@ class ItemRequestServiceImplTest {
         when(itemRequestRepository.findById(99)).thenReturn(Optional.empty());
 
         when(itemRequestRepository.findById(1)).thenReturn(Optional.of(itemRequestMapper.toEntity(itemRequest)));
-        when(itemRepository.findAllByRequestId(1)).thenReturn(Collections.emptyList());
+        when(itemRepository.findAllByRequestIdIn(List.of(1))).thenReturn(Collections.emptyList());
 
 
         assertThrows(DataDoesNotExistsException.class, () -> itemRequestService.getById(99, 1));
-        verify(itemRepository, never()).findAllByRequestId(eq(1));
+        verify(itemRepository, never()).findAllByRequestIdIn(any());
 
         assertThrows(DataDoesNotExistsException.class, () -> itemRequestService.getById(1, 99));
-        verify(itemRepository, never()).findAllByRequestId(eq(1));
+        verify(itemRepository, never()).findAllByRequestIdIn(any());
 
         assertEquals(itemRequest, itemRequestService.getById(1, 1));
-        verify(itemRepository, times(1)).findAllByRequestId(eq(1));
+        verify(itemRepository, times(1)).findAllByRequestIdIn(List.of(1));
+    }
+
+    @Test
+    void getMatches() {
+        ItemRequest itemRequest = TestItemRequestProvider.provideItemRequest(1, "Нужна дрель",
+                TestUserProvider.buildUser(2, "user", "email"),
+                LocalDateTime.now(), null);
+        ItemEntity itemEntity = new ItemEntity();
+        itemEntity.setId(5);
+        itemEntity.setName("Дрель");
+        RequestMatchEntity matchEntity = new RequestMatchEntity();
+        matchEntity.setRequestId(1);
+        matchEntity.setItemId(5);
+        matchEntity.setRequest(itemRequestMapper.toEntity(itemRequest));
+        matchEntity.setItem(itemEntity);
+        matchEntity.setScore(0.5);
+
+
+        when(userRepository.existsById(99)).thenReturn(false);
+        when(userRepository.existsById(1)).thenReturn(true);
+        when(requestMatchRepository.findAllByItemOwnerId(1, PageRequest.of(1, 10))).thenReturn(List.of(matchEntity));
+
+
+        assertThrows(DataDoesNotExistsException.class, () -> itemRequestService.getMatches(99, 0, 10));
+        verify(requestMatchRepository, never()).findAllByItemOwnerId(any(), any());
+
+        List<RequestMatch> matches = List.copyOf(itemRequestService.getMatches(1, 10, 10));
+        assertEquals(1, matches.size());
+        assertEquals(5, matches.get(0).getItemId());
+        assertEquals("Дрель", matches.get(0).getItemName());
+        assertEquals(itemRequest, matches.get(0).getRequest());
+        assertEquals(0.5, matches.get(0).getScore());
     }
-}
\ No newline at end of file
+}
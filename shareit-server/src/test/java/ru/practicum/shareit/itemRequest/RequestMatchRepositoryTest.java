@@ -0,0 +1,107 @@
+package ru.practicum.shareit.itemRequest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.classBuilder.TestItemProvider;
+import ru.practicum.shareit.classBuilder.TestItemRequestProvider;
+import ru.practicum.shareit.classBuilder.TestUserProvider;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.entity.ItemRequestEntity;
+import ru.practicum.shareit.request.entity.RequestMatchEntity;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.request.storage.RequestMatchRepository;
+import ru.practicum.shareit.user.entity.UserEntity;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class RequestMatchRepositoryTest {
+
+    @Autowired
+    private RequestMatchRepository repository;
+
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private UserEntity owner;
+    private ItemRequestEntity drillRequest;
+    private ItemRequestEntity sawRequest;
+    private ItemEntity drill;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(TestUserProvider.buildUserEntity(null, "owner", "owner@yandex.ru"));
+        UserEntity requestor = userRepository.save(TestUserProvider.buildUserEntity(null, "requestor",
+                "requestor@yandex.ru"));
+        drillRequest = itemRequestRepository.save(TestItemRequestProvider.provideItemRequestEntity(null,
+                "Нужна дрель", requestor, LocalDateTime.now()));
+        sawRequest = itemRequestRepository.save(TestItemRequestProvider.provideItemRequestEntity(null,
+                "Нужна дрель или пила", requestor, LocalDateTime.now()));
+        drill = itemRepository.save(TestItemProvider.provideItemEntity(null, "Дрель", "Проводная дрель", true,
+                owner, null));
+        repository.add(provideMatch(drillRequest, drill, 1.0));
+        repository.add(provideMatch(sawRequest, drill, 0.5));
+        entityManager.clear();
+    }
+
+    @Test
+    void findAllByItemOwnerId() {
+        List<RequestMatchEntity> matches = repository.findAllByItemOwnerId(owner.getId(), Pageable.ofSize(10));
+
+        assertEquals(List.of(drillRequest.getId(), sawRequest.getId()), matches.stream()
+                .map(RequestMatchEntity::getRequestId)
+                .collect(Collectors.toList()));
+        assertEquals("Дрель", matches.get(0).getItem().getName());
+        assertEquals("requestor", matches.get(0).getRequest().getRequestor().getName());
+        assertEquals(List.of(), repository.findAllByItemOwnerId(owner.getId() + 100, Pageable.ofSize(10)));
+    }
+
+    @Test
+    void addSkipsDeletedRequests() {
+        RequestMatchEntity match = provideMatch(drillRequest, drill, 1.0);
+        match.setRequestId(sawRequest.getId() + 100);
+
+        repository.add(match);
+
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void deleteAll() {
+        repository.deleteAllByRequestId(drillRequest.getId());
+        assertEquals(List.of(sawRequest.getId()), repository.findAll().stream()
+                .map(RequestMatchEntity::getRequestId)
+                .collect(Collectors.toList()));
+
+        repository.deleteAllByItemId(drill.getId());
+        assertEquals(0, repository.count());
+    }
+
+    private static RequestMatchEntity provideMatch(ItemRequestEntity request, ItemEntity item, double score) {
+        RequestMatchEntity match = new RequestMatchEntity();
+        match.setRequestId(request.getId());
+        match.setItemId(item.getId());
+        match.setScore(score);
+        match.setCreated(LocalDateTime.now());
+        return match;
+    }
+}
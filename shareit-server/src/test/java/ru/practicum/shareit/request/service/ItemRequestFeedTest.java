@@ -0,0 +1,152 @@
+package ru.practicum.shareit.request.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import ru.practicum.shareit.classBuilder.TestItemProvider;
+import ru.practicum.shareit.classBuilder.TestItemRequestProvider;
+import ru.practicum.shareit.classBuilder.TestUserProvider;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.entity.ItemRequestEntity;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.user.entity.UserEntity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemRequestFeedTest {
+
+    private final UserEntity requestor = TestUserProvider.buildUserEntity(1, "requestor", "requestor@yandex.ru");
+    private final UserEntity owner = TestUserProvider.buildUserEntity(2, "owner", "owner@yandex.ru");
+    private final LocalDateTime now = LocalDateTime.now();
+    private ItemRequestRepository itemRequestRepository;
+    private ItemRepository itemRepository;
+    private ItemRequestFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        itemRequestRepository = mock(ItemRequestRepository.class);
+        itemRepository = mock(ItemRepository.class);
+        feed = new ItemRequestFeed(itemRequestRepository, itemRepository,
+                Mappers.getMapper(ItemRequestMapper.class), 3);
+    }
+
+    @Test
+    void load() {
+        ItemRequestEntity first = provideRequest(1, requestor, now);
+        when(itemRequestRepository.findAllWithRequestor(any())).thenReturn(new SliceImpl<>(List.of(first,
+                provideRequest(2, owner, now.minusMinutes(1)))));
+        when(itemRepository.findAllByRequestIdIn(any())).thenReturn(List.of(provideItem(10, first)));
+
+        feed.load();
+
+        assertEquals(2, feed.size());
+        List<ItemRequest> newest = feed.getNewest(owner.getId(), 0, 10).orElseThrow();
+        assertEquals(List.of(1), requestIds(newest));
+        assertEquals(10, newest.get(0).getItems().get(0).getId());
+        assertEquals(List.of(2), requestIds(feed.getNewest(requestor.getId(), 0, 10).orElseThrow()));
+        assertEquals(List.of(), feed.getNewest(requestor.getId(), 1, 10).orElseThrow());
+    }
+
+    @Test
+    void getNewestNeedsCoveredPage() {
+        when(itemRequestRepository.findAllWithRequestor(any())).thenReturn(new SliceImpl<>(List.of(
+                provideRequest(1, requestor, now), provideRequest(2, requestor, now.minusMinutes(1)),
+                provideRequest(3, owner, now.minusMinutes(2))), PageRequest.of(0, 3), true));
+
+        feed.load();
+
+        assertEquals(List.of(1, 2), requestIds(feed.getNewest(owner.getId(), 0, 2).orElseThrow()));
+        assertEquals(Optional.empty(), feed.getNewest(owner.getId(), 1, 2));
+        assertEquals(Optional.empty(), feed.getNewest(requestor.getId(), 0, 2));
+    }
+
+    @Test
+    void getAnchor() {
+        when(itemRequestRepository.findAllWithRequestor(any())).thenReturn(new SliceImpl<>(List.of(
+                provideRequest(1, owner, now), provideRequest(2, requestor, now.minusMinutes(1)),
+                provideRequest(3, owner, now.minusMinutes(2))), PageRequest.of(0, 3), true));
+
+        feed.load();
+
+        assertEquals(Optional.empty(), feed.getAnchor(requestor.getId(), 0));
+        assertEquals(1, feed.getAnchor(requestor.getId(), 1).orElseThrow().getId());
+        ItemRequestFeed.Anchor anchor = feed.getAnchor(requestor.getId(), 10).orElseThrow();
+        assertEquals(3, anchor.getId());
+        assertEquals(now.minusMinutes(2), anchor.getCreated());
+        assertEquals(2, anchor.getPosition());
+        assertEquals(Optional.empty(), feed.getAnchor(owner.getId(), 0));
+        assertEquals(1, feed.getAnchor(owner.getId(), 10).orElseThrow().getPosition());
+    }
+
+    @Test
+    void addedKeepsNewest() {
+        feed.added(provideRequest(2, requestor, now.minusMinutes(2)));
+        feed.added(provideRequest(4, requestor, now));
+        feed.added(provideRequest(3, requestor, now.minusMinutes(1)));
+        feed.added(provideRequest(1, requestor, now.minusMinutes(3)));
+
+        assertEquals(3, feed.size());
+        assertEquals(List.of(4, 3, 2), requestIds(feed.getNewest(owner.getId(), 0, 3).orElseThrow()));
+        assertEquals(Optional.empty(), feed.getNewest(owner.getId(), 0, 4));
+    }
+
+    @Test
+    void itemChanges() {
+        ItemRequestEntity request = provideRequest(1, requestor, now);
+        feed.added(request);
+        ItemEntity item = provideItem(10, request);
+
+        feed.itemChanged(item);
+        item.setName("Дрель ударная");
+        feed.itemChanged(item);
+        feed.itemChanged(provideItem(11, request));
+
+        List<ItemRequest> newest = feed.getNewest(owner.getId(), 0, 1).orElseThrow();
+        assertEquals(2, newest.get(0).getItems().size());
+        assertEquals("Дрель ударная", newest.get(0).getItems().get(0).getName());
+
+        feed.itemRemoved(10);
+        assertEquals(1, feed.getNewest(owner.getId(), 0, 1).orElseThrow().get(0).getItems().size());
+        assertEquals(2, newest.get(0).getItems().size());
+    }
+
+    @Test
+    void requestorRemoved() {
+        feed.added(provideRequest(1, requestor, now));
+        feed.added(provideRequest(2, owner, now));
+
+        feed.requestorRemoved(requestor.getId());
+
+        assertEquals(1, feed.size());
+        assertEquals(List.of(2), requestIds(feed.getNewest(requestor.getId(), 0, 1).orElseThrow()));
+    }
+
+    private ItemEntity provideItem(Integer id, ItemRequestEntity request) {
+        ItemEntity item = TestItemProvider.provideItemEntity(id, "Дрель", "Проводная дрель", true, owner, request);
+        item.setId(id);
+        return item;
+    }
+
+    private static ItemRequestEntity provideRequest(Integer id, UserEntity requestor, LocalDateTime created) {
+        return TestItemRequestProvider.provideItemRequestEntity(id, "Нужна дрель", requestor, created);
+    }
+
+    private static List<Integer> requestIds(List<ItemRequest> itemRequests) {
+        return itemRequests.stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,176 @@
+package ru.practicum.shareit.request.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.classBuilder.TestItemProvider;
+import ru.practicum.shareit.classBuilder.TestItemRequestProvider;
+import ru.practicum.shareit.classBuilder.TestUserProvider;
+import ru.practicum.shareit.item.entity.ItemEntity;
+import ru.practicum.shareit.request.entity.ItemRequestEntity;
+import ru.practicum.shareit.request.entity.RequestMatchEntity;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.request.storage.RequestMatchRepository;
+import ru.practicum.shareit.user.entity.UserEntity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RequestMatcherTest {
+
+    private final UserEntity requestor = TestUserProvider.buildUserEntity(1, "requestor", "requestor@yandex.ru");
+    private final UserEntity owner = TestUserProvider.buildUserEntity(2, "owner", "owner@yandex.ru");
+    private ItemRequestRepository itemRequestRepository;
+    private RequestMatchRepository requestMatchRepository;
+    private RequestMatcher matcher;
+
+    @BeforeEach
+    void setUp() {
+        itemRequestRepository = mock(ItemRequestRepository.class);
+        requestMatchRepository = mock(RequestMatchRepository.class);
+        matcher = new RequestMatcher(itemRequestRepository, requestMatchRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), 0.5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        matcher.stop();
+    }
+
+    @Test
+    void load() {
+        when(itemRequestRepository.findAllOpen(any())).thenReturn(new SliceImpl<>(List.of(
+                provideRequest(1, "Нужна дрель", requestor), provideRequest(2, "Ищу пилу", requestor))));
+
+        matcher.load();
+
+        assertEquals(2, matcher.size());
+    }
+
+    @Test
+    void score() {
+        matcher.index(provideRequest(1, "Нужна дрель", requestor));
+        matcher.index(provideRequest(2, "Нужна дрель для бетона", requestor));
+        matcher.index(provideRequest(3, "Ищу пилу", requestor));
+        matcher.index(provideRequest(4, "Нужна дрель", owner));
+
+        assertEquals(List.of(2, 1), requestIds(matcher.score(10, owner.getId(), "Дрель: ударная, для бетона")));
+        assertEquals(List.of(1.0, 0.5), matcher.score(10, owner.getId(), "Нужна дрель ударная").stream()
+                .map(RequestMatchEntity::getScore)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(), matcher.score(10, owner.getId(), "Молоток"));
+
+        matcher.remove(1);
+        assertEquals(List.of(2), requestIds(matcher.score(10, owner.getId(), "Дрель для бетона")));
+        matcher.removeAllOf(requestor.getId());
+        assertEquals(List.of(), matcher.score(10, owner.getId(), "Дрель для бетона"));
+        assertEquals(1, matcher.size());
+    }
+
+    @Test
+    void scoreSkipsCommonWords() {
+        for (int i = 1; i <= RequestMatcher.MAX_POSTINGS + 1; i++) {
+            matcher.index(provideRequest(i, "Нужна дрель", requestor));
+        }
+        matcher.index(provideRequest(0, "Нужна пила", requestor));
+
+        assertEquals(List.of(), matcher.score(10, owner.getId(), "Нужна дрель"));
+        assertEquals(List.of(0), requestIds(matcher.score(10, owner.getId(), "Нужна пила")));
+    }
+
+    @Test
+    void scoreKeepsBestMatches() {
+        for (int i = 1; i <= RequestMatcher.MAX_MATCHES + 5; i++) {
+            matcher.index(provideRequest(i, "дрель", requestor));
+        }
+
+        assertEquals(RequestMatcher.MAX_MATCHES, matcher.score(10, owner.getId(), "дрель").size());
+    }
+
+    @Test
+    void itemRemovedReopensRequest() {
+        ItemRequestEntity answered = provideRequest(1, "Нужна дрель", requestor);
+        ItemRequestEntity stillAnswered = provideRequest(2, "Нужна дрель для бетона", requestor);
+        when(itemRequestRepository.findOpenById(1)).thenReturn(Optional.of(answered));
+        when(itemRequestRepository.findOpenById(2)).thenReturn(Optional.empty());
+
+        matcher.itemRemoved(TestItemProvider.provideItemEntity(10, "Дрель", "Ударная", true, owner, answered));
+        matcher.itemRemoved(TestItemProvider.provideItemEntity(11, "Дрель", "Ударная", true, owner,
+                stillAnswered));
+        matcher.itemRemoved(TestItemProvider.provideItemEntity(12, "Пила", "Ручная", true, owner, null));
+
+        verify(itemRequestRepository, timeout(1000)).findOpenById(2);
+        assertEquals(List.of(1), requestIds(matcher.score(20, owner.getId(), "Нужна дрель")));
+    }
+
+    @Test
+    void answerRemovedReopensRequestAfterCommit() {
+        when(itemRequestRepository.findOpenById(1)).thenReturn(Optional.of(provideRequest(1, "Нужна дрель",
+                requestor)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            matcher.answerRemoved(1);
+            verify(itemRequestRepository, never()).findOpenById(1);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(itemRequestRepository, timeout(1000)).findOpenById(1);
+        assertEquals(List.of(1), requestIds(matcher.score(20, owner.getId(), "Нужна дрель")));
+    }
+
+    @Test
+    void itemChangedReplacesMatches() {
+        matcher.index(provideRequest(1, "Нужна дрель", requestor));
+        matcher.index(provideRequest(2, "Нужна дрель", requestor));
+        ItemEntity item = TestItemProvider.provideItemEntity(10, "Дрель", "Нужна всем", true, owner,
+                provideRequest(1, "Нужна дрель", requestor));
+        item.setId(10);
+
+        matcher.itemChanged(item);
+
+        verify(requestMatchRepository, timeout(5000)).add(any());
+        verify(requestMatchRepository).deleteAllByRequestId(1);
+        verify(requestMatchRepository).deleteAllByItemId(10);
+        assertEquals(List.of(2), requestIds(matcher.score(10, owner.getId(), "дрель")));
+    }
+
+    @Test
+    void unavailableItemHasNoMatches() {
+        matcher.index(provideRequest(1, "Нужна дрель", requestor));
+        ItemEntity item = TestItemProvider.provideItemEntity(10, "Дрель", null, false, owner, null);
+        item.setId(10);
+
+        matcher.itemChanged(item);
+
+        verify(requestMatchRepository, timeout(5000)).deleteAllByItemId(10);
+        verify(requestMatchRepository, never()).add(any());
+    }
+
+    private static ItemRequestEntity provideRequest(Integer id, String description, UserEntity requestor) {
+        return TestItemRequestProvider.provideItemRequestEntity(id, description, requestor, LocalDateTime.now());
+    }
+
+    private static List<Integer> requestIds(List<RequestMatchEntity> matches) {
+        return matches.stream()
+                .map(RequestMatchEntity::getRequestId)
+                .collect(Collectors.toList());
+    }
+}
@@ -5,9 +5,22 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mapstruct.factory.Mappers;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.model.BookingCount;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingCounters;
+import ru.practicum.shareit.booking.storage.BookingHistoryRepository;
+import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.classBuilder.TestUserProvider;
 import ru.practicum.shareit.exception.DataAlreadyExistsException;
 import ru.practicum.shareit.exception.DataDoesNotExistsException;
+import ru.practicum.shareit.item.search.FuzzyItemSearch;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.service.ItemRequestFeed;
+import ru.practicum.shareit.request.service.RequestMatcher;
 import ru.practicum.shareit.user.entity.UserEntity;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
@@ -33,14 +46,36 @@ import static org.mockito.Mockito.when;
 public class UserServiceImplTest {
 
     private UserRepository userRepository;
+    private ItemRepository itemRepository;
+    private BookingRepository bookingRepository;
+    private BookingHistoryRepository bookingHistoryRepository;
+    private BookingCounters bookingCounters;
+    private ItemSearchEngine itemSearchEngine;
+    private ItemSearchCache itemSearchCache;
+    private ItemNameSuggester itemNameSuggester;
+    private FuzzyItemSearch fuzzyItemSearch;
+    private RequestMatcher requestMatcher;
+    private ItemRequestFeed itemRequestFeed;
     private UserMapper userMapper;
     private UserServiceImpl userService;
 
     @BeforeEach
     void setUp() {
         userRepository = mock(UserRepository.class);
+        itemRepository = mock(ItemRepository.class);
+        bookingRepository = mock(BookingRepository.class);
+        bookingHistoryRepository = mock(BookingHistoryRepository.class);
+        bookingCounters = mock(BookingCounters.class);
+        itemSearchEngine = mock(ItemSearchEngine.class);
+        itemSearchCache = mock(ItemSearchCache.class);
+        itemNameSuggester = mock(ItemNameSuggester.class);
+        fuzzyItemSearch = mock(FuzzyItemSearch.class);
+        requestMatcher = mock(RequestMatcher.class);
+        itemRequestFeed = mock(ItemRequestFeed.class);
         userMapper = Mappers.getMapper(UserMapper.class);
-        userService = new UserServiceImpl(userRepository, userMapper);
+        userService = new UserServiceImpl(userRepository, itemRepository, bookingRepository,
+                bookingHistoryRepository, bookingCounters, itemSearchEngine, itemSearchCache, itemNameSuggester,
+                fuzzyItemSearch, requestMatcher, itemRequestFeed, userMapper);
     }
 
     @Test
@@ -51,6 +86,7 @@ public class UserServiceImplTest {
         when(userRepository.save(any())).thenReturn(userMapper.toUserEntity(expected));
 
         assertEquals(expected, userService.add(user));
+        verify(bookingCounters, times(1)).userAdded(1);
     }
 
     @Test
@@ -94,8 +130,27 @@ public class UserServiceImplTest {
 
     @Test
     void delete() {
+        when(itemRepository.findAllIdsByOwnerIdOrRequestorId(1)).thenReturn(List.of(2, 3));
+        when(itemRepository.findAllRequestIdsAnsweredByOwnerId(1)).thenReturn(List.of(5));
+        List<BookingCount> counts = List.of(new BookingCount(1, 4, BookingStatus.WAITING, BookingPhase.FUTURE, 2));
+        when(bookingHistoryRepository.countAllCascadedByUser(1)).thenReturn(counts);
+
         userService.delete(1);
+        verify(bookingRepository, times(1)).lockAllIdsCascadedByUser(1);
+        verify(bookingCounters, times(1)).userRemoved(1, counts);
         verify(userRepository, times(1)).deleteById(1);
+        verify(itemSearchEngine, times(1)).remove(2);
+        verify(itemSearchEngine, times(1)).remove(3);
+        verify(itemSearchCache, times(1)).invalidate();
+        verify(itemNameSuggester, times(1)).remove(2);
+        verify(itemNameSuggester, times(1)).remove(3);
+        verify(fuzzyItemSearch, times(1)).remove(2);
+        verify(fuzzyItemSearch, times(1)).remove(3);
+        verify(requestMatcher, times(1)).removeAllOf(1);
+        verify(requestMatcher, times(1)).answerRemoved(5);
+        verify(itemRequestFeed, times(1)).itemRemoved(2);
+        verify(itemRequestFeed, times(1)).itemRemoved(3);
+        verify(itemRequestFeed, times(1)).requestorRemoved(1);
     }
 
     @Test